@@ -0,0 +1,185 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.rpc.json;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.knime.core.rpc.RpcTransport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests {@link JsonRpcBatchingTransport}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class JsonRpcBatchingTransportTest {
+
+    /**
+     * Tests that requests issued while a request is in flight are combined into a single batch and that the responses
+     * are matched to the respective calls.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentRequestsAreBatched() throws Exception {
+        final ObjectMapper mapper = ObjectMapperUtil.getInstance().getObjectMapper();
+        final JsonRpcServer server = new JsonRpcServer();
+        server.addService(EchoService.class, new EchoServiceImpl());
+
+        final CountDownLatch firstRequestReceived = new CountDownLatch(1);
+        final CountDownLatch releaseFirstRequest = new CountDownLatch(1);
+        final AtomicInteger roundTrips = new AtomicInteger();
+        final RpcTransport serverTransport = rpc -> {
+            if (roundTrips.incrementAndGet() == 1) {
+                firstRequestReceived.countDown();
+                try {
+                    releaseFirstRequest.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return handle(server, rpc);
+        };
+        final JsonRpcBatchingTransport transport = new JsonRpcBatchingTransport(serverTransport, mapper, 10);
+        final List<CompletableFuture<String>> results = new ArrayList<>();
+        results.add(transport.sendAndReceiveAsync(request(mapper, "a", 0)));
+        firstRequestReceived.await(10, TimeUnit.SECONDS);
+        for (int i = 1; i < 6; i++) {
+            results.add(transport.sendAndReceiveAsync(request(mapper, "v" + i, i)));
+        }
+        releaseFirstRequest.countDown();
+
+        assertThat(JsonRpcClient.<String> convertResult(results.get(0).get(10, TimeUnit.SECONDS), String.class,
+            mapper), is("aa"));
+        for (int i = 1; i < 6; i++) {
+            assertThat(JsonRpcClient.<String> convertResult(results.get(i).get(10, TimeUnit.SECONDS), String.class,
+                mapper), is("v" + i + "v" + i));
+        }
+        assertThat("Number of round trips", roundTrips.get(), is(2));
+    }
+
+    /**
+     * Tests that a numeric id and a string id with the same text are told apart when matching the responses of a
+     * batch.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNumericAndStringIdsAreDistinguished() throws Exception {
+        final CountDownLatch firstRequestReceived = new CountDownLatch(1);
+        final CountDownLatch releaseFirstRequest = new CountDownLatch(1);
+        final AtomicInteger roundTrips = new AtomicInteger();
+        final RpcTransport serverTransport = rpc -> {
+            if (roundTrips.incrementAndGet() == 1) {
+                firstRequestReceived.countDown();
+                try {
+                    releaseFirstRequest.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return "{\"jsonrpc\":\"2.0\",\"result\":\"first\",\"id\":0}";
+            }
+            return "[{\"jsonrpc\":\"2.0\",\"result\":\"string\",\"id\":\"1\"},"
+                + "{\"jsonrpc\":\"2.0\",\"result\":\"number\",\"id\":1}]";
+        };
+        final JsonRpcBatchingTransport transport = new JsonRpcBatchingTransport(serverTransport);
+        final CompletableFuture<String> first =
+            transport.sendAndReceiveAsync("{\"jsonrpc\":\"2.0\",\"method\":\"m\",\"params\":[],\"id\":0}");
+        firstRequestReceived.await(10, TimeUnit.SECONDS);
+        final CompletableFuture<String> numeric = transport
+            .sendAndReceiveAsync("{\"jsonrpc\":\"2.0\",\"method\":\"m\",\"params\":[{\"id\":\"x\"}],\"id\":1}");
+        final CompletableFuture<String> string =
+            transport.sendAndReceiveAsync("{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"method\":\"m\",\"params\":[]}");
+        releaseFirstRequest.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS).contains("\"first\""), is(true));
+        assertThat(numeric.get(10, TimeUnit.SECONDS).contains("\"number\""), is(true));
+        assertThat(string.get(10, TimeUnit.SECONDS).contains("\"string\""), is(true));
+        assertThat("Number of round trips", roundTrips.get(), is(2));
+    }
+
+    private static String request(final ObjectMapper mapper, final String arg, final long id) throws Exception {
+        return JsonRpcClient.convertCall("EchoService", EchoService.class.getMethod("echo", String.class),
+            new Object[]{arg}, mapper, id);
+    }
+
+    private static String handle(final JsonRpcServer server, final String rpc) {
+        try (ByteArrayInputStream request = new ByteArrayInputStream(rpc.getBytes(StandardCharsets.UTF_8));
+                ByteArrayOutputStream response = new ByteArrayOutputStream()) {
+            server.handleRequest(request, response);
+            return new String(response.toByteArray(), StandardCharsets.UTF_8.name());
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @SuppressWarnings("javadoc")
+    public interface EchoService {
+        String echo(String s);
+    }
+
+    @SuppressWarnings("javadoc")
+    public static class EchoServiceImpl implements EchoService {
+        @Override
+        public String echo(final String s) {
+            return s + s;
+        }
+    }
+}
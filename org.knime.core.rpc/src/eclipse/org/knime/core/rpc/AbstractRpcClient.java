@@ -55,7 +55,12 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -80,6 +85,26 @@
  */
 public abstract class AbstractRpcClient implements RpcClient {
 
+    /** Maximum number of remote service calls evaluated concurrently, further calls are queued. */
+    private static final int MAX_REMOTE_CALL_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Evaluates service calls on remote node models, see {@link #callServiceWithRes(Class, String, Function)}. At most
+     * {@link #MAX_REMOTE_CALL_THREADS} daemon threads, idle threads are discarded after a minute.
+     */
+    private static final ExecutorService REMOTE_CALL_EXECUTOR = createRemoteCallExecutor();
+
+    private static ExecutorService createRemoteCallExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_REMOTE_CALL_THREADS, MAX_REMOTE_CALL_THREADS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "KNIME-RPC-Client");
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Used to transport the serialized remote procedure call to a remote node model.
      */
@@ -200,11 +225,22 @@ public <S> Future<Void> callService(final Class<S> serviceInterface, final Strin
         });
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * If the node model lives in the same JVM, the service is evaluated on the calling thread. Otherwise the
+     * evaluation is done asynchronously so that the caller isn't blocked by the round trip(s) to the remote node model;
+     * concurrent calls can then be combined into one request by the transport.
+     */
     @Override
     public <S, R> Future<R> callServiceWithRes(final Class<S> serviceInterface, final String serviceName,
         final Function<S, R> serviceEvaluator) {
-        S service = getService(serviceInterface);
+        S service = getService(serviceInterface, serviceName);
 
+        if (isConnectedRemotely()) {
+            return CompletableFuture.supplyAsync(() -> serviceEvaluator.apply(service), REMOTE_CALL_EXECUTOR);
+        }
         CompletableFuture<R> result = new CompletableFuture<>();
         result.complete(serviceEvaluator.apply(service));
         return result;
@@ -227,7 +263,12 @@ private <S> S createRemoteProxyHandler(final Class<S> serviceInterface, final St
         return (S)Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class[]{serviceInterface},
             (proxy, method, params) -> {
                 String request = convertCall(serviceName, method, params);
-                String response = m_rpcTransport.sendAndReceive(request);
+                String response;
+                try {
+                    response = m_rpcTransport.sendAndReceiveAsync(request).get();
+                } catch (ExecutionException ex) {
+                    throw ex.getCause() != null ? ex.getCause() : ex;
+                }
                 // TODO save some memory via streaming? e.g., new PipedOutputStream() //NOSONAR
                 return convertResult(response, method.getGenericReturnType());
             });
@@ -48,6 +48,8 @@
  */
 package org.knime.core.rpc;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * To deliver remote procedure calls to a remote (different machine and/or language) rpc server provided by a node
  * factory, different mechanisms can be used. This interface abstracts from the mechanism used, to deliver the remote
@@ -74,4 +76,18 @@ public interface RpcTransport {
      */
     String sendAndReceive(String rpc);
 
+    /**
+     * Asynchronous variant of {@link #sendAndReceive(String)}. Transports that can have several requests in flight
+     * (or that combine concurrent requests into batches, see
+     * {@link org.knime.core.rpc.json.JsonRpcBatchingTransport}) override this method; the default implementation
+     * delegates to {@link #sendAndReceive(String)} on the calling thread.
+     *
+     * @param rpc a remote procedure call, see {@link #sendAndReceive(String)}
+     * @return a future of the serialized response, see {@link #sendAndReceive(String)}
+     * @since 4.4
+     */
+    default CompletableFuture<String> sendAndReceiveAsync(final String rpc) {
+        return CompletableFuture.completedFuture(sendAndReceive(rpc));
+    }
+
 }
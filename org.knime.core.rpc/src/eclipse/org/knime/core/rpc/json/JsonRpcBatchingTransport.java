@@ -0,0 +1,279 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.rpc.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.util.CheckUtils;
+import org.knime.core.rpc.RpcTransport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A transport decorator that combines concurrently issued JSON-RPC requests into JSON-RPC batch requests (a JSON array
+ * of request objects), which are delivered to the delegate transport in a single round trip. The
+ * {@link JsonRpcServer} answers such batches with an array of responses, which are matched to the pending calls via
+ * their JSON-RPC id.
+ *
+ * <p>
+ * Requests passed to {@link #sendAndReceiveAsync(String)} are queued; a batch is sent as soon as the previous batch
+ * has been answered or once {@link #getMaxBatchSize()} requests are queued. Synchronous calls to
+ * {@link #sendAndReceive(String)} and requests without id (notifications) bypass the queue. The ids of concurrently
+ * pending requests must be unique, which is the case if the transport is used by a single {@link JsonRpcClient}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @noextend This class is not intended to be subclassed by clients.
+ *
+ * @since 4.4
+ */
+public final class JsonRpcBatchingTransport implements RpcTransport {
+
+    /** Default maximum number of requests combined into one batch. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    /** Maximum number of batches delivered concurrently by all batching transports. */
+    private static final int MAX_SENDER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Delivers the batches to the delegate transports. The delivery blocks on network I/O, hence it must not run on
+     * the common fork join pool. Daemon threads, idle threads are discarded after a minute.
+     */
+    private static final ExecutorService SENDER_EXECUTOR = createSenderExecutor();
+
+    private static ExecutorService createSenderExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_SENDER_THREADS, MAX_SENDER_THREADS, 60L,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "KNIME-RPC-Batch-Sender");
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private final RpcTransport m_delegate;
+
+    private final ObjectMapper m_mapper;
+
+    private final int m_maxBatchSize;
+
+    /** Queued calls, guarded by 'this'. */
+    private List<PendingCall> m_pending = new ArrayList<>();
+
+    /** Whether a batch is currently in flight, guarded by 'this'. */
+    private boolean m_isSending;
+
+    /**
+     * @param delegate the transport used to deliver the (batched) requests
+     */
+    public JsonRpcBatchingTransport(final RpcTransport delegate) {
+        this(delegate, ObjectMapperUtil.getInstance().getObjectMapper(), DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param delegate the transport used to deliver the (batched) requests
+     * @param mapper used to parse requests and responses
+     * @param maxBatchSize the maximum number of requests per batch, at least 1
+     */
+    public JsonRpcBatchingTransport(final RpcTransport delegate, final ObjectMapper mapper, final int maxBatchSize) {
+        m_delegate = CheckUtils.checkArgumentNotNull(delegate, "Delegate transport must not be null.");
+        m_mapper = CheckUtils.checkArgumentNotNull(mapper, "Object mapper must not be null.");
+        CheckUtils.checkArgument(maxBatchSize > 0, "Batch size must be positive: %d", maxBatchSize);
+        m_maxBatchSize = maxBatchSize;
+    }
+
+    /** @return the maximum number of requests combined into one batch */
+    public int getMaxBatchSize() {
+        return m_maxBatchSize;
+    }
+
+    @Override
+    public String sendAndReceive(final String rpc) {
+        return m_delegate.sendAndReceive(rpc);
+    }
+
+    @Override
+    public CompletableFuture<String> sendAndReceiveAsync(final String rpc) {
+        final JsonNode id = readId(rpc);
+        if (id == null) {
+            return m_delegate.sendAndReceiveAsync(rpc);
+        }
+        final PendingCall call = new PendingCall(id, rpc);
+        final List<PendingCall> batch;
+        synchronized (this) {
+            m_pending.add(call);
+            if (m_isSending && m_pending.size() < m_maxBatchSize) {
+                return call.m_result; // picked up once the batch in flight returns
+            }
+            batch = takePending();
+        }
+        CompletableFuture.runAsync(() -> send(batch), SENDER_EXECUTOR);
+        return call.m_result;
+    }
+
+    /** Removes up to max batch size calls from the queue and marks a batch as in flight. Caller holds the lock. */
+    private List<PendingCall> takePending() {
+        assert Thread.holdsLock(this);
+        final List<PendingCall> batch;
+        if (m_pending.size() <= m_maxBatchSize) {
+            batch = m_pending;
+            m_pending = new ArrayList<>();
+        } else {
+            batch = new ArrayList<>(m_pending.subList(0, m_maxBatchSize));
+            m_pending = new ArrayList<>(m_pending.subList(m_maxBatchSize, m_pending.size()));
+        }
+        m_isSending = true;
+        return batch;
+    }
+
+    private void send(final List<PendingCall> batch) {
+        List<PendingCall> next = batch;
+        while (!next.isEmpty()) {
+            sendBatch(next);
+            synchronized (this) {
+                if (m_pending.isEmpty()) {
+                    m_isSending = false;
+                    next = new ArrayList<>();
+                } else {
+                    next = takePending();
+                }
+            }
+        }
+    }
+
+    private void sendBatch(final List<PendingCall> batch) {
+        try {
+            if (batch.size() == 1) {
+                final PendingCall call = batch.get(0);
+                call.m_result.complete(m_delegate.sendAndReceive(call.m_request));
+                return;
+            }
+            final StringBuilder request = new StringBuilder("[");
+            for (int i = 0; i < batch.size(); i++) {
+                request.append(i > 0 ? "," : "").append(batch.get(i).m_request);
+            }
+            request.append(']');
+            final JsonNode responses = m_mapper.readTree(m_delegate.sendAndReceive(request.toString()));
+            if (!responses.isArray()) {
+                throw new IllegalStateException("Expected array as response to JSON-RPC batch, got: " + responses);
+            }
+            final Map<JsonNode, String> responsesById = new HashMap<>();
+            for (JsonNode response : responses) {
+                final JsonNode id = response.get("id");
+                if (id != null) {
+                    responsesById.put(id, response.toString());
+                }
+            }
+            for (PendingCall call : batch) {
+                final String response = responsesById.get(call.m_id);
+                if (response != null) {
+                    call.m_result.complete(response);
+                } else {
+                    call.m_result.completeExceptionally(
+                        new IllegalStateException("No response to JSON-RPC request with id " + call.m_id));
+                }
+            }
+        } catch (IOException | RuntimeException e) { // NOSONAR pass any problem on to the callers
+            batch.forEach(c -> c.m_result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Reads the id of the request without building the tree of the entire request; the parser stops at the id field
+     * and skips the contents of other fields (e.g. the params). The id is kept as JSON value so that a numeric id is
+     * never confused with a string id of the same text.
+     *
+     * @return the id of the request or null if it has none (or can't be parsed, which is left to the server)
+     */
+    private JsonNode readId(final String rpc) {
+        try (JsonParser parser = m_mapper.getFactory().createParser(rpc)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final boolean isId = "id".equals(parser.getCurrentName());
+                parser.nextToken();
+                if (isId) {
+                    final JsonNode id = m_mapper.readTree(parser);
+                    return id == null || id.isNull() ? null : id;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) { // NOSONAR let the server report the problem
+            return null;
+        }
+    }
+
+    private static final class PendingCall {
+
+        private final JsonNode m_id;
+
+        private final String m_request;
+
+        private final CompletableFuture<String> m_result = new CompletableFuture<>();
+
+        PendingCall(final JsonNode id, final String request) {
+            m_id = id;
+            m_request = request;
+        }
+    }
+}
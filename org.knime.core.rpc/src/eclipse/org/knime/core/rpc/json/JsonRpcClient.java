@@ -52,6 +52,7 @@
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import org.knime.core.node.util.CheckUtils;
@@ -86,7 +87,7 @@ public class JsonRpcClient extends AbstractRpcClient {
     /**
      * Used in the JSON-RPC call as id to correlate the request with the response.
      */
-    private long m_callId = 0;
+    private final AtomicLong m_callId = new AtomicLong();
 
     /**
      * The JSON-RPC client initialized with a default object mapper.
@@ -113,8 +114,7 @@ public JsonRpcClient(final ObjectMapper mapper) {
 
     @Override
     protected String convertCall(final String serviceName, final Method method, final Object[] args) {
-        String res = convertCall(serviceName, method, args, m_mapper, m_callId);
-        m_callId++;
+        String res = convertCall(serviceName, method, args, m_mapper, m_callId.getAndIncrement());
         return res;
     }
 
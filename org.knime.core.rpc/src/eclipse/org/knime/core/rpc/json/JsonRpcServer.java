@@ -132,7 +132,9 @@ public <S> void addService(final String serviceName, final S handler) {
     /**
      * Handles a single request from the given InputStream, that is, a single JsonNode is read from the stream and
      * treated as a JSON-RPC request. All responses are written to the given OutputStream. The method to call needs to
-     * include the simple name of the service interface, see {@link #addService(Class, Object)}.
+     * include the simple name of the service interface, see {@link #addService(Class, Object)}. A JSON array of requests
+     * (JSON-RPC batch, see {@link JsonRpcBatchingTransport}) is answered with a JSON array of responses, i.e. several
+     * calls are served with a single round trip.
      */
     @Override
     public void handleRequest(final InputStream in, final OutputStream out) throws IOException {
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * Tests the type cache and compatibility checks of {@link DataType}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DataTypeTest {
+
+    @SuppressWarnings("serial")
+    private static final class ConcurrentlyRequestedCell extends DataCell implements IntValue {
+        @Override
+        public int getIntValue() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "0";
+        }
+
+        @Override
+        protected boolean equalsDataCell(final DataCell dc) {
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    /**
+     * Tests that types requested concurrently from many threads are the same instance.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testConcurrentGetTypeReturnsSameInstance() throws Exception {
+        final int nrThreads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(nrThreads);
+        try {
+            final List<Callable<DataType[]>> tasks = IntStream.range(0, nrThreads)
+                .mapToObj(i -> (Callable<DataType[]>)() -> new DataType[]{
+                    DataType.getType(ConcurrentlyRequestedCell.class),
+                    DataType.getType(ListCell.class, DataType.getType(ConcurrentlyRequestedCell.class))})
+                .collect(Collectors.toList());
+            final List<Future<DataType[]>> results = executor.invokeAll(tasks);
+            final DataType[] first = results.get(0).get();
+            for (Future<DataType[]> result : results) {
+                assertSame(first[0], result.get()[0]);
+                assertSame(first[1], result.get()[1]);
+            }
+            assertSame(first[0], DataType.getType(ConcurrentlyRequestedCell.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Tests compatibility checks, which are partially cached. */
+    @Test
+    public void testIsCompatible() {
+        for (int i = 0; i < 2; i++) {
+            assertTrue(IntCell.TYPE.isCompatible(IntValue.class));
+            assertTrue(IntCell.TYPE.isCompatible(DoubleValue.class));
+            assertTrue(IntCell.TYPE.isCompatible(DataValue.class));
+            assertFalse(IntCell.TYPE.isCompatible(StringValue.class));
+            assertFalse(DoubleCell.TYPE.isCompatible(IntValue.class));
+            assertTrue(DataType.getMissingCell().getType().isCompatible(StringValue.class));
+            assertTrue(DoubleCell.TYPE.isASuperTypeOf(IntCell.TYPE));
+            assertFalse(IntCell.TYPE.isASuperTypeOf(DoubleCell.TYPE));
+        }
+    }
+
+    /** Tests that the available data types are initialized once. */
+    @Test
+    public void testAvailableDataTypes() {
+        assertSame(DataTypeRegistry.getInstance().availableDataTypes(),
+            DataTypeRegistry.getInstance().availableDataTypes());
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Tests the primitive array backed list and set cells, such as {@link DoubleListCell} and {@link IntSetCell}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrimitiveCollectionCellTest {
+
+    /** Tests element access of the list cells and equality to {@link ListCell}s with the same elements. */
+    @Test
+    public void testListCellsEqualListCell() {
+        final double[] doubles = {1.5, -0.0, Double.NaN, 3};
+        final DoubleListCell doubleList = CollectionCellFactory.createDoubleListCell(doubles);
+        assertEquals(4, doubleList.size());
+        assertEquals(DoubleCell.TYPE, doubleList.getElementType());
+        assertEquals(new DoubleCell(1.5), doubleList.get(0));
+        assertEquals(-0.0, doubleList.getDouble(1), 0.0);
+        assertArrayEquals(doubles, doubleList.getDoubleArray(), 0.0);
+        assertEqualToListCell(doubleList);
+        assertEquals(DoubleListCell.TYPE, doubleList.getType());
+        assertTrue(doubleList.getType().isCompatible(ListDataValue.class));
+
+        final IntListCell intList = CollectionCellFactory.createIntListCell(new int[]{3, 1, 3, Integer.MIN_VALUE});
+        assertEquals(new IntCell(Integer.MIN_VALUE), intList.get(3));
+        assertEqualToListCell(intList);
+
+        final LongListCell longList = CollectionCellFactory.createLongListCell(new long[]{Long.MAX_VALUE, 0, -1});
+        assertEquals(Long.MAX_VALUE, longList.getLong(0));
+        assertEqualToListCell(longList);
+
+        final boolean[] booleans = new boolean[130];
+        for (int i = 0; i < booleans.length; i += 3) {
+            booleans[i] = true;
+        }
+        final BooleanListCell booleanList = CollectionCellFactory.createBooleanListCell(booleans);
+        assertEquals(130, booleanList.size());
+        assertEquals(BooleanCell.TRUE, booleanList.get(129));
+        assertEquals(BooleanCell.FALSE, booleanList.get(128));
+        assertEquals(44, booleanList.getTrueCount());
+        assertArrayEquals(booleans, booleanList.getBooleanArray());
+        assertEqualToListCell(booleanList);
+
+        assertNotEquals(intList, CollectionCellFactory.createIntListCell(new int[]{3, 1, 3}));
+        assertNotEquals(CollectionCellFactory.createListCell(intList.stream().skip(1).collect(Collectors.toList())),
+            intList);
+    }
+
+    private static void assertEqualToListCell(final ListDataValue primitiveList) {
+        final List<DataCell> elements = new ArrayList<>();
+        primitiveList.forEach(elements::add);
+        assertEquals(primitiveList.size(), elements.size());
+        final ListCell listCell = CollectionCellFactory.createListCell(elements);
+        assertEquals(listCell, primitiveList);
+        assertEquals(primitiveList, listCell);
+        assertEquals(listCell.hashCode(), primitiveList.hashCode());
+        assertEquals(listCell.toString(), primitiveList.toString());
+    }
+
+    /**
+     * Tests that the types of the primitive cells are equal to the types of {@link ListCell} and {@link SetCell} with
+     * the same element type, i.e. that tables created with the primitive cells have the same spec as before.
+     */
+    @Test
+    public void testTypesEqualCollectionTypes() {
+        assertSameType(ListCell.getCollectionType(DoubleCell.TYPE), DoubleListCell.TYPE);
+        assertSameType(ListCell.getCollectionType(IntCell.TYPE), IntListCell.TYPE);
+        assertSameType(ListCell.getCollectionType(LongCell.TYPE), LongListCell.TYPE);
+        assertSameType(ListCell.getCollectionType(BooleanCell.TYPE), BooleanListCell.TYPE);
+        assertSameType(SetCell.getCollectionType(DoubleCell.TYPE), DoubleSetCell.TYPE);
+        assertSameType(SetCell.getCollectionType(IntCell.TYPE), IntSetCell.TYPE);
+        assertSameType(SetCell.getCollectionType(LongCell.TYPE), LongSetCell.TYPE);
+
+        assertNotEquals(ListCell.getCollectionType(IntCell.TYPE), IntSetCell.TYPE);
+        assertNotEquals(ListCell.getCollectionType(LongCell.TYPE), IntListCell.TYPE);
+
+        final DataTableSpec expected = new DataTableSpec(
+            new DataColumnSpecCreator("list", ListCell.getCollectionType(DoubleCell.TYPE)).createSpec(),
+            new DataColumnSpecCreator("set", SetCell.getCollectionType(IntCell.TYPE)).createSpec());
+        final DataTableSpec actual =
+            new DataTableSpec(new DataColumnSpecCreator("list", DoubleListCell.TYPE).createSpec(),
+                new DataColumnSpecCreator("set", IntSetCell.TYPE).createSpec());
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    private static void assertSameType(final DataType collectionType, final DataType primitiveType) {
+        assertEquals(collectionType, primitiveType);
+        assertEquals(primitiveType, collectionType);
+        assertEquals(collectionType.hashCode(), primitiveType.hashCode());
+        assertEquals(collectionType.getName(), primitiveType.getName());
+        assertTrue(collectionType.isASuperTypeOf(primitiveType));
+        assertTrue(primitiveType.isASuperTypeOf(collectionType));
+        assertEquals(collectionType, DataType.getCommonSuperType(collectionType, primitiveType));
+    }
+
+    /** Tests that set cells remove duplicates and test membership. */
+    @Test
+    public void testSetCells() {
+        final DoubleSetCell doubleSet = CollectionCellFactory.createDoubleSetCell(new double[]{2, Double.NaN, 2, -1});
+        assertEquals(3, doubleSet.size());
+        assertArrayEquals(new double[]{-1, 2, Double.NaN}, doubleSet.getDoubleArray(), 0.0);
+        assertTrue(doubleSet.contains(new DoubleCell(Double.NaN)));
+        assertTrue(doubleSet.contains(2.0));
+        assertFalse(doubleSet.contains(new IntCell(2)));
+        assertFalse(doubleSet.contains(DataType.getMissingCell()));
+
+        final IntSetCell intSet = CollectionCellFactory.createIntSetCell(new int[]{5, 5, 5});
+        assertEquals(1, intSet.size());
+        assertTrue(intSet.contains(new IntCell(5)));
+        assertFalse(intSet.contains(4));
+        assertEquals(intSet, CollectionCellFactory.createIntSetCell(new int[]{5}));
+
+        final LongSetCell longSet = CollectionCellFactory.createLongSetCell(new long[]{3, 1, 2, 1});
+        assertArrayEquals(new long[]{1, 2, 3}, longSet.getLongArray());
+        assertTrue(longSet.contains(new LongCell(3)));
+        assertEquals(longSet, CollectionCellFactory.createLongSetCell(new long[]{1, 2, 3}));
+        assertEquals(0, CollectionCellFactory.createLongSetCell(new long[0]).size());
+    }
+
+    /** Tests equality of the set cells to {@link SetCell}s with the same elements, in any order. */
+    @Test
+    public void testSetCellsEqualSetCell() {
+        assertEqualToSetCell(CollectionCellFactory.createDoubleSetCell(new double[]{2, Double.NaN, -1}));
+        assertEqualToSetCell(CollectionCellFactory.createIntSetCell(new int[]{3, 1, Integer.MIN_VALUE}));
+        assertEqualToSetCell(CollectionCellFactory.createLongSetCell(new long[]{Long.MAX_VALUE, 0, -1}));
+        assertEqualToSetCell(CollectionCellFactory.createLongSetCell(new long[0]));
+
+        final IntSetCell intSet = CollectionCellFactory.createIntSetCell(new int[]{1, 2});
+        assertNotEquals(CollectionCellFactory.createSetCell(Arrays.asList(new IntCell(1), new IntCell(3))), intSet);
+        assertNotEquals(intSet, CollectionCellFactory.createSetCell(Arrays.asList(new IntCell(1))));
+        assertNotEquals(intSet, CollectionCellFactory.createSetCell(Arrays.asList(new IntCell(1), new LongCell(2))));
+        assertNotEquals(intSet,
+            CollectionCellFactory.createSetCell(Arrays.asList(new IntCell(1), DataType.getMissingCell())));
+    }
+
+    private static void assertEqualToSetCell(final SetDataValue primitiveSet) {
+        final List<DataCell> elements = new ArrayList<>();
+        primitiveSet.forEach(elements::add);
+        Collections.reverse(elements);
+        final SetCell setCell = CollectionCellFactory.createSetCell(elements);
+        assertEquals(setCell, primitiveSet);
+        assertEquals(primitiveSet, setCell);
+        assertEquals(setCell.hashCode(), primitiveSet.hashCode());
+    }
+
+    /**
+     * Tests that all cells are restored by their registered serializers, also for arrays larger than the serializer's
+     * intermediate buffer.
+     *
+     * @throws IOException if serialization fails
+     */
+    @Test
+    public void testSerialization() throws IOException {
+        final Random random = new Random(42);
+        for (int size : new int[]{0, 1, 100, 5000}) {
+            final boolean[] booleans = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                booleans[i] = random.nextBoolean();
+            }
+            final DataCell[] cells = new DataCell[]{
+                CollectionCellFactory.createDoubleListCell(random.doubles(size).toArray()),
+                CollectionCellFactory.createIntListCell(random.ints(size).toArray()),
+                CollectionCellFactory.createLongListCell(random.longs(size).toArray()),
+                CollectionCellFactory.createBooleanListCell(booleans),
+                CollectionCellFactory.createDoubleSetCell(random.doubles(size).toArray()),
+                CollectionCellFactory.createIntSetCell(random.ints(size, 0, 100).toArray()),
+                CollectionCellFactory.createLongSetCell(random.longs(size).toArray())};
+            for (DataCell cell : cells) {
+                assertEquals(cell, serializeAndDeserialize(cell));
+            }
+        }
+    }
+
+    private static DataCell serializeAndDeserialize(final DataCell cell) throws IOException {
+        final DataCellSerializer<DataCell> serializer = DataTypeRegistry.getInstance().getSerializer(cell.getClass())
+            .orElseThrow(() -> new AssertionError("No serializer for " + cell));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final CellDataOutput output = new CellDataOutput(bytes)) {
+            serializer.serialize(cell, output);
+        }
+        try (final CellDataInput input = new CellDataInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final DataCell result = serializer.deserialize(input);
+            assertEquals("Not all bytes read", -1, input.read());
+            return result;
+        }
+    }
+
+    private static final class CellDataOutput extends DataOutputStream implements DataCellDataOutput {
+        CellDataOutput(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            throw new UnsupportedOperationException("Primitive collections must not write nested cells");
+        }
+    }
+
+    private static final class CellDataInput extends DataInputStream implements DataCellDataInput {
+        CellDataInput(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public DataCell readDataCell() throws IOException {
+            throw new UnsupportedOperationException("Primitive collections must not read nested cells");
+        }
+    }
+}
@@ -45,7 +45,10 @@
  */
 package org.knime.core.data.container;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
@@ -53,16 +56,20 @@
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Test;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
@@ -70,16 +77,20 @@
 import org.knime.core.data.MissingValue;
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.collection.CollectionCellFactory;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.NonClosableOutputStream;
 import org.knime.core.data.util.ObjectToDataCellConverter;
 import org.knime.core.data.util.memory.MemoryAlertSystem;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.DefaultNodeProgressMonitor;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettings;
 import org.knime.core.util.DuplicateKeyException;
 import org.knime.core.util.FileUtil;
 
@@ -775,6 +786,200 @@ public void testWriteRead() throws IOException, CanceledExecutionException, Inte
         }
     }
 
+    /**
+     * Writes a table with its binary data next to the zip file and reads it back, which links the data file into the
+     * temp directory instead of extracting it.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 5000)
+    public void testWriteReadSidecar() throws Exception {
+        final ContainerTable writeTable = generateMediumSizedTable();
+        final Buffer buffer = ((BufferedContainerTable)writeTable).getBuffer();
+        BufferTest.waitForBufferToBeFlushed(buffer);
+
+        final File dir = FileUtil.createTempDir("testWriteReadSidecar");
+        final File zipFile = new File(dir, "data.zip");
+        final File sidecarFile = new File(dir, "data.bin");
+        final ExecutionMonitor exec = new ExecutionMonitor(new DefaultNodeProgressMonitor());
+        try (ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            zipOut.putNextEntry(new ZipEntry(BufferedDataContainerDelegate.ZIP_ENTRY_SPEC));
+            final NodeSettings settings = new NodeSettings("Table Spec");
+            writeTable.getDataTableSpec().save(settings.addNodeSettings(BufferedDataContainerDelegate.CFG_TABLESPEC));
+            settings.saveToXML(new NonClosableOutputStream.Zip(zipOut));
+            buffer.addToZipFile(zipOut, sidecarFile, exec);
+        }
+        assertTrue("Data file not written next to zip file", sidecarFile.isFile());
+        assertEquals(buffer.getBinFile().length(), sidecarFile.length());
+
+        final ContainerTable readTable = DataContainer.readFromZip(zipFile);
+        try (final CloseableRowIterator writeIt = writeTable.iterator();
+                final CloseableRowIterator readIt = readTable.iterator()) {
+            while (writeIt.hasNext() && readIt.hasNext()) {
+                final DataRow refRow = writeIt.next();
+                final DataRow dataRow = readIt.next();
+                assertEquals(refRow.getKey(), dataRow.getKey());
+                for (int j = 0; j < refRow.getNumCells(); j++) {
+                    if (!refRow.getCell(j).isMissing()) {
+                        assertEquals(refRow.getCell(j), dataRow.getCell(j));
+                    }
+                }
+            }
+            assertFalse("Read table has " + writeTable.size() + " rows", writeIt.hasNext() || readIt.hasNext());
+        }
+        // clearing the read table must not delete the data file in the "workflow"
+        readTable.clear();
+        assertTrue(sidecarFile.isFile());
+        FileUtil.deleteRecursively(dir);
+    }
+
+    /**
+     * Tests that a table written with dictionary encoded string cells (see
+     * {@link KNIMEConstants#PROPERTY_TABLE_STRING_DICTIONARY}) is read back correctly, also when the dictionary is
+     * restarted, and that repeated strings share the same cell instance when read from disc.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 20000)
+    public void testWriteReadStringDictionary() throws Exception {
+        final int distinctCount = DCObjectOutputVersion2.STRING_DICTIONARY_MAX_SIZE + 100;
+        final String longString = RandomStringUtils.randomAlphanumeric(1000);
+        final ContainerTable table;
+        System.setProperty(KNIMEConstants.PROPERTY_TABLE_STRING_DICTIONARY, Boolean.TRUE.toString());
+        try {
+            final DataContainer container = new DataContainer(SPEC_STR_INT_DBL, true, 0, true);
+            for (int i = 0; i < 3 * distinctCount; i++) {
+                final DataCell stringCell = i % 7 == 0 ? new StringCell(longString)
+                    : (i % 11 == 0 ? DataType.getMissingCell() : new StringCell("s" + (i % distinctCount)));
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i),
+                    new DataCell[]{stringCell, new IntCell(i), new DoubleCell(i)}));
+            }
+            container.close();
+            table = container.getBufferedTable();
+            BufferTest.waitForBufferToBeFlushed(((BufferedContainerTable)table).getBuffer());
+        } finally {
+            System.clearProperty(KNIMEConstants.PROPERTY_TABLE_STRING_DICTIONARY);
+        }
+        BufferTest.waitForBufferToBeCollected(((BufferedContainerTable)table).getBuffer());
+
+        int i = 0;
+        try (final CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                final DataCell cell = row.getCell(0);
+                if (i % 7 == 0) {
+                    assertEquals(longString, ((StringCell)cell).getStringValue());
+                } else if (i % 11 == 0) {
+                    assertTrue(cell.isMissing());
+                } else {
+                    assertEquals("s" + (i % distinctCount), ((StringCell)cell).getStringValue());
+                }
+                assertEquals(i, ((IntCell)row.getCell(1)).getIntValue());
+                i++;
+            }
+        }
+        assertEquals(3 * distinctCount, i);
+
+        // rows 1 and 1 + distinctCount hold the same string, which is still in the dictionary
+        try (final CloseableRowIterator it = table.iterator()) {
+            DataCell first = null;
+            for (int r = 0; r <= 1 + distinctCount; r++) {
+                final DataCell cell = it.next().getCell(0);
+                if (r == 1) {
+                    first = cell;
+                } else if (r == 1 + distinctCount) {
+                    assertSame("Repeated string not read as shared instance", first, cell);
+                }
+            }
+        }
+        table.clear();
+    }
+
+    /**
+     * Tests that a column whose cell classes (and collection element types) change from row to row is written and read
+     * back correctly, i.e. that the writer's per column serializer dispatch doesn't reuse a stale entry.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 5000)
+    public void testWriteReadMixedCellClasses() throws Exception {
+        final DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("mixed", DataType.getType(DataCell.class))
+            .createSpec(), new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+        final DataContainer container = new DataContainer(spec, true, 0, true);
+        final int rowCount = 1000;
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), mixedCell(i), new IntCell(i)));
+        }
+        container.close();
+        final ContainerTable table = container.getBufferedTable();
+        BufferTest.waitForBufferToBeFlushed(((BufferedContainerTable)table).getBuffer());
+        BufferTest.waitForBufferToBeCollected(((BufferedContainerTable)table).getBuffer());
+
+        int i = 0;
+        try (final CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                assertEquals("Cell in row " + i, mixedCell(i), row.getCell(0));
+                assertEquals(mixedCell(i).getType(), row.getCell(0).getType());
+                assertEquals(new IntCell(i), row.getCell(1));
+                i++;
+            }
+        }
+        assertEquals(rowCount, i);
+        table.clear();
+    }
+
+    private static DataCell mixedCell(final int i) {
+        switch (i % 5) {
+            case 0:
+                return new IntCell(i);
+            case 1:
+                return CollectionCellFactory.createListCell(Arrays.asList(new IntCell(i), new IntCell(-i)));
+            case 2:
+                return CollectionCellFactory.createListCell(Arrays.asList(new StringCell("s" + i)));
+            case 3:
+                return i % 2 == 0 ? new StringCell("s" + i) : new DoubleCell(i);
+            default:
+                return DataType.getMissingCell();
+        }
+    }
+
+    /**
+     * Tests that the string dictionary of the input stream stays in sync if an entry is skipped (as part of a cell that
+     * fails to be read): later entries and references to them are read correctly, only references to the skipped
+     * entry fail.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testReadStringDictionaryWithSkippedEntry() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[][] records = new byte[5][];
+        try (DCObjectOutputVersion2 out = new DCObjectOutputVersion2(bytes, null)) {
+            final String[] values = new String[]{"a", "b", "c", "c", "b"};
+            for (int r = 0; r < values.length; r++) {
+                out.writeDictionaryString(values[r]);
+                out.flush();
+                records[r] = bytes.toByteArray();
+                bytes.reset();
+            }
+        }
+        // the entry of "b" is skipped
+        for (int r : new int[]{0, 2, 3, 4}) {
+            bytes.write(records[r]);
+        }
+        final DCObjectInputVersion2 in = new DCObjectInputVersion2(new ByteArrayInputStream(bytes.toByteArray()), null);
+        assertEquals("a", in.readDictionaryString(in.readControlByte()).getStringValue());
+        final StringCell c = in.readDictionaryString(in.readControlByte());
+        assertEquals("c", c.getStringValue());
+        assertSame(c, in.readDictionaryString(in.readControlByte()));
+        try {
+            in.readDictionaryString(in.readControlByte());
+            fail("Reference to skipped dictionary entry not detected");
+        } catch (IOException e) { // NOSONAR expected
+        }
+    }
+
     /**
      * Generate a small-sized table. Medium-sized means smaller than a container's maximum number of cells.
      *
@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.v2.RowBatch;
+
+/**
+ * Tests for {@link FallbackRowBatchCursor}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FallbackRowBatchCursorTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec( //
+        new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(), //
+        new DataColumnSpecCreator("double", DoubleCell.TYPE).createSpec(), //
+        new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+
+    private static final int ROW_COUNT = 20;
+
+    private static ContainerTable createTable() {
+        final DataContainer container = new DataContainer(SPEC);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final DataCell intCell = i % 5 == 0 ? DataType.getMissingCell() : new IntCell(i);
+            final DataCell stringCell = i % 4 == 0 ? DataType.getMissingCell() : new StringCell("s" + (i % 3));
+            container.addRowToTable(
+                new DefaultRow(RowKey.createRowKey((long)i), intCell, new DoubleCell(i / 2.0), stringCell));
+        }
+        container.close();
+        return container.getBufferedTable();
+    }
+
+    /** Tests the primitive, validity and dictionary accessors over several (partially filled) batches. */
+    @Test
+    public void testBatches() {
+        final ContainerTable table = createTable();
+        final int batchSize = 7;
+        try (FallbackRowBatchCursor cursor = new FallbackRowBatchCursor(table.iterator(), SPEC, batchSize)) {
+            assertEquals(3, cursor.getNumColumns());
+            int row = 0;
+            int batches = 0;
+            RowBatch batch;
+            while ((batch = cursor.forward()) != null) {
+                batches++;
+                assertEquals(Math.min(batchSize, ROW_COUNT - row), batch.size());
+                final int[] ints = batch.getInts(0);
+                final long[] longs = batch.getLongs(0);
+                final double[] doubles = batch.getDoubles(1);
+                final int[] stringIndices = batch.getStringIndices(2);
+                final String[] dictionary = batch.getStringDictionary(2);
+                assertTrue(dictionary.length <= 3);
+                for (int r = 0; r < batch.size(); r++, row++) {
+                    assertEquals(RowKey.createRowKey((long)row), batch.getRowKey(r));
+                    final boolean intValid = (batch.getValidity(0)[r >>> 6] & (1L << r)) != 0;
+                    assertEquals(row % 5 != 0, intValid);
+                    assertEquals(row % 5 == 0, batch.isMissing(0, r));
+                    if (intValid) {
+                        assertEquals(row, ints[r]);
+                        assertEquals(row, longs[r]);
+                        assertEquals(new IntCell(row), batch.getValue(0, r));
+                    } else {
+                        assertNull(batch.getValue(0, r));
+                    }
+                    assertEquals(row / 2.0, doubles[r], 0.0);
+                    if (row % 4 == 0) {
+                        assertEquals(-1, stringIndices[r]);
+                    } else {
+                        assertEquals("s" + (row % 3), dictionary[stringIndices[r]]);
+                    }
+                }
+            }
+            assertEquals(ROW_COUNT, row);
+            assertEquals(3, batches);
+            assertFalse(cursor.canForward());
+        }
+    }
+
+    /** Tests that primitive access to incompatible columns fails. */
+    @Test(expected = IllegalStateException.class)
+    public void testIncompatibleColumn() {
+        try (FallbackRowBatchCursor cursor = new FallbackRowBatchCursor(createTable().iterator(), SPEC, 4)) {
+            cursor.forward().getInts(1);
+        }
+    }
+
+    /** Tests that the dictionary only contains the distinct strings of the current batch. */
+    @Test
+    public void testDictionaryPerBatch() {
+        try (FallbackRowBatchCursor cursor = new FallbackRowBatchCursor(createTable().iterator(), SPEC, 2)) {
+            final RowBatch batch = cursor.forward();
+            // rows 0 (missing) and 1 ("s1")
+            assertArrayEquals(new String[]{"s1"}, batch.getStringDictionary(2));
+            assertEquals(-1, batch.getStringIndices(2)[0]);
+            assertEquals(0, batch.getStringIndices(2)[1]);
+        }
+    }
+}
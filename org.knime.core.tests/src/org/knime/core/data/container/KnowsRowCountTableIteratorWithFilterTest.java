@@ -47,6 +47,7 @@
 package org.knime.core.data.container;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -277,6 +278,61 @@ public void testConcatenateTable() throws Exception {
 
     }
 
+    /**
+     * Tests that deep chains of {@link RearrangeColumnsTable RearrangeColumnsTables} and {@link JoinedTable
+     * JoinedTables} are read correctly through a {@link FlattenedReferenceView}.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test
+    public void testFlattenedReferenceChain() throws Exception {
+
+        final BufferedDataTable table = createTable(0, 8, 8, 0, 16);
+        final Map<RowKey, DataRow> rowsByRowKey = new HashMap<>();
+        for (final DataRow row : table) {
+            rowsByRowKey.put(row.getKey(), row);
+        }
+
+        // rotate the columns, each time removing the first column and appending it again via a cell factory
+        ExecutionContext exec = exec();
+        BufferedDataTable chainedTable = table;
+        for (int i = 0; i < 8; i++) {
+            final int colIndex = i;
+            final ColumnRearranger rearranger = new ColumnRearranger(chainedTable.getSpec());
+            rearranger.remove(0);
+            rearranger.append(new SingleCellFactory(table.getSpec().getColumnSpec(colIndex)) {
+                @Override
+                public DataCell getCell(final DataRow row) {
+                    return rowsByRowKey.get(row.getKey()).getCell(colIndex);
+                }
+            });
+            chainedTable = exec.createColumnRearrangeTable(chainedTable, rearranger, exec);
+        }
+
+        final FlattenedReferenceView view = FlattenedReferenceView.create(Node.invokeGetDelegate(chainedTable), 1);
+        assertEquals(8, view.getDepth());
+        assertEquals(9, view.getNrSources());
+        assertNull(FlattenedReferenceView.create(Node.invokeGetDelegate(chainedTable), 9));
+
+        compareTables(table, chainedTable, createFilter(0, 7, 0, 15));
+        compareTables(table, chainedTable, createFilter(2, 6, 4, 12));
+        compareTables(table, chainedTable, createFilter(7, 7, 15, 15));
+
+        // a chain of rearranged tables on top of a joined table
+        final BufferedDataTable fullTable = createTable(0, 16, 16, 0, 16);
+        final BufferedDataTable leftTable = createTable(0, 8, 16, 0, 16);
+        final BufferedDataTable rightTable = createTable(8, 16, 16, 0, 16);
+        BufferedDataTable joinedTable = exec.createJoinedTable(leftTable, rightTable, exec);
+        for (int i = 0; i < 4; i++) {
+            final ColumnRearranger rearranger = new ColumnRearranger(joinedTable.getSpec());
+            rearranger.permute(new int[]{15, 14, 13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0});
+            joinedTable = exec.createColumnRearrangeTable(joinedTable, rearranger, exec);
+        }
+        assertEquals(5, FlattenedReferenceView.create(Node.invokeGetDelegate(joinedTable), 1).getDepth());
+        compareTables(fullTable, joinedTable, createFilter(4, 12, 4, 12));
+        compareTables(fullTable, joinedTable, createFilter(10, 12, 0, 15));
+    }
+
     private static void compareTables(final BufferedDataTable table1, final BufferedDataTable table2,
         final TableFilter filter) {
         compareTables(table1, table2, filter, filter);
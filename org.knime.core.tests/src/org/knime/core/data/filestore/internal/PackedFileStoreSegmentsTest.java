@@ -0,0 +1,254 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.filestore.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests {@link PackedFileStoreSegments}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PackedFileStoreSegmentsTest {
+
+    private File m_baseDir;
+
+    /** Creates the file store directory. */
+    @Before
+    public void setUp() throws IOException {
+        m_baseDir = FileUtil.createTempDir("packedFileStoreSegmentsTest");
+    }
+
+    /** Deletes the file store directory. */
+    @After
+    public void tearDown() {
+        FileUtil.deleteRecursively(m_baseDir);
+    }
+
+    private static ByteBuffer content(final int fsIndex) {
+        return ByteBuffer.wrap(("content of file store " + fsIndex).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertContent(final int fsIndex, final ByteBuffer actual) {
+        assertEquals("Content of file store " + fsIndex, content(fsIndex), actual);
+    }
+
+    private File segmentDir() {
+        return new File(m_baseDir, PackedFileStoreSegments.DIR_NAME);
+    }
+
+    private File segmentFile(final int segment) {
+        return new File(segmentDir(), String.format("segment-%05d.bin", segment));
+    }
+
+    /**
+     * Payloads can be read after writing, also after re-opening the segments from the index.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testWriteReadRoundTrip() throws IOException {
+        assertFalse(PackedFileStoreSegments.exists(m_baseDir));
+        final PackedFileStoreSegments segments = PackedFileStoreSegments.open(m_baseDir);
+        for (int i = 0; i < 100; i++) {
+            final ByteBuffer payload = content(i);
+            segments.write(i, payload);
+            assertEquals("Position of payload must not change", 0, payload.position());
+        }
+        for (int i = 0; i < 100; i++) {
+            final ByteBuffer read = segments.read(i);
+            assertTrue("Content must be read-only", read.isReadOnly());
+            assertContent(i, read);
+        }
+        assertNull("Unknown file store", segments.read(100));
+        segments.close();
+        assertTrue(PackedFileStoreSegments.exists(m_baseDir));
+
+        final PackedFileStoreSegments restored = PackedFileStoreSegments.open(m_baseDir);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(restored.contains(i));
+            assertContent(i, restored.read(i));
+        }
+        restored.write(100, content(100));
+        assertTrue("Restored segments are not appended to", segmentFile(1).isFile());
+        assertContent(100, restored.read(100));
+        restored.dispose();
+    }
+
+    /**
+     * Writing the same file store twice fails.
+     *
+     * @throws IOException expected
+     */
+    @Test(expected = IOException.class)
+    public void testWriteDuplicate() throws IOException {
+        final PackedFileStoreSegments segments = PackedFileStoreSegments.open(m_baseDir);
+        try {
+            segments.write(0, content(0));
+            segments.write(0, content(0));
+        } finally {
+            segments.dispose();
+        }
+    }
+
+    /**
+     * A segment is closed and deleted once all its payloads are released, releases are persisted in the index.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testReleaseDeletesSegment() throws IOException {
+        final PackedFileStoreSegments segments = PackedFileStoreSegments.open(m_baseDir);
+        segments.write(0, content(0));
+        segments.write(1, content(1));
+        segments.close();
+
+        final PackedFileStoreSegments restored = PackedFileStoreSegments.open(m_baseDir);
+        restored.write(2, content(2)); // opens segment 1 for writing
+        assertContent(0, restored.read(0)); // opens segment 0 for reading
+        assertTrue(restored.release(0));
+        assertFalse("Already released", restored.release(0));
+        assertNull(restored.read(0));
+        assertTrue("Segment still holds a payload", segmentFile(0).isFile());
+        assertContent(1, restored.read(1));
+        assertTrue(restored.release(1));
+        assertFalse("Segment without live payloads must be deleted", segmentFile(0).exists());
+        assertContent(2, restored.read(2));
+        restored.close();
+
+        final PackedFileStoreSegments reopened = PackedFileStoreSegments.open(m_baseDir);
+        assertFalse("Release must be persisted", reopened.contains(0));
+        assertFalse("Release must be persisted", reopened.contains(1));
+        assertContent(2, reopened.read(2));
+        reopened.dispose();
+    }
+
+    /**
+     * Payloads are released once the last table referencing them is cleared.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testTableReferences() throws IOException {
+        final PackedFileStoreSegments segments = PackedFileStoreSegments.open(m_baseDir);
+        segments.write(0, content(0));
+        segments.write(1, content(1));
+        assertTrue(segments.retain(0));
+        assertTrue(segments.retain(0));
+        assertFalse("Unknown file store", segments.retain(2));
+
+        assertFalse(segments.releaseReference(0));
+        assertContent(0, segments.read(0));
+        assertTrue(segments.releaseReference(0));
+        assertNull("Payload must be released with the last reference", segments.read(0));
+        assertFalse(segments.releaseReference(0));
+
+        assertFalse("Never referenced by a table", segments.releaseReference(1));
+        assertContent(1, segments.read(1));
+        segments.close();
+
+        final PackedFileStoreSegments restored = PackedFileStoreSegments.open(m_baseDir);
+        assertFalse("References to restored payloads are not counted", restored.retain(1));
+        assertFalse(restored.releaseReference(1));
+        assertContent(1, restored.read(1));
+        restored.dispose();
+    }
+
+    /**
+     * Disposing deletes all segments, also if they are open for reading.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testDispose() throws IOException {
+        final PackedFileStoreSegments segments = PackedFileStoreSegments.open(m_baseDir);
+        segments.write(0, content(0));
+        assertContent(0, segments.read(0));
+        segments.write(1, content(1));
+        assertContent(1, segments.read(1)); // reads from the grown segment
+        segments.dispose();
+        assertFalse("Segment directory must be deleted", segmentDir().exists());
+        assertFalse(PackedFileStoreSegments.exists(m_baseDir));
+    }
+
+    /**
+     * Content handed out to clients stays readable after its payload has been released and the segments have been
+     * disposed.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testContentOutlivesSegments() throws IOException {
+        final PackedFileStoreSegments segments = PackedFileStoreSegments.open(m_baseDir);
+        segments.write(0, content(0));
+        segments.write(1, content(1));
+        segments.close();
+
+        final PackedFileStoreSegments restored = PackedFileStoreSegments.open(m_baseDir);
+        final ByteBuffer read0 = restored.read(0);
+        final ByteBuffer read1 = restored.read(1);
+        assertTrue(restored.release(0));
+        assertTrue(restored.release(1));
+        assertFalse("Segment without live payloads must be deleted", segmentFile(0).exists());
+        assertContent(0, read0);
+        restored.dispose();
+        assertContent(1, read1);
+    }
+}
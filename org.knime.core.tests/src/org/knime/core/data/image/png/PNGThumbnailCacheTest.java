@@ -0,0 +1,203 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.image.png;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link PNGThumbnailCache} and the header based metadata of {@link PNGImageContent}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class PNGThumbnailCacheTest {
+
+    /**
+     * Tests that dimensions and metadata are read from the header.
+     * @throws IOException if the test image can't be written
+     */
+    @Test
+    public void testHeader() throws IOException {
+        PNGImageContent content = new PNGImageContent(createPNG(400, 200, Color.RED));
+        assertEquals(new Dimension(400, 200), content.getPreferredSize());
+        assertEquals(8, content.getBitDepth());
+        assertEquals(2, content.getColorType());
+        assertTrue(content.getSummary(), content.getSummary().startsWith("PNG Image 400 x 200"));
+    }
+
+    /**
+     * Tests that thumbnails are subsampled and cached.
+     * @throws IOException if the test image can't be written
+     */
+    @Test
+    public void testThumbnail() throws IOException {
+        PNGThumbnailCache cache = new PNGThumbnailCache(1024 * 1024);
+        PNGImageContent content = new PNGImageContent(createPNG(400, 200, Color.RED));
+        Object id = cache.getThumbnailId(content);
+        Image thumbnail = cache.getThumbnail(id, content, 100, 100);
+        assertEquals(100, thumbnail.getWidth(null));
+        assertEquals(50, thumbnail.getHeight(null));
+        assertEquals(Color.RED.getRGB(), ((BufferedImage)thumbnail).getRGB(10, 10));
+        assertEquals(4 * 100 * 50, cache.getSize());
+        assertSame(thumbnail, cache.getThumbnail(id, content, 100, 100));
+        // same subsampling factor
+        assertSame(thumbnail, cache.getThumbnail(id, content, 90, 45));
+
+        // equal content, different object
+        PNGImageContent copy = new PNGImageContent(content.getByteArray());
+        assertSame(thumbnail, cache.getThumbnail(cache.getThumbnailId(copy), copy, 100, 100));
+
+        // images smaller than the bounds aren't scaled
+        Image original = cache.getThumbnail(id, content, 1000, 1000);
+        assertNotSame(thumbnail, original);
+        assertEquals(400, original.getWidth(null));
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Tests that different images of the same size get different thumbnails.
+     * @throws IOException if the test image can't be written
+     */
+    @Test
+    public void testThumbnailIdOfDifferentContent() throws IOException {
+        PNGThumbnailCache cache = new PNGThumbnailCache(1024 * 1024);
+        PNGImageContent red = new PNGImageContent(createPNG(100, 100, Color.RED));
+        PNGImageContent green = new PNGImageContent(createPNG(100, 100, Color.GREEN));
+        assertNotEquals(cache.getThumbnailId(red), cache.getThumbnailId(green));
+        Image redThumbnail = cache.getThumbnail(cache.getThumbnailId(red), red, 50, 50);
+        Image greenThumbnail = cache.getThumbnail(cache.getThumbnailId(green), green, 50, 50);
+        assertEquals(Color.RED.getRGB(), ((BufferedImage)redThumbnail).getRGB(10, 10));
+        assertEquals(Color.GREEN.getRGB(), ((BufferedImage)greenThumbnail).getRGB(10, 10));
+    }
+
+    /**
+     * Tests that the least recently used thumbnails are evicted.
+     * @throws IOException if the test image can't be written
+     */
+    @Test
+    public void testEviction() throws IOException {
+        // four 50x50 thumbnails fit
+        PNGThumbnailCache cache = new PNGThumbnailCache(4 * 4 * 50 * 50);
+        List<PNGImageContent> contents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            contents.add(new PNGImageContent(createPNG(100, 100, new Color(i * 40, 0, 0))));
+        }
+        List<Image> thumbnails = new ArrayList<>();
+        for (PNGImageContent c : contents) {
+            thumbnails.add(cache.getThumbnail(cache.getThumbnailId(c), c, 50, 50));
+        }
+        assertEquals(4 * 4 * 50 * 50, cache.getSize());
+        PNGImageContent last = contents.get(4);
+        assertSame(thumbnails.get(4), cache.getThumbnail(cache.getThumbnailId(last), last, 50, 50));
+        PNGImageContent first = contents.get(0);
+        assertNotSame(thumbnails.get(0), cache.getThumbnail(cache.getThumbnailId(first), first, 50, 50));
+    }
+
+    /**
+     * Tests bulk decoding.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testBulk() throws Exception {
+        PNGThumbnailCache cache = new PNGThumbnailCache(1024 * 1024);
+        List<PNGImageValue> values = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            values.add((PNGImageValue)new PNGImageContent(createPNG(64 + i, 64, Color.BLUE)).toImageCell());
+        }
+        List<Image> thumbnails = cache.getThumbnails(values, 32, 32);
+        assertEquals(values.size(), thumbnails.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(32, thumbnails.get(i).getHeight(null));
+            assertSame(thumbnails.get(i), cache.getThumbnail(values.get(i), 32, 32));
+        }
+    }
+
+    /**
+     * Tests painting through the cache.
+     * @throws IOException if the test image can't be written
+     */
+    @Test
+    public void testPaint() throws IOException {
+        PNGImageContent content = new PNGImageContent(createPNG(400, 200, Color.RED));
+        BufferedImage target = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        content.paint(g, 100, 100);
+        g.dispose();
+        // scaled to 100 x 50, centered vertically
+        assertEquals(Color.RED.getRGB(), target.getRGB(50, 50));
+        assertEquals(Color.BLACK.getRGB(), target.getRGB(50, 10));
+    }
+
+    private static byte[] createPNG(final int width, final int height, final Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
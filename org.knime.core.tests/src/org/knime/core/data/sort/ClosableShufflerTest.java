@@ -0,0 +1,212 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the default (sort based) and the bucket shuffle of {@link ClosableShuffler}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ClosableShufflerTest {
+
+    private static final int NR_ROWS = 1000;
+
+    private ExecutionContext m_exec;
+
+    private BufferedDataTable m_table;
+
+    /**
+     * Creates the table to shuffle.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Before
+    public void setUp() {
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+        final BufferedDataContainer cont = m_exec.createDataContainer(
+            new DataTableSpec(new DataColumnSpecCreator("value", IntCell.TYPE).createSpec()));
+        for (int i = 0; i < NR_ROWS; i++) {
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        cont.close();
+        m_table = cont.getTable();
+    }
+
+    /**
+     * Tests that tables shuffled in memory, in one level of buckets and in several levels of buckets are permutations
+     * of the input.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test
+    public void testShuffleIsPermutation() throws Exception {
+        for (int[] sizes : new int[][]{{NR_ROWS, 2}, {100, 32}, {10, 4}, {1, 2}}) {
+            try (ClosableShuffler shuffler = new ClosableShuffler(m_table, m_exec, 42, sizes[0], sizes[1])) {
+                final List<Integer> values = readValues(shuffler.getShuffled());
+                assertEquals(NR_ROWS, values.size());
+                assertEquals(NR_ROWS, new HashSet<>(values).size());
+                assertNotEquals(readValues(m_table), values);
+            }
+        }
+    }
+
+    /**
+     * Tests that the outcome only depends on the seed.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test
+    public void testShuffleIsDeterministic() throws Exception {
+        try (ClosableShuffler shuffler1 = new ClosableShuffler(m_table, m_exec, 42, 10, 4);
+                ClosableShuffler shuffler2 = new ClosableShuffler(m_table, m_exec, 42, 10, 4);
+                ClosableShuffler shuffler3 = new ClosableShuffler(m_table, m_exec, 43, 10, 4)) {
+            final List<Integer> values1 = readValues(shuffler1.getShuffled());
+            assertEquals(values1, readValues(shuffler2.getShuffled()));
+            assertNotEquals(values1, readValues(shuffler3.getShuffled()));
+        }
+    }
+
+    /**
+     * Tests that the default shuffle yields the same permutation for a given seed as earlier versions, i.e. the rows
+     * are ordered by a Fisher Yates shuffled array of row indices.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test
+    public void testDefaultShuffleIsReproducible() throws Exception {
+        final int[] permutation = new int[NR_ROWS];
+        for (int i = 0; i < NR_ROWS; i++) {
+            permutation[i] = i;
+        }
+        final Random random = new Random(42);
+        for (int i = 0; i < NR_ROWS; i++) {
+            final int r = random.nextInt(i + 1);
+            final int swap = permutation[r];
+            permutation[r] = permutation[i];
+            permutation[i] = swap;
+        }
+        final Integer[] expected = new Integer[NR_ROWS];
+        for (int i = 0; i < NR_ROWS; i++) {
+            expected[permutation[i]] = i;
+        }
+        try (ClosableShuffler shuffler = new ClosableShuffler(m_table, m_exec, 42)) {
+            assertEquals(Arrays.asList(expected), readValues(shuffler.getShuffled()));
+        }
+    }
+
+    /**
+     * Tests that the bucket shuffle can be requested explicitly.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test
+    public void testBucketShuffleOptIn() throws Exception {
+        try (ClosableShuffler shuffler = new ClosableShuffler(m_table, m_exec, 42, true);
+                ClosableShuffler inMemory = new ClosableShuffler(m_table, m_exec, 42, NR_ROWS, 2)) {
+            final List<Integer> values = readValues(shuffler.getShuffled());
+            assertEquals(NR_ROWS, new HashSet<>(values).size());
+            // the table fits into memory, hence it's shuffled without buckets
+            assertEquals(readValues(inMemory.getShuffled()), values);
+        }
+    }
+
+    /**
+     * Tests that the row keys are shuffled along with the rows.
+     *
+     * @throws Exception any kind of exception
+     */
+    @Test
+    public void testRowKeysMatchValues() throws Exception {
+        try (ClosableShuffler shuffler = new ClosableShuffler(m_table, m_exec, 7)) {
+            final Set<RowKey> keys = new HashSet<>();
+            for (DataRow row : shuffler.getShuffled()) {
+                assertEquals(RowKey.createRowKey((long)((IntCell)row.getCell(0)).getIntValue()), row.getKey());
+                keys.add(row.getKey());
+            }
+            assertEquals(NR_ROWS, keys.size());
+        }
+    }
+
+    private static List<Integer> readValues(final BufferedDataTable table) {
+        final List<Integer> values = new ArrayList<>();
+        for (DataRow row : table) {
+            values.add(((IntCell)row.getCell(0)).getIntValue());
+        }
+        return values;
+    }
+
+}
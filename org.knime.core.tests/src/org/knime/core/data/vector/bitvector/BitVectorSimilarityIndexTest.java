@@ -0,0 +1,169 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.bitvector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.vector.bitvector.BitVectorSimilarityIndex.Match;
+
+/**
+ * Compares the results of {@link BitVectorSimilarityIndex} to a brute force search using
+ * {@link BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BitVectorSimilarityIndexTest {
+
+    private static final int LENGTH = 166;
+
+    private final Random m_random = new Random(42);
+
+    private BitVectorValue createVector(final long length) {
+        final double density = m_random.nextDouble() / 2;
+        final boolean dense = m_random.nextBoolean();
+        final DenseBitVectorCellFactory denseFactory = new DenseBitVectorCellFactory(length);
+        final SparseBitVectorCellFactory sparseFactory = new SparseBitVectorCellFactory(length);
+        for (long i = 0; i < length; i++) {
+            if (m_random.nextDouble() < density) {
+                denseFactory.set(i);
+                sparseFactory.set(i);
+            }
+        }
+        return dense ? denseFactory.createDataCell() : sparseFactory.createDataCell();
+    }
+
+    private static double tanimoto(final BitVectorValue bv1, final BitVectorValue bv2) {
+        final long intersection = BitVectorUtil.cardinalityOfIntersection(bv1, bv2);
+        final long union = bv1.cardinality() + bv2.cardinality() - intersection;
+        return union == 0 ? 1 : intersection / (double)union;
+    }
+
+    private static List<double[]> bruteForce(final List<BitVectorValue> vectors, final BitVectorValue query) {
+        final List<double[]> result = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            result.add(new double[]{tanimoto(vectors.get(i), query), i});
+        }
+        result.sort(Comparator.<double[]> comparingDouble(d -> -d[0]).thenComparingDouble(d -> d[1]));
+        return result;
+    }
+
+    private static void assertMatches(final List<double[]> expected, final List<Match> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals((int)expected.get(i)[1], actual.get(i).getIndex());
+            assertEquals(expected.get(i)[0], actual.get(i).getSimilarity(), 0);
+        }
+    }
+
+    /**
+     * Tests threshold and top-k queries against a brute force search.
+     */
+    @Test
+    public void testSearch() {
+        final BitVectorSimilarityIndex.Builder builder = new BitVectorSimilarityIndex.Builder(LENGTH);
+        final List<BitVectorValue> vectors = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            final BitVectorValue vector = createVector(m_random.nextInt(LENGTH + 1));
+            assertEquals(i, builder.add(vector));
+            vectors.add(vector);
+        }
+        final BitVectorSimilarityIndex index = builder.build();
+        assertEquals(vectors.size(), index.size());
+
+        for (int q = 0; q < 20; q++) {
+            final BitVectorValue query = createVector(LENGTH);
+            final List<double[]> all = bruteForce(vectors, query);
+            final double threshold = q == 0 ? 0 : m_random.nextDouble();
+
+            final List<double[]> aboveThreshold = new ArrayList<>();
+            for (double[] d : all) {
+                if (d[0] >= threshold) {
+                    aboveThreshold.add(d);
+                }
+            }
+            assertMatches(aboveThreshold, index.search(query, threshold));
+
+            final int k = m_random.nextInt(50);
+            assertMatches(all.subList(0, k), index.searchTopK(query, k));
+            assertMatches(aboveThreshold.subList(0, Math.min(k, aboveThreshold.size())),
+                index.searchTopK(query, k, threshold));
+        }
+    }
+
+    /**
+     * Tests that empty vectors are identical to each other and that vectors longer than the index are rejected.
+     */
+    @Test
+    public void testEdgeCases() {
+        final BitVectorSimilarityIndex.Builder builder = new BitVectorSimilarityIndex.Builder(8);
+        builder.add(new DenseBitVectorCellFactory("").createDataCell());
+        builder.add(new SparseBitVectorCellFactory("0F").createDataCell());
+        final BitVectorSimilarityIndex index = builder.build();
+
+        final List<Match> matches = index.search(new DenseBitVectorCellFactory(8).createDataCell(), 1);
+        assertEquals(1, matches.size());
+        assertEquals(0, matches.get(0).getIndex());
+        assertTrue(index.searchTopK(new DenseBitVectorCellFactory("0F").createDataCell(), 0).isEmpty());
+
+        final DenseBitVectorCellFactory tooLong = new DenseBitVectorCellFactory(16);
+        tooLong.set(12);
+        try {
+            builder.add(tooLong.createDataCell());
+            fail("Vector longer than the index must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.bitvector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the bulk operations of {@link DenseBitVectorBatch} to the per-cell operations of {@link BitVectorUtil}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DenseBitVectorBatchTest {
+
+    private static final int LENGTH = 130;
+
+    private final Random m_random = new Random(42);
+
+    private BitVectorValue createVector(final long length) {
+        final DenseBitVectorCellFactory denseFactory = new DenseBitVectorCellFactory(length);
+        final SparseBitVectorCellFactory sparseFactory = new SparseBitVectorCellFactory(length);
+        for (long i = 0; i < length; i++) {
+            if (m_random.nextBoolean()) {
+                denseFactory.set(i);
+                sparseFactory.set(i);
+            }
+        }
+        return m_random.nextBoolean() ? denseFactory.createDataCell() : sparseFactory.createDataCell();
+    }
+
+    private static DenseBitVectorCell padded(final BitVectorValue vector) {
+        final DenseBitVectorCellFactory factory = new DenseBitVectorCellFactory(LENGTH);
+        for (long i = vector.nextSetBit(0); i >= 0; i = vector.nextSetBit(i + 1)) {
+            factory.set(i);
+        }
+        return factory.createDataCell();
+    }
+
+    /**
+     * Tests the bulk operations against a query vector, reusing the output buffers for two batches.
+     */
+    @Test
+    public void testOperationsAgainstQuery() {
+        final DenseBitVectorBatch batch = new DenseBitVectorBatch(LENGTH, 50);
+        final DenseBitVectorBatch result = new DenseBitVectorBatch(LENGTH, 50);
+        final BitVectorValue[] vectors = new BitVectorValue[50];
+        long[] cardinalities = null;
+        long[] intersections = null;
+        long[] distances = null;
+        double[] similarities = null;
+        for (int run = 0; run < 2; run++) {
+            batch.clear();
+            for (int i = 0; i < vectors.length - run; i++) {
+                vectors[i] = createVector(m_random.nextInt(LENGTH + 1));
+                assertEquals(i, batch.add(vectors[i]));
+            }
+            final BitVectorValue query = createVector(LENGTH);
+
+            cardinalities = batch.cardinalities(cardinalities);
+            intersections = batch.cardinalitiesOfIntersection(query, intersections);
+            distances = batch.hammingDistances(query, distances);
+            similarities = batch.tanimoto(query, similarities);
+            for (int i = 0; i < batch.size(); i++) {
+                final long intersection = BitVectorUtil.cardinalityOfIntersection(vectors[i], query);
+                final long union = vectors[i].cardinality() + query.cardinality() - intersection;
+                assertEquals(vectors[i].cardinality(), cardinalities[i]);
+                assertEquals(intersection, intersections[i]);
+                assertEquals(union - intersection, distances[i]);
+                assertEquals(union == 0 ? 1 : intersection / (double)union, similarities[i], 0);
+            }
+
+            assertSame(result, batch.and(query, result));
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(padded(BitVectorUtil.and(vectors[i], query)), result.getCell(i));
+            }
+            batch.or(query, result);
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(padded(BitVectorUtil.or(vectors[i], query)), result.getCell(i));
+            }
+            batch.xor(query, result);
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(padded(BitVectorUtil.xor(vectors[i], query)), result.getCell(i));
+            }
+        }
+    }
+
+    /**
+     * Tests that bits of the query beyond the length of the batch are treated as by {@link BitVectorSimilarityIndex}.
+     */
+    @Test
+    public void testTanimotoWithLongerQuery() {
+        final DenseBitVectorBatch batch = new DenseBitVectorBatch(LENGTH, 20);
+        final BitVectorSimilarityIndex.Builder builder = new BitVectorSimilarityIndex.Builder(LENGTH);
+        for (int i = 0; i < 20; i++) {
+            final BitVectorValue vector = createVector(LENGTH);
+            batch.add(vector);
+            builder.add(vector);
+        }
+        final BitVectorValue query = createVector(2 * LENGTH);
+        final double[] similarities = batch.tanimoto(query, null);
+        for (BitVectorSimilarityIndex.Match match : builder.build().search(query, 0)) {
+            assertEquals(match.getSimilarity(), similarities[match.getIndex()], 0);
+        }
+    }
+
+    /**
+     * Tests that the Hamming distance and the Tanimoto coefficient treat bits of the query beyond the length of the
+     * batch the same way, i.e. as if the vectors of the batch were extended with zeros.
+     */
+    @Test
+    public void testDistancesWithLongerQuery() {
+        final DenseBitVectorBatch batch = new DenseBitVectorBatch(LENGTH, 20);
+        final BitVectorValue[] vectors = new BitVectorValue[20];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = createVector(LENGTH);
+            batch.add(vectors[i]);
+        }
+        final BitVectorValue query = createVector(2 * LENGTH);
+        final long[] distances = batch.hammingDistances(query, null);
+        final double[] similarities = batch.tanimoto(query, null);
+        for (int i = 0; i < vectors.length; i++) {
+            final long intersection = BitVectorUtil.cardinalityOfIntersection(vectors[i], query);
+            final long union = vectors[i].cardinality() + query.cardinality() - intersection;
+            assertEquals(BitVectorUtil.xor(vectors[i], query).cardinality(), distances[i]);
+            assertEquals(union - intersection, distances[i]);
+            assertEquals(intersection / (double)union, similarities[i], 0);
+        }
+    }
+
+    /**
+     * Tests the element-wise operations of two batches, including writing the result in place.
+     */
+    @Test
+    public void testOperationsOnBatches() {
+        final DenseBitVectorBatch batch1 = new DenseBitVectorBatch(LENGTH, 20);
+        final DenseBitVectorBatch batch2 = new DenseBitVectorBatch(LENGTH, 20);
+        final BitVectorValue[] vectors1 = new BitVectorValue[20];
+        final BitVectorValue[] vectors2 = new BitVectorValue[20];
+        for (int i = 0; i < vectors1.length; i++) {
+            vectors1[i] = createVector(LENGTH);
+            vectors2[i] = createVector(LENGTH);
+            batch1.add(vectors1[i]);
+            batch2.add(vectors2[i]);
+        }
+        final DenseBitVectorBatch result = new DenseBitVectorBatch(LENGTH, 20);
+        batch1.or(batch2, result);
+        batch1.xor(batch2, batch1);
+        for (int i = 0; i < vectors1.length; i++) {
+            assertEquals(padded(BitVectorUtil.or(vectors1[i], vectors2[i])), result.getCell(i));
+            assertEquals(padded(BitVectorUtil.xor(vectors1[i], vectors2[i])), batch1.getCell(i));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.vector.bytevector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the bulk operations of {@link DenseByteVectorBatch} to computations on individual cells.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DenseByteVectorBatchTest {
+
+    private static final int LENGTH = 37;
+
+    private final Random m_random = new Random(42);
+
+    private DenseByteVectorCell createVector(final int length) {
+        final DenseByteVectorCellFactory factory = new DenseByteVectorCellFactory(length);
+        for (int i = 0; i < length; i++) {
+            factory.setValue(i, m_random.nextInt(4) == 0 ? 0 : m_random.nextInt(256));
+        }
+        return factory.createDataCell();
+    }
+
+    private static int count(final ByteVectorValue vector, final int index) {
+        return index < vector.length() ? vector.get(index) : 0;
+    }
+
+    /**
+     * Tests the bulk operations against a query vector.
+     */
+    @Test
+    public void testOperationsAgainstQuery() {
+        final DenseByteVectorBatch batch = new DenseByteVectorBatch(LENGTH, 30);
+        final DenseByteVectorCell[] vectors = new DenseByteVectorCell[30];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = createVector(m_random.nextInt(LENGTH + 1));
+            assertEquals(i, batch.add(vectors[i]));
+        }
+        final DenseByteVectorCell query = createVector(LENGTH);
+
+        final long[] sums = batch.sumsOfAllCounts(null);
+        final long[] cardinalities = batch.cardinalities(null);
+        final long[] manhattan = batch.manhattanDistances(query, null);
+        final double[] euclidean = batch.euclideanDistances(query, null);
+        final long[] dotProducts = batch.dotProducts(query, null);
+        final DenseByteVectorBatch summed = batch.sum(query, new DenseByteVectorBatch(LENGTH, 30));
+        final DenseByteVectorBatch minimum = batch.min(query, new DenseByteVectorBatch(LENGTH, 30));
+        batch.max(query, batch);
+        for (int i = 0; i < vectors.length; i++) {
+            assertEquals(vectors[i].sumOfAllCounts(), sums[i]);
+            assertEquals(vectors[i].cardinality(), cardinalities[i]);
+            long expectedManhattan = 0;
+            long expectedSquared = 0;
+            long expectedDot = 0;
+            for (int j = 0; j < LENGTH; j++) {
+                final int c = count(vectors[i], j);
+                final int q = count(query, j);
+                expectedManhattan += Math.abs(c - q);
+                expectedSquared += (c - q) * (c - q);
+                expectedDot += c * q;
+                assertEquals(Math.min(255, c + q), summed.get(i, j));
+                assertEquals(Math.min(c, q), minimum.get(i, j));
+                assertEquals(Math.max(c, q), batch.get(i, j));
+            }
+            assertEquals(expectedManhattan, manhattan[i]);
+            assertEquals(Math.sqrt(expectedSquared), euclidean[i], 0);
+            assertEquals(expectedDot, dotProducts[i]);
+        }
+        assertEquals(minimum.get(3, 5), minimum.getCell(3).get(5));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.xml.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.NamespaceContext;
+
+import org.junit.Test;
+import org.knime.core.data.xml.XMLCellFactory;
+import org.knime.core.data.xml.XMLValue;
+import org.knime.core.node.InvalidSettingsException;
+
+/**
+ * Tests for {@link StreamingXPath}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StreamingXPathTest {
+
+    private static final String XML = "<o id='1'><i n='a'>x<b>y</b></i><i n='b'>z</i>"
+        + "<p:i xmlns:p='urn:x' n='c'>w</p:i><k><i n='d'>v</i></k></o>";
+
+    private static final NamespaceContext NS_CONTEXT = new NamespaceContext() {
+        @Override
+        public String getNamespaceURI(final String prefix) {
+            return "p".equals(prefix) ? "urn:x" : null;
+        }
+
+        @Override
+        public String getPrefix(final String namespaceURI) {
+            return null;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(final String namespaceURI) {
+            return Collections.emptyIterator();
+        }
+    };
+
+    private static List<String> evaluate(final String xpath) throws Exception {
+        return StreamingXPath.compile(xpath, NS_CONTEXT).evaluate(new StringReader(XML), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Child and descendant steps, wildcards and namespaces.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testPaths() throws Exception {
+        assertEquals(Arrays.asList("xy", "z"), evaluate("/o/i"));
+        assertEquals(Arrays.asList("xy", "z", "v"), evaluate("//i"));
+        assertEquals(Arrays.asList("v"), evaluate("o/k"));
+        assertEquals(Arrays.asList("w"), evaluate("//p:i"));
+        assertEquals(Arrays.asList("a", "b", "c"), evaluate("/o/*/@n"));
+        assertEquals(Arrays.asList("c"), evaluate("//p:*/@n"));
+        assertEquals(Arrays.asList("1", "a", "b", "c", "d"), evaluate("//@*"));
+        assertEquals(Arrays.asList("x", "z"), evaluate("/o/i/text()"));
+        assertEquals(Arrays.asList("x", "y", "z", "v"), evaluate("//i//text()"));
+        assertEquals(Arrays.asList("xyzwv"), evaluate("/"));
+    }
+
+    /**
+     * Positional and attribute predicates.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testPredicates() throws Exception {
+        assertEquals(Arrays.asList("z"), evaluate("/o/i[2]"));
+        assertEquals(Arrays.asList("xy", "v"), evaluate("//i[1]"));
+        assertEquals(Arrays.asList("z"), evaluate("/o/i[@n='b']"));
+        assertEquals(Arrays.asList("a"), evaluate("/o/i[@n!='b']/@n"));
+        assertEquals(Arrays.asList("z"), evaluate("/o/i[@n][2]"));
+        assertEquals(Collections.emptyList(), evaluate("/o/i[@id]"));
+    }
+
+    /**
+     * Unions return their results in document order.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testUnion() throws Exception {
+        assertEquals(Arrays.asList("1", "v"), evaluate("//k/i | /o/@id"));
+        assertEquals(Arrays.asList("xy", "y", "z", "v"), evaluate("//b | //i"));
+    }
+
+    /**
+     * Evaluation on an XML cell and the result limit.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testXMLCell() throws Exception {
+        XMLValue<?> cell = (XMLValue<?>)XMLCellFactory.create(XML);
+        StreamingXPath xpath = StreamingXPath.compile("//i/@n", null);
+        assertEquals(Arrays.asList("a", "b", "d"), xpath.evaluate(cell, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("a"), xpath.evaluate(cell, 1));
+    }
+
+    /**
+     * Expressions that cannot be evaluated while streaming are rejected.
+     */
+    @Test
+    public void testUnsupported() {
+        for (String xpath : new String[]{"//i[last()]", "//i[b='x']", "/o/@n/i", "//q:i", "//.", "count(//i)"}) {
+            try {
+                StreamingXPath.compile(xpath, NS_CONTEXT);
+                fail("Expression accepted: " + xpath);
+            } catch (InvalidSettingsException ex) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link AsyncLogDispatcher}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AsyncLogDispatcherTest {
+
+    private Logger m_logger;
+
+    private BlockingAppender m_appender;
+
+    /** Creates a private logger with a blocking appender. */
+    @Before
+    public void setUp() {
+        m_logger = Logger.getLogger("async.dispatcher.test." + UUID.randomUUID());
+        m_logger.setAdditivity(false);
+        m_logger.setLevel(Level.DEBUG);
+        m_appender = new BlockingAppender();
+        m_logger.addAppender(m_appender);
+    }
+
+    /** Removes the appender. */
+    @After
+    public void tearDown() {
+        m_appender.m_release.countDown();
+        m_logger.removeAllAppenders();
+    }
+
+    /**
+     * Events are passed to the appender in order and the thread name of the logging thread is retained.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testDispatchInOrder() throws Exception {
+        m_appender.m_release.countDown();
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16, Level.WARN);
+        for (int i = 0; i < 100; i++) {
+            dispatcher.publish(m_logger, Level.WARN, "message " + i, null);
+        }
+        dispatcher.flush(TimeUnit.SECONDS.toNanos(5));
+        assertEquals("Number of dispatched events", 100, m_appender.m_events.size());
+        for (int i = 0; i < 100; i++) {
+            final LoggingEvent event = m_appender.m_events.get(i);
+            assertEquals("message " + i, event.getRenderedMessage());
+            assertEquals(Thread.currentThread().getName(), event.getThreadName());
+        }
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(0, dispatcher.getDroppedCount(null));
+    }
+
+    /**
+     * Debug events are dropped and counted if the buffer is full, warnings wait until there is room again.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testDropAndBackpressure() throws Exception {
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16, Level.WARN);
+        final int capacity = dispatcher.getCapacity();
+        dispatcher.publish(m_logger, Level.DEBUG, "blocker", null);
+        assertTrue(m_appender.m_entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < capacity; i++) {
+            dispatcher.publish(m_logger, Level.DEBUG, "queued " + i, null);
+        }
+        assertEquals(capacity + 1, dispatcher.getQueueDepth());
+        for (int i = 0; i < 5; i++) {
+            dispatcher.publish(m_logger, Level.DEBUG, "dropped " + i, null);
+        }
+        assertEquals(5, dispatcher.getDroppedCount(Level.DEBUG));
+        assertEquals(0, dispatcher.getDroppedCount(Level.WARN));
+        assertEquals(5, dispatcher.getDroppedCount(null));
+
+        final Thread warnThread = new Thread(() -> dispatcher.publish(m_logger, Level.WARN, "warning", null));
+        warnThread.start();
+        warnThread.join(200);
+        assertTrue("Warning must wait for the full buffer", warnThread.isAlive());
+
+        m_appender.m_release.countDown();
+        warnThread.join();
+        dispatcher.flush(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(capacity + 2, m_appender.m_events.size());
+        assertEquals("warning", m_appender.m_events.get(capacity + 1).getRenderedMessage());
+        assertEquals(5, dispatcher.getDroppedCount(null));
+    }
+
+    /** Appender that blocks on the first event until released. */
+    private static final class BlockingAppender extends AppenderSkeleton {
+
+        private final CountDownLatch m_entered = new CountDownLatch(1);
+
+        private final CountDownLatch m_release = new CountDownLatch(1);
+
+        private final List<LoggingEvent> m_events = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(final LoggingEvent event) {
+            m_entered.countDown();
+            try {
+                m_release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            m_events.add(event);
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer.MemoryPolicy;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link ConcatenateTableAccumulator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ConcatenateTableAccumulatorTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+    private NotInWorkflowDataRepository m_repository;
+
+    /** The node accumulating the tables (the loop end). */
+    private Node m_loopEnd;
+
+    /** Some other node, whose tables are copied by the accumulator (the loop body). */
+    private Node m_loopBody;
+
+    /** Snapshots of the local tables of all contexts, taken when the context is done (as done by the framework). */
+    private Map<Integer, ContainerTable> m_handedOverTables;
+
+    /** Creates the nodes. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Before
+    public void setUp() {
+        final VirtualParallelizedChunkPortObjectInNodeFactory factory =
+            new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_loopEnd = new Node((NodeFactory)factory);
+        m_loopBody = new Node((NodeFactory)factory);
+        m_repository = NotInWorkflowDataRepository.newInstance();
+        m_handedOverTables = new HashMap<>();
+    }
+
+    private ExecutionContext createContext(final Node node) {
+        return new ExecutionContext(new DefaultNodeProgressMonitor(), node, MemoryPolicy.CacheSmallInMemory,
+            m_repository);
+    }
+
+    /** Corresponds to NativeNodeContainer#putOutputTablesIntoGlobalRepository at the end of an iteration. */
+    private void handOver(final ExecutionContext exec) {
+        m_handedOverTables.putAll(exec.getLocalTableRepository());
+    }
+
+    private static BufferedDataTable createTable(final ExecutionContext exec, final int firstValue, final int rows) {
+        final BufferedDataContainer container = exec.createDataContainer(SPEC);
+        for (int i = firstValue; i < firstValue + rows; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static void assertContent(final BufferedDataTable table, final int expectedRows) {
+        assertEquals("Number of rows", expectedRows, table.size());
+        int i = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                assertEquals("Row key", RowKey.createRowKey((long)i), row.getKey());
+                assertEquals("Value", i, ((IntCell)row.getCell(0)).getIntValue());
+                i++;
+            }
+        }
+        assertEquals("Number of iterated rows", expectedRows, i);
+    }
+
+    private static boolean isCleared(final ContainerTable table) {
+        try (CloseableRowIterator it = table.iterator()) {
+            return false;
+        } catch (IllegalStateException ex) { // NOSONAR
+            return true;
+        }
+    }
+
+    /** Collects the container tables the argument table is composed of. */
+    private static void collectContainerTables(final BufferedDataTable table, final List<ContainerTable> result) {
+        if (table.getDelegate() instanceof ContainerTable) {
+            result.add((ContainerTable)table.getDelegate());
+        }
+        for (BufferedDataTable reference : table.getDelegate().getReferenceTables()) {
+            collectContainerTables(reference, result);
+        }
+    }
+
+    /**
+     * Many small iterations of a loop body: tables are copied, small segments are compacted in the background and all
+     * tables making up the result are registered with one of the iteration contexts.
+     *
+     * @throws Exception not expected
+     */
+    @Test
+    public void testCopyAndCompactForeignTables() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 10);
+        final int iterations = 3 * ConcatenateTableAccumulator.COMPACTION_THRESHOLD + 5;
+        for (int i = 0; i < iterations; i++) {
+            final ExecutionContext exec = createContext(m_loopEnd);
+            accumulator.append(createTable(createContext(m_loopBody), 3 * i, 3), exec);
+            handOver(exec);
+        }
+        assertEquals("Number of rows", 3 * iterations, accumulator.size());
+        assertTrue("Small segments must be compacted, got " + accumulator.getSegmentCount(),
+            accumulator.getSegmentCount() < iterations);
+
+        final ExecutionContext exec = createContext(m_loopEnd);
+        final BufferedDataTable result = accumulator.finish(exec);
+        handOver(exec);
+        assertContent(result, 3 * iterations);
+
+        final List<ContainerTable> containerTables = new ArrayList<>();
+        collectContainerTables(result, containerTables);
+        assertTrue("Result must consist of several segments", containerTables.size() > 1);
+        for (ContainerTable t : containerTables) {
+            assertSame("Table " + t.getTableId() + " not registered with the node", t,
+                m_handedOverTables.get(t.getTableId()));
+        }
+    }
+
+    /**
+     * Tables of the accumulating node are referenced, not copied.
+     *
+     * @throws Exception not expected
+     */
+    @Test
+    public void testReferenceOwnTables() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 2);
+        final List<BufferedDataTable> appended = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final ExecutionContext exec = createContext(m_loopEnd);
+            final BufferedDataTable table = createTable(exec, 5 * i, 5);
+            appended.add(table);
+            accumulator.append(table, exec);
+        }
+        final BufferedDataTable result = accumulator.finish(createContext(m_loopEnd));
+        assertContent(result, 15);
+        final BufferedDataTable[] references = result.getDelegate().getReferenceTables();
+        assertEquals("Number of segments", appended.size(), references.length);
+        for (int i = 0; i < references.length; i++) {
+            assertSame("Segment " + i, appended.get(i), references[i]);
+        }
+    }
+
+    /**
+     * A single copied iteration larger than the segment size is split.
+     *
+     * @throws Exception not expected
+     */
+    @Test
+    public void testSplitLargeTable() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 4);
+        final ExecutionContext exec = createContext(m_loopEnd);
+        accumulator.append(createTable(createContext(m_loopBody), 0, 10), exec);
+        assertEquals("Number of segments", 3, accumulator.getSegmentCount());
+        assertContent(accumulator.finish(exec), 10);
+    }
+
+    /**
+     * Disposing stops pending compactions and clears all tables held by the accumulator.
+     *
+     * @throws Exception not expected
+     */
+    @Test
+    public void testDispose() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 10);
+        final ExecutionContext ownExec = createContext(m_loopEnd);
+        final BufferedDataTable own = createTable(ownExec, 0, 3);
+        accumulator.append(own, ownExec);
+        for (int i = 1; i <= ConcatenateTableAccumulator.COMPACTION_THRESHOLD + 3; i++) {
+            final ExecutionContext exec = createContext(m_loopEnd);
+            accumulator.append(createTable(createContext(m_loopBody), 3 * i, 3), exec);
+            handOver(exec);
+        }
+        accumulator.dispose();
+        assertEquals("Number of segments", 0, accumulator.getSegmentCount());
+        assertTrue("Appended table must be cleared", isCleared((ContainerTable)own.getDelegate()));
+        assertFalse("No tables created", m_handedOverTables.isEmpty());
+        for (ContainerTable t : m_handedOverTables.values()) {
+            assertTrue("Copied segment must be cleared", isCleared(t));
+        }
+        accumulator.dispose(); // no-op
+    }
+
+    /**
+     * The accumulator can't be used after it was disposed.
+     *
+     * @throws Exception expected
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAppendAfterDispose() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 10);
+        accumulator.dispose();
+        final ExecutionContext exec = createContext(m_loopEnd);
+        accumulator.append(createTable(exec, 0, 1), exec);
+    }
+
+    /**
+     * Canceling while copying a table clears the partial segment.
+     *
+     * @throws Exception expected
+     */
+    @Test(expected = CanceledExecutionException.class)
+    public void testCancelWhileCopying() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 10);
+        final ExecutionContext exec = createContext(m_loopEnd);
+        final BufferedDataTable input = createTable(createContext(m_loopBody), 0, 5);
+        exec.getProgressMonitor().setExecuteCanceled();
+        try {
+            accumulator.append(input, exec);
+        } finally {
+            assertTrue("Partial segment must be removed from context", exec.getLocalTableRepository().isEmpty());
+            assertEquals("Number of segments", 0, accumulator.getSegmentCount());
+        }
+    }
+
+    /**
+     * Canceling after some segments of a table have been sealed removes and clears these segments, so the accumulator
+     * still only contains the previously appended rows.
+     *
+     * @throws Exception not expected
+     */
+    @Test
+    public void testCancelAfterSealedSegments() throws Exception {
+        final ConcatenateTableAccumulator accumulator = new ConcatenateTableAccumulator(m_loopEnd, 3);
+        final ExecutionContext firstExec = createContext(m_loopEnd);
+        accumulator.append(createTable(createContext(m_loopBody), 0, 3), firstExec);
+        handOver(firstExec);
+        assertEquals("Number of segments", 1, accumulator.getSegmentCount());
+
+        // cancels on the 8th row, after two segments of 3 rows have been sealed
+        final DefaultNodeProgressMonitor monitor = new DefaultNodeProgressMonitor() {
+            private int m_checks;
+
+            @Override
+            public void checkCanceled() throws CanceledExecutionException {
+                if (++m_checks == 8) {
+                    setExecuteCanceled();
+                }
+                super.checkCanceled();
+            }
+        };
+        final ExecutionContext exec =
+            new ExecutionContext(monitor, m_loopEnd, MemoryPolicy.CacheSmallInMemory, m_repository);
+        try {
+            accumulator.append(createTable(createContext(m_loopBody), 3, 10), exec);
+            fail("Expected cancellation");
+        } catch (CanceledExecutionException ex) { // NOSONAR
+            // expected
+        }
+        assertEquals("Number of rows", 3, accumulator.size());
+        assertEquals("Number of segments", 1, accumulator.getSegmentCount());
+        assertTrue("Segments of canceled append must be removed from context",
+            exec.getLocalTableRepository().isEmpty());
+
+        final ExecutionContext finishExec = createContext(m_loopEnd);
+        accumulator.append(createTable(createContext(m_loopBody), 3, 2), finishExec);
+        assertContent(accumulator.finish(finishExec), 5);
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowInput;
+import org.mockito.InOrder;
+
+/**
+ * Tests {@link PipelinedBatchWriter} with mocked connections and statements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PipelinedBatchWriterTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("value", IntCell.TYPE).createSpec());
+
+    /** The connections opened by the writers. */
+    private List<Connection> m_connections;
+
+    /** The values of all rows in successfully executed batches. */
+    private Set<Integer> m_written;
+
+    /** Number of executed batches (successful or not). */
+    private AtomicInteger m_batches;
+
+    /** Values that make the batch containing them fail. */
+    private Set<Integer> m_failingValues;
+
+    /** Creates the test state. */
+    @Before
+    public void setUp() {
+        m_connections = Collections.synchronizedList(new ArrayList<>());
+        m_written = ConcurrentHashMap.newKeySet();
+        m_batches = new AtomicInteger();
+        m_failingValues = ConcurrentHashMap.newKeySet();
+    }
+
+    /** Opens a mocked connection whose statement collects the bound values. */
+    private Connection openConnection() throws SQLException {
+        final Connection conn = mock(Connection.class);
+        final AtomicBoolean autoCommit = new AtomicBoolean(true);
+        when(conn.getAutoCommit()).thenAnswer(invocation -> autoCommit.get());
+        doAnswer(invocation -> {
+            autoCommit.set(invocation.getArgument(0));
+            return null;
+        }).when(conn).setAutoCommit(anyBoolean());
+
+        final PreparedStatement stmt = mock(PreparedStatement.class);
+        final List<Integer> bound = new ArrayList<>();
+        final List<Integer> batch = new ArrayList<>();
+        doAnswer(invocation -> bound.add(invocation.getArgument(1))).when(stmt).setInt(anyInt(), anyInt());
+        doAnswer(invocation -> {
+            batch.addAll(bound);
+            bound.clear();
+            return null;
+        }).when(stmt).addBatch();
+        doAnswer(invocation -> {
+            m_batches.incrementAndGet();
+            if (!Collections.disjoint(batch, m_failingValues)) {
+                throw new BatchUpdateException("Batch failed", new int[0]);
+            }
+            m_written.addAll(batch);
+            return new int[batch.size()];
+        }).when(stmt).executeBatch();
+        doAnswer(invocation -> {
+            batch.clear();
+            return null;
+        }).when(stmt).clearBatch();
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+
+        m_connections.add(conn);
+        return conn;
+    }
+
+    private PipelinedBatchWriter createWriter(final PipelinedBatchWriter.RowBinder binder, final int batchSize,
+        final int writerCount, final ExecutionMonitor exec) {
+        return new PipelinedBatchWriter(this::openConnection, "INSERT INTO t VALUES (?)", binder, batchSize,
+            writerCount, exec);
+    }
+
+    private static void bind(final PreparedStatement stmt, final DataRow row) throws SQLException {
+        stmt.setInt(1, ((IntCell)row.getCell(0)).getIntValue());
+    }
+
+    /**
+     * Tests that all rows are written in batches of the given size and that each writer commits once and restores
+     * the auto-commit flag.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testAllRowsWritten() throws Exception {
+        final String result = createWriter(PipelinedBatchWriterTest::bind, 3, 2, new ExecutionMonitor())
+            .write(new ListRowInput(10, -1, null), 10);
+
+        assertNull(result);
+        assertEquals(10, m_written.size());
+        assertEquals("Batches of 3, 3, 3 and 1 rows", 4, m_batches.get());
+        assertEquals(2, m_connections.size());
+        for (Connection conn : m_connections) {
+            verify(conn, times(1)).commit();
+            verify(conn, never()).rollback();
+            verify(conn).close();
+            assertTrue("Auto-commit not restored", conn.getAutoCommit());
+        }
+    }
+
+    /**
+     * Tests that a failing batch is counted and reported but doesn't stop the insert.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testFailingBatchIsCounted() throws Exception {
+        m_failingValues.add(4);
+        m_failingValues.add(8);
+        final String result = createWriter(PipelinedBatchWriterTest::bind, 3, 1, new ExecutionMonitor())
+            .write(new ListRowInput(10, -1, null), 10);
+
+        assertEquals("Errors \"2\" writing 10 rows.", result);
+        assertEquals(4, m_batches.get());
+        // rows 3-5 and 6-8 are in the failing batches
+        assertEquals(4, m_written.size());
+        final Connection conn = m_connections.get(0);
+        // as in the sequential insert: commit after each failing batch and at the end
+        verify(conn, times(3)).commit();
+        verify(conn, never()).rollback();
+    }
+
+    /**
+     * Tests that a writer whose binding fails rolls back before it restores the auto-commit flag and that the error
+     * is thrown.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testFailureRollsBack() throws Exception {
+        final PipelinedBatchWriter.RowBinder binder = (stmt, row) -> {
+            if (((IntCell)row.getCell(0)).getIntValue() == 4) {
+                throw new SQLException("Bind failed");
+            }
+            bind(stmt, row);
+        };
+        try {
+            createWriter(binder, 3, 1, new ExecutionMonitor()).write(new ListRowInput(100, -1, null), 100);
+            fail("Expected the binding failure to be thrown");
+        } catch (SQLException ex) {
+            assertEquals("Bind failed", ex.getMessage());
+        }
+        final Connection conn = m_connections.get(0);
+        final InOrder order = inOrder(conn);
+        order.verify(conn).setAutoCommit(false);
+        order.verify(conn).rollback();
+        order.verify(conn).setAutoCommit(true);
+        order.verify(conn).close();
+        verify(conn, never()).commit();
+    }
+
+    /**
+     * Tests that no writer commits if another one fails, even if it has already written its last batch, i.e. the
+     * insert leaves no rows behind as the sequential insert.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testFailureRollsBackAllWriters() throws Exception {
+        final PipelinedBatchWriter.RowBinder binder = (stmt, row) -> {
+            if (((IntCell)row.getCell(0)).getIntValue() == 9) {
+                throw new SQLException("Bind failed");
+            }
+            bind(stmt, row);
+        };
+        try {
+            createWriter(binder, 1, 2, new ExecutionMonitor()).write(new ListRowInput(10, -1, null), 10);
+            fail("Expected the binding failure to be thrown");
+        } catch (SQLException ex) {
+            assertEquals("Bind failed", ex.getMessage());
+        }
+        assertFalse(m_connections.isEmpty());
+        for (Connection conn : m_connections) {
+            verify(conn, never()).commit();
+            final InOrder order = inOrder(conn);
+            order.verify(conn).rollback();
+            order.verify(conn).setAutoCommit(true);
+            order.verify(conn).close();
+        }
+    }
+
+    /**
+     * Tests that canceling the insert rolls back the uncommitted rows of all writers.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 10000)
+    public void testCancelRollsBack() throws Exception {
+        final DefaultNodeProgressMonitor progress = new DefaultNodeProgressMonitor();
+        try {
+            createWriter(PipelinedBatchWriterTest::bind, 2, 2, new ExecutionMonitor(progress))
+                .write(new ListRowInput(100, 20, progress), 100);
+            fail("Expected the insert to be canceled");
+        } catch (CanceledExecutionException ex) {
+            // expected
+        }
+        assertFalse(m_connections.isEmpty());
+        for (Connection conn : m_connections) {
+            verify(conn, never()).commit();
+            final InOrder order = inOrder(conn);
+            order.verify(conn).rollback();
+            order.verify(conn).setAutoCommit(true);
+            order.verify(conn).close();
+        }
+    }
+
+    /** Input of rows with the values 0 to n - 1, optionally canceling the execution after some rows. */
+    private static final class ListRowInput extends RowInput {
+
+        private final int m_rowCount;
+
+        private final int m_cancelAfter;
+
+        private final DefaultNodeProgressMonitor m_progress;
+
+        private int m_index;
+
+        ListRowInput(final int rowCount, final int cancelAfter, final DefaultNodeProgressMonitor progress) {
+            m_rowCount = rowCount;
+            m_cancelAfter = cancelAfter;
+            m_progress = progress;
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return SPEC;
+        }
+
+        @Override
+        public DataRow poll() {
+            if (m_index == m_cancelAfter) {
+                m_progress.setExecuteCanceled();
+            }
+            if (m_index == m_rowCount) {
+                return null;
+            }
+            final int value = m_index++;
+            return new DefaultRow(RowKey.createRowKey((long)value), new IntCell(value));
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
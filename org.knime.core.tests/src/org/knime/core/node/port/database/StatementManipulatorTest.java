@@ -0,0 +1,89 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.database;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the partition predicates of {@link StatementManipulator#partitionByModulo(String, String, int, int)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class StatementManipulatorTest {
+
+    private static void assertMatches(final String regex, final String actual) {
+        assertTrue("\"" + actual + "\" doesn't match \"" + regex + "\"", actual.matches(regex));
+    }
+
+    /** Tests the default predicate, which uses the <code>MOD</code> function. */
+    @Test
+    public void testPartitionByModulo() {
+        final StatementManipulator manipulator = new StatementManipulator();
+        assertMatches("SELECT \\* FROM \\(SELECT \\* FROM t\\) tempTable_\\d+ WHERE "
+            + "\\(ABS\\(MOD\\(id, 4\\)\\) = 0 OR id IS NULL\\)",
+            manipulator.partitionByModulo("SELECT * FROM t", "id", 4, 0));
+        assertMatches("SELECT \\* FROM \\(SELECT \\* FROM t\\) tempTable_\\d+ WHERE ABS\\(MOD\\(id, 4\\)\\) = 3",
+            manipulator.partitionByModulo("SELECT * FROM t", "id", 4, 3));
+        // the column is quoted if necessary
+        assertMatches(".* WHERE ABS\\(MOD\\(\"my id\", 2\\)\\) = 1",
+            manipulator.partitionByModulo("SELECT * FROM t", "my id", 2, 1));
+    }
+
+    /** Tests the SQL Server predicate, which uses the <code>%</code> operator. */
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testPartitionByModuloSQLServer() {
+        final StatementManipulator manipulator = new SQLServerUtility().getStatementManipulator();
+        assertMatches("SELECT \\* FROM \\(SELECT \\* FROM t\\) tempTable_\\d+ WHERE "
+            + "\\(ABS\\(id % 3\\) = 0 OR id IS NULL\\)",
+            manipulator.partitionByModulo("SELECT * FROM t", "id", 3, 0));
+        assertMatches("SELECT \\* FROM \\(SELECT \\* FROM t\\) tempTable_\\d+ WHERE ABS\\(id % 3\\) = 2",
+            manipulator.partitionByModulo("SELECT * FROM t", "id", 3, 2));
+    }
+}
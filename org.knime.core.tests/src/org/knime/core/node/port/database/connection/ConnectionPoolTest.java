@@ -0,0 +1,304 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.database.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ConnectionPool}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ConnectionPoolTest {
+
+    /** The physical connections opened by the pool under test. */
+    private List<FakeConnection> m_opened;
+
+    private boolean m_valid;
+
+    private ConnectionPool m_pool;
+
+    /** Simple connection that only knows whether it is closed and its transaction settings. */
+    private static final class FakeConnection {
+
+        private final AtomicBoolean m_closed = new AtomicBoolean();
+
+        private boolean m_autoCommit = true;
+
+        private boolean m_readOnly;
+
+        private int m_isolation = Connection.TRANSACTION_READ_COMMITTED;
+
+        private int m_rollbacks;
+
+        private final Connection m_connection = (Connection)Proxy.newProxyInstance(
+            ConnectionPoolTest.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        m_closed.set(true);
+                        return null;
+                    case "isClosed":
+                        return m_closed.get();
+                    case "getAutoCommit":
+                        return m_autoCommit;
+                    case "setAutoCommit":
+                        m_autoCommit = (Boolean)args[0];
+                        return null;
+                    case "isReadOnly":
+                        return m_readOnly;
+                    case "setReadOnly":
+                        m_readOnly = (Boolean)args[0];
+                        return null;
+                    case "getTransactionIsolation":
+                        return m_isolation;
+                    case "setTransactionIsolation":
+                        m_isolation = (Integer)args[0];
+                        return null;
+                    case "rollback":
+                        m_rollbacks++;
+                        return null;
+                    case "clearWarnings":
+                        return null;
+                    case "getCatalog":
+                        return "catalog";
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    /** Creates a pool of size 2. */
+    @Before
+    public void setUp() {
+        m_opened = new ArrayList<>();
+        m_valid = true;
+        m_pool = createPool(1, 1, TimeUnit.HOURS);
+    }
+
+    private ConnectionPool createPool(final long idleTimeout, final long maxLifetime, final TimeUnit unit) {
+        return new ConnectionPool("test", () -> {
+            final FakeConnection conn = new FakeConnection();
+            m_opened.add(conn);
+            return conn.m_connection;
+        }, conn -> m_valid, 2, idleTimeout, maxLifetime, unit);
+    }
+
+    /**
+     * Tests that a returned connection is reused.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testReuse() throws Exception {
+        final Connection first = m_pool.borrow();
+        assertEquals("catalog", first.getCatalog());
+        first.close();
+        assertTrue(first.isClosed());
+        assertFalse("Physical connection closed on return", m_opened.get(0).m_closed.get());
+
+        final Connection second = m_pool.borrow();
+        assertNotSame(first, second);
+        assertEquals(1, m_opened.size());
+        second.close();
+
+        final ConnectionPool.Statistics stats = m_pool.getStatistics();
+        assertEquals(0, stats.getActiveConnections());
+        assertEquals(1, stats.getIdleConnections());
+        assertEquals(2, stats.getBorrowCount());
+    }
+
+    /**
+     * Tests that a connection can't be used after it has been returned.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(expected = SQLException.class)
+    public void testUseAfterReturn() throws Exception {
+        final Connection conn = m_pool.borrow();
+        conn.close();
+        conn.getCatalog();
+    }
+
+    /**
+     * Tests that borrowing blocks (and times out) if all connections are leased.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(timeout = 5000)
+    public void testMaxSize() throws Exception {
+        final Connection c1 = m_pool.borrow();
+        final Connection c2 = m_pool.borrow();
+        try {
+            m_pool.borrow(50, TimeUnit.MILLISECONDS);
+            fail("Expected timeout as all connections are leased");
+        } catch (SQLTimeoutException expected) {
+            // expected
+        }
+        try {
+            m_pool.borrow(0, TimeUnit.MILLISECONDS);
+            fail("Expected immediate timeout as all connections are leased");
+        } catch (SQLTimeoutException expected) {
+            // expected
+        }
+        assertEquals(2, m_pool.getStatistics().getActiveConnections());
+
+        final Thread returner = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                c1.close();
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        returner.start();
+        final Connection c3 = m_pool.borrow(5, TimeUnit.SECONDS);
+        returner.join();
+        assertEquals(2, m_opened.size());
+        assertTrue(m_pool.getStatistics().getMaxWaitNanos() > 0);
+        c2.close();
+        c3.close();
+    }
+
+    /**
+     * Tests that invalid idle connections are closed and replaced.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidationOnBorrow() throws Exception {
+        m_pool.borrow().close();
+        m_valid = false;
+        final Connection conn = m_pool.borrow();
+        assertEquals(2, m_opened.size());
+        assertTrue("Invalid connection not closed", m_opened.get(0).m_closed.get());
+        conn.close();
+    }
+
+    /**
+     * Tests that closing the pool closes idle connections and rejects further borrows.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testClose() throws Exception {
+        final Connection leased = m_pool.borrow();
+        m_pool.borrow().close();
+        m_pool.close();
+        assertTrue(m_opened.get(1).m_closed.get());
+        leased.close();
+        assertTrue("Connection returned to closed pool not closed", m_opened.get(0).m_closed.get());
+        try {
+            m_pool.borrow();
+            fail("Expected exception as pool is closed");
+        } catch (SQLException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that pending changes are rolled back and the initial connection state is restored when a connection is
+     * returned.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testStateResetOnReturn() throws Exception {
+        final Connection conn = m_pool.borrow();
+        conn.setAutoCommit(false);
+        conn.setReadOnly(true);
+        conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        conn.close();
+
+        final FakeConnection physical = m_opened.get(0);
+        assertEquals(1, physical.m_rollbacks);
+        assertTrue(physical.m_autoCommit);
+        assertFalse(physical.m_readOnly);
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, physical.m_isolation);
+
+        final Connection reused = m_pool.borrow();
+        assertTrue(reused.getAutoCommit());
+        assertFalse(reused.isReadOnly());
+        reused.close();
+        assertEquals(1, m_opened.size());
+    }
+
+    /**
+     * Tests that {@link ConnectionPool#evictExpired()} closes idle connections without a borrow or return.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testEvictExpired() throws Exception {
+        final ConnectionPool pool = createPool(1, TimeUnit.HOURS.toNanos(1), TimeUnit.NANOSECONDS);
+        final Connection leased = pool.borrow();
+        pool.borrow().close();
+        Thread.sleep(1);
+        pool.evictExpired();
+        assertTrue("Expired idle connection not closed", m_opened.get(1).m_closed.get());
+        assertFalse("Leased connection closed", m_opened.get(0).m_closed.get());
+        assertEquals(0, pool.getStatistics().getIdleConnections());
+        assertEquals(1, pool.getStatistics().getActiveConnections());
+        leased.close();
+        pool.close();
+    }
+}
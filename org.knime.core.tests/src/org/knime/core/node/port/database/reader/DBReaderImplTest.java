@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the partitioned read of {@link DBReaderImpl} with mocked connections.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBReaderImplTest {
+
+    private ExecutionContext m_exec;
+
+    /** Creates the execution context. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Before
+    public void setUp() {
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+    }
+
+    private static DBReaderImpl createReader(final String query) {
+        final DatabaseConnectionSettings conn =
+            new DatabaseConnectionSettings("test", "test.Driver", "jdbc:test", null, null, null, "none");
+        return new DBReaderImpl(new DatabaseQueryConnectionSettings(conn, query));
+    }
+
+    /** Tests that the partition queries nest the query without its trailing semicolon. */
+    @Test
+    public void testCreatePartitionQueries() {
+        final String[] queries = createReader("SELECT * FROM t ; ").createPartitionQueries("id", 3);
+        assertEquals(3, queries.length);
+        for (int p = 0; p < queries.length; p++) {
+            assertTrue(queries[p], queries[p].startsWith("SELECT * FROM (SELECT * FROM t) "));
+            assertTrue(queries[p], queries[p].contains("ABS(MOD(id, 3)) = " + p));
+            assertFalse(queries[p], queries[p].contains(";"));
+        }
+    }
+
+    /**
+     * Tests that the partitions are concatenated in order with unique row keys and that all connections are closed.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testReadPartitions() throws Exception {
+        final Connection[] connections = new Connection[]{
+            mockConnection("q0", mockResult(new int[]{0, 3}, "a", "b")),
+            mockConnection("q1", mockResult(new int[]{1}, "c")),
+            mockConnection("q2", mockResult(new int[0]))};
+
+        final BufferedDataTable table =
+            createReader("SELECT * FROM t").readPartitions(m_exec, connections, new String[]{"q0", "q1", "q2"});
+
+        assertEquals(3, table.size());
+        assertEquals(2, table.getDataTableSpec().getNumColumns());
+        final List<String> keys = new ArrayList<>();
+        final List<Integer> ids = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        for (DataRow row : table) {
+            keys.add(row.getKey().getString());
+            ids.add(((IntCell)row.getCell(0)).getIntValue());
+            names.add(((StringCell)row.getCell(1)).getStringValue());
+        }
+        assertEquals("Row0_0, Row0_1, Row1_0", String.join(", ", keys));
+        assertEquals("[0, 3, 1]", ids.toString());
+        assertEquals("[a, b, c]", names.toString());
+        for (Connection conn : connections) {
+            verify(conn, atLeastOnce()).close();
+        }
+    }
+
+    /**
+     * Tests that the read fails if a partition fails and that all connections are closed.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testFailingPartition() throws Exception {
+        final Connection failing = mock(Connection.class);
+        final Statement stmt = mock(Statement.class);
+        when(failing.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery("q1")).thenThrow(new SQLException("Partition failed"));
+        final Connection[] connections =
+            new Connection[]{mockConnection("q0", mockResult(new int[]{0}, "a")), failing};
+
+        try {
+            createReader("SELECT * FROM t").readPartitions(m_exec, connections, new String[]{"q0", "q1"});
+            fail("Expected the failure of the second partition");
+        } catch (SQLException ex) {
+            assertEquals("Partition failed", ex.getMessage());
+        }
+        for (Connection conn : connections) {
+            verify(conn, atLeastOnce()).close();
+        }
+    }
+
+    private static Connection mockConnection(final String query, final ResultSet result) throws SQLException {
+        final Connection conn = mock(Connection.class);
+        final Statement stmt = mock(Statement.class);
+        when(conn.createStatement()).thenReturn(stmt);
+        when(stmt.executeQuery(query)).thenReturn(result);
+        return conn;
+    }
+
+    /** A result set with an integer column "id" and a string column "name". */
+    private static ResultSet mockResult(final int[] ids, final String... names) throws SQLException {
+        final ResultSet result = mock(ResultSet.class);
+        final ResultSetMetaData meta = mock(ResultSetMetaData.class);
+        when(result.getMetaData()).thenReturn(meta);
+        when(meta.getColumnCount()).thenReturn(2);
+        when(meta.getColumnLabel(1)).thenReturn("id");
+        when(meta.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(meta.getColumnLabel(2)).thenReturn("name");
+        when(meta.getColumnType(2)).thenReturn(Types.VARCHAR);
+
+        final Boolean[] hasNext = new Boolean[ids.length];
+        final Integer[] idValues = new Integer[Math.max(0, ids.length - 1)];
+        final String[] nameValues = new String[Math.max(0, ids.length - 1)];
+        for (int i = 0; i < ids.length; i++) {
+            hasNext[i] = i < ids.length - 1;
+            if (i > 0) {
+                idValues[i - 1] = ids[i];
+                nameValues[i - 1] = names[i];
+            }
+        }
+        if (ids.length == 0) {
+            when(result.next()).thenReturn(false);
+        } else {
+            when(result.next()).thenReturn(true, hasNext);
+            when(result.getInt(1)).thenReturn(ids[0], idValues);
+            when(result.getString(2)).thenReturn(names[0], nameValues);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.blob.BinaryObjectCellFactory;
+import org.knime.core.data.blob.BinaryObjectDataCell;
+import org.knime.core.data.blob.BinaryObjectDataValue;
+import org.knime.core.data.date.DateAndTimeCell;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the per column reader selection of {@link DBRowIteratorImpl} against a mocked {@link ResultSet}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBRowIteratorImplTest {
+
+    private ResultSet m_result;
+
+    private ResultSetMetaData m_metaData;
+
+    /**
+     * Creates the mocked result set, which has two rows.
+     *
+     * @throws SQLException never
+     */
+    @Before
+    public void setUp() throws SQLException {
+        m_result = mock(ResultSet.class);
+        m_metaData = mock(ResultSetMetaData.class);
+        when(m_result.getMetaData()).thenReturn(m_metaData);
+        when(m_result.next()).thenReturn(true, true, false);
+    }
+
+    private DBRowIteratorImpl createIterator(final DataType... types) {
+        final DataTableSpec spec = new DataTableSpec(createColumnSpecs(types));
+        final DatabaseConnectionSettings conn =
+            new DatabaseConnectionSettings("test", "test.Driver", "jdbc:test", null, null, null, "none");
+        return new DBRowIteratorImpl(spec, conn, new BinaryObjectCellFactory(), m_result, false);
+    }
+
+    private static DataColumnSpec[] createColumnSpecs(final DataType... types) {
+        final DataColumnSpec[] specs = new org.knime.core.data.DataColumnSpec[types.length];
+        for (int i = 0; i < types.length; i++) {
+            specs[i] = new DataColumnSpecCreator("col" + i, types[i]).createSpec();
+        }
+        return specs;
+    }
+
+    private void setDbTypes(final int... dbTypes) throws SQLException {
+        for (int i = 0; i < dbTypes.length; i++) {
+            when(m_metaData.getColumnType(i + 1)).thenReturn(dbTypes[i]);
+        }
+    }
+
+    /**
+     * Tests that each combination of KNIME type and JDBC type is read with the corresponding getter of the result set
+     * and that the reader is only determined once.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testReaderDispatch() throws Exception {
+        final DBRowIteratorImpl iterator = createIterator(BooleanCell.TYPE, IntCell.TYPE, IntCell.TYPE, IntCell.TYPE,
+            LongCell.TYPE, DoubleCell.TYPE, DoubleCell.TYPE, DateAndTimeCell.TYPE, StringCell.TYPE, StringCell.TYPE,
+            StringCell.TYPE, StringCell.TYPE, StringCell.TYPE);
+        setDbTypes(Types.BIT, Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.REAL, Types.DOUBLE,
+            Types.DATE, Types.VARCHAR, Types.NVARCHAR, Types.CLOB, Types.VARBINARY, Types.OTHER);
+        when(m_result.getBoolean(1)).thenReturn(true);
+        when(m_result.getByte(2)).thenReturn((byte)-3);
+        when(m_result.getShort(3)).thenReturn((short)300);
+        when(m_result.getInt(4)).thenReturn(7);
+        when(m_result.getLong(5)).thenReturn(Long.MAX_VALUE);
+        when(m_result.getFloat(6)).thenReturn(1.5f);
+        when(m_result.getDouble(7)).thenReturn(2.25);
+        when(m_result.getDate(8)).thenReturn(new Date(86400000L));
+        when(m_result.getString(9)).thenReturn("varchar");
+        when(m_result.getNString(10)).thenReturn("nvarchar");
+        final Clob clob = mock(Clob.class);
+        when(clob.getCharacterStream()).thenAnswer(invocation -> new StringReader("clob"));
+        when(m_result.getClob(11)).thenReturn(clob);
+        when(m_result.getBytes(12)).thenReturn("bytes".getBytes(StandardCharsets.UTF_8));
+        when(m_result.getObject(13)).thenReturn(Integer.valueOf(42));
+
+        for (int r = 0; r < 2; r++) {
+            assertTrue(iterator.hasNext());
+            final DataRow row = iterator.next();
+            assertEquals(BooleanCell.TRUE, row.getCell(0));
+            assertEquals(new IntCell(-3), row.getCell(1));
+            assertEquals(new IntCell(300), row.getCell(2));
+            assertEquals(new IntCell(7), row.getCell(3));
+            assertEquals(new LongCell(Long.MAX_VALUE), row.getCell(4));
+            assertEquals(new DoubleCell(1.5), row.getCell(5));
+            assertEquals(new DoubleCell(2.25), row.getCell(6));
+            assertEquals(new DateAndTimeCell(86400000L, true, false, false), row.getCell(7));
+            assertEquals(new StringCell("varchar"), row.getCell(8));
+            assertEquals(new StringCell("nvarchar"), row.getCell(9));
+            assertEquals(new StringCell("clob"), row.getCell(10));
+            assertEquals(new StringCell("bytes"), row.getCell(11));
+            assertEquals(new StringCell("42"), row.getCell(12));
+        }
+
+        verify(m_result, never()).getInt(2);
+        verify(m_result, never()).getInt(3);
+        verify(m_result, never()).getDouble(6);
+        verify(m_result, never()).getString(11);
+        verify(m_result, never()).getString(12);
+        verify(m_result, times(2)).getByte(2);
+        // the JDBC types are only queried once per column
+        verify(m_metaData, times(1)).getColumnType(1);
+        verify(m_metaData, times(1)).getColumnType(13);
+    }
+
+    /**
+     * Tests that SQL NULL values are read as missing cells for all readers.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testNullValues() throws Exception {
+        final DBRowIteratorImpl iterator = createIterator(BooleanCell.TYPE, IntCell.TYPE, IntCell.TYPE, LongCell.TYPE,
+            DoubleCell.TYPE, DoubleCell.TYPE, DateAndTimeCell.TYPE, DateAndTimeCell.TYPE, StringCell.TYPE,
+            StringCell.TYPE, StringCell.TYPE, BinaryObjectDataCell.TYPE, BinaryObjectDataCell.TYPE);
+        setDbTypes(Types.BOOLEAN, Types.TINYINT, Types.INTEGER, Types.BIGINT, Types.REAL, Types.DOUBLE,
+            Types.TIMESTAMP, Types.TIME, Types.VARCHAR, Types.CLOB, Types.OTHER, Types.BLOB, Types.VARBINARY);
+        // primitive getters return their default value for NULL, the others null
+        when(m_result.wasNull()).thenReturn(true);
+
+        assertTrue(iterator.hasNext());
+        final DataRow row = iterator.next();
+        for (int i = 0; i < row.getNumCells(); i++) {
+            assertTrue("Cell " + i + " not missing: " + row.getCell(i), row.getCell(i).isMissing());
+        }
+    }
+
+    /**
+     * Tests that binary columns are read from BLOBs and streams and that the readers fall back to the byte array or
+     * string getters if the driver doesn't support these (such as SQLite).
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testBinaryFallback() throws Exception {
+        final DBRowIteratorImpl iterator = createIterator(BinaryObjectDataCell.TYPE,
+            BinaryObjectDataCell.TYPE, BinaryObjectDataCell.TYPE, BinaryObjectDataCell.TYPE,
+            BinaryObjectDataCell.TYPE);
+        setDbTypes(Types.BLOB, Types.BLOB, Types.LONGVARBINARY, Types.VARBINARY, Types.LONGVARCHAR);
+        // column 1: BLOB supported
+        final Blob blob = mock(Blob.class);
+        when(blob.getBinaryStream()).thenAnswer(invocation -> stream("blob"));
+        when(m_result.getBlob(1)).thenReturn(blob);
+        // column 2: BLOB not supported, read as bytes
+        when(m_result.getBlob(2)).thenThrow(new SQLException("BLOB not supported"));
+        when(m_result.getBytes(2)).thenReturn(bytes("bytes"));
+        // column 3: binary stream supported
+        when(m_result.getBinaryStream(3)).thenAnswer(invocation -> stream("binary"));
+        // column 4: binary stream not supported, read as string
+        when(m_result.getBinaryStream(4)).thenThrow(new SQLException("Stream not supported"));
+        when(m_result.getString(4)).thenReturn("string");
+        // column 5: ASCII stream
+        when(m_result.getAsciiStream(5)).thenAnswer(invocation -> stream("ascii"));
+
+        assertTrue(iterator.hasNext());
+        final DataRow row = iterator.next();
+        assertArrayEquals(bytes("blob"), read(row.getCell(0)));
+        assertArrayEquals(bytes("bytes"), read(row.getCell(1)));
+        assertArrayEquals(bytes("binary"), read(row.getCell(2)));
+        assertArrayEquals(bytes("string"), read(row.getCell(3)));
+        assertArrayEquals(bytes("ascii"), read(row.getCell(4)));
+
+        // the failing stream isn't tried again for the next row
+        assertTrue(iterator.hasNext());
+        assertEquals(new StringCell("string"), iterator.next().getCell(3));
+        verify(m_result, times(1)).getBinaryStream(4);
+        verify(m_result, times(2)).getBlob(2);
+        verify(m_result, times(2)).getBytes(2);
+    }
+
+    /**
+     * Tests that a failing meta data lookup results in missing cells rather than a failing read.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testMetaDataFailure() throws Exception {
+        final DBRowIteratorImpl iterator = createIterator(IntCell.TYPE, StringCell.TYPE);
+        when(m_metaData.getColumnType(anyInt())).thenThrow(new SQLException("No meta data"));
+
+        for (int r = 0; r < 2; r++) {
+            assertTrue(iterator.hasNext());
+            final DataRow row = iterator.next();
+            assertTrue(row.getCell(0).isMissing());
+            assertTrue(row.getCell(1).isMissing());
+        }
+        verify(m_result, never()).getInt(anyInt());
+        verify(m_metaData, times(2)).getColumnType(anyInt());
+    }
+
+    private static byte[] bytes(final String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(final String s) {
+        return new ByteArrayInputStream(bytes(s));
+    }
+
+    private static byte[] read(final DataCell cell) throws IOException {
+        assertTrue("Not a binary object: " + cell, cell instanceof BinaryObjectDataValue);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = ((BinaryObjectDataValue)cell).openInputStream()) {
+            FileUtil.copy(in, out);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.port.pmml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.dmg.pmml.DATATYPE;
+import org.dmg.pmml.DerivedFieldDocument.DerivedField;
+import org.dmg.pmml.OPTYPE;
+import org.dmg.pmml.PMMLDocument;
+import org.dmg.pmml.TransformationDictionaryDocument.TransformationDictionary;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.pmml.PMMLUtils;
+
+/**
+ * Tests lazy loading, the parsed-model cache and copy-on-write of {@link PMMLPortObject}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PMMLPortObjectLazyLoadTest {
+
+    private PMMLPortObjectSpec m_spec;
+
+    private byte[] m_serialized;
+
+    /**
+     * Creates and serializes a PMML port object without models.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        DataTableSpec tableSpec = new DataTableSpec(new DataColumnSpecCreator("d", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("s", StringCell.TYPE).createSpec());
+        m_spec = new PMMLPortObjectSpecCreator(tableSpec).createSpec();
+        m_serialized = save(new PMMLPortObject(m_spec));
+        PMMLDocumentCache.clear();
+    }
+
+    /**
+     * Loading only reads the stream, the document is parsed (and cached) once it is inspected.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testParseOnFirstAccess() throws Exception {
+        String hash = hash(m_serialized);
+        PMMLPortObject loaded = load(m_serialized);
+        assertNull("Document parsed while loading", PMMLDocumentCache.get(hash));
+        assertArrayEquals("Unparsed document not written as read", m_serialized, save(loaded));
+
+        loaded.getSummary();
+        PMMLDocument parsed = PMMLDocumentCache.get(hash);
+        assertNotNull("Parsed document not cached", parsed);
+
+        PMMLPortObject loadedAgain = load(m_serialized);
+        assertEquals(loaded, loadedAgain);
+        assertSame("Cached document not reused", parsed, PMMLDocumentCache.get(hash));
+    }
+
+    /**
+     * A copy shares the document with its source until it is modified.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testCopyOnWrite() throws Exception {
+        PMMLPortObject source = load(m_serialized);
+        PMMLPortObject copy = new PMMLPortObject(m_spec, source);
+        assertEquals(source, copy);
+
+        TransformationDictionary dictionary = TransformationDictionary.Factory.newInstance();
+        DerivedField derivedField = dictionary.addNewDerivedField();
+        derivedField.setName("derived");
+        derivedField.setOptype(OPTYPE.CONTINUOUS);
+        derivedField.setDataType(DATATYPE.DOUBLE);
+        copy.addGlobalTransformations(dictionary);
+
+        assertEquals("Modification of copy visible in source", 0, source.getDerivedFields().length);
+        assertEquals(1, copy.getDerivedFields().length);
+        assertArrayEquals("Source changed by modification of copy", m_serialized, save(source));
+        assertEquals("Modified copy not written", 1, load(save(copy)).getDerivedFields().length);
+    }
+
+    /**
+     * Hashing and comparing loaded objects with the same content must not parse the document.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testHashCodeDoesNotParse() throws Exception {
+        PMMLPortObject loaded = load(m_serialized);
+        PMMLPortObject loadedAgain = load(m_serialized);
+        assertEquals(loaded.hashCode(), loadedAgain.hashCode());
+        assertEquals(loaded, loadedAgain);
+        assertNull("Document parsed by hashCode or equals", PMMLDocumentCache.get(hash(m_serialized)));
+
+        loaded.getSummary();
+        assertEquals("Hash code changed by parsing", loadedAgain.hashCode(), loaded.hashCode());
+    }
+
+    /**
+     * A document passed to the constructor may still be modified by the caller and must not be cached.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testCallerDocumentNotCached() throws Exception {
+        PMMLDocument doc = PMMLDocument.Factory.parse(new ByteArrayInputStream(m_serialized));
+        PMMLPortObject portObject = new PMMLPortObject(m_spec, doc);
+        byte[] saved = save(portObject);
+        assertNull("Caller's document cached", PMMLDocumentCache.get(hash(saved)));
+
+        doc.getPMML().setVersion("4.1");
+        assertNotEquals("Content change of caller's document not reflected", hash(saved),
+            hash(save(portObject)));
+    }
+
+    /**
+     * Documents of older PMML versions are converted to the current version before they are written or exposed,
+     * even if they have not been inspected yet.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testLegacyVersionConverted() throws Exception {
+        String current = new String(m_serialized, StandardCharsets.UTF_8);
+        byte[] legacy = current.replace(PMMLUtils.getPMMLCurrentVersionNamespace(), "http://www.dmg.org/PMML-4_1")
+            .replace("version=\"" + PMMLPortObject.PMML_V4_2 + "\"", "version=\"4.1\"")
+            .getBytes(StandardCharsets.UTF_8);
+
+        PMMLPortObject loaded = load(legacy);
+        String saved = new String(save(loaded), StandardCharsets.UTF_8);
+        assertTrue("Legacy document not converted when written",
+            saved.contains(PMMLUtils.getPMMLCurrentVersionNamespace()));
+        assertEquals("Legacy document not converted in PMML value", PMMLPortObject.PMML_V4_2,
+            load(legacy).getPMMLValue().getPMMLVersion());
+
+        PMMLPortObject upToDate = load(m_serialized);
+        assertEquals(upToDate, loaded);
+        assertEquals("Equal objects with different serialized forms", upToDate.hashCode(), loaded.hashCode());
+    }
+
+    /**
+     * Modifying the derived fields of one port object must not affect another one sharing its document.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testDerivedFieldsNotShared() throws Exception {
+        TransformationDictionary dictionary = TransformationDictionary.Factory.newInstance();
+        DerivedField derivedField = dictionary.addNewDerivedField();
+        derivedField.setName("derived");
+        derivedField.setOptype(OPTYPE.CONTINUOUS);
+        derivedField.setDataType(DATATYPE.DOUBLE);
+        PMMLPortObject source = new PMMLPortObject(m_spec);
+        source.addGlobalTransformations(dictionary);
+        byte[] serialized = save(source);
+
+        PMMLPortObject loaded = load(serialized);
+        PMMLPortObject loadedAgain = load(serialized);
+        loaded.getDerivedFields()[0].setName("modified");
+        assertEquals("Modification of derived field visible in other port object", "derived",
+            loadedAgain.getDerivedFields()[0].getName());
+        assertArrayEquals("Document changed by modification of derived field", serialized, save(loaded));
+    }
+
+    private static byte[] save(final PMMLPortObject portObject) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        portObject.save(out);
+        return out.toByteArray();
+    }
+
+    private PMMLPortObject load(final byte[] serialized) throws Exception {
+        PMMLPortObject portObject = new PMMLPortObject();
+        portObject.loadFrom(m_spec, new ByteArrayInputStream(serialized));
+        return portObject;
+    }
+
+    private static String hash(final byte[] serialized) {
+        MessageDigest digest = PMMLDocumentCache.newDigest();
+        digest.update(serialized);
+        return PMMLDocumentCache.toHash(digest);
+    }
+}
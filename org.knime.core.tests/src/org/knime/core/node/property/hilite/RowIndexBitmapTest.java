@@ -0,0 +1,150 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.property.hilite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RowIndexBitmap}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class RowIndexBitmapTest {
+
+    /** Adds and removes rows in sparse and dense chunks and compares against a {@link BitSet}. */
+    @Test
+    public void testAddRemove() {
+        Random r = new Random(42);
+        RowIndexBitmap bitmap = new RowIndexBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 20000; i++) {
+            int row = r.nextInt(3 * 65536);
+            assertEquals(!expected.get(row), bitmap.add(row));
+            expected.set(row);
+        }
+        for (int i = 0; i < 15000; i++) {
+            int row = r.nextInt(3 * 65536);
+            assertEquals(expected.get(row), bitmap.remove(row));
+            expected.clear(row);
+        }
+        assertSame(expected, bitmap);
+    }
+
+    /** Tests ranges crossing chunk boundaries. */
+    @Test
+    public void testRange() {
+        RowIndexBitmap bitmap = RowIndexBitmap.range(65000, 140000);
+        assertEquals(75000, bitmap.getCardinality());
+        assertTrue(bitmap.contains(65000));
+        assertTrue(bitmap.contains(139999));
+        assertFalse(bitmap.contains(140000));
+        bitmap.addRange(10, 20);
+        assertEquals(75010, bitmap.getCardinality());
+        bitmap.addRange(20, 20);
+        assertEquals(75010, bitmap.getCardinality());
+    }
+
+    /** Tests the set operations. */
+    @Test
+    public void testOrAndNot() {
+        RowIndexBitmap a = RowIndexBitmap.range(0, 10000);
+        RowIndexBitmap b = RowIndexBitmap.of(5, 9999, 10000, 70000);
+        RowIndexBitmap union = a.copy();
+        union.or(b);
+        assertEquals(10002, union.getCardinality());
+        assertTrue(union.contains(70000));
+        union.andNot(a);
+        assertEquals(RowIndexBitmap.of(10000, 70000), union);
+        union.andNot(union.copy());
+        assertTrue(union.isEmpty());
+        assertEquals(new RowIndexBitmap().hashCode(), union.hashCode());
+    }
+
+    /** Tests that iteration is in ascending order. */
+    @Test
+    public void testIterator() {
+        RowIndexBitmap bitmap = RowIndexBitmap.of(70000, 3, 1, 65536);
+        bitmap.addRange(100, 5100);
+        int[] rows = new int[bitmap.getCardinality()];
+        PrimitiveIterator.OfInt it = bitmap.iterator();
+        int i = 0;
+        while (it.hasNext()) {
+            rows[i++] = it.nextInt();
+        }
+        assertEquals(rows.length, i);
+        for (int j = 1; j < rows.length; j++) {
+            assertTrue(rows[j - 1] < rows[j]);
+        }
+        assertArrayEquals(new int[]{1, 3, 100}, new int[]{rows[0], rows[1], rows[2]});
+        assertEquals(70000, rows[rows.length - 1]);
+    }
+
+    /** Tests that frozen bitmaps reject modifications. */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFrozen() {
+        RowIndexBitmap bitmap = RowIndexBitmap.of(1).freeze();
+        assertTrue(bitmap.isReadOnly());
+        assertFalse(bitmap.copy().isReadOnly());
+        bitmap.add(2);
+    }
+
+    private static void assertSame(final BitSet expected, final RowIndexBitmap bitmap) {
+        assertEquals(expected.cardinality(), bitmap.getCardinality());
+        BitSet actual = new BitSet();
+        bitmap.forEach(actual::set);
+        assertEquals(expected, actual);
+    }
+}
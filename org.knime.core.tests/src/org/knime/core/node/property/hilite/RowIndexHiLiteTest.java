@@ -0,0 +1,195 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.property.hilite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.RowKey;
+
+/**
+ * Tests the row index based hilite events of {@link HiLiteHandler} and {@link HiLiteTranslator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class RowIndexHiLiteTest {
+
+    private RowKeyIndex m_index;
+
+    private HiLiteHandler m_hdl;
+
+    private final List<RowIndexKeyEvent> m_hiLiteEvents = new ArrayList<>();
+
+    private final List<RowIndexKeyEvent> m_unHiLiteEvents = new ArrayList<>();
+
+    private final RowIndexHiLiteListener m_listener = new RowIndexHiLiteListener() {
+        @Override
+        public void hiLite(final RowIndexKeyEvent event) {
+            m_hiLiteEvents.add(event);
+        }
+
+        @Override
+        public void unHiLite(final RowIndexKeyEvent event) {
+            m_unHiLiteEvents.add(event);
+        }
+
+        @Override
+        public void unHiLiteAll(final KeyEvent event) {
+        }
+    };
+
+    /** Creates the handler and an index of ten rows. */
+    @Before
+    public void setUp() {
+        m_index = index("Row", 10);
+        m_hdl = new HiLiteHandler();
+    }
+
+    /**
+     * Tests that key events are delivered as row index events containing only the changed rows.
+     * @throws Exception if the events can't be fired on the EDT
+     */
+    @Test
+    public void testIndexListener() throws Exception {
+        m_hdl.addHiLiteListener(m_index, m_listener);
+        onEDT(() -> m_hdl.fireHiLiteEvent(new RowKey("Row1"), new RowKey("Row3"), new RowKey("Other")));
+        assertEquals(1, m_hiLiteEvents.size());
+        RowIndexKeyEvent event = m_hiLiteEvents.get(0);
+        assertSame(m_index, event.getRowKeyIndex());
+        assertEquals(RowIndexBitmap.of(1, 3), event.rows());
+        assertEquals(new HashSet<>(Arrays.asList(new RowKey("Row1"), new RowKey("Row3"))), event.keys());
+
+        // already hilit keys are not fired again
+        onEDT(() -> m_hdl.fireHiLiteEvent(new RowKey("Row1"), new RowKey("Other")));
+        assertEquals(1, m_hiLiteEvents.size());
+
+        onEDT(() -> m_hdl.fireUnHiLiteEvent(m_index, RowIndexBitmap.of(3, 4)));
+        assertEquals(1, m_unHiLiteEvents.size());
+        assertEquals(RowIndexBitmap.of(3), m_unHiLiteEvents.get(0).rows());
+        assertTrue(m_hdl.isHiLit(m_index, 1));
+        assertFalse(m_hdl.isHiLit(m_index, 3));
+        assertEquals(RowIndexBitmap.of(1), m_hdl.getHiLitRows(m_index));
+        assertTrue(m_hdl.isHiLit(new RowKey("Other")));
+
+        m_hdl.removeHiLiteListener(m_listener);
+        onEDT(() -> m_hdl.fireHiLiteEvent(m_index, RowIndexBitmap.of(5)));
+        assertEquals(1, m_hiLiteEvents.size());
+    }
+
+    /**
+     * Tests a translator with a {@link RowIndexHiLiteMapper} from three groups to the ten rows.
+     * @throws Exception if the events can't be fired on the EDT
+     */
+    @Test
+    public void testTranslator() throws Exception {
+        RowKeyIndex groups = index("Group", 3);
+        RowIndexHiLiteMapper mapper = new RowIndexHiLiteMapper(groups, m_index,
+            new int[][]{{0, 1, 2}, {3, 4}, null});
+        assertEquals(new HashSet<>(Arrays.asList(new RowKey("Row3"), new RowKey("Row4"))),
+            mapper.getKeys(new RowKey("Group1")));
+        assertEquals(null, mapper.getKeys(new RowKey("Group2")));
+        assertEquals(2, mapper.keySet().size());
+
+        HiLiteHandler groupHdl = new HiLiteHandler();
+        HiLiteTranslator translator = new HiLiteTranslator(groupHdl, mapper);
+        translator.addToHiLiteHandler(m_hdl);
+
+        onEDT(() -> groupHdl.fireHiLiteEvent(new RowKey("Group1")));
+        assertEquals(RowIndexBitmap.of(3, 4), m_hdl.getHiLitRows(m_index));
+
+        // a group gets hilit once all of its rows are hilit
+        onEDT(() -> m_hdl.fireHiLiteEvent(m_index, RowIndexBitmap.of(0, 1)));
+        assertFalse(groupHdl.isHiLit(new RowKey("Group0")));
+        onEDT(() -> m_hdl.fireHiLiteEvent(m_index, RowIndexBitmap.of(2)));
+        assertTrue(groupHdl.isHiLit(new RowKey("Group0")));
+
+        onEDT(() -> m_hdl.fireUnHiLiteEvent(m_index, RowIndexBitmap.of(4)));
+        assertFalse(groupHdl.isHiLit(new RowKey("Group1")));
+        assertTrue(groupHdl.isHiLit(new RowKey("Group0")));
+
+        onEDT(() -> groupHdl.fireUnHiLiteEvent(new RowKey("Group0")));
+        assertEquals(RowIndexBitmap.of(3), m_hdl.getHiLitRows(m_index));
+        translator.dispose();
+    }
+
+    /**
+     * Tests that the hilit keys are returned in the order they were hilit, also when hilit via a row index.
+     * @throws Exception if the events can't be fired on the EDT
+     */
+    @Test
+    public void testHiLitKeysOrder() throws Exception {
+        onEDT(() -> m_hdl.fireHiLiteEvent(new RowKey("Row7"), new RowKey("Other")));
+        onEDT(() -> m_hdl.fireHiLiteEvent(m_index, RowIndexBitmap.of(2, 9)));
+        onEDT(() -> m_hdl.fireHiLiteEvent(new RowKey("Row0")));
+        onEDT(() -> m_hdl.fireUnHiLiteEvent(new RowKey("Other")));
+        assertEquals(Arrays.asList(new RowKey("Row7"), new RowKey("Row2"), new RowKey("Row9"), new RowKey("Row0")),
+            new ArrayList<>(m_hdl.getHiLitKeys()));
+    }
+
+    private static RowKeyIndex index(final String prefix, final int size) {
+        List<RowKey> keys = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            keys.add(new RowKey(prefix + i));
+        }
+        return new RowKeyIndex(keys);
+    }
+
+    private static void onEDT(final Runnable r) throws Exception {
+        SwingUtilities.invokeAndWait(r);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.node.workflow.FlowVariable.Scope;
+import org.knime.core.node.workflow.VariableType.IntType;
+import org.knime.core.node.workflow.VariableType.StringType;
+
+/**
+ * Tests {@link FlowObjectStack}, in particular that merging stacks gives the same result as a plain list based merge.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class FlowObjectStackTest {
+
+    private int m_nextNodeIndex = 1;
+
+    /** Tests push, peek and pop. */
+    @Test
+    public void testPushPeekPop() {
+        NodeID id = nextID();
+        FlowObjectStack stack = new FlowObjectStack(id);
+        int rootSize = stack.size();
+        stack.push(new FlowVariable("a", 1));
+        FlowScopeContext context = new FlowScopeContext();
+        stack.push(context);
+        stack.push(new FlowVariable("a", "one"));
+        stack.push(new FlowVariable("b", 2));
+        assertEquals(rootSize + 4, stack.size());
+
+        assertEquals("one", stack.peekFlowVariable("a", StringType.INSTANCE).get().getStringValue());
+        assertEquals(1, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertFalse(stack.peekFlowVariable("c", IntType.INSTANCE).isPresent());
+        assertEquals(2, stack.getAvailableFlowVariables(IntType.INSTANCE).get("b").getIntValue());
+        assertEquals(1, stack.getAvailableFlowVariables(IntType.INSTANCE).get("a").getIntValue());
+        assertSame(context, stack.peek(FlowScopeContext.class));
+
+        Iterator<FlowObject> it = stack.iterator();
+        assertEquals("b", ((FlowVariable)it.next()).getName());
+        stack.push(new FlowVariable("c", 3));
+        // iterators are not affected by later modifications
+        assertEquals("a", ((FlowVariable)it.next()).getName());
+
+        assertSame(context, stack.pop(FlowScopeContext.class));
+        assertEquals(rootSize + 1, stack.size());
+        assertEquals(1, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertFalse(stack.peekFlowVariable("a", StringType.INSTANCE).isPresent());
+        assertNull(stack.pop(FlowLoopContext.class));
+        assertTrue(stack.isEmpty());
+    }
+
+    /** Tests that lookups interleaved with pushes return the top-most variable of each name. */
+    @Test
+    public void testPeekAfterEachPush() {
+        Random random = new Random(1);
+        FlowObjectStack stack = new FlowObjectStack(nextID());
+        List<FlowVariable> pushed = new ArrayList<FlowVariable>();
+        for (int i = 0; i < 500; i++) {
+            FlowVariable v = new FlowVariable("v" + random.nextInt(50), i);
+            stack.push(v);
+            pushed.add(v);
+            String name = "v" + random.nextInt(60);
+            FlowVariable expected = null;
+            for (int j = pushed.size() - 1; expected == null && j >= 0; j--) {
+                if (pushed.get(j).getName().equals(name)) {
+                    expected = pushed.get(j);
+                }
+            }
+            assertSame(expected, stack.peekFlowVariable(name, IntType.INSTANCE).orElse(null));
+        }
+    }
+
+    /** Tests that local variables are not passed on to successors. */
+    @Test
+    public void testLocalVariables() {
+        FlowObjectStack stack = new FlowObjectStack(nextID());
+        stack.push(new FlowVariable("a", 1, Scope.Flow));
+        stack.push(new FlowVariable("l", 2, Scope.Local));
+        stack.push(new FlowVariable("b", 3, Scope.Flow));
+        FlowObjectStack successor = new FlowObjectStack(nextID(), stack);
+        assertEquals(stack.size() - 1, successor.size());
+        assertFalse(successor.peekFlowVariable("l", IntType.INSTANCE).isPresent());
+        assertTrue(successor.peekFlowVariable("b", IntType.INSTANCE).isPresent());
+    }
+
+    /** Compares merges of randomly built workflows with the list based reference implementation. */
+    @Test
+    public void testMergeMatchesReference() {
+        Random random = new Random(1);
+        for (int run = 0; run < 200; run++) {
+            List<FlowObjectStack> stacks = new ArrayList<>();
+            List<List<FlowObject>> references = new ArrayList<>();
+            FlowObjectStack source = new FlowObjectStack(nextID());
+            stacks.add(source);
+            references.add(bottomUp(source));
+            for (int node = 0; node < 30; node++) {
+                // pick one to three predecessors
+                int predCount = 1 + random.nextInt(3);
+                FlowObjectStack[] preds = new FlowObjectStack[predCount];
+                List<List<FlowObject>> predReferences = new ArrayList<>();
+                for (int i = 0; i < predCount; i++) {
+                    int p = stacks.size() - 1 - random.nextInt(Math.min(3, stacks.size()));
+                    preds[i] = stacks.get(p);
+                    predReferences.add(references.get(p));
+                }
+                NodeID id = nextID();
+                FlowObjectStack stack;
+                List<FlowObject> reference;
+                try {
+                    reference = referenceMerge(predReferences);
+                } catch (IllegalFlowObjectStackException e) {
+                    continue;
+                }
+                stack = new FlowObjectStack(id, preds);
+                assertEquals(reference, bottomUp(stack));
+                // push some variables (some of them duplicates), scope contexts and pop scopes
+                for (int i = random.nextInt(4); i >= 0; i--) {
+                    int choice = random.nextInt(10);
+                    FlowObject o;
+                    if (choice == 0) {
+                        o = new FlowScopeContext();
+                    } else if (choice == 1) {
+                        stack.pop(FlowScopeContext.class);
+                        continue;
+                    } else {
+                        Scope scope = choice == 2 ? Scope.Local : Scope.Flow;
+                        o = new FlowVariable("v" + random.nextInt(5), random.nextInt(3), scope);
+                    }
+                    stack.push(o);
+                }
+                stacks.add(stack);
+                references.add(bottomUp(stack));
+            }
+        }
+    }
+
+    /** Tests that conflicting scopes are detected. */
+    @Test(expected = IllegalFlowObjectStackException.class)
+    public void testConflictingScopes() {
+        FlowObjectStack s1 = new FlowObjectStack(nextID());
+        s1.push(new FlowScopeContext());
+        FlowObjectStack s2 = new FlowObjectStack(nextID());
+        s2.push(new FlowScopeContext());
+        new FlowObjectStack(nextID(), new FlowObjectStack[]{s1, s2});
+    }
+
+    private NodeID nextID() {
+        return new NodeID(m_nextNodeIndex++);
+    }
+
+    private static List<FlowObject> bottomUp(final FlowObjectStack stack) {
+        List<FlowObject> result = new ArrayList<>();
+        for (FlowObject o : stack) {
+            result.add(0, o);
+        }
+        return result;
+    }
+
+    /** The merge as implemented on plain lists (bottom first), with the last predecessor moved to the front. */
+    private static List<FlowObject> referenceMerge(final List<List<FlowObject>> predecessors) {
+        List<List<FlowObject>> sos = new ArrayList<>(predecessors);
+        if (sos.size() > 1) {
+            sos.add(sos.remove(0));
+        }
+        List<FlowObject> result = new ArrayList<>();
+        List<Iterator<FlowObject>> its = new ArrayList<>();
+        FlowObject[] nexts = new FlowObject[sos.size()];
+        boolean hasMoreElements = false;
+        for (List<FlowObject> so : sos) {
+            List<FlowObject> filtered = new ArrayList<>();
+            for (FlowObject o : so) {
+                if (!(o instanceof FlowVariable && ((FlowVariable)o).getScope() == Scope.Local)) {
+                    filtered.add(o);
+                }
+            }
+            its.add(filtered.iterator());
+            hasMoreElements = hasMoreElements || !filtered.isEmpty();
+        }
+        while (hasMoreElements) {
+            hasMoreElements = false;
+            LinkedHashSet<FlowObject> variableSet = new LinkedHashSet<>();
+            FlowObject commonFlowO = null;
+            for (int i = 0; i < sos.size(); i++) {
+                while (nexts[i] != null || its.get(i).hasNext()) {
+                    FlowObject o = nexts[i] != null ? nexts[i] : its.get(i).next();
+                    nexts[i] = null;
+                    if (o instanceof FlowScopeContext) {
+                        if (commonFlowO != null && !commonFlowO.equals(o)) {
+                            throw new IllegalFlowObjectStackException("Conflicting FlowObjects");
+                        }
+                        commonFlowO = o;
+                        nexts[i] = o;
+                        hasMoreElements = true;
+                        break;
+                    }
+                    variableSet.remove(o);
+                    variableSet.add(o);
+                }
+            }
+            result.addAll(variableSet);
+            if (commonFlowO != null) {
+                result.add(commonFlowO);
+                for (int i = 0; i < nexts.length; i++) {
+                    nexts[i] = null;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.util.tokenizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link FastTokenizer}, mostly by comparing its results with the ones of the {@link Tokenizer}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FastTokenizerTest {
+
+    private static TokenizerSettings createCSVSettings() {
+        final TokenizerSettings settings = new TokenizerSettings();
+        settings.addDelimiterPattern(",", false, false, false);
+        settings.addDelimiterPattern("\n", false, true, false);
+        settings.addQuotePattern("\"", "\"", '\\');
+        settings.addWhiteSpaceCharacter(" ");
+        settings.addWhiteSpaceCharacter("\t");
+        return settings;
+    }
+
+    /** Settings with comments, multi-char patterns or combined delimiters are not supported. */
+    @Test
+    public void testSupports() {
+        assertTrue(FastTokenizer.supports(createCSVSettings()));
+
+        TokenizerSettings settings = createCSVSettings();
+        settings.addSingleLineCommentPattern("#", false, false);
+        assertFalse(FastTokenizer.supports(settings));
+
+        settings = createCSVSettings();
+        settings.addDelimiterPattern("::", false, false, false);
+        assertFalse(FastTokenizer.supports(settings));
+
+        settings = createCSVSettings();
+        settings.addDelimiterPattern(";", true, false, false);
+        assertFalse(FastTokenizer.supports(settings));
+
+        settings = createCSVSettings();
+        settings.setCombineMultipleDelimiters(true);
+        assertFalse(FastTokenizer.supports(settings));
+
+        settings = createCSVSettings();
+        settings.setLineContinuationCharacter('\\');
+        assertFalse(FastTokenizer.supports(settings));
+    }
+
+    /**
+     * Tokens, delimiters and the quote flag of a simple CSV input.
+     *
+     * @throws TokenizerException if the test fails
+     */
+    @Test
+    public void testSimpleCSV() throws TokenizerException {
+        final FastTokenizer tokenizer = new FastTokenizer(
+            new StringReader("a, b ,\"c, \\\"d\\\"\"\r\n \"\",x y\n"), createCSVSettings());
+        assertEquals("a", tokenizer.nextToken().toString());
+        assertTrue(tokenizer.lastTokenWasDelimited());
+        assertEquals("b", tokenizer.nextToken().toString());
+        assertEquals("c, \"d\"", tokenizer.nextToken().toString());
+        assertTrue(tokenizer.lastTokenWasQuoted());
+        assertEquals("\n", tokenizer.nextToken().toString());
+        assertTrue(tokenizer.lastTokenWasDelimiter());
+        assertEquals("", tokenizer.nextToken().toString());
+        assertTrue(tokenizer.lastTokenWasQuoted());
+        assertEquals("x y", tokenizer.nextToken().toString());
+        tokenizer.pushBack();
+        assertEquals("x y", tokenizer.nextToken().toString());
+        assertEquals("\n", tokenizer.nextToken().toString());
+        assertEquals(3, tokenizer.getLineNumber());
+        assertNull(tokenizer.nextToken());
+    }
+
+    /**
+     * A new line in quotes is an error unless allowed in the settings.
+     *
+     * @throws TokenizerException if the test fails
+     */
+    @Test
+    public void testNewLineInQuotes() throws TokenizerException {
+        final String input = "\"a\nb\",c";
+        try {
+            new FastTokenizer(new StringReader(input), createCSVSettings()).nextToken();
+            fail("New line in quotes not detected");
+        } catch (TokenizerException e) {
+            // expected
+        }
+        final TokenizerSettings settings = createCSVSettings();
+        settings.allowLFinQuotes(true);
+        final FastTokenizer tokenizer = new FastTokenizer(new StringReader(input), settings);
+        assertEquals("a\nb", tokenizer.nextToken().toString());
+        assertEquals("c", tokenizer.nextToken().toString());
+    }
+
+    /**
+     * Compares the tokens with the ones of the {@link Tokenizer} for random input and settings, using tiny read
+     * buffers to exercise the buffer handling.
+     *
+     * @throws TokenizerException if the test fails
+     */
+    @Test
+    public void testSameTokensAsTokenizer() throws TokenizerException {
+        final Random random = new Random(42);
+        final String alphabet = "ab ,;\"'\\\n\r\tn\u00e4";
+        for (int i = 0; i < 20000; i++) {
+            final TokenizerSettings settings = new TokenizerSettings();
+            settings.addDelimiterPattern(",", false, false, false);
+            if (random.nextBoolean()) {
+                settings.addDelimiterPattern(";", false, random.nextBoolean(), false);
+            }
+            settings.addDelimiterPattern("\n", false, random.nextBoolean(), false);
+            switch (random.nextInt(3)) {
+                case 1:
+                    settings.addQuotePattern("\"", "\"");
+                    break;
+                case 2:
+                    settings.addQuotePattern("\"", "\"", '\\');
+                    settings.addQuotePattern("'", "'");
+                    break;
+                default:
+            }
+            if (random.nextBoolean()) {
+                settings.addWhiteSpaceCharacter(" ");
+                settings.addWhiteSpaceCharacter("\t");
+            }
+            settings.allowLFinQuotes(random.nextBoolean());
+            settings.setSkipFirstLines(random.nextInt(5) == 0 ? 1 : 0);
+
+            final StringBuilder input = new StringBuilder();
+            for (int c = random.nextInt(40); c > 0; c--) {
+                final char ch = alphabet.charAt(random.nextInt(alphabet.length()));
+                // the Tokenizer keeps the 2nd of two CRs before a LF
+                if (ch != '\r' || input.length() == 0 || input.charAt(input.length() - 1) != '\r') {
+                    input.append(ch);
+                }
+            }
+            final Tokenizer expected = new Tokenizer(new StringReader(input.toString()));
+            expected.setSettings(settings);
+            final FastTokenizer actual =
+                new FastTokenizer(new StringReader(input.toString()), settings, 2 + random.nextInt(8));
+            assertEquals("Input: " + input, readAll(expected), readAll(actual));
+        }
+    }
+
+    /**
+     * The tokens of a file split into ranges are the same as the ones of the entire file.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testRanges() throws Exception {
+        final Path file = Files.createTempFile("fastTokenizer", ".csv");
+        try {
+            final StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                content.append(i).append(",\"value \u00e4 ").append(i * 7).append("\", ").append(i % 13).append('\n');
+            }
+            Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+            final long size = Files.size(file);
+
+            final List<String> expected = new ArrayList<>();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                addTokens(new FastTokenizer(reader, createCSVSettings()), expected);
+            }
+            final long[] ranges = FastTokenizer.computeRanges(file, 7);
+            assertEquals(8, ranges.length);
+            assertEquals(0, ranges[0]);
+            assertEquals(size, ranges[ranges.length - 1]);
+            final List<String> actual = new ArrayList<>();
+            for (int i = 0; i < ranges.length - 1; i++) {
+                assertTrue(ranges[i] < ranges[i + 1]);
+                try (Reader reader = FastTokenizer.openRange(file, ranges[i], ranges[i + 1], StandardCharsets.UTF_8)) {
+                    addTokens(new FastTokenizer(reader, createCSVSettings()), actual);
+                }
+            }
+            assertEquals(expected, actual);
+            assertEquals(1, FastTokenizer.computeRanges(file, 1).length - 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void addTokens(final FastTokenizer tokenizer, final List<String> tokens)
+        throws TokenizerException {
+        CharSequence token;
+        while ((token = tokenizer.nextToken()) != null) {
+            tokens.add(token.toString());
+        }
+    }
+
+    private static String readAll(final Tokenizer tokenizer) {
+        final StringBuilder b = new StringBuilder();
+        try {
+            String token;
+            do {
+                token = tokenizer.nextToken();
+                b.append(token).append('|').append(tokenizer.lastTokenWasDelimiter())
+                    .append(tokenizer.lastTokenWasDelimited()).append(tokenizer.lastTokenWasQuoted())
+                    .append(tokenizer.getLineNumber()).append('\n');
+            } while (token != null);
+        } catch (TokenizerException e) {
+            b.append("Exception: ").append(e.getMessage());
+        }
+        return b.toString();
+    }
+
+    private static String readAll(final FastTokenizer tokenizer) {
+        final StringBuilder b = new StringBuilder();
+        try {
+            CharSequence token;
+            do {
+                token = tokenizer.nextToken();
+                b.append(token).append('|').append(tokenizer.lastTokenWasDelimiter())
+                    .append(tokenizer.lastTokenWasDelimited()).append(tokenizer.lastTokenWasQuoted())
+                    .append(tokenizer.getLineNumber()).append('\n');
+            } while (token != null);
+        } catch (TokenizerException e) {
+            b.append("Exception: ").append(e.getMessage());
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ *
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests that the incrementally maintained {@link NodeStateCounter} of a workflow matches a recount of the states and
+ * messages of its nodes when nodes are added, removed, executed, reset, collapsed and expanded.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeStateCounterTest extends WorkflowTestCase {
+
+    private WorkflowManager m_project;
+
+    /**
+     * Creates an empty project.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        File dir = FileUtil.createTempDir(getClass().getSimpleName());
+        WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(dir).createContext());
+        m_project = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(), creationHelper);
+        setManager(m_project);
+    }
+
+    /**
+     * Adds and removes nodes and connections.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testAddAndRemove() throws Exception {
+        checkCounts(m_project);
+        NodeID source = m_project.createAndAddNode(new AdapterNodeFactory(true));
+        checkCounts(m_project);
+        NodeID passThrough = m_project.createAndAddNode(new AdapterNodeFactory());
+        checkState(passThrough, InternalNodeContainerState.IDLE);
+        checkCounts(m_project);
+        m_project.addConnection(source, 1, passThrough, 1);
+        checkState(passThrough, InternalNodeContainerState.CONFIGURED);
+        checkCounts(m_project);
+        m_project.removeNode(source);
+        checkState(passThrough, InternalNodeContainerState.IDLE);
+        checkCounts(m_project);
+        m_project.removeNode(passThrough);
+        checkCounts(m_project);
+    }
+
+    /**
+     * Executes and resets nodes.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testStateChanges() throws Exception {
+        NodeID source = m_project.createAndAddNode(new AdapterNodeFactory(true));
+        NodeID passThrough = m_project.createAndAddNode(new AdapterNodeFactory());
+        m_project.addConnection(source, 1, passThrough, 1);
+        executeAllAndWait();
+        checkStateOfMany(InternalNodeContainerState.EXECUTED, source, passThrough);
+        checkCounts(m_project);
+        reset(passThrough);
+        checkState(passThrough, InternalNodeContainerState.CONFIGURED);
+        checkCounts(m_project);
+        reset(source);
+        checkStateOfMany(InternalNodeContainerState.CONFIGURED, source, passThrough);
+        checkCounts(m_project);
+    }
+
+    /**
+     * Sets and clears error messages, directly and by a failing node.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testNodeMessages() throws Exception {
+        NodeID source = m_project.createAndAddNode(new AdapterNodeFactory(true));
+        NodeID failing = m_project.createAndAddNode(new FailingNodeFactory());
+        m_project.addConnection(source, 1, failing, 1);
+        assertFalse(checkCounts(m_project).hasNodeWithError());
+
+        executeAllAndWait();
+        checkState(failing, InternalNodeContainerState.CONFIGURED);
+        assertEquals(NodeMessage.Type.ERROR, m_project.getNodeContainer(failing).getNodeMessage().getMessageType());
+        assertTrue(checkCounts(m_project).hasNodeWithError());
+
+        m_project.removeNode(failing);
+        assertFalse(checkCounts(m_project).hasNodeWithError());
+
+        NodeContainer sourceNode = m_project.getNodeContainer(source);
+        sourceNode.setNodeMessage(new NodeMessage(NodeMessage.Type.ERROR, "error"));
+        assertTrue(checkCounts(m_project).hasNodeWithError());
+        sourceNode.setNodeMessage(new NodeMessage(NodeMessage.Type.WARNING, "warning"));
+        assertFalse(checkCounts(m_project).hasNodeWithError());
+    }
+
+    /**
+     * Adds nodes to a metanode and converts it into a component.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testMetanodeAndComponentChildren() throws Exception {
+        WorkflowManager metanode = m_project.createAndAddSubWorkflow(new PortType[0], new PortType[0], "metanode");
+        checkCounts(m_project);
+        NodeID source = metanode.createAndAddNode(new AdapterNodeFactory(true));
+        NodeID passThrough = metanode.createAndAddNode(new AdapterNodeFactory());
+        checkCounts(metanode);
+        checkCounts(m_project);
+        metanode.addConnection(source, 1, passThrough, 1);
+        checkCounts(metanode);
+        checkCounts(m_project);
+        executeAllAndWait();
+        checkState(metanode, InternalNodeContainerState.EXECUTED);
+        checkCounts(metanode);
+        checkCounts(m_project);
+
+        m_project.resetAndConfigureAll();
+        m_project.convertMetaNodeToSubNode(metanode.getID());
+        SubNodeContainer component = m_project.getNodeContainer(metanode.getID(), SubNodeContainer.class, true);
+        checkCounts(component.getWorkflowManager());
+        checkCounts(m_project);
+        executeAllAndWait();
+        checkState(component, InternalNodeContainerState.EXECUTED);
+        checkCounts(component.getWorkflowManager());
+        checkCounts(m_project);
+    }
+
+    /**
+     * Collapses nodes into a metanode and expands it again.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testCollapseAndExpand() throws Exception {
+        NodeID source = m_project.createAndAddNode(new AdapterNodeFactory(true));
+        NodeID passThrough1 = m_project.createAndAddNode(new AdapterNodeFactory());
+        NodeID passThrough2 = m_project.createAndAddNode(new AdapterNodeFactory());
+        m_project.addConnection(source, 1, passThrough1, 1);
+        m_project.addConnection(passThrough1, 1, passThrough2, 1);
+        executeAndWait(source);
+        checkCounts(m_project);
+
+        NodeID metanodeID = m_project.collapseIntoMetaNode(new NodeID[]{passThrough1, passThrough2},
+            new WorkflowAnnotation[0], "collapsed").getCollapsedMetanodeID();
+        WorkflowManager metanode = m_project.getNodeContainer(metanodeID, WorkflowManager.class, true);
+        assertEquals(2, metanode.getNodeContainers().size());
+        checkCounts(metanode);
+        checkCounts(m_project);
+
+        executeAllAndWait();
+        checkState(metanode, InternalNodeContainerState.EXECUTED);
+        checkCounts(metanode);
+        checkCounts(m_project);
+
+        m_project.resetAndConfigureAll();
+        m_project.expandMetaNode(metanodeID);
+        assertEquals(3, m_project.getNodeContainers().size());
+        checkCounts(m_project);
+    }
+
+    /**
+     * Compares the counted numbers of the workflow with a recount of its nodes.
+     *
+     * @return the counted numbers
+     */
+    private static NodeStateCounter.Snapshot checkCounts(final WorkflowManager wfm) {
+        try (WorkflowLock lock = wfm.lock()) {
+            int[] expected = new int[InternalNodeContainerState.values().length];
+            boolean expectedHasError = false;
+            for (NodeContainer nc : wfm.getNodeContainers()) {
+                expected[nc.getInternalState().ordinal()]++;
+                NodeMessage message = nc.getNodeMessage();
+                expectedHasError |= message != null && message.getMessageType() == NodeMessage.Type.ERROR;
+            }
+            NodeStateCounter.Snapshot counts = wfm.getWorkflow().getNodeStateCounter().snapshot();
+            assertEquals("Number of nodes", wfm.getNodeContainers().size(), counts.getNrNodes());
+            assertArrayEquals("Number of nodes per state", expected, counts.getNrNodesInState());
+            assertEquals("Node with error", expectedHasError, counts.hasNodeWithError());
+            return counts;
+        }
+    }
+
+    /** Creates a pass-through node that fails on execution. */
+    private static final class FailingNodeFactory extends AdapterNodeFactory {
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new AdapterNodeModel(1, 1) {
+                @Override
+                protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec)
+                    throws Exception {
+                    throw new Exception("Failing on purpose");
+                }
+            };
+        }
+    }
+}
@@ -54,7 +54,6 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -219,10 +218,13 @@ public String toString() {
      * added to this map. This map makes sure that the <code>getType()</code>
      * method is fast and that there will be no duplicate <code>DataType</code>
      * instances for  different instances of the
-     * {@link org.knime.core.data.DataValue} implementation.
+     * {@link org.knime.core.data.DataValue} implementation. Concurrent since
+     * types are requested from many threads (e.g. during cell
+     * deserialization); types are created outside the map and the first
+     * instance put into the map is the one being returned.
      */
     private static final Map<ClassAndSubDataTypePair, DataType>
-        CLASS_TO_TYPE_MAP = new HashMap<ClassAndSubDataTypePair, DataType>();
+        CLASS_TO_TYPE_MAP = new ConcurrentHashMap<ClassAndSubDataTypePair, DataType>();
 
     /**
      * The String representation comparator. Fall back comparator if no other is
@@ -251,12 +253,12 @@ protected int compareDataValues(
         NodeLogger.getLogger(DataType.class);
 
     /**
-     * Hashmap to retrieve the <code>UtilityFactory</code> for each
+     * Concurrent map to retrieve the <code>UtilityFactory</code> for each
      * {@link org.knime.core.data.DataValue} interface.
      */
     private static final Map<Class<? extends DataValue>, UtilityFactory>
         VALUE_CLASS_TO_UTILITY =
-            new HashMap<Class<? extends DataValue>, UtilityFactory>();
+            new ConcurrentHashMap<Class<? extends DataValue>, UtilityFactory>();
 
     /**
      * Recursive method that walks up the inheritance tree of a given class and
@@ -501,8 +503,13 @@ public static DataType getType(final Class<? extends DataCell> cell) {
         ClassAndSubDataTypePair key = new ClassAndSubDataTypePair(cell, null, null);
         DataType result = CLASS_TO_TYPE_MAP.get(key);
         if (result == null) {
+            // not using computeIfAbsent as the constructor may initialize the cell class, which in turn may
+            // request its type (recursive update of the map)
             result = new DataType(cell, null, Collections.EMPTY_LIST);
-            CLASS_TO_TYPE_MAP.put(key, result);
+            DataType existing = CLASS_TO_TYPE_MAP.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
         }
         return result;
     }
@@ -556,7 +563,10 @@ public static DataType getType(final Class<? extends DataCell> cellClass,
         DataType result = CLASS_TO_TYPE_MAP.get(key);
         if (result == null) {
             result = new DataType(cellClass, collectionElementType, adapterList);
-            CLASS_TO_TYPE_MAP.put(key, result);
+            DataType existing = CLASS_TO_TYPE_MAP.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
         }
         return result;
     }
@@ -620,7 +630,10 @@ public static UtilityFactory getUtilityFor(
                 // fall back - no meta information available
                 result = DataValue.UTILITY;
             }
-            VALUE_CLASS_TO_UTILITY.put(value, result);
+            UtilityFactory existing = VALUE_CLASS_TO_UTILITY.putIfAbsent(value, result);
+            if (existing != null) {
+                result = existing;
+            }
         }
         return result;
     }
@@ -685,6 +698,10 @@ public static DataType load(final ConfigRO config)
     /** a map that caches whether certain encountered types are subtypes of this type */
     private final Map<DataType, Boolean> m_subTypes = new ConcurrentHashMap<>(100, 1 / 3f);
 
+    /** a map that caches whether this type is compatible to value classes not contained in the value classes list,
+     * see {@link #isCompatible(Class)} */
+    private final Map<Class<? extends DataValue>, Boolean> m_compatibleValueClasses = new ConcurrentHashMap<>();
+
     private String m_name;
 
     /** the cached hash code of this type */
@@ -1166,6 +1183,19 @@ private boolean isASuperTypeOfInternal(final DataType type) {
      * @throws NullPointerException If the argument is null.
      */
     public boolean isCompatible(final Class<? extends DataValue> valueClass) {
+        // fast path for the most common case, the value class is implemented directly
+        for (Class<? extends DataValue> cl : m_valueClasses) {
+            if (cl == valueClass) {
+                return true;
+            }
+        }
+        if (valueClass == null) {
+            throw new NullPointerException("Value class must not be null.");
+        }
+        return m_compatibleValueClasses.computeIfAbsent(valueClass, this::isCompatibleInternal);
+    }
+
+    private boolean isCompatibleInternal(final Class<? extends DataValue> valueClass) {
         for (Class<? extends DataValue> cl : m_valueClasses) {
             // a missing value is by definition always compatible, see also DataCell#isMissing()
             if (MissingValue.class.equals(cl) || valueClass.isAssignableFrom(cl)) {
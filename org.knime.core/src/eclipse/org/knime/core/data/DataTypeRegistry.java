@@ -89,11 +89,12 @@ public final class DataTypeRegistry {
     private final Map<String, Class<? extends DataCell>> m_cellClassMap = new ConcurrentHashMap<>();
     private final Map<String, Class<? extends DataValue>> m_valueClassMap = new ConcurrentHashMap<>();
 
-    private Collection<DataType> m_allDataTypes;
+    /** Lazily initialized, volatile so that {@link #availableDataTypes()} only locks until it is set. */
+    private volatile Collection<DataType> m_allDataTypes;
 
     private final Map<String, Class<? extends ValueFactory<?, ?>>> m_valueFactoryClassMap = new ConcurrentHashMap<>();
 
-    private boolean m_cellToValueFactoryInitialized = false;
+    private volatile boolean m_cellToValueFactoryInitialized = false;
 
     private final Map<String, String> m_cellToValueFactoryMap = new ConcurrentHashMap<>();
 
@@ -183,11 +184,18 @@ Optional<DataCellFactory> getFactory(final String className, final FileStoreFact
      *
      * @return a (possibly empty) collection with data types
      */
-    public synchronized Collection<DataType> availableDataTypes() {
+    public Collection<DataType> availableDataTypes() {
+        final Collection<DataType> allDataTypes = m_allDataTypes;
+        if (allDataTypes != null) {
+            return allDataTypes;
+        }
+        return initAvailableDataTypes();
+    }
+
+    private synchronized Collection<DataType> initAvailableDataTypes() {
         // perform lazy initialization
         if (m_allDataTypes != null) {
             return m_allDataTypes;
-
         }
 
         List<DataType> types = new ArrayList<>();
@@ -205,7 +213,7 @@ public synchronized Collection<DataType> availableDataTypes() {
         }
 
         m_allDataTypes = Collections.unmodifiableCollection(types);
-        return types;
+        return m_allDataTypes;
     }
 
     /**
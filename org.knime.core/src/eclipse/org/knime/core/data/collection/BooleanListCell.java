@@ -0,0 +1,187 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.BooleanCell;
+
+/**
+ * List of <code>boolean</code> values, which is backed by a bit set stored in a <code>long</code> array rather than a
+ * list of {@link BooleanCell} objects. {@link #get(int)} and {@link #iterator()} return the {@link BooleanCell#TRUE}
+ * and {@link BooleanCell#FALSE} singletons; use {@link #getBoolean(int)} and {@link #getBooleanArray()} to read the
+ * values directly.
+ *
+ * <p>
+ * A list created by {@link CollectionCellFactory#createBooleanListCell(boolean[])} is equal to (and has the same hash
+ * code as) a {@link ListCell} containing the same {@link BooleanCell} elements. It can't contain missing elements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class BooleanListCell extends PrimitiveListCell {
+
+    private static final long serialVersionUID = -3895419930576121048L;
+
+    /** Type of a list of booleans, a collection type of {@link BooleanListCell} with element type
+     * {@link BooleanCell#TYPE}. */
+    public static final DataType TYPE = DataType.getType(BooleanListCell.class, BooleanCell.TYPE);
+
+    /** Bit i is set if element i is true (bits beyond the size are not set). */
+    private final long[] m_bits;
+
+    /**
+     * Use {@link CollectionCellFactory#createBooleanListCell(boolean[])}.
+     *
+     * @param size the number of elements
+     * @param bits the bits, exactly {@link #getWordCount(int)} words, not copied
+     */
+    BooleanListCell(final int size, final long[] bits) {
+        super(size, bits);
+        m_bits = bits;
+    }
+
+    /**
+     * @param size the number of elements
+     * @return the number of <code>long</code> words needed to store the elements
+     */
+    static int getWordCount(final int size) {
+        return (int)((size + 63L) >>> 6);
+    }
+
+    /**
+     * @param values the values
+     * @return the bits representing the values, as expected by the constructor
+     */
+    static long[] toBits(final boolean[] values) {
+        final long[] bits = new long[getWordCount(values.length)];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getElementType() {
+        return BooleanCell.TYPE;
+    }
+
+    /** @return {@link BooleanCell#TRUE} or {@link BooleanCell#FALSE} */
+    @Override
+    DataCell getElementCell(final int index) {
+        return BooleanCell.get(isSet(index));
+    }
+
+    @Override
+    int getElementHashCode(final int index) {
+        return isSet(index) ? 1 : 0;
+    }
+
+    private boolean isSet(final int index) {
+        return (m_bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param index the position of the element (first element has index zero)
+     * @return the value at the specified position
+     * @throws ArrayIndexOutOfBoundsException if the index is invalid
+     */
+    public boolean getBoolean(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for list of size " + size());
+        }
+        return isSet(index);
+    }
+
+    /** @return a new array of all values. */
+    public boolean[] getBooleanArray() {
+        final boolean[] result = new boolean[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = isSet(i);
+        }
+        return result;
+    }
+
+    /** @return the number of <code>true</code> elements. */
+    public int getTrueCount() {
+        int count = 0;
+        for (long word : m_bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Serializer for {@link BooleanListCell}s.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class BooleanListCellSerializer extends PrimitiveCollectionCellSerializer<BooleanListCell> {
+        /** {@inheritDoc} */
+        @Override
+        public BooleanListCell deserialize(final DataCellDataInput input) throws IOException {
+            final int size = input.readInt();
+            final long[] bits = PrimitiveArraySerializer.readLongs(input);
+            if (size < 0 || bits.length != getWordCount(size)) {
+                throw new IOException("Invalid size of boolean list: " + size + " (" + bits.length + " words)");
+            }
+            return new BooleanListCell(size, bits);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(final BooleanListCell cell, final DataCellDataOutput output) throws IOException {
+            output.writeInt(cell.size());
+            super.serialize(cell, output);
+        }
+    }
+}
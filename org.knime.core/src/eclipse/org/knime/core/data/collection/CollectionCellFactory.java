@@ -246,6 +246,90 @@ public static SetCell createSetCell(final DataRow row, final int[] cols) {
         return new SetCell(l);
     }
 
+    /**
+     * Creates a {@link DoubleListCell}, a list of doubles backed by a primitive array.
+     *
+     * @param values The values of the list, copied.
+     * @return The newly created {@link DoubleListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static DoubleListCell createDoubleListCell(final double[] values) {
+        return new DoubleListCell(values.clone());
+    }
+
+    /**
+     * Creates an {@link IntListCell}, a list of ints backed by a primitive array.
+     *
+     * @param values The values of the list, copied.
+     * @return The newly created {@link IntListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static IntListCell createIntListCell(final int[] values) {
+        return new IntListCell(values.clone());
+    }
+
+    /**
+     * Creates a {@link LongListCell}, a list of longs backed by a primitive array.
+     *
+     * @param values The values of the list, copied.
+     * @return The newly created {@link LongListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static LongListCell createLongListCell(final long[] values) {
+        return new LongListCell(values.clone());
+    }
+
+    /**
+     * Creates a {@link BooleanListCell}, a list of booleans backed by a bit set.
+     *
+     * @param values The values of the list.
+     * @return The newly created {@link BooleanListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static BooleanListCell createBooleanListCell(final boolean[] values) {
+        return new BooleanListCell(values.length, BooleanListCell.toBits(values));
+    }
+
+    /**
+     * Creates a {@link DoubleSetCell}, a set of doubles backed by a sorted primitive array. Duplicates are removed.
+     *
+     * @param values The values of the set in arbitrary order, possibly containing duplicates.
+     * @return The newly created {@link DoubleSetCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static DoubleSetCell createDoubleSetCell(final double[] values) {
+        return new DoubleSetCell(DoubleSetCell.toSortedDistinct(values));
+    }
+
+    /**
+     * Creates an {@link IntSetCell}, a set of ints backed by a sorted primitive array. Duplicates are removed.
+     *
+     * @param values The values of the set in arbitrary order, possibly containing duplicates.
+     * @return The newly created {@link IntSetCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static IntSetCell createIntSetCell(final int[] values) {
+        return new IntSetCell(IntSetCell.toSortedDistinct(values));
+    }
+
+    /**
+     * Creates a {@link LongSetCell}, a set of longs backed by a sorted primitive array. Duplicates are removed.
+     *
+     * @param values The values of the set in arbitrary order, possibly containing duplicates.
+     * @return The newly created {@link LongSetCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 4.4
+     */
+    public static LongSetCell createLongSetCell(final long[] values) {
+        return new LongSetCell(LongSetCell.toSortedDistinct(values));
+    }
+
     /**
      * Determines the super type of the specified columns. This type will be the
      * element type if a collection is created from the elements in the
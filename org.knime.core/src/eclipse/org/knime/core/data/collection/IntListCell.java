@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * List of <code>int</code> values, which is backed by a primitive array rather than a list of {@link IntCell}
+ * objects. Element cells are only created on access via {@link #get(int)} or {@link #iterator()}; use
+ * {@link #getInt(int)} and {@link #getIntArray()} to read the values without creating cells.
+ *
+ * <p>
+ * A list created by {@link CollectionCellFactory#createIntListCell(int[])} is equal to (and has the same hash
+ * code as) a {@link ListCell} containing the same {@link IntCell} elements. It can't contain missing elements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class IntListCell extends PrimitiveListCell {
+
+    private static final long serialVersionUID = -6146342520618906129L;
+
+    /** Type of a list of ints, a collection type of {@link IntListCell} with element type
+     * {@link IntCell#TYPE}. */
+    public static final DataType TYPE = DataType.getType(IntListCell.class, IntCell.TYPE);
+
+    private final int[] m_values;
+
+    /**
+     * Use {@link CollectionCellFactory#createIntListCell(int[])}.
+     *
+     * @param values the values, not copied
+     */
+    IntListCell(final int[] values) {
+        super(values.length, values);
+        m_values = values;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getElementType() {
+        return IntCell.TYPE;
+    }
+
+    /** @return a new {@link IntCell} */
+    @Override
+    DataCell getElementCell(final int index) {
+        return new IntCell(m_values[index]);
+    }
+
+    @Override
+    int getElementHashCode(final int index) {
+        return m_values[index];
+    }
+
+    /**
+     * @param index the position of the element (first element has index zero)
+     * @return the value at the specified position
+     * @throws ArrayIndexOutOfBoundsException if the index is invalid
+     */
+    public int getInt(final int index) {
+        return m_values[index];
+    }
+
+    /** @return a copy of all values. */
+    public int[] getIntArray() {
+        return m_values.clone();
+    }
+
+    /**
+     * Serializer for {@link IntListCell}s.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class IntListCellSerializer extends PrimitiveCollectionCellSerializer<IntListCell> {
+        /** {@inheritDoc} */
+        @Override
+        public IntListCell deserialize(final DataCellDataInput input) throws IOException {
+            return new IntListCell(PrimitiveArraySerializer.readInts(input));
+        }
+    }
+}
@@ -58,6 +58,7 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.DataValue;
 
 /**
  * Default implementation of a {@link CollectionDataValue}, whereby the
@@ -143,6 +144,42 @@ protected boolean equalsDataCell(final DataCell dc) {
         return m_list.equals(((ListCell)dc).m_list);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 4.4
+     */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        return equalElements(this, otherValue);
+    }
+
+    /**
+     * Whether the argument is a list containing the same elements in the same order. Used to compare lists of
+     * different implementations, e.g. a {@link ListCell} and a {@link DoubleListCell}.
+     *
+     * @param list the list to compare
+     * @param otherValue the value to compare to
+     * @return that property
+     */
+    static boolean equalElements(final ListDataValue list, final DataValue otherValue) {
+        if (!(otherValue instanceof ListDataValue)) {
+            return false;
+        }
+        final ListDataValue otherList = (ListDataValue)otherValue;
+        if (list.size() != otherList.size()) {
+            return false;
+        }
+        final Iterator<DataCell> it = list.iterator();
+        final Iterator<DataCell> otherIt = otherList.iterator();
+        while (it.hasNext()) {
+            if (!it.next().equals(otherIt.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int hashCode() {
@@ -0,0 +1,154 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Set of <code>long</code> values, which is backed by a sorted primitive array rather than a set of
+ * {@link LongCell} objects. Membership is tested using a binary search. Element cells are only created on access via
+ * {@link #iterator()}; use {@link #contains(long)} and {@link #getLongArray()} to work on the values without
+ * creating cells. Elements are iterated in ascending order.
+ *
+ * <p>
+ * Created by {@link CollectionCellFactory#createLongSetCell(long[])}. Unlike {@link SetCell} it can't contain
+ * missing elements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class LongSetCell extends PrimitiveSetCell {
+
+    private static final long serialVersionUID = -2360573457187902263L;
+
+    /** Type of a set of longs, a collection type of {@link LongSetCell} with element type
+     * {@link LongCell#TYPE}. */
+    public static final DataType TYPE = DataType.getType(LongSetCell.class, LongCell.TYPE);
+
+    /** The distinct values in ascending order. */
+    private final long[] m_values;
+
+    /**
+     * Use {@link CollectionCellFactory#createLongSetCell(long[])}.
+     *
+     * @param values the distinct values in ascending order, not copied
+     */
+    LongSetCell(final long[] values) {
+        super(values.length, values);
+        m_values = values;
+    }
+
+    /**
+     * @param values arbitrary values, not modified
+     * @return a new array containing the distinct values in ascending order
+     */
+    static long[] toSortedDistinct(final long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getElementType() {
+        return LongCell.TYPE;
+    }
+
+    /** @return a new {@link LongCell} */
+    @Override
+    DataCell getElementCell(final int index) {
+        return new LongCell(m_values[index]);
+    }
+
+    @Override
+    int getElementHashCode(final int index) {
+        final long value = m_values[index];
+        return (int)(value ^ (value >>> 32));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean contains(final DataCell cell) {
+        return cell instanceof LongCell && contains(((LongCell)cell).getLongValue());
+    }
+
+    /**
+     * @param value the value to check for
+     * @return true if the value is contained in the set
+     */
+    public boolean contains(final long value) {
+        return Arrays.binarySearch(m_values, value) >= 0;
+    }
+
+    /** @return a copy of all values in ascending order. */
+    public long[] getLongArray() {
+        return m_values.clone();
+    }
+
+    /**
+     * Serializer for {@link LongSetCell}s.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class LongSetCellSerializer extends PrimitiveCollectionCellSerializer<LongSetCell> {
+        /** {@inheritDoc} */
+        @Override
+        public LongSetCell deserialize(final DataCellDataInput input) throws IOException {
+            return new LongSetCell(PrimitiveArraySerializer.readLongs(input));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes the primitive arrays of the primitive list and set cells (such as {@link DoubleListCell}). Arrays
+ * are written as their length followed by the values in big-endian order (as {@link DataOutput} would write them),
+ * whereby the values are copied through a byte buffer of bounded size instead of being written one by one.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PrimitiveArraySerializer {
+
+    /** Size of the intermediate buffer in bytes (a multiple of 8). */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private PrimitiveArraySerializer() {
+    }
+
+    /**
+     * Writes a <code>double[]</code>, <code>int[]</code> or <code>long[]</code>.
+     *
+     * @param values the array to write
+     * @param output the output to write to
+     * @throws IOException if the array can't be written
+     * @throws IllegalArgumentException if the argument is not one of the supported array types
+     */
+    static void write(final Object values, final DataOutput output) throws IOException {
+        if (values instanceof double[]) {
+            writeDoubles((double[])values, output);
+        } else if (values instanceof int[]) {
+            writeInts((int[])values, output);
+        } else if (values instanceof long[]) {
+            writeLongs((long[])values, output);
+        } else {
+            throw new IllegalArgumentException("Unsupported array type: " + values.getClass().getName());
+        }
+    }
+
+    static void writeDoubles(final double[] values, final DataOutput output) throws IOException {
+        output.writeInt(values.length);
+        final ByteBuffer buffer = allocate(values.length, Double.BYTES);
+        for (int offset = 0; offset < values.length;) {
+            final int count = Math.min(buffer.capacity() / Double.BYTES, values.length - offset);
+            buffer.asDoubleBuffer().put(values, offset, count);
+            output.write(buffer.array(), 0, count * Double.BYTES);
+            offset += count;
+        }
+    }
+
+    static double[] readDoubles(final DataInput input) throws IOException {
+        final double[] values = new double[readLength(input)];
+        final ByteBuffer buffer = allocate(values.length, Double.BYTES);
+        for (int offset = 0; offset < values.length;) {
+            final int count = Math.min(buffer.capacity() / Double.BYTES, values.length - offset);
+            input.readFully(buffer.array(), 0, count * Double.BYTES);
+            buffer.asDoubleBuffer().get(values, offset, count);
+            offset += count;
+        }
+        return values;
+    }
+
+    static void writeInts(final int[] values, final DataOutput output) throws IOException {
+        output.writeInt(values.length);
+        final ByteBuffer buffer = allocate(values.length, Integer.BYTES);
+        for (int offset = 0; offset < values.length;) {
+            final int count = Math.min(buffer.capacity() / Integer.BYTES, values.length - offset);
+            buffer.asIntBuffer().put(values, offset, count);
+            output.write(buffer.array(), 0, count * Integer.BYTES);
+            offset += count;
+        }
+    }
+
+    static int[] readInts(final DataInput input) throws IOException {
+        final int[] values = new int[readLength(input)];
+        final ByteBuffer buffer = allocate(values.length, Integer.BYTES);
+        for (int offset = 0; offset < values.length;) {
+            final int count = Math.min(buffer.capacity() / Integer.BYTES, values.length - offset);
+            input.readFully(buffer.array(), 0, count * Integer.BYTES);
+            buffer.asIntBuffer().get(values, offset, count);
+            offset += count;
+        }
+        return values;
+    }
+
+    static void writeLongs(final long[] values, final DataOutput output) throws IOException {
+        output.writeInt(values.length);
+        final ByteBuffer buffer = allocate(values.length, Long.BYTES);
+        for (int offset = 0; offset < values.length;) {
+            final int count = Math.min(buffer.capacity() / Long.BYTES, values.length - offset);
+            buffer.asLongBuffer().put(values, offset, count);
+            output.write(buffer.array(), 0, count * Long.BYTES);
+            offset += count;
+        }
+    }
+
+    static long[] readLongs(final DataInput input) throws IOException {
+        final long[] values = new long[readLength(input)];
+        final ByteBuffer buffer = allocate(values.length, Long.BYTES);
+        for (int offset = 0; offset < values.length;) {
+            final int count = Math.min(buffer.capacity() / Long.BYTES, values.length - offset);
+            input.readFully(buffer.array(), 0, count * Long.BYTES);
+            buffer.asLongBuffer().get(values, offset, count);
+            offset += count;
+        }
+        return values;
+    }
+
+    /** Allocates a buffer for the given number of values, but at most {@link #BUFFER_SIZE} bytes. */
+    private static ByteBuffer allocate(final int length, final int bytesPerValue) {
+        return ByteBuffer.allocate((int)Math.min(BUFFER_SIZE, (long)length * bytesPerValue));
+    }
+
+    private static int readLength(final DataInput input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid array length: " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+
+/**
+ * Base class of the collection cells that are backed by a primitive array rather than by element cells, such as
+ * {@link DoubleListCell} or {@link IntSetCell}. Iteration, equality, hash code, string representation and
+ * serialization are implemented on top of the array; element cells are only created on access.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class PrimitiveCollectionCell extends DataCell implements CollectionDataValue {
+
+    private static final long serialVersionUID = -2934755470260405711L;
+
+    private final int m_size;
+
+    /** The array holding the elements, a <code>double[]</code>, <code>int[]</code> or <code>long[]</code>. */
+    private final Object m_storage;
+
+    /**
+     * @param size the number of elements
+     * @param storage the array holding the elements, not copied
+     */
+    PrimitiveCollectionCell(final int size, final Object storage) {
+        m_size = size;
+        m_storage = storage;
+    }
+
+    /** @return the array holding the elements (not a copy), as passed to the constructor */
+    final Object getStorage() {
+        return m_storage;
+    }
+
+    /**
+     * @param index the index of the element, at least 0 and less than {@link #size()}
+     * @return a cell holding the element
+     */
+    abstract DataCell getElementCell(int index);
+
+    /**
+     * @param index the index of the element, at least 0 and less than {@link #size()}
+     * @return the hash code of the cell returned by {@link #getElementCell(int)}, without creating the cell
+     */
+    abstract int getElementHashCode(int index);
+
+    /** {@inheritDoc} */
+    @Override
+    public final int size() {
+        return m_size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final Iterator<DataCell> iterator() {
+        return new Iterator<DataCell>() {
+            private int m_index;
+
+            @Override
+            public boolean hasNext() {
+                return m_index < m_size;
+            }
+
+            @Override
+            public DataCell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return getElementCell(m_index++);
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final boolean containsBlobWrapperCells() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected final boolean equalsDataCell(final DataCell dc) {
+        final PrimitiveCollectionCell other = (PrimitiveCollectionCell)dc;
+        return m_size == other.m_size && Objects.deepEquals(m_storage, other.m_storage);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        // same as java.util.List#hashCode of the element cells, sets override
+        int hash = 1;
+        for (int i = 0; i < m_size; i++) {
+            hash = 31 * hash + getElementHashCode(i);
+        }
+        return hash;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public final String toString() {
+        // same as java.util.Arrays#toString of the values
+        final StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < m_size; i++) {
+            b.append(i > 0 ? ", " : "").append(getElementCell(i));
+        }
+        return b.append(']').toString();
+    }
+
+    /**
+     * Serializer of a {@link PrimitiveCollectionCell}, which writes the array holding the elements as described in
+     * {@link PrimitiveArraySerializer}.
+     *
+     * @param <C> the type of cell
+     */
+    abstract static class PrimitiveCollectionCellSerializer<C extends PrimitiveCollectionCell>
+        implements DataCellSerializer<C> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(final C cell, final DataCellDataOutput output) throws IOException {
+            PrimitiveArraySerializer.write(cell.getStorage(), output);
+        }
+    }
+}
@@ -58,6 +58,7 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.DataValue;
 
 /**
  * Default implementation of a {@link CollectionDataValue}, whereas the
@@ -119,6 +120,40 @@ protected boolean equalsDataCell(final DataCell dc) {
         return m_set.equals(((SetCell)dc).m_set);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 4.4
+     */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        return equalElements(this, otherValue);
+    }
+
+    /**
+     * Whether the argument is a set containing the same elements. Used to compare sets of different implementations,
+     * e.g. a {@link SetCell} and a {@link DoubleSetCell}.
+     *
+     * @param set the set to compare
+     * @param otherValue the value to compare to
+     * @return that property
+     */
+    static boolean equalElements(final SetDataValue set, final DataValue otherValue) {
+        if (!(otherValue instanceof SetDataValue)) {
+            return false;
+        }
+        final SetDataValue otherSet = (SetDataValue)otherValue;
+        if (set.size() != otherSet.size()) {
+            return false;
+        }
+        for (DataCell cell : otherSet) {
+            if (!set.contains(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -59,9 +59,14 @@
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -122,6 +127,7 @@
 import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
 import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
 import org.knime.core.data.filestore.internal.ROWriteFileStoreHandler;
+import org.knime.core.data.filestore.internal.WriteFileStoreHandler;
 import org.knime.core.data.util.NonClosableOutputStream;
 import org.knime.core.data.util.memory.MemoryAlert;
 import org.knime.core.data.util.memory.MemoryAlertListener;
@@ -213,6 +219,12 @@ public class Buffer implements KNIMEStreamConstants {
     /** Name of the zip entry containing the data. */
     static final String ZIP_ENTRY_DATA = "data.bin";
 
+    /**
+     * Name of the zip entry that is added instead of {@link #ZIP_ENTRY_DATA} if the data is saved in a separate file
+     * next to the zip file. The entry contains the name of that file.
+     */
+    static final String ZIP_ENTRY_DATA_SIDECAR = "data.bin.ref";
+
     /** Name of the zip entry containing the blob files (directory). */
     static final String ZIP_ENTRY_BLOBS = "blobs";
 
@@ -496,6 +508,10 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
     /** {@link #getFileStoreHandler()}. */
     private IFileStoreHandler m_fileStoreHandler;
 
+    /** Indices of the packed file stores referenced by cells of this buffer (per handler, each retained once),
+     * released when the buffer is cleared. Null if none. Access synchronized on {@link #m_isClearedLock}. */
+    private Map<WriteFileStoreHandler, BitSet> m_retainedPackedFileStores;
+
     private TableStoreFormat m_outputFormat;
 
     private AbstractTableStoreWriter m_outputWriter;
@@ -886,6 +902,7 @@ private BlobSupportDataRow saveBlobsAndFileStores(final DataRow row, final boole
                     flushBuffer();
                 }
             }
+            retainPackedFileStores(processedCell, isCollectionCell);
             if (processedCell != cell) {
                 if (cellCopies == null) {
                     cellCopies = new DataCell[cellCount];
@@ -1181,6 +1198,37 @@ private boolean mustBeFlushedPriorSave(final DataCell cell, final boolean isWrap
         return false;
     }
 
+    /**
+     * Records packed file stores referenced by the cell so that their content is released once no table references
+     * them anymore, see {@link WriteFileStoreHandler#retainPackedContent(int)}.
+     */
+    private void retainPackedFileStores(final DataCell cell, final boolean isCollectionCell) {
+        if (cell instanceof FileStoreCell) {
+            for (FileStore fs : FileStoreUtil.getFileStores((FileStoreCell)cell)) {
+                final IFileStoreHandler handler = FileStoreUtil.getFileStoreHandler(fs);
+                if (!(handler instanceof WriteFileStoreHandler)) {
+                    continue;
+                }
+                final WriteFileStoreHandler writeHandler = (WriteFileStoreHandler)handler;
+                final int fsIndex = FileStoreUtil.getFileStoreKey(fs).getIndex();
+                synchronized (m_isClearedLock) {
+                    BitSet retained = m_retainedPackedFileStores == null ? null
+                        : m_retainedPackedFileStores.get(writeHandler);
+                    if ((retained == null || !retained.get(fsIndex)) && writeHandler.retainPackedContent(fsIndex)) {
+                        if (m_retainedPackedFileStores == null) {
+                            m_retainedPackedFileStores = new HashMap<>();
+                        }
+                        m_retainedPackedFileStores.computeIfAbsent(writeHandler, h -> new BitSet()).set(fsIndex);
+                    }
+                }
+            }
+        } else if (isCollectionCell && cell instanceof CollectionDataValue) {
+            for (DataCell c : (CollectionDataValue)cell) {
+                retainPackedFileStores(c, c instanceof CellCollection);
+            }
+        }
+    }
+
     /** Creates temp file (m_binFile) and adds this buffer to shutdown hook. */
     private void ensureTempFileExists() throws IOException {
         if (m_binFile == null) {
@@ -1788,6 +1836,24 @@ final IWriteFileStoreHandler castAndGetFileStoreHandler() {
      */
     synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMonitor exec)
         throws IOException, CanceledExecutionException {
+        addToZipFile(zipOut, null, exec);
+    }
+
+    /**
+     * Like {@link #addToZipFile(ZipOutputStream, ExecutionMonitor)} but saves the binary data into a separate file,
+     * which can be read in place when the table is loaded (see {@link KNIMEConstants#PROPERTY_TABLE_SIDECAR}). The
+     * zip file then only contains the name of that file. Buffers kept in memory or written with an old version are
+     * saved into the zip file as usual.
+     *
+     * @param zipOut To write to.
+     * @param sidecarFile the file to save the binary data to, must be in the same directory as the zip file. If
+     *            <code>null</code> the data is added to the zip file.
+     * @param exec For progress/cancel
+     * @throws IOException If it fails to write to a file.
+     * @throws CanceledExecutionException If canceled.
+     */
+    synchronized void addToZipFile(final ZipOutputStream zipOut, final File sidecarFile,
+        final ExecutionMonitor exec) throws IOException, CanceledExecutionException {
         m_lifecycle.onSave();
         if (m_spec == null) {
             throw new IOException("Can't save an open Buffer.");
@@ -1796,7 +1862,8 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
         if (ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
             zipOut.setLevel(Deflater.NO_COMPRESSION);
         }
-        zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_DATA));
+        final boolean useSidecar = sidecarFile != null && isFlushedToDisk() && m_version >= IVERSION;
+        zipOut.putNextEntry(new ZipEntry(useSidecar ? ZIP_ENTRY_DATA_SIDECAR : ZIP_ENTRY_DATA));
         // these are the conditions:
         //    !usesOutFile() --> data all kept in memory, small tables
         //    m_version< ... --> container version bump
@@ -1865,10 +1932,15 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_META));
             copy.writeMetaToFile(() -> new NonClosableOutputStream.Zip(zipOut));
         } else {
-            // no need for BufferedInputStream here as the copy method
-            // does the buffering itself
-            try (InputStream is = new FileInputStream(m_binFile)) {
-                FileUtil.copy(is, zipOut);
+            if (useSidecar) {
+                zipOut.write(sidecarFile.getName().getBytes(StandardCharsets.UTF_8));
+                linkOrCopy(m_binFile, sidecarFile);
+            } else {
+                // no need for BufferedInputStream here as the copy method
+                // does the buffering itself
+                try (InputStream is = new FileInputStream(m_binFile)) {
+                    FileUtil.copy(is, zipOut);
+                }
             }
             if (m_blobDir != null) {
                 addToZip(ZIP_ENTRY_BLOBS, zipOut, m_blobDir);
@@ -1885,6 +1957,30 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
         }
     }
 
+    /**
+     * Creates <code>dest</code> as hard link to <code>source</code> or, if that fails (e.g. because the files are on
+     * different file systems), as copy of it. An existing <code>dest</code> is deleted first -- it must not be
+     * overwritten in place as it may share its content with another link.
+     *
+     * @param source the existing file
+     * @param dest the file to create
+     * @return true if a link was created, false if the file was copied
+     * @throws IOException if neither works
+     */
+    static boolean linkOrCopy(final File source, final File dest) throws IOException {
+        final Path destPath = dest.toPath();
+        Files.deleteIfExists(destPath);
+        try {
+            Files.createLink(destPath, source.toPath());
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            LOGGER.debugWithFormat("Unable to link \"%s\" to \"%s\", copying it instead (%s)",
+                dest.getAbsolutePath(), source.getAbsolutePath(), e.getMessage());
+        }
+        Files.copy(source.toPath(), destPath, StandardCopyOption.REPLACE_EXISTING);
+        return false;
+    }
+
     /**
      * Adds recursively the content of the directory <code>dir</code> to a zip output stream, prefixed with
      * <code>zipEntry</code>.
@@ -2005,6 +2101,15 @@ synchronized void clear() {
                         DeleteInBackgroundThread.delete(m_binFile);
                     }
                 }
+                if (m_retainedPackedFileStores != null) {
+                    for (Entry<WriteFileStoreHandler, BitSet> e : m_retainedPackedFileStores.entrySet()) {
+                        final BitSet retained = e.getValue();
+                        for (int i = retained.nextSetBit(0); i >= 0; i = retained.nextSetBit(i + 1)) {
+                            e.getKey().releasePackedReference(i);
+                        }
+                    }
+                    m_retainedPackedFileStores = null;
+                }
                 if (m_fileStoreHandler instanceof NotInWorkflowWriteFileStoreHandler) {
                     m_fileStoreHandler.clearAndDispose();
                 }
@@ -325,6 +325,10 @@ public DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOExce
             if (identifier == BYTE_TYPE_MISSING) {
                 return DataType.getMissingCell();
             }
+            if ((identifier == BYTE_TYPE_STRING_DICT_ENTRY || identifier == BYTE_TYPE_STRING_DICT_REF)
+                && m_tableFormatReader.isStringDictionaryEncoded()) {
+                return inStream.readDictionaryString(identifier);
+            }
 
             final boolean isJavaSerialization = identifier == BYTE_TYPE_SERIALIZATION;
             if (isJavaSerialization) {
@@ -60,6 +60,7 @@
 import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.util.CheckUtils;
@@ -220,11 +221,19 @@ protected void restoreIntoMemory() {
     public void saveToFile(final File f, final NodeSettingsWO settings, final ExecutionMonitor exec)
         throws IOException, CanceledExecutionException {
         ensureBufferOpen();
+        final File sidecarFile = Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_SIDECAR) ? getSidecarFile(f) : null;
         try (ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
-            m_buffer.addToZipFile(zipOut, exec);
+            m_buffer.addToZipFile(zipOut, sidecarFile, exec);
         }
     }
 
+    /** @return the file next to the zip file that holds the binary data, e.g. "data.bin" for "data.zip". */
+    private static File getSidecarFile(final File zipFile) {
+        final String zipName = zipFile.getName();
+        final String baseName = zipName.endsWith(".zip") ? zipName.substring(0, zipName.length() - 4) : zipName;
+        return new File(zipFile.getParentFile(), baseName + ".bin");
+    }
+
     /**
      * This methods exists to address possibly forward compatibility issues in KNIME 3.5 and before, see AP-8954.
      * Workflows created and saved in KNIME AP 3.6 were saved incompatibly to prior versions of KNIME (column store
@@ -55,12 +55,14 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.text.NumberFormat;
 import java.util.TimerTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.IDataRepository;
 import org.knime.core.data.container.BufferedDataContainerDelegate.BufferCreator;
@@ -77,7 +79,9 @@
 /**
  * Opens (on demand) a zip file from the workspace location and copies the
  * binary data content to temp for further reading. This class creates
- * a {@link Buffer} which reads from the temp file.
+ * a {@link Buffer} which reads from the temp file. If the binary data was saved
+ * next to the zip file (see {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_SIDECAR})
+ * the temp file is a hard link to that file, unless linking is not possible.
  *
  * <p>Think of this class as an runnable that is executed once on demand. It
  * helps to delay the copy process of the data to speed up the loading of
@@ -189,6 +193,14 @@ Buffer createBuffer(final InputStream in) throws IOException {
                 }
                 inStream.closeEntry();
                 isDataFound = true;
+            } else if (name.equals(Buffer.ZIP_ENTRY_DATA_SIDECAR)) {
+                final File sidecarFile = getSidecarFile(IOUtils.toString(inStream, StandardCharsets.UTF_8));
+                inStream.closeEntry();
+                if (Buffer.linkOrCopy(sidecarFile, binFile)) {
+                    LOGGER.debugWithFormat("Linked data file \"%s\" into temp dir (no copy)",
+                        sidecarFile.getAbsolutePath());
+                }
+                isDataFound = true;
             } else if (name.equals(Buffer.ZIP_ENTRY_META)) {
                 try (OutputStream output = new BufferedOutputStream(new FileOutputStream(metaTempFile))) {
                     FileUtil.copy(inStream, output);
@@ -259,6 +271,29 @@ Buffer createBuffer(final InputStream in) throws IOException {
         return buffer;
     }
 
+    /**
+     * Resolves the file containing the binary data of a table saved with
+     * {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_SIDECAR}.
+     *
+     * @param name the file name as stored in the zip file
+     * @return the file next to the zip file
+     * @throws IOException if the zip file is not read from a file or the data file doesn't exist
+     */
+    private File getSidecarFile(final String name) throws IOException {
+        if (m_fileRef == null) {
+            throw new IOException("Table data is stored in separate file \"" + name
+                + "\" but the table is not read from a file");
+        }
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.startsWith(".")) {
+            throw new IOException("Invalid name of table data file: \"" + name + "\"");
+        }
+        final File sidecarFile = new File(m_fileRef.getFile().getParentFile(), name);
+        if (!sidecarFile.isFile()) {
+            throw new IOException("Table data file \"" + sidecarFile.getAbsolutePath() + "\" does not exist");
+        }
+        return sidecarFile;
+    }
+
     /** Get name of file to copy from. Used for better error messages.
      * @return source file
      */
@@ -51,6 +51,7 @@
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataInput;
@@ -58,6 +59,7 @@
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.BufferFromFileIteratorVersion20.DataCellStreamReader;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.data.filestore.FileStoreKey;
 import org.knime.core.data.util.NonClosableInputStream;
 
@@ -83,6 +85,10 @@ public class DCObjectInputVersion2 implements KNIMEStreamConstants {
      * de-serialization takes place. May be null. */
     private ClassLoader m_priorityClassLoader;
 
+    /** Cells read using {@link #readDictionaryString(byte)}, index in list is index in dictionary. Lazily
+     * initialized. */
+    private ArrayList<StringCell> m_stringDictionary;
+
     /**
      * Creates new input stream that reads from <code>in</code>.
      * @param in The stream to read from.
@@ -150,6 +156,43 @@ BlobAddress readBlobAddress() throws IOException {
         return BlobAddress.deserialize(m_dataIn);
     }
 
+    /** Reads a string cell written by {@link DCObjectOutputVersion2#writeDictionaryString(String)}. All references
+     * to the same dictionary entry return the same cell instance.
+     * @param identifier The control byte already read from the stream, either
+     * {@link #BYTE_TYPE_STRING_DICT_ENTRY} or {@link #BYTE_TYPE_STRING_DICT_REF}.
+     * @return The (possibly shared) cell.
+     * @throws IOException If IO problems occur or the stream refers to an unknown entry.
+     */
+    StringCell readDictionaryString(final byte identifier) throws IOException {
+        if (m_stringDictionary == null) {
+            m_stringDictionary = new ArrayList<StringCell>();
+        }
+        final int index = m_dataIn.readShort();
+        if (identifier == BYTE_TYPE_STRING_DICT_ENTRY) {
+            if (index < 0) {
+                throw new IOException("Invalid string dictionary entry " + index);
+            }
+            // the writer adds entries in order of their index, entries at or beyond the index are therefore left
+            // from before the writer restarted the dictionary; entries are stored at the index given by the writer so
+            // that the dictionary stays in sync even if entries were skipped (e.g. as part of a cell that failed to be
+            // read), references to those fail individually
+            if (index < m_stringDictionary.size()) {
+                m_stringDictionary.subList(index, m_stringDictionary.size()).clear();
+            }
+            while (m_stringDictionary.size() < index) {
+                m_stringDictionary.add(null);
+            }
+            final StringCell cell = new StringCell(m_dataIn.readUTF());
+            m_stringDictionary.add(cell);
+            return cell;
+        }
+        if (index < 0 || index >= m_stringDictionary.size() || m_stringDictionary.get(index) == null) {
+            throw new IOException("Invalid reference to string dictionary entry " + index + " (dictionary size "
+                + m_stringDictionary.size() + ")");
+        }
+        return m_stringDictionary.get(index);
+    }
+
     /** Reads a row key from the stream.
      * @return A new row key instance.
      * @throws IOException If IO problems occur.
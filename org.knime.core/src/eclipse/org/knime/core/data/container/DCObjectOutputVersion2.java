@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataOutput;
@@ -77,6 +78,12 @@ public class DCObjectOutputVersion2 implements KNIMEStreamConstants, AutoCloseab
     /** This stream writes to m_out and is passed to the DataCellSerializer. */
     private DCLongUTFDataOutputStream m_dataOut;
 
+    /** Maximum number of strings in the string dictionary, it is restarted once full. */
+    static final int STRING_DICTIONARY_MAX_SIZE = 4096;
+
+    /** Strings written using {@link #writeDictionaryString(String)} and their index, lazily initialized. */
+    private HashMap<String, Integer> m_stringDictionary;
+
     /** Setups a new output stream.
      * @param out The stream to write to (the file)
      * @param tableStoreWriter the corresponding writer (callback for embedded cell writing)
@@ -129,6 +136,37 @@ public void writeBlobAddress(final BlobAddress address) throws IOException {
         address.serialize(m_dataOut);
     }
 
+    /**
+     * Writes a string cell's value using this stream's string dictionary. The first occurrence of a string is written
+     * as dictionary entry (control byte, index and the string), all further occurrences only as a reference to the
+     * entry's index. The dictionary is restarted (indices start at 0 again) once it contains
+     * {@value #STRING_DICTIONARY_MAX_SIZE} strings. Read by
+     * {@link DCObjectInputVersion2#readDictionaryString(byte)}.
+     *
+     * @param value The string to write, not null.
+     * @throws IOException In case of stream corruption.
+     * @since 4.4
+     */
+    public void writeDictionaryString(final String value) throws IOException {
+        if (m_stringDictionary == null) {
+            m_stringDictionary = new HashMap<String, Integer>();
+        }
+        Integer index = m_stringDictionary.get(value);
+        if (index != null) {
+            writeControlByte(BYTE_TYPE_STRING_DICT_REF);
+            m_dataOut.writeShort(index);
+            return;
+        }
+        if (m_stringDictionary.size() >= STRING_DICTIONARY_MAX_SIZE) {
+            m_stringDictionary.clear();
+        }
+        index = m_stringDictionary.size();
+        m_stringDictionary.put(value, index);
+        writeControlByte(BYTE_TYPE_STRING_DICT_ENTRY);
+        m_dataOut.writeShort(index);
+        m_dataOut.writeUTF(value);
+    }
+
     /** Writes a row key by writing the underlying string to the stream.
      * @param key Key to write
      * @throws IOException In case of stream corruption.
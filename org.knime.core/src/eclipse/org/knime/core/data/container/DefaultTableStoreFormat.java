@@ -94,6 +94,9 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
     /** Compression format. */
     private static final String CFG_COMPRESSION = "container.compression";
 
+    /** Whether string cells are dictionary encoded, only present if true (added in 4.4). */
+    static final String CFG_STRING_DICTIONARY = "container.stringdictionary";
+
     /**
      * Checked function interface throwing an IOException.
      *
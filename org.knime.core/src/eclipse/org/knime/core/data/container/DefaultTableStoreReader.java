@@ -72,6 +72,8 @@ final class DefaultTableStoreReader extends AbstractTableStoreReader {
 
     private final boolean m_isReadRowKey;
 
+    private final boolean m_isStringDictionaryEncoded;
+
     /**
      * Constructs a reader for materializing serialized KNIME tables.
      *
@@ -108,6 +110,7 @@ final class DefaultTableStoreReader extends AbstractTableStoreReader {
             cF = CompressionFormat.GZIP;
         }
         m_compressionFormat = cF;
+        m_isStringDictionaryEncoded = settings.getBoolean(DefaultTableStoreFormat.CFG_STRING_DICTIONARY, false);
     }
 
     @Override
@@ -146,6 +149,13 @@ boolean isReadRowKey() {
         return m_isReadRowKey;
     }
 
+    /** @return whether string cells were written using the stream's string dictionary, see
+     * {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_STRING_DICTIONARY}. */
+    @Override
+    public boolean isStringDictionaryEncoded() {
+        return m_isStringDictionaryEncoded;
+    }
+
     /**
      * @return number of records
      * @see org.knime.core.data.container.Buffer#size()
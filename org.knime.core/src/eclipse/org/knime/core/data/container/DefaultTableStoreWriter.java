@@ -58,6 +58,7 @@
 import org.knime.core.data.container.DCObjectOutputVersion2.BlockableDCObjectOutputVersion2;
 import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeSettingsWO;
 
 /**
@@ -88,6 +89,7 @@ public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outp
         final CompressionFormat compFormat) throws IOException {
         super(spec, writeRowKey);
         m_compFormat = compFormat;
+        setStringDictionaryEncoding(Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_STRING_DICTIONARY));
         m_outStream = initOutFile(new BufferedOutputStream(outputStream));
     }
 
@@ -103,7 +105,7 @@ public void writeRow(final DataRow row) throws IOException {
         for (int i = 0; i < row.getNumCells(); i++) {
             DataCell cell =
                 row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
-            writeDataCell(cell, m_outStream);
+            writeDataCell(cell, i, m_outStream);
             m_outStream.endBlock();
         }
         m_outStream.endRow();
@@ -137,6 +139,10 @@ private BlockableDCObjectOutputVersion2 initOutFile(final OutputStream outStream
     @Override
     public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
         m_compFormat.saveSettings(settings);
+        if (isStringDictionaryEncoding()) {
+            // only added if set so that tables without dictionary remain readable by prior versions
+            settings.addBoolean(DefaultTableStoreFormat.CFG_STRING_DICTIONARY, true);
+        }
         super.writeMetaInfoAfterWrite(settings);
     }
 
@@ -0,0 +1,336 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.RowKeyValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.v2.RowBatch;
+import org.knime.core.data.v2.RowBatchCursor;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Fallback implementation of {@link RowBatchCursor} based on {@link CloseableRowIterator}. The cells of a batch are
+ * collected from the rows of the iterator (which is possible as cells are immutable); primitive arrays and string
+ * dictionaries are derived lazily per column and batch and all arrays are reused for subsequent batches.
+ *
+ * <p>
+ * This is currently the implementation used for all tables. It does not avoid the per value {@link DataCell}: the
+ * cells are created by the underlying iterator when reading from disc (or already held by in-memory tables) and only
+ * unpacked into the arrays here. What it saves is the per value type dispatch in the consuming loops.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class FallbackRowBatchCursor implements RowBatchCursor, RowBatch {
+
+    private final CloseableRowIterator m_delegate;
+
+    private final DataTableSpec m_spec;
+
+    private final int m_batchSize;
+
+    private final RowKeyValue[] m_rowKeys;
+
+    /** Cells per column and row, null for missing cells and columns not materialized by the iterator. */
+    private final DataCell[][] m_cells;
+
+    private final long[][] m_validity;
+
+    /** Lazily derived per column, valid if the column's bit in the corresponding 'valid' flag array is set. */
+    private final double[][] m_doubles;
+
+    private final int[][] m_ints;
+
+    private final long[][] m_longs;
+
+    private final int[][] m_stringIndices;
+
+    private final String[][] m_stringDictionaries;
+
+    private final boolean[] m_doublesValid;
+
+    private final boolean[] m_intsValid;
+
+    private final boolean[] m_longsValid;
+
+    private final boolean[] m_stringsValid;
+
+    private int m_size;
+
+    /**
+     * @param delegate the iterator to read from, closed when this cursor is closed or exhausted
+     * @param spec the spec of the rows returned by the iterator
+     * @param batchSize maximum number of rows per batch, &gt; 0
+     */
+    public FallbackRowBatchCursor(final CloseableRowIterator delegate, final DataTableSpec spec,
+        final int batchSize) {
+        CheckUtils.checkArgument(batchSize > 0, "Batch size must be positive: %d", batchSize);
+        m_delegate = CheckUtils.checkArgumentNotNull(delegate);
+        m_spec = CheckUtils.checkArgumentNotNull(spec);
+        m_batchSize = batchSize;
+        final int numColumns = spec.getNumColumns();
+        m_rowKeys = new RowKeyValue[batchSize];
+        m_cells = new DataCell[numColumns][batchSize];
+        m_validity = new long[numColumns][(batchSize + 63) >>> 6];
+        m_doubles = new double[numColumns][];
+        m_ints = new int[numColumns][];
+        m_longs = new long[numColumns][];
+        m_stringIndices = new int[numColumns][];
+        m_stringDictionaries = new String[numColumns][];
+        m_doublesValid = new boolean[numColumns];
+        m_intsValid = new boolean[numColumns];
+        m_longsValid = new boolean[numColumns];
+        m_stringsValid = new boolean[numColumns];
+    }
+
+    @Override
+    public RowBatch forward() {
+        final int numColumns = m_cells.length;
+        for (int c = 0; c < numColumns; c++) {
+            Arrays.fill(m_validity[c], 0L);
+        }
+        Arrays.fill(m_doublesValid, false);
+        Arrays.fill(m_intsValid, false);
+        Arrays.fill(m_longsValid, false);
+        Arrays.fill(m_stringsValid, false);
+        int size = 0;
+        while (size < m_batchSize && m_delegate.hasNext()) {
+            final DataRow row = m_delegate.next();
+            m_rowKeys[size] = row.getKey();
+            for (int c = 0; c < numColumns; c++) {
+                final DataCell cell = row.getCell(c);
+                if (cell == null || cell.isMissing()) {
+                    m_cells[c][size] = null;
+                } else {
+                    m_cells[c][size] = cell;
+                    m_validity[c][size >>> 6] |= 1L << size;
+                }
+            }
+            size++;
+        }
+        // release references to cells of the previous batch
+        for (int r = size; r < m_size; r++) {
+            m_rowKeys[r] = null;
+            for (int c = 0; c < numColumns; c++) {
+                m_cells[c][r] = null;
+            }
+        }
+        m_size = size;
+        if (size == 0) {
+            m_delegate.close();
+            return null;
+        }
+        return this;
+    }
+
+    @Override
+    public boolean canForward() {
+        return m_delegate.hasNext();
+    }
+
+    @Override
+    public void close() {
+        m_delegate.close();
+    }
+
+    @Override
+    public int getBatchSize() {
+        return m_batchSize;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return m_cells.length;
+    }
+
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+    @Override
+    public RowKeyValue getRowKey(final int row) {
+        return m_rowKeys[checkRow(row)];
+    }
+
+    @Override
+    public <D extends DataValue> D getValue(final int column, final int row) {
+        @SuppressWarnings("unchecked")
+        final D value = (D)m_cells[column][checkRow(row)];
+        return value;
+    }
+
+    @Override
+    public boolean isMissing(final int column, final int row) {
+        return m_cells[column][checkRow(row)] == null;
+    }
+
+    @Override
+    public long[] getValidity(final int column) {
+        return m_validity[column];
+    }
+
+    @Override
+    public double[] getDoubles(final int column) {
+        checkCompatible(column, DoubleValue.class);
+        if (!m_doublesValid[column]) {
+            if (m_doubles[column] == null) {
+                m_doubles[column] = new double[m_batchSize];
+            }
+            final double[] values = m_doubles[column];
+            final DataCell[] cells = m_cells[column];
+            for (int r = 0; r < m_size; r++) {
+                values[r] = cells[r] == null ? 0.0 : ((DoubleValue)cells[r]).getDoubleValue();
+            }
+            m_doublesValid[column] = true;
+        }
+        return m_doubles[column];
+    }
+
+    @Override
+    public int[] getInts(final int column) {
+        checkCompatible(column, IntValue.class);
+        if (!m_intsValid[column]) {
+            if (m_ints[column] == null) {
+                m_ints[column] = new int[m_batchSize];
+            }
+            final int[] values = m_ints[column];
+            final DataCell[] cells = m_cells[column];
+            for (int r = 0; r < m_size; r++) {
+                values[r] = cells[r] == null ? 0 : ((IntValue)cells[r]).getIntValue();
+            }
+            m_intsValid[column] = true;
+        }
+        return m_ints[column];
+    }
+
+    @Override
+    public long[] getLongs(final int column) {
+        checkCompatible(column, LongValue.class);
+        if (!m_longsValid[column]) {
+            if (m_longs[column] == null) {
+                m_longs[column] = new long[m_batchSize];
+            }
+            final long[] values = m_longs[column];
+            final DataCell[] cells = m_cells[column];
+            for (int r = 0; r < m_size; r++) {
+                values[r] = cells[r] == null ? 0L : ((LongValue)cells[r]).getLongValue();
+            }
+            m_longsValid[column] = true;
+        }
+        return m_longs[column];
+    }
+
+    @Override
+    public int[] getStringIndices(final int column) {
+        initStrings(column);
+        return m_stringIndices[column];
+    }
+
+    @Override
+    public String[] getStringDictionary(final int column) {
+        initStrings(column);
+        return m_stringDictionaries[column];
+    }
+
+    private void initStrings(final int column) {
+        checkCompatible(column, StringValue.class);
+        if (m_stringsValid[column]) {
+            return;
+        }
+        if (m_stringIndices[column] == null) {
+            m_stringIndices[column] = new int[m_batchSize];
+        }
+        final int[] indices = m_stringIndices[column];
+        final DataCell[] cells = m_cells[column];
+        final Map<String, Integer> dictionary = new HashMap<>();
+        for (int r = 0; r < m_size; r++) {
+            if (cells[r] == null) {
+                indices[r] = -1;
+            } else {
+                final String value = ((StringValue)cells[r]).getStringValue();
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    index = dictionary.size();
+                    dictionary.put(value, index);
+                }
+                indices[r] = index;
+            }
+        }
+        final String[] strings = new String[dictionary.size()];
+        dictionary.forEach((s, i) -> strings[i] = s);
+        m_stringDictionaries[column] = strings;
+        m_stringsValid[column] = true;
+    }
+
+    private void checkCompatible(final int column, final Class<? extends DataValue> valueClass) {
+        final DataType type = m_spec.getColumnSpec(column).getType();
+        if (!type.isCompatible(valueClass)) {
+            throw new IllegalStateException(String.format("Column \"%s\" of type %s is not compatible to %s",
+                m_spec.getColumnSpec(column).getName(), type, valueClass.getSimpleName()));
+        }
+    }
+
+    private int checkRow(final int row) {
+        if (row < 0 || row >= m_size) {
+            throw new IndexOutOfBoundsException("Row " + row + " not in batch of size " + m_size);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A flattened view on a chain of column-rearranging reference tables, i.e. {@link RearrangeColumnsTable},
+ * {@link JoinedTable} and {@link TableSpecReplacerTable}. Rather than iterating the chain through one
+ * {@link JoinTableIterator} per table, each column of the top table is mapped directly onto a column of one of the
+ * tables at the leaves of the chain (the appended tables and the table at the bottom of the chain, which also provides
+ * the row keys). These tables are iterated side by side and each row is assembled only once.
+ *
+ * <p>
+ * The view only references the leaf tables; the tables in the chain are not changed and are still used for saving
+ * (and hence the lineage of the data is retained). Whether or not a chain is flattened is controlled by
+ * {@link KNIMEConstants#PROPERTY_TABLE_FLATTEN_DEPTH}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FlattenedReferenceView {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(FlattenedReferenceView.class);
+
+    /** Default chain depth from which tables are flattened, see {@link KNIMEConstants#PROPERTY_TABLE_FLATTEN_DEPTH}. */
+    private static final int DEF_FLATTEN_DEPTH = 4;
+
+    /** Chain depth from which tables are flattened, non-positive if disabled. */
+    static final int FLATTEN_DEPTH;
+
+    static {
+        int depth = DEF_FLATTEN_DEPTH;
+        String depthProp = System.getProperty(KNIMEConstants.PROPERTY_TABLE_FLATTEN_DEPTH);
+        if (depthProp != null) {
+            try {
+                depth = Integer.parseInt(depthProp.trim());
+                LOGGER.debug("Setting depth for flattening of reference tables to " + depth);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Unable to parse property \"" + KNIMEConstants.PROPERTY_TABLE_FLATTEN_DEPTH
+                    + "\", using default (" + DEF_FLATTEN_DEPTH + ")", e);
+            }
+        }
+        FLATTEN_DEPTH = depth;
+    }
+
+    /** The leaf tables contributing columns, the first one is the bottom of the chain and provides the row keys. */
+    private final Source[] m_sources;
+
+    /** For each column of the top table the index of the contributing leaf table in {@link #m_sources}. */
+    private final int[] m_sourceIndices;
+
+    /** For each column of the top table the column index in the contributing leaf table. */
+    private final int[] m_columnIndices;
+
+    /** Number of reference tables that were flattened. */
+    private final int m_depth;
+
+    private FlattenedReferenceView(final Source[] sources, final int[] sourceIndices, final int[] columnIndices,
+        final int depth) {
+        m_sources = sources;
+        m_sourceIndices = sourceIndices;
+        m_columnIndices = columnIndices;
+        m_depth = depth;
+    }
+
+    /**
+     * Flattens the chain of reference tables starting at the argument table if the chain is at least
+     * {@link #FLATTEN_DEPTH} tables deep.
+     *
+     * @param table the top table of the chain
+     * @return the flattened view or <code>null</code> if flattening is disabled or the chain is not deep enough
+     */
+    static FlattenedReferenceView createIfDeep(final KnowsRowCountTable table) {
+        return FLATTEN_DEPTH > 0 ? create(table, FLATTEN_DEPTH) : null;
+    }
+
+    /**
+     * Flattens the chain of reference tables starting at the argument table if the chain is at least
+     * <code>minDepth</code> tables deep.
+     *
+     * @param table the top table of the chain
+     * @param minDepth the minimum number of reference tables in the chain, must be &gt; 0
+     * @return the flattened view or <code>null</code> if the chain is not deep enough
+     */
+    static FlattenedReferenceView create(final KnowsRowCountTable table, final int minDepth) {
+        if (minDepth <= 0) {
+            throw new IllegalArgumentException("Minimum depth must be positive: " + minDepth);
+        }
+        final int nrCols = table.getDataTableSpec().getNumColumns();
+        final List<Source> sources = new ArrayList<>();
+        sources.add(null); // placeholder for the bottom table, set once known
+        final Map<Object, Integer> sourceIndexMap = new IdentityHashMap<>();
+        final int[] sourceIndices = new int[nrCols];
+        final int[] columnIndices = new int[nrCols];
+        // column index in the table at the current level or -1 if already resolved to a leaf table
+        final int[] pending = IntStream.range(0, nrCols).toArray();
+
+        KnowsRowCountTable current = table;
+        BufferedDataTable reference = null;
+        int depth = 0;
+        while (true) {
+            final int[] map;
+            final boolean[] flags;
+            final Object appended;
+            final Source appendedSource;
+            if (current instanceof RearrangeColumnsTable) {
+                final RearrangeColumnsTable rearrangeTable = (RearrangeColumnsTable)current;
+                final ContainerTable appendTable = rearrangeTable.getAppendTable();
+                reference = rearrangeTable.getReferenceTables()[0];
+                map = rearrangeTable.getMap();
+                flags = rearrangeTable.getIsFromRefTable();
+                appended = appendTable;
+                appendedSource = appendTable == null ? null : appendTable::iteratorWithFilter;
+            } else if (current instanceof JoinedTable) {
+                final JoinedTable joinedTable = (JoinedTable)current;
+                final BufferedDataTable rightTable = joinedTable.getReferenceTables()[1];
+                reference = joinedTable.getReferenceTables()[0];
+                map = joinedTable.getMap();
+                flags = joinedTable.getFlags();
+                appended = rightTable;
+                appendedSource = (filter, exec) -> rightTable.filter(filter, exec).iterator();
+            } else if (current instanceof TableSpecReplacerTable) {
+                // same data, different spec -- columns are passed through unchanged
+                reference = current.getReferenceTables()[0];
+                map = null;
+                flags = null;
+                appended = null;
+                appendedSource = null;
+            } else {
+                break;
+            }
+            if (map != null) {
+                for (int c = 0; c < nrCols; c++) {
+                    final int p = pending[c];
+                    if (p < 0) {
+                        continue;
+                    }
+                    if (flags[p]) {
+                        pending[c] = map[p];
+                    } else {
+                        sourceIndices[c] = sourceIndexMap.computeIfAbsent(appended, k -> {
+                            sources.add(appendedSource);
+                            return sources.size() - 1;
+                        });
+                        columnIndices[c] = map[p];
+                        pending[c] = -1;
+                    }
+                }
+            }
+            depth += 1;
+            current = Node.invokeGetDelegate(reference);
+        }
+        if (depth < minDepth) {
+            return null;
+        }
+        // all columns not contributed by any appended table are provided by the bottom table
+        final BufferedDataTable bottomTable = reference;
+        sources.set(0, (filter, exec) -> bottomTable.filter(filter, exec).iterator());
+        for (int c = 0; c < nrCols; c++) {
+            if (pending[c] >= 0) {
+                sourceIndices[c] = 0;
+                columnIndices[c] = pending[c];
+            }
+        }
+        return new FlattenedReferenceView(sources.toArray(new Source[sources.size()]), sourceIndices, columnIndices,
+            depth);
+    }
+
+    /**
+     * @return the number of reference tables that were flattened into this view
+     */
+    int getDepth() {
+        return m_depth;
+    }
+
+    /**
+     * @return the number of leaf tables that are iterated side by side, including the bottom table
+     */
+    int getNrSources() {
+        return m_sources.length;
+    }
+
+    /**
+     * Creates an iterator over the top table of the chain.
+     *
+     * @param filter the filter to apply to the top table or <code>null</code> if all rows and columns are read
+     * @param exec the monitor to update with progress or <code>null</code>
+     * @return a new iterator
+     */
+    @SuppressWarnings("resource")
+    CloseableRowIterator iterator(final TableFilter filter, final ExecutionMonitor exec) {
+        final BitSet[] sourceColumns = new BitSet[m_sources.length];
+        for (int s = 0; s < m_sources.length; s++) {
+            sourceColumns[s] = new BitSet();
+        }
+        final IntStream materializedColumns = filter == null ? null
+            : filter.getMaterializeColumnIndices().map(set -> set.stream().mapToInt(Integer::intValue)).orElse(null);
+        (materializedColumns != null ? materializedColumns : IntStream.range(0, m_sourceIndices.length))
+            .forEach(c -> sourceColumns[m_sourceIndices[c]].set(m_columnIndices[c]));
+
+        final CloseableRowIterator[] iterators = new CloseableRowIterator[m_sources.length];
+        try {
+            for (int s = 0; s < m_sources.length; s++) {
+                final TableFilter.Builder builder =
+                    filter == null ? new TableFilter.Builder() : new TableFilter.Builder(filter);
+                builder.withMaterializeColumnIndices(sourceColumns[s].stream().toArray());
+                // progress is reported by the bottom table only, same as for the nested iterators
+                iterators[s] = m_sources[s].iterator(builder.build(), s == 0 ? exec : null);
+            }
+        } catch (RuntimeException e) {
+            for (CloseableRowIterator it : iterators) {
+                if (it != null) {
+                    it.close();
+                }
+            }
+            throw e;
+        }
+        return new FlattenedIterator(iterators, m_sourceIndices, m_columnIndices);
+    }
+
+    /** Opens an iterator on one of the leaf tables. */
+    @FunctionalInterface
+    private interface Source {
+        CloseableRowIterator iterator(TableFilter filter, ExecutionMonitor exec);
+    }
+
+    /** Iterates the leaf tables side by side and assembles the rows of the top table. */
+    private static final class FlattenedIterator extends CloseableRowIterator {
+
+        private final CloseableRowIterator[] m_iterators;
+
+        private final int[] m_sourceIndices;
+
+        private final int[] m_columnIndices;
+
+        private final DataRow[] m_rows;
+
+        FlattenedIterator(final CloseableRowIterator[] iterators, final int[] sourceIndices,
+            final int[] columnIndices) {
+            m_iterators = iterators;
+            m_sourceIndices = sourceIndices;
+            m_columnIndices = columnIndices;
+            m_rows = new DataRow[iterators.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            // call hasNext on all iterators so that they can close resources at the end of the stream; see AP-8055
+            boolean hasNext = true;
+            for (CloseableRowIterator it : m_iterators) {
+                hasNext &= it.hasNext();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public DataRow next() {
+            for (int s = 0; s < m_iterators.length; s++) {
+                m_rows[s] = m_iterators[s].next();
+            }
+            final DataCell[] cells = new DataCell[m_sourceIndices.length];
+            for (int c = 0; c < cells.length; c++) {
+                cells[c] = JoinTableIterator.getUnwrappedCell(m_rows[m_sourceIndices[c]], m_columnIndices[c]);
+            }
+            return new BlobSupportDataRow(m_rows[0].getKey(), cells);
+        }
+
+        @Override
+        public void close() {
+            for (CloseableRowIterator it : m_iterators) {
+                it.close();
+            }
+        }
+    }
+
+}
@@ -133,7 +133,7 @@ public void close() {
         m_itReference.close();
     }
 
-    private static DataCell getUnwrappedCell(final DataRow row, final int i) {
+    static DataCell getUnwrappedCell(final DataRow row, final int i) {
         if (row instanceof PartlyMaterializedBlobSupportRow) {
             return ((PartlyMaterializedBlobSupportRow)row).getRawCellUnsafe(i);
         } else if (row instanceof BlobSupportDataRow) {
@@ -87,6 +87,11 @@ public final class JoinedTable implements KnowsRowCountTable {
     private final int[] m_map;
     private final boolean[] m_flags;
 
+    /** Flattened view on the chain of reference tables below this table, resolved on first access. */
+    private FlattenedReferenceView m_flattenedView;
+
+    private boolean m_isFlattenedViewResolved;
+
     /**
      * Creates new object. No checks are done.
      * @param left The left table.
@@ -112,6 +117,28 @@ private JoinedTable(final BufferedDataTable left,
         m_spec = spec;
     }
 
+    /** @return the map containing which column maps to which index in the left or right table */
+    int[] getMap() {
+        return m_map;
+    }
+
+    /** @return the flags whether a column is taken from the left table (or the right table) */
+    boolean[] getFlags() {
+        return m_flags;
+    }
+
+    /**
+     * @return the flattened view on the chain of reference tables below this table or <code>null</code> if the chain
+     *         is not deep enough, see {@link FlattenedReferenceView#createIfDeep(KnowsRowCountTable)}
+     */
+    private synchronized FlattenedReferenceView getFlattenedView() {
+        if (!m_isFlattenedViewResolved) {
+            m_flattenedView = FlattenedReferenceView.createIfDeep(this);
+            m_isFlattenedViewResolved = true;
+        }
+        return m_flattenedView;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -125,12 +152,21 @@ public DataTableSpec getDataTableSpec() {
      */
     @Override
     public CloseableRowIterator iterator() {
+        final FlattenedReferenceView flattenedView = getFlattenedView();
+        if (flattenedView != null) {
+            return flattenedView.iterator(null, null);
+        }
         return new JoinTableIterator(m_leftTable.iterator(),
                 m_rightTable.iterator(), m_map, m_flags);
     }
 
     @Override
     public CloseableRowIterator iteratorWithFilter(final TableFilter filter, final ExecutionMonitor exec) {
+        final FlattenedReferenceView flattenedView = getFlattenedView();
+        if (flattenedView != null) {
+            return flattenedView.iterator(filter, exec);
+        }
+
         // apply row index filter to left and right tables
         final TableFilter.Builder leftFilterBuilder = new TableFilter.Builder(filter);
         final TableFilter.Builder rightFilterBuilder = new TableFilter.Builder(filter);
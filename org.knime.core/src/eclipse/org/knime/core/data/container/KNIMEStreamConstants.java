@@ -81,5 +81,18 @@ public interface KNIMEStreamConstants {
     /** Separator for different rows. */
     static final byte BYTE_ROW_SEPARATOR = BYTE_TYPE_MISSING + 3;
 
+    /**
+     * The char for a string cell that is added to the stream's string dictionary (followed by its index and value).
+     * Not available as type short cut.
+     * @since 4.4
+     */
+    static final byte BYTE_TYPE_STRING_DICT_ENTRY = Byte.MAX_VALUE - 1;
+
+    /**
+     * The char for a string cell that refers to an entry in the stream's string dictionary (followed by its index).
+     * Not available as type short cut.
+     * @since 4.4
+     */
+    static final byte BYTE_TYPE_STRING_DICT_REF = Byte.MAX_VALUE;
 
 }
@@ -153,6 +153,11 @@ public void close() {
 
     private final ContainerTable m_appendTable;
 
+    /** Flattened view on the chain of reference tables below this table, resolved on first access. */
+    private FlattenedReferenceView m_flattenedView;
+
+    private boolean m_isFlattenedViewResolved;
+
     /*
      * Used from the factory method, see below.
      * @see #create(ColumnRearranger, BufferedDataTable, ExecutionMonitor)
@@ -272,6 +277,28 @@ public ContainerTable getAppendTable() {
         return m_appendTable;
     }
 
+    /** @return the map containing which column maps to which index in the reference or append table */
+    int[] getMap() {
+        return m_map;
+    }
+
+    /** @return the flags whether a column is taken from the reference table (or the append table) */
+    boolean[] getIsFromRefTable() {
+        return m_isFromRefTable;
+    }
+
+    /**
+     * @return the flattened view on the chain of reference tables below this table or <code>null</code> if the chain
+     *         is not deep enough, see {@link FlattenedReferenceView#createIfDeep(KnowsRowCountTable)}
+     */
+    private synchronized FlattenedReferenceView getFlattenedView() {
+        if (!m_isFlattenedViewResolved) {
+            m_flattenedView = FlattenedReferenceView.createIfDeep(this);
+            m_isFlattenedViewResolved = true;
+        }
+        return m_flattenedView;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -300,6 +327,11 @@ public RowCursor cursor(final TableFilter filter) {
     @Override
     @SuppressWarnings("resource")
     public CloseableRowIterator iterator() {
+        final FlattenedReferenceView flattenedView = getFlattenedView();
+        if (flattenedView != null) {
+            return flattenedView.iterator(null, null);
+        }
+
         // determine iterator for appended table
         CloseableRowIterator appendIt = EMPTY_ITERATOR;
         if (m_appendTable != null) {
@@ -324,6 +356,10 @@ public CloseableRowIterator iterator() {
     @Override
     @SuppressWarnings("resource")
     public CloseableRowIterator iteratorWithFilter(final TableFilter filter, final ExecutionMonitor exec) {
+        final FlattenedReferenceView flattenedView = getFlattenedView();
+        if (flattenedView != null) {
+            return flattenedView.iterator(filter, exec);
+        }
 
         final Supplier<IntStream> indicesSup = () -> filter.getMaterializeColumnIndices()
             .map(o -> o.stream().mapToInt(i -> i)).orElse(IntStream.range(0, m_map.length));
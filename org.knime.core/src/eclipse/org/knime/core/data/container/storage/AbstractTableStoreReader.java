@@ -159,6 +159,17 @@ public int getReadVersion() {
         return m_version;
     }
 
+    /**
+     * Whether string cells in the stream may have been written using the stream's string dictionary, see
+     * {@link AbstractTableStoreWriter#setStringDictionaryEncoding(boolean)}.
+     *
+     * @return that property, <code>false</code> unless overwritten
+     * @since 4.4
+     */
+    public boolean isStringDictionaryEncoded() {
+        return false;
+    }
+
     /**
      * Method for deserializig blob cells.
      *
@@ -57,10 +57,12 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.container.BlobWrapperDataCell;
 import org.knime.core.data.container.CellClassInfo;
 import org.knime.core.data.container.DCObjectOutputVersion2;
 import org.knime.core.data.container.KNIMEStreamConstants;
+import org.knime.core.data.def.StringCell;
 import org.knime.core.data.filestore.FileStore;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreKey;
@@ -68,6 +70,7 @@
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.core.node.util.ConvenienceMethods;
 
 /**
  * The abstract writer for writing specialized table formats.
@@ -87,6 +90,12 @@ public abstract class AbstractTableStoreWriter implements AutoCloseable, KNIMESt
 
     private CellClassInfo[] m_shortCutsLookup;
 
+    /**
+     * Per column, the serializer and short cut of the cell class last written into that column. Cells of a column are
+     * mostly of the same class, so this saves the map lookups (and the synchronization) for almost all cells.
+     */
+    private final CellDispatch[] m_columnDispatch;
+
     /** {@link #getFileStoreHandler()}. */
     private IWriteFileStoreHandler m_fileStoreHandler;
 
@@ -94,6 +103,12 @@ public abstract class AbstractTableStoreWriter implements AutoCloseable, KNIMESt
 
     private final DataTableSpec m_spec;
 
+    /** Maximum length of strings written using the string dictionary, longer strings are written as ordinary cells. */
+    private static final int STRING_DICTIONARY_MAX_LENGTH = 256;
+
+    /** Whether string cells are written using the stream's string dictionary. */
+    private boolean m_isStringDictionaryEncoding;
+
     /**
      * Constructs an abstract table store writer.
      *
@@ -103,6 +118,7 @@ public abstract class AbstractTableStoreWriter implements AutoCloseable, KNIMESt
     protected AbstractTableStoreWriter(final DataTableSpec spec, final boolean writeRowKey) {
         m_spec = CheckUtils.checkArgumentNotNull(spec);
         m_writeRowKey = writeRowKey;
+        m_columnDispatch = new CellDispatch[spec.getNumColumns()];
     }
 
     public final void setFileStoreHandler(final IWriteFileStoreHandler writeFileStoreHandler) {
@@ -122,6 +138,26 @@ protected final boolean isWriteRowKey() {
         return m_writeRowKey;
     }
 
+    /**
+     * Sets whether {@link StringCell} instances are written using the output stream's string dictionary (see
+     * {@link DCObjectOutputVersion2#writeDictionaryString(String)}). Only to be enabled by implementations whose reader
+     * is able to read such entries. Default is <code>false</code>.
+     *
+     * @param isStringDictionaryEncoding the new value
+     * @since 4.4
+     */
+    protected final void setStringDictionaryEncoding(final boolean isStringDictionaryEncoding) {
+        m_isStringDictionaryEncoding = isStringDictionaryEncoding;
+    }
+
+    /**
+     * @return whether string cells are written using the output stream's string dictionary.
+     * @since 4.4
+     */
+    protected final boolean isStringDictionaryEncoding() {
+        return m_isStringDictionaryEncoding;
+    }
+
     /** @return the spec set at construction time. */
     protected final DataTableSpec getSpec() {
         return m_spec;
@@ -176,7 +212,7 @@ public Byte getTypeShortCut(final CellClassInfo cellClass) {
      * @param cellClass The cell's class to write out.
      * @return The serializer to use or <code>null</code>.
      * @throws IOException If there are too many different cell implementations (currently 253 are theoretically
-     *             supported)
+     *             supported, 251 if {@link #isStringDictionaryEncoding() string dictionary encoding} is enabled)
      */
     synchronized public DataCellSerializer<DataCell> getSerializerForDataCell(final CellClassInfo cellClass) throws IOException {
         if (m_typeShortCuts == null) {
@@ -186,7 +222,10 @@ synchronized public DataCellSerializer<DataCell> getSerializerForDataCell(final
         DataCellSerializer<DataCell> serializer = (DataCellSerializer<DataCell>)cellClass.getSerializer();
         if (!m_typeShortCuts.containsKey(cellClass)) {
             int size = m_typeShortCuts.size();
-            if (size + BYTE_TYPE_START > Byte.MAX_VALUE) {
+            // the topmost identifiers are reserved for the string dictionary, if used
+            final int maxIdentifier =
+                m_isStringDictionaryEncoding ? BYTE_TYPE_STRING_DICT_ENTRY - 1 : Byte.MAX_VALUE;
+            if (size + BYTE_TYPE_START > maxIdentifier) {
                 throw new IOException("Too many different cell implementations");
             }
             Byte identifier = (byte)(size + BYTE_TYPE_START);
@@ -241,18 +280,42 @@ public FileStoreKey[] getFileStoreKeysAndFlush(final DataCell cell) throws IOExc
      * @throws IOException If stream corruption happens.
      */
     public void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream) throws IOException {
+        writeDataCell(cell, -1, outStream);
+    }
+
+    /**
+     * Writes a data cell of a given column to the outStream. The serializer and type short cut are taken from a per
+     * column dispatch table if the cell has the same class as the cell previously written into that column.
+     *
+     * @param cell The cell to write.
+     * @param column The index of the cell's column or -1 if the cell is not a top-level cell of a row (e.g. an
+     *            element of a collection cell).
+     * @param outStream To write to.
+     * @throws IOException If stream corruption happens.
+     * @since 4.4
+     */
+    public void writeDataCell(final DataCell cell, final int column, final DCObjectOutputVersion2 outStream)
+        throws IOException {
         if (cell == DataType.getMissingCell()) {
             // only write 'missing' byte if that's the singleton missing cell;
             // missing cells with error cause are handled like ordinary cells below (via serializer)
             outStream.writeControlByte(BYTE_TYPE_MISSING);
             return;
         }
+        // only top-level cells, each dictionary record is then a block of its own and is never skipped along with an
+        // enclosing (collection) cell that fails to be read
+        if (m_isStringDictionaryEncoding && column >= 0 && cell.getClass() == StringCell.class) {
+            final String value = ((StringCell)cell).getStringValue();
+            if (value.length() <= STRING_DICTIONARY_MAX_LENGTH) {
+                outStream.writeDictionaryString(value);
+                return;
+            }
+        }
 
         final boolean isBlob = cell instanceof BlobWrapperDataCell;
-        final CellClassInfo cellClass =
-            isBlob ? ((BlobWrapperDataCell)cell).getBlobClassInfo() : CellClassInfo.get(cell);
-        final DataCellSerializer<DataCell> ser = getSerializerForDataCell(cellClass);
-        final Byte identifier = getTypeShortCut(cellClass);
+        final CellDispatch dispatch = getCellDispatch(cell, isBlob, column);
+        final DataCellSerializer<DataCell> ser = dispatch.m_serializer;
+        final byte identifier = dispatch.m_identifier;
         final FileStoreKey[] fileStoreKeys = getFileStoreKeysAndFlush(cell);
 
         if (ser == null && !isBlob) {
@@ -275,4 +338,51 @@ public void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outS
             outStream.writeDataCellPerKNIMESerializer(ser, cell);
         }
     }
+
+    /**
+     * Get the serializer and type short cut for the argument cell, either from the column's dispatch table entry or,
+     * if the cell class differs from the previous cell in that column, via
+     * {@link #getSerializerForDataCell(CellClassInfo)}.
+     */
+    private CellDispatch getCellDispatch(final DataCell cell, final boolean isBlob, final int column)
+        throws IOException {
+        final boolean isColumnCell = column >= 0 && column < m_columnDispatch.length;
+        final CellDispatch last = isColumnCell ? m_columnDispatch[column] : null;
+        final CellClassInfo cellClass;
+        if (isBlob) {
+            cellClass = ((BlobWrapperDataCell)cell).getBlobClassInfo();
+            if (last != null && last.m_cellClassInfo == cellClass) {
+                return last;
+            }
+        } else if (last != null && last.m_cellClassInfo.getCellClass() == cell.getClass()
+            && (last.m_cellClassInfo.getCollectionElementType() == null || ConvenienceMethods.areEqual(
+                last.m_cellClassInfo.getCollectionElementType(), ((CollectionDataValue)cell).getElementType()))) {
+            return last;
+        } else {
+            cellClass = CellClassInfo.get(cell);
+        }
+        final CellDispatch dispatch =
+            new CellDispatch(cellClass, getSerializerForDataCell(cellClass), getTypeShortCut(cellClass));
+        if (isColumnCell) {
+            m_columnDispatch[column] = dispatch;
+        }
+        return dispatch;
+    }
+
+    /** Entry in the per column dispatch table: cell class, its serializer (null if java serialized) and short cut. */
+    private static final class CellDispatch {
+
+        private final CellClassInfo m_cellClassInfo;
+
+        private final DataCellSerializer<DataCell> m_serializer;
+
+        private final byte m_identifier;
+
+        CellDispatch(final CellClassInfo cellClassInfo, final DataCellSerializer<DataCell> serializer,
+            final byte identifier) {
+            m_cellClassInfo = cellClassInfo;
+            m_serializer = serializer;
+            m_identifier = identifier;
+        }
+    }
 }
\ No newline at end of file
@@ -48,6 +48,8 @@
 package org.knime.core.data.filestore;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.filestore.internal.IFileStoreHandler;
 import org.knime.core.data.filestore.internal.WriteFileStoreHandler;
@@ -87,11 +89,37 @@ IFileStoreHandler getFileStoreHandler() {
     }
 
     public File getFile() {
+        File file = getLocation();
+        m_fileStoreHandler.extractPackedContent(m_key, file);
+        return file;
+    }
+
+    /** @return the location of the file, which may not exist if the content is packed. */
+    private File getLocation() {
         File parentDir = m_fileStoreHandler.getParentDir(m_key.getIndex(), false);
         String relativePath = m_key.getNameOnDisc();
         return new File(parentDir, relativePath);
     }
 
+    /**
+     * Read-only access to the content of the file store. Unlike {@link #getFile()} this does not require the content
+     * to be stored in a separate file, i.e. it's the preferred way to read file stores that were created with their
+     * content (see {@link org.knime.core.node.ExecutionContext#createFileStore(String, ByteBuffer)}).
+     *
+     * @return a read-only view on the content, a copy if the content is packed and a memory-mapped view on the file
+     *         otherwise
+     * @throws IOException if the content cannot be read, e.g. because the file store represents a directory
+     * @since 4.4
+     */
+    public ByteBuffer getContent() throws IOException {
+        return m_fileStoreHandler.readContent(m_key, getLocation());
+    }
+
+    /** Called once after creation, see {@link FileStoreUtil#writeContent(FileStore, ByteBuffer)}. */
+    void writeContent(final ByteBuffer content) throws IOException {
+        m_fileStoreHandler.writeContent(m_key, getLocation(), content);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -46,6 +46,7 @@
 package org.knime.core.data.filestore;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 import org.knime.core.data.filestore.internal.NotInWorkflowWriteFileStoreHandler;
@@ -80,6 +81,19 @@ public abstract class FileStoreFactory {
      */
     public abstract FileStore createFileStore(final String relativePath) throws IOException;
 
+    /** Creates a file store with the given content. For details see
+     * {@link ExecutionContext#createFileStore(String, ByteBuffer)} (including declared exceptions).
+     * @param relativePath ...
+     * @param content ...
+     * @return ...
+     * @throws IOException ...
+     * @noreference Pending API. Feel free to use the method but keep in mind
+     * that it might change in a future version of KNIME.
+     * @since 4.4
+     */
+    public abstract FileStore createFileStore(final String relativePath, final ByteBuffer content)
+        throws IOException;
+
     /** Can be called by the client to disallow further creation of file stores.
      * @since 2.7
      */
@@ -174,6 +188,12 @@ public FileStore createFileStore(final String relativePath) throws IOException {
             return m_exec.createFileStore(path);
         }
 
+        @Override
+        public FileStore createFileStore(final String relativePath, final ByteBuffer content) throws IOException {
+            final String path = m_prefix != null ? m_prefix + relativePath : relativePath;
+            return m_exec.createFileStore(path, content);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -210,6 +230,12 @@ public FileStore createFileStore(final String relativePath) throws IOException {
             return m_notInWorkflowWriteFileStoreHandler.createFileStore(path);
         }
 
+        @Override
+        public FileStore createFileStore(final String relativePath, final ByteBuffer content) throws IOException {
+            final String path = m_prefix != null ? m_prefix + relativePath : relativePath;
+            return m_notInWorkflowWriteFileStoreHandler.createFileStore(path, content);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -48,6 +48,7 @@
 package org.knime.core.data.filestore;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -189,6 +190,20 @@ public static void retrieveFileStoreHandlers(final FileStorePortObject sourceFSO
         resultFSObj.retrieveFileStoreHandlerFrom(sourceFSKeys, resultRepos);
     }
 
+    /**
+     * Writes the content of a new file store, see
+     * {@link IWriteFileStoreHandler#createFileStore(String, java.nio.ByteBuffer)}.
+     *
+     * @param fs the file store, just created
+     * @param content the content, read from its current position to its limit (position is not changed)
+     * @throws IOException if writing fails
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public static void writeContent(final FileStore fs, final ByteBuffer content) throws IOException {
+        fs.writeContent(content);
+    }
+
     /** @noreference This method is not intended to be referenced by clients. */
     public static FileStore createFileStore(final WriteFileStoreHandler handler, final FileStoreKey key) {
         return new FileStore(handler, key);
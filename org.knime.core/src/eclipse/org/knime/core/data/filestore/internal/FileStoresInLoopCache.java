@@ -224,6 +224,11 @@ void dispose() {
     private void delete(final FileStoreKey key, final ILoopStartWriteFileStoreHandler handler,
             final MutableInteger nrFilesDeleted, final MutableInteger nrFilesFailedDelete) {
         FileStore fileStore = handler.getFileStore(key);
+        IFileStoreHandler owner = FileStoreUtil.getFileStoreHandler(fileStore);
+        if (owner instanceof WriteFileStoreHandler && ((WriteFileStoreHandler)owner).releasePackedContent(key)) {
+            nrFilesDeleted.inc();
+            return;
+        }
         File file = fileStore.getFile();
         if (file.exists() && !FileUtil.deleteRecursively(file)) {
             nrFilesFailedDelete.inc();
@@ -49,11 +49,13 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 import org.knime.core.data.IDataRepository;
 import org.knime.core.data.filestore.FileStore;
 import org.knime.core.data.filestore.FileStoreKey;
+import org.knime.core.data.filestore.FileStoreUtil;
 import org.knime.core.data.filestore.internal.FileStoreProxy.FlushCallback;
 import org.knime.core.node.ExecutionContext;
 
@@ -79,6 +81,23 @@ public interface IWriteFileStoreHandler extends IFileStoreHandler {
      */
     public FileStore createFileStore(String name, int[] nestedLoopPath, int iterationIndex) throws IOException;
 
+    /**
+     * Creates a file store and writes the argument content to it. Depending on the owning handler the content is
+     * stored in a separate file or appended to a segment file shared with other file stores (see
+     * {@link org.knime.core.node.KNIMEConstants#PROPERTY_FILESTORE_PACKED}).
+     *
+     * @param name the name of the file store, see {@link #createFileStore(String)}
+     * @param content the content, read from its current position to its limit (position is not changed)
+     * @return the new file store
+     * @throws IOException if the name is invalid or writing fails
+     * @since 4.4
+     */
+    public default FileStore createFileStore(final String name, final ByteBuffer content) throws IOException {
+        final FileStore fs = createFileStore(name);
+        FileStoreUtil.writeContent(fs, content);
+        return fs;
+    }
+
     public void open(final ExecutionContext exec);
 
     public void addToRepository(final IDataRepository repository);
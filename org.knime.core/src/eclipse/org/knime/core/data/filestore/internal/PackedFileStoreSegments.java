@@ -0,0 +1,390 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Stores the payload of many small file stores in a few large segment files instead of one file per file store. The
+ * payloads are appended to the current segment file (a new segment is started once it exceeds
+ * {@link #MAX_SEGMENT_SIZE}), their location is recorded in an append-only index file so that the folder can be
+ * saved with and restored from the workflow. Payloads are read into heap buffers, i.e. clients never hold a view on
+ * a segment file and segments can be deleted regardless of what clients keep a reference to.
+ *
+ * <p>
+ * Payloads are released explicitly (e.g. file stores of loop iterations that are not referenced by the loop result) or
+ * once the last table referencing them is cleared (see {@link #retain(int)} and {@link #releaseReference(int)}).
+ * Released payloads are accounted per segment, a segment file is closed and deleted once all its payloads are
+ * released.
+ *
+ * <p>
+ * The folder layout is &lt;filestore_dir&gt;/{@value #DIR_NAME}/{index.bin, segment-00000.bin, ...}. Not thread-safe,
+ * synchronization is done by the owning {@link WriteFileStoreHandler}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PackedFileStoreSegments {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PackedFileStoreSegments.class);
+
+    /** Name of the sub folder in the file store directory containing the segment files. */
+    static final String DIR_NAME = "packed";
+
+    /** A segment is sealed once it exceeds this size (must be below 2GB as slices are int addressed). */
+    static final long MAX_SEGMENT_SIZE = 256L * 1024 * 1024;
+
+    private static final String INDEX_FILE_NAME = "index.bin";
+
+    private static final int INDEX_ENTRY_SIZE = Integer.BYTES * 3 + Long.BYTES;
+
+    private final File m_dir;
+
+    /** file store index to location, see {@link Location}. */
+    private final Map<Integer, Location> m_locations = new HashMap<>();
+
+    /** segment number to number of bytes not yet released. */
+    private final Map<Integer, Long> m_liveBytes = new HashMap<>();
+
+    /** segment number to the channel used for reading it, closed before the segment is deleted. */
+    private final Map<Integer, FileChannel> m_readChannels = new HashMap<>();
+
+    private FileChannel m_indexChannel;
+
+    private FileChannel m_writeChannel;
+
+    private int m_writeSegment = -1;
+
+    private PackedFileStoreSegments(final File dir) {
+        m_dir = dir;
+    }
+
+    /**
+     * Opens the segments in the given file store base directory, reading an existing index if present (e.g. after
+     * the directory has been restored from a saved workflow).
+     *
+     * @param baseDir the base directory of the file store handler
+     * @return the segments, possibly empty
+     * @throws IOException if the index cannot be read
+     */
+    static PackedFileStoreSegments open(final File baseDir) throws IOException {
+        PackedFileStoreSegments segments = new PackedFileStoreSegments(new File(baseDir, DIR_NAME));
+        segments.readIndex();
+        return segments;
+    }
+
+    /**
+     * @param baseDir the base directory of a file store handler
+     * @return whether the directory contains packed file stores
+     */
+    static boolean exists(final File baseDir) {
+        return baseDir != null && new File(new File(baseDir, DIR_NAME), INDEX_FILE_NAME).isFile();
+    }
+
+    private void readIndex() throws IOException {
+        final File indexFile = new File(m_dir, INDEX_FILE_NAME);
+        if (!indexFile.isFile()) {
+            return;
+        }
+        // trailing partial entries (crash while writing) are ignored
+        final long nrEntries = indexFile.length() / INDEX_ENTRY_SIZE;
+        try (InputStream fileIn = new FileInputStream(indexFile);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            for (long i = 0; i < nrEntries; i++) {
+                final int fsIndex = in.readInt();
+                final int segment = in.readInt();
+                final long offset = in.readLong();
+                final int length = in.readInt();
+                if (length < 0) { // release marker
+                    release(fsIndex, false);
+                } else {
+                    // tables referencing restored payloads are not known, only explicit releases free them
+                    final Location location = new Location(segment, offset, length);
+                    location.m_tableReferences = Location.UNTRACKED;
+                    addLocation(fsIndex, location);
+                }
+                m_writeSegment = Math.max(m_writeSegment, segment);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Index of packed file stores is truncated: " + indexFile.getAbsolutePath(), e);
+        }
+        // continue writing into a fresh segment, never append to segments that were restored
+        m_writeSegment = m_writeSegment >= 0 ? m_writeSegment + 1 : -1;
+    }
+
+    /** @return whether the file store with the given index is stored (and not released) in this object */
+    boolean contains(final int fsIndex) {
+        return m_locations.containsKey(fsIndex);
+    }
+
+    /**
+     * Appends the payload of a file store.
+     *
+     * @param fsIndex the index of the file store (see {@link org.knime.core.data.filestore.FileStoreKey#getIndex()})
+     * @param payload the content, its position is not changed
+     * @throws IOException if writing fails
+     */
+    void write(final int fsIndex, final ByteBuffer payload) throws IOException {
+        if (m_locations.containsKey(fsIndex)) {
+            throw new IOException("Packed file store with index " + fsIndex + " already exists");
+        }
+        final int length = payload.remaining();
+        ensureWriteChannel(length);
+        final long offset = m_writeChannel.size();
+        final ByteBuffer buffer = payload.duplicate();
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += m_writeChannel.write(buffer, position);
+        }
+        final Location location = new Location(m_writeSegment, offset, length);
+        writeIndexEntry(fsIndex, location);
+        addLocation(fsIndex, location);
+    }
+
+    /**
+     * @param fsIndex the index of the file store
+     * @return a read-only copy of the payload or <code>null</code> if there is no such packed file store
+     * @throws IOException if reading the segment fails
+     */
+    ByteBuffer read(final int fsIndex) throws IOException {
+        final Location location = m_locations.get(fsIndex);
+        if (location == null) {
+            return null;
+        }
+        FileChannel channel = m_readChannels.get(location.m_segment);
+        if (channel == null) {
+            channel = FileChannel.open(getSegmentFile(location.m_segment).toPath(), StandardOpenOption.READ);
+            m_readChannels.put(location.m_segment, channel);
+        }
+        // copy instead of handing out a mapped slice, which would crash the JVM when accessed after the segment
+        // has been unmapped, or keep the segment file from being deleted (Windows) if it's not unmapped
+        final ByteBuffer content = ByteBuffer.allocate(location.m_length);
+        long position = location.m_offset;
+        while (content.hasRemaining()) {
+            final int read = channel.read(content, position);
+            if (read < 0) {
+                throw new EOFException("Packed file store " + fsIndex + " exceeds its segment file "
+                    + getSegmentFile(location.m_segment).getAbsolutePath());
+            }
+            position += read;
+        }
+        content.flip();
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * Releases the payload of a file store, deleting its segment file if it contains no other live payload.
+     *
+     * @param fsIndex the index of the file store
+     * @return <code>true</code> if the file store was packed and has been released
+     * @throws IOException if the release cannot be recorded in the index
+     */
+    boolean release(final int fsIndex) throws IOException {
+        final Location location = m_locations.get(fsIndex);
+        if (location == null) {
+            return false;
+        }
+        writeIndexEntry(fsIndex, new Location(location.m_segment, location.m_offset, -1));
+        release(fsIndex, true);
+        return true;
+    }
+
+    /**
+     * Records that a table references the payload of a file store. Payloads restored from a saved index are not
+     * reference counted (the tables referencing them are not known).
+     *
+     * @param fsIndex the index of the file store
+     * @return <code>true</code> if the reference was recorded and needs to be passed to
+     *         {@link #releaseReference(int)} when the table is cleared
+     */
+    boolean retain(final int fsIndex) {
+        final Location location = m_locations.get(fsIndex);
+        if (location == null || location.m_tableReferences == Location.UNTRACKED) {
+            return false;
+        }
+        location.m_tableReferences++;
+        return true;
+    }
+
+    /**
+     * Counterpart to {@link #retain(int)}, called when a table referencing the payload is cleared. The payload is
+     * released once no table references it anymore.
+     *
+     * @param fsIndex the index of the file store
+     * @return <code>true</code> if the payload has been released
+     * @throws IOException if the release cannot be recorded in the index
+     */
+    boolean releaseReference(final int fsIndex) throws IOException {
+        final Location location = m_locations.get(fsIndex);
+        if (location == null || location.m_tableReferences <= 0) {
+            return false;
+        }
+        location.m_tableReferences--;
+        return location.m_tableReferences == 0 && release(fsIndex);
+    }
+
+    private void release(final int fsIndex, final boolean deleteEmptySegment) {
+        final Location location = m_locations.remove(fsIndex);
+        if (location == null) {
+            return;
+        }
+        final long live = m_liveBytes.merge(location.m_segment, -(long)location.m_length, Long::sum);
+        if (live <= 0 && m_locations.values().stream().noneMatch(l -> l.m_segment == location.m_segment)) {
+            m_liveBytes.remove(location.m_segment);
+            closeQuietly(m_readChannels.remove(location.m_segment));
+            if (deleteEmptySegment && location.m_segment != m_writeSegment) {
+                final File segmentFile = getSegmentFile(location.m_segment);
+                if (segmentFile.exists() && !segmentFile.delete()) {
+                    LOGGER.debugWithFormat("Unable to delete unreferenced file store segment \"%s\"",
+                        segmentFile.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /** Closes the channels used for writing, segments stay readable. */
+    void close() {
+        closeQuietly(m_writeChannel);
+        m_writeChannel = null;
+        closeQuietly(m_indexChannel);
+        m_indexChannel = null;
+    }
+
+    /** Closes all channels and deletes the segment folder. */
+    void dispose() {
+        close();
+        m_readChannels.values().forEach(PackedFileStoreSegments::closeQuietly);
+        m_readChannels.clear();
+        m_locations.clear();
+        m_liveBytes.clear();
+        FileUtil.deleteRecursively(m_dir);
+    }
+
+    private void addLocation(final int fsIndex, final Location location) {
+        m_locations.put(fsIndex, location);
+        m_liveBytes.merge(location.m_segment, (long)location.m_length, Long::sum);
+    }
+
+    private void ensureWriteChannel(final int nextLength) throws IOException {
+        if (m_writeChannel != null && m_writeChannel.size() + nextLength > MAX_SEGMENT_SIZE
+            && m_writeChannel.size() > 0) {
+            closeQuietly(m_writeChannel);
+            m_writeChannel = null;
+            m_writeSegment++;
+        }
+        if (m_writeChannel == null) {
+            if (!m_dir.isDirectory() && !m_dir.mkdirs()) {
+                throw new IOException("Unable to create directory \"" + m_dir.getAbsolutePath() + "\"");
+            }
+            m_writeSegment = Math.max(m_writeSegment, 0);
+            m_writeChannel = FileChannel.open(getSegmentFile(m_writeSegment).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.READ);
+        }
+    }
+
+    private void writeIndexEntry(final int fsIndex, final Location location) throws IOException {
+        if (m_indexChannel == null) {
+            m_indexChannel = FileChannel.open(new File(m_dir, INDEX_FILE_NAME).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        final ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+        entry.putInt(fsIndex).putInt(location.m_segment).putLong(location.m_offset).putInt(location.m_length);
+        entry.flip();
+        while (entry.hasRemaining()) {
+            m_indexChannel.write(entry);
+        }
+    }
+
+    private File getSegmentFile(final int segment) {
+        return new File(m_dir, String.format("segment-%05d.bin", segment));
+    }
+
+    private static void closeQuietly(final FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close file store segment channel: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Location of a payload: segment number, offset and length (negative length marks a release), plus the number of
+     * tables referencing it.
+     */
+    private static final class Location {
+
+        /** {@link #m_tableReferences} of payloads whose references are not counted. */
+        static final int UNTRACKED = -1;
+
+        private final int m_segment;
+
+        private final long m_offset;
+
+        private final int m_length;
+
+        private int m_tableReferences;
+
+        Location(final int segment, final long offset, final int length) {
+            m_segment = segment;
+            m_offset = offset;
+            m_length = length;
+        }
+    }
+}
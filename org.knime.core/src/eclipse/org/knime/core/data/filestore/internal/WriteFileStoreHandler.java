@@ -49,6 +49,10 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 import java.util.UUID;
 
 import org.knime.core.data.IDataRepository;
@@ -57,6 +61,7 @@
 import org.knime.core.data.filestore.FileStoreUtil;
 import org.knime.core.data.filestore.internal.FileStoreProxy.FlushCallback;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.WorkflowDataRepository;
@@ -83,6 +88,9 @@ public class WriteFileStoreHandler implements IWriteFileStoreHandler {
 
     private static final int MAX_NR_FILES = (int)Math.pow(FILES_PER_FOLDER, FOLDER_LEVEL + 1);
 
+    /** Whether content passed to {@link #writeContent(FileStoreKey, File, ByteBuffer)} is packed into segments. */
+    private static final boolean IS_PACKED_MODE = Boolean.getBoolean(KNIMEConstants.PROPERTY_FILESTORE_PACKED);
+
     private final String m_name;
     private final UUID m_storeUUID;
     private File m_baseDirInWorkflowFolder;
@@ -91,6 +99,9 @@ public class WriteFileStoreHandler implements IWriteFileStoreHandler {
     private IDataRepository m_dataRepository;
     private LRUCache<FileStoreKey, FileStoreKey> m_createdFileStoreKeys;
     private int m_nextIndex = 0;
+    /** Segments of packed file stores, null if none were written/restored. Volatile as read without lock by
+     * {@link #extractPackedContent(FileStoreKey, File)}. */
+    private volatile PackedFileStoreSegments m_packedSegments;
 
 
     /**
@@ -127,6 +138,12 @@ public void clearAndDispose() {
             m_dataRepository.removeFileStoreHandler(this);
             m_dataRepository = null;
         }
+        synchronized (this) {
+            if (m_packedSegments != null) {
+                m_packedSegments.dispose();
+                m_packedSegments = null;
+            }
+        }
         if (m_baseDir != null) {
             StringBuilder b = new StringBuilder("Disposing file store \"");
             b.append(toString()).append("\"");
@@ -302,6 +319,156 @@ private FileStore createFileStoreInternal(final String name,
         return fs;
     }
 
+    /**
+     * Writes the content of a file store that was just created by this handler. The content is either appended to a
+     * segment file (if {@link KNIMEConstants#PROPERTY_FILESTORE_PACKED} is set) or written to the file store's file.
+     *
+     * @param key the key of the file store
+     * @param file the location of the file store's file
+     * @param content the content, position is not changed
+     * @throws IOException if writing fails
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public synchronized void writeContent(final FileStoreKey key, final File file, final ByteBuffer content)
+        throws IOException {
+        CheckUtils.checkArgument(key.getStoreUUID().equals(m_storeUUID), "File store %s not owned by %s", key, this);
+        if (IS_PACKED_MODE) {
+            ensureInitBaseDirectory();
+            if (m_packedSegments == null) {
+                m_packedSegments = PackedFileStoreSegments.open(m_baseDir);
+            }
+            m_packedSegments.write(key.getIndex(), content);
+        } else {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = content.duplicate();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the content of a file store owned by this handler, either from a packed segment or from its file.
+     *
+     * @param key the key of the file store
+     * @param file the location of the file store's file
+     * @return a read-only view on the content
+     * @throws IOException if reading fails
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public synchronized ByteBuffer readContent(final FileStoreKey key, final File file) throws IOException {
+        ensureOpenAfterLoad();
+        if (m_packedSegments != null) {
+            final ByteBuffer packed = m_packedSegments.read(key.getIndex());
+            if (packed != null) {
+                return packed;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(MapMode.READ_ONLY, 0, channel.size()).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Writes the content of a packed file store into its file, if not done before. Called when clients access the file
+     * store via {@link FileStore#getFile()}.
+     *
+     * @param key the key of the file store
+     * @param file the location of the file store's file
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public void extractPackedContent(final FileStoreKey key, final File file) {
+        if (m_packedSegments == null) {
+            return; // fast path, no packed file stores (restored segments are opened when the file store is created)
+        }
+        synchronized (this) {
+            try {
+                ensureOpenAfterLoad();
+                if (m_packedSegments == null || file.exists()) {
+                    return;
+                }
+                final ByteBuffer content = m_packedSegments.read(key.getIndex());
+                if (content == null) {
+                    return;
+                }
+                getParentDir(key.getIndex(), true);
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                    while (content.hasRemaining()) {
+                        channel.write(content);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to extract packed file store \"" + key + "\"", e);
+            }
+        }
+    }
+
+    /**
+     * Releases the content of a packed file store that is no longer referenced (e.g. created in a loop iteration
+     * whose result is discarded). Segment files are deleted once all their file stores are released.
+     *
+     * @param key the key of the file store
+     * @return <code>true</code> if the file store was packed and has been released, <code>false</code> if it's stored
+     *         in a separate file (which the caller needs to delete)
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public synchronized boolean releasePackedContent(final FileStoreKey key) {
+        if (m_packedSegments == null) {
+            return false;
+        }
+        try {
+            return m_packedSegments.release(key.getIndex());
+        } catch (IOException e) {
+            LOGGER.debug("Unable to release packed file store \"" + key + "\": " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Records that a table references a packed file store of this handler (called when a file store cell is added to
+     * a table). The content is released when the last such table is cleared, see
+     * {@link #releasePackedReference(int)}.
+     *
+     * @param fsIndex the index of the file store (see {@link FileStoreKey#getIndex()})
+     * @return <code>true</code> if the file store is packed and the reference was recorded
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public boolean retainPackedContent(final int fsIndex) {
+        if (m_packedSegments == null) {
+            return false; // fast path, no packed file stores
+        }
+        synchronized (this) {
+            return m_packedSegments != null && m_packedSegments.retain(fsIndex);
+        }
+    }
+
+    /**
+     * Counterpart to {@link #retainPackedContent(int)}, called when a table referencing the file store is cleared. The
+     * content (and possibly its segment file) is released once no table references it anymore.
+     *
+     * @param fsIndex the index of the file store (see {@link FileStoreKey#getIndex()})
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public synchronized void releasePackedReference(final int fsIndex) {
+        if (m_packedSegments == null) {
+            return;
+        }
+        try {
+            m_packedSegments.releaseReference(fsIndex);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to release packed file store with index " + fsIndex + ": " + e.getMessage(), e);
+        }
+    }
+
     /** @return the nextIndex */
     public int getNextIndex() {
         return m_nextIndex;
@@ -367,6 +534,11 @@ public void close() {
             m_duplicateChecker.close();
             m_duplicateChecker = null;
         }
+        synchronized (this) {
+            if (m_packedSegments != null) {
+                m_packedSegments.close();
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -380,6 +552,9 @@ public synchronized void ensureOpenAfterLoad() throws IOException {
             File source = m_baseDirInWorkflowFolder;
             m_baseDirInWorkflowFolder = null;
             FileUtil.copyDir(source, m_baseDir);
+            if (PackedFileStoreSegments.exists(m_baseDir)) {
+                m_packedSegments = PackedFileStoreSegments.open(m_baseDir);
+            }
         }
     }
 
@@ -56,6 +56,8 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 
 import javax.imageio.ImageIO;
@@ -73,7 +75,9 @@
 /**
  * Content of a PNG image. It only wraps a byte[] which is supposed to be
  * PNG content. The rendering methods will delegate all work to
- * {@link BufferedImage}.
+ * {@link BufferedImage}. Dimensions and further metadata are read from the
+ * PNG header without decoding the image; painting uses the shared
+ * {@link PNGThumbnailCache}.
  * @author Thomas Gabriel, KNIME AG, Zurich, Switzerland
  */
 public class PNGImageContent implements ImageContent {
@@ -86,6 +90,21 @@ public class PNGImageContent implements ImageContent {
 
     private SoftReference<Image> m_imageRef;
 
+    /** Fields of the PNG header (IHDR chunk), width is -1 if not parsed. */
+    private int m_width = -1;
+
+    private int m_height = -1;
+
+    private int m_bitDepth = -1;
+
+    private int m_colorType = -1;
+
+    /** Hash over the image bytes, 0 if not computed yet. */
+    private int m_hashCode;
+
+    /** SHA-256 digest of the image bytes, <code>null</code> if not computed yet. */
+    private volatile byte[] m_digest;
+
     /** Framework constructor for restoring content. <b>Do not use!</b> */
     public PNGImageContent() {
         // no-arg, required by ImageContent
@@ -98,13 +117,57 @@ public PNGImageContent() {
      * valid png byte stream (according to {@link ImageIO#read(InputStream)}.
      */
     public PNGImageContent(final byte[] imageBytes) {
+        this(imageBytes, true);
+    }
+
+    /** Creates PNG image content from byte array, optionally without validating (decoding) it. Content restored
+     * from a stream was validated when it was created; reading errors will then surface in {@link #getImage()}.
+     * @param imageBytes The image bytes.
+     * @param validate whether to decode the image
+     */
+    private PNGImageContent(final byte[] imageBytes, final boolean validate) {
         if (imageBytes == null) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_imageBytes = imageBytes;
-        m_imageRef = new SoftReference<Image>(getImageInternal(imageBytes));
+        m_imageRef = new SoftReference<Image>(validate ? getImageInternal(imageBytes) : null);
+        readHeader();
     }
 
+    /** Parses the IHDR chunk, which by specification immediately follows the PNG signature. */
+    private void readHeader() {
+        final byte[] b = m_imageBytes;
+        if (b.length < 26) {
+            return;
+        }
+        for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+            if (b[i] != PNG_SIGNATURE[i]) {
+                return;
+            }
+        }
+        if (b[12] != 'I' || b[13] != 'H' || b[14] != 'D' || b[15] != 'R') {
+            return;
+        }
+        final int width = readInt(b, 16);
+        final int height = readInt(b, 20);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        m_width = width;
+        m_height = height;
+        m_bitDepth = b[24] & 0xFF;
+        m_colorType = b[25] & 0xFF;
+    }
+
+    private static int readInt(final byte[] b, final int offset) {
+        return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+            | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+
+    /** The 8 byte signature every PNG stream starts with. */
+    private static final byte[] PNG_SIGNATURE =
+        {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
     /** Reads image content from a stream. The reader will read content
      * until the end of the stream, it will not close the stream.
      *
@@ -185,23 +248,30 @@ private static Image getImageInternal(final byte[] array) {
     /** {@inheritDoc} */
     @Override
     public void paint(final Graphics2D g, final int width, final int height) {
-        BufferedImage image = null;
-        String error = null;
-        try {
-            image = ImageIO.read(new ByteArrayInputStream(m_imageBytes));
-            if (image == null) {
-                error = "ImageIO returned null";
-            }
-        } catch (IOException e) {
-            error = e.getMessage();
+        paint(g, width, height, PNGThumbnailCache.getInstance().getThumbnailId(this));
+    }
+
+    /** Paints the image using the thumbnail cached under the argument id.
+     * @param g To paint to.
+     * @param width maximum width
+     * @param height maximum height
+     * @param thumbnailId the cache id of this content
+     */
+    void paint(final Graphics2D g, final int width, final int height, final Object thumbnailId) {
+        if (width <= 0 || height <= 0) {
+            return;
         }
-        if (error != null) {
-            g.drawString(error, 0, 0);
-        } else {
-            ImageViewPanel.drawInto(g, image, image.getWidth(), image.getHeight(),
-                new Rectangle(width, height), ScaleType.ShrinkAsNeeded);
-//            g.drawImage(image, 0, 0, width, height, null);
+        Image image;
+        try {
+            image = PNGThumbnailCache.getInstance().getThumbnail(thumbnailId, this, width, height);
+        } catch (IllegalStateException e) {
+            g.drawString(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), 0, 0);
+            return;
         }
+        // the thumbnail may be subsampled, the original size determines the scaling
+        Dimension size = getPreferredSize();
+        ImageViewPanel.drawInto(g, image, size.width, size.height, new Rectangle(width, height),
+            ScaleType.ShrinkAsNeeded);
     }
 
     /** {@inheritDoc} */
@@ -220,7 +290,8 @@ static PNGImageContent deserialize(final DataCellDataInput input)
         int length = input.readInt();
         byte[] bytes = new byte[length];
         input.readFully(bytes);
-        return new PNGImageContent(bytes);
+        // content was validated when the cell was created, don't decode it again
+        return new PNGImageContent(bytes, false);
     }
 
     /** Serialize method for image content.
@@ -251,6 +322,9 @@ public DataCell toImageCell() {
     /** {@inheritDoc} */
     @Override
     public Dimension getPreferredSize() {
+        if (m_width > 0) {
+            return new Dimension(m_width, m_height);
+        }
         Image image;
         try {
             image = getImage();
@@ -278,6 +352,44 @@ public String getSummary() {
      */
     @Override
     public int hashCode() {
-        return Arrays.hashCode(m_imageBytes);
+        int hash = m_hashCode;
+        if (hash == 0) {
+            hash = Arrays.hashCode(m_imageBytes);
+            m_hashCode = hash;
+        }
+        return hash;
+    }
+
+    /** @return the SHA-256 digest of the image bytes, computed on first access (the array must not be modified) */
+    byte[] getDigest() {
+        byte[] digest = m_digest;
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance("SHA-256").digest(m_imageBytes);
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 is required to be supported by every Java platform
+                throw new IllegalStateException(e);
+            }
+            m_digest = digest;
+        }
+        return digest;
+    }
+
+    /** The bit depth as given in the PNG header, that is, the number of bits per sample or palette index. Does not
+     * decode the image.
+     * @return the bit depth (1, 2, 4, 8 or 16) or -1 if the header can't be read
+     * @since 4.4
+     */
+    public int getBitDepth() {
+        return m_bitDepth;
+    }
+
+    /** The color type as given in the PNG header. Does not decode the image.
+     * @return the color type (0 grayscale, 2 RGB, 3 palette, 4 grayscale with alpha, 6 RGB with alpha) or -1 if the
+     *         header can't be read
+     * @since 4.4
+     */
+    public int getColorType() {
+        return m_colorType;
     }
 }
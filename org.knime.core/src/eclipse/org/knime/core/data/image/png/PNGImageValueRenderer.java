@@ -0,0 +1,111 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.image.png;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+
+import org.knime.core.data.renderer.AbstractPainterDataValueRenderer;
+
+/** Renderer for PNG images, which paints thumbnails from the shared {@link PNGThumbnailCache}, identifying images
+ * by a SHA-256 digest of their content so that their thumbnails survive re-reading the cells from disk.
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("serial")
+final class PNGImageValueRenderer extends AbstractPainterDataValueRenderer {
+
+    private final String m_name;
+
+    private PNGImageContent m_content;
+
+    private Object m_thumbnailId;
+
+    /** Create new renderer.
+     * @param name Name of the renderer, e.g. "PNG Image". */
+    PNGImageValueRenderer(final String name) {
+        m_name = name;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void setValue(final Object value) {
+        if (value instanceof PNGImageValue) {
+            m_content = ((PNGImageValue)value).getImageContent();
+            m_thumbnailId = PNGThumbnailCache.getInstance().getThumbnailId((PNGImageValue)value);
+        } else {
+            m_content = null;
+            m_thumbnailId = null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getDescription() {
+        return m_name;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void paintComponent(final Graphics g) {
+        super.paintComponent(g);
+        if (m_content != null) {
+            m_content.paint((Graphics2D)g, getWidth(), getHeight(), m_thumbnailId);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Dimension getPreferredSize() {
+        if (m_content == null) {
+            return new Dimension(16, 16);
+        }
+        // read from the PNG header, doesn't decode the image
+        final Dimension contentPrefSize = m_content.getPreferredSize();
+        // increment by one due border in super class (see AP-6534)
+        return new Dimension(contentPrefSize.width + 1, contentPrefSize.height + 1);
+    }
+
+}
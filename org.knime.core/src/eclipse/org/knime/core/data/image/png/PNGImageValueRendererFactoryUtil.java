@@ -47,7 +47,6 @@
 package org.knime.core.data.image.png;
 
 import org.knime.core.data.DataColumnSpec;
-import org.knime.core.data.image.ImageDataValueRenderer;
 import org.knime.core.data.renderer.AbstractDataValueRendererFactory;
 import org.knime.core.data.renderer.DataValueRenderer;
 
@@ -71,7 +70,7 @@ public String getDescription() {
         /** {@inheritDoc} */
         @Override
         public DataValueRenderer createRenderer(final DataColumnSpec colSpec) {
-            return new ImageDataValueRenderer(NAME);
+            return new PNGImageValueRenderer(NAME);
         }
 
     }
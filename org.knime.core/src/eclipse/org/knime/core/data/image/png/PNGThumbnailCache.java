@@ -0,0 +1,359 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.image.png;
+
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * A size-bounded, least-recently-used cache of decoded PNG thumbnails shared by all PNG image cells. Thumbnails are
+ * decoded with source subsampling, i.e. only every n-th pixel of every n-th row is kept while the image is read, so
+ * decoding a thumbnail of a large image never materializes the full-size image. Thumbnails are cached by the SHA-256
+ * digest of the image bytes, so equal images share their thumbnails.
+ *
+ * <p>
+ * The maximum cache size in bytes can be set with the system property {@value #PROPERTY_CACHE_SIZE}, e.g. "128M".
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class PNGThumbnailCache {
+
+    /** System property for the maximum cache size in bytes, e.g. "64M". */
+    public static final String PROPERTY_CACHE_SIZE = "org.knime.pngthumbnailcachesize";
+
+    private static final long DEFAULT_CACHE_SIZE = 64 * 1024 * 1024;
+
+    /** Maximum number of threads used for bulk decoding. */
+    private static final int DECODE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PNGThumbnailCache.class);
+
+    private static final PNGThumbnailCache INSTANCE =
+        new PNGThumbnailCache(ConvenienceMethods.readSizeSystemProperty(PROPERTY_CACHE_SIZE, DEFAULT_CACHE_SIZE));
+
+    private final long m_maxSize;
+
+    /** Access ordered, i.e. iteration starts at the least recently used thumbnail. */
+    private final LinkedHashMap<ThumbnailKey, Image> m_thumbnails = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long m_size;
+
+    private ThreadPool m_decodePool;
+
+    /**
+     * @param maxSize the maximum size of all cached thumbnails in bytes
+     */
+    PNGThumbnailCache(final long maxSize) {
+        m_maxSize = maxSize;
+    }
+
+    /** @return the cache shared by all PNG image cells */
+    public static PNGThumbnailCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a thumbnail of the image that is at least as large as the image scaled to fit the given bounds, i.e. it
+     * needs to be scaled down for rendering (e.g. with
+     * {@link org.knime.core.node.util.ImageViewPanel#drawInto(java.awt.Graphics, Image, int, int,
+     * java.awt.Rectangle, org.knime.core.node.util.ImageViewPanel.ScaleType) ImageViewPanel#drawInto}, passing the
+     * original size as given by {@link PNGImageContent#getPreferredSize()}). Images smaller than the bounds are
+     * returned in their original size.
+     *
+     * @param value the image value
+     * @param maxWidth the maximum width to render the image at, &gt; 0
+     * @param maxHeight the maximum height to render the image at, &gt; 0
+     * @return the (possibly cached) thumbnail
+     * @throws IllegalStateException if the image can't be read
+     */
+    public Image getThumbnail(final PNGImageValue value, final int maxWidth, final int maxHeight) {
+        return getThumbnail(getThumbnailId(value), value.getImageContent(), maxWidth, maxHeight);
+    }
+
+    /**
+     * Returns the thumbnails of all argument images, decoding missing thumbnails in parallel on a bounded number of
+     * threads of the {@link KNIMEConstants#GLOBAL_THREAD_POOL global thread pool}.
+     *
+     * @param values the image values
+     * @param maxWidth the maximum width to render the images at, &gt; 0
+     * @param maxHeight the maximum height to render the images at, &gt; 0
+     * @return the thumbnails in the order of the argument values, <code>null</code> for images that can't be read
+     * @throws InterruptedException if interrupted while waiting for the decoding threads
+     * @see #getThumbnail(PNGImageValue, int, int)
+     */
+    public List<Image> getThumbnails(final List<? extends PNGImageValue> values, final int maxWidth,
+        final int maxHeight) throws InterruptedException {
+        final List<Future<Image>> futures = submit(values, maxWidth, maxHeight);
+        final List<Image> thumbnails = new ArrayList<>(values.size());
+        try {
+            for (Future<Image> f : futures) {
+                thumbnails.add(f.get());
+            }
+        } catch (ExecutionException e) {
+            // tasks don't throw (see submit)
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (Future<Image> f : futures) {
+                f.cancel(true);
+            }
+        }
+        return thumbnails;
+    }
+
+    /**
+     * Decodes the thumbnails of the argument images asynchronously, e.g. for rows that are about to be shown in a
+     * table view. Returns immediately.
+     *
+     * @param values the image values
+     * @param maxWidth the maximum width to render the images at, &gt; 0
+     * @param maxHeight the maximum height to render the images at, &gt; 0
+     */
+    public void prefetch(final List<? extends PNGImageValue> values, final int maxWidth, final int maxHeight) {
+        submit(values, maxWidth, maxHeight);
+    }
+
+    /** Removes all thumbnails from the cache. */
+    public synchronized void clear() {
+        m_thumbnails.clear();
+        m_size = 0;
+    }
+
+    /** @return the size of all cached thumbnails in bytes */
+    synchronized long getSize() {
+        return m_size;
+    }
+
+    private List<Future<Image>> submit(final List<? extends PNGImageValue> values, final int maxWidth,
+        final int maxHeight) {
+        final ThreadPool pool = getDecodePool();
+        final List<Future<Image>> futures = new ArrayList<>(values.size());
+        for (PNGImageValue value : values) {
+            final Object id = getThumbnailId(value);
+            final PNGImageContent content = value.getImageContent();
+            futures.add(pool.enqueue(() -> {
+                try {
+                    return getThumbnail(id, content, maxWidth, maxHeight);
+                } catch (IllegalStateException e) {
+                    LOGGER.debug("Unable to decode thumbnail: " + e.getMessage(), e);
+                    return null;
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private synchronized ThreadPool getDecodePool() {
+        if (m_decodePool == null) {
+            m_decodePool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(DECODE_THREADS);
+        }
+        return m_decodePool;
+    }
+
+    /**
+     * @param id the cache id of the content as returned by one of the <code>getThumbnailId</code> methods
+     * @param content the image content
+     * @param maxWidth the maximum width, &gt; 0
+     * @param maxHeight the maximum height, &gt; 0
+     * @return the thumbnail
+     * @throws IllegalStateException if the image can't be read
+     */
+    Image getThumbnail(final Object id, final PNGImageContent content, final int maxWidth, final int maxHeight) {
+        if (maxWidth <= 0 || maxHeight <= 0) {
+            throw new IllegalArgumentException("Invalid thumbnail size: " + maxWidth + " x " + maxHeight);
+        }
+        final Dimension size = content.getPreferredSize();
+        final int subsampling = getSubsampling(size.width, size.height, maxWidth, maxHeight);
+        final ThumbnailKey key = new ThumbnailKey(id, subsampling);
+        synchronized (this) {
+            Image thumbnail = m_thumbnails.get(key);
+            if (thumbnail != null) {
+                return thumbnail;
+            }
+        }
+        // decode outside the lock, concurrent requests for the same thumbnail may decode it twice
+        final BufferedImage thumbnail = decode(content.getByteArrayReference(), subsampling);
+        final long weight = 4L * thumbnail.getWidth() * thumbnail.getHeight();
+        if (weight <= m_maxSize / 4) {
+            synchronized (this) {
+                if (m_thumbnails.putIfAbsent(key, thumbnail) == null) {
+                    m_size += weight;
+                    evict();
+                }
+            }
+        }
+        return thumbnail;
+    }
+
+    private void evict() {
+        assert Thread.holdsLock(this);
+        Iterator<Map.Entry<ThumbnailKey, Image>> it = m_thumbnails.entrySet().iterator();
+        while (m_size > m_maxSize && it.hasNext()) {
+            Image image = it.next().getValue();
+            m_size -= 4L * image.getWidth(null) * image.getHeight(null);
+            it.remove();
+        }
+    }
+
+    /**
+     * @param value an image value
+     * @return the cache id of the value
+     */
+    Object getThumbnailId(final PNGImageValue value) {
+        return getThumbnailId(value.getImageContent());
+    }
+
+    /**
+     * @param content image content
+     * @return the cache id of the content
+     */
+    Object getThumbnailId(final PNGImageContent content) {
+        return new ContentId(content.getDigest());
+    }
+
+    /**
+     * @return the largest subsampling factor for which the image is still at least as large as when scaled to fit
+     *         the bounds, at least 1
+     */
+    static int getSubsampling(final int width, final int height, final int maxWidth, final int maxHeight) {
+        return Math.max(1, Math.max(width / maxWidth, height / maxHeight));
+    }
+
+    /**
+     * Reads an image keeping only every <code>subsampling</code>-th pixel in each direction.
+     *
+     * @throws IllegalStateException if the image can't be read
+     */
+    static BufferedImage decode(final byte[] bytes, final int subsampling) {
+        // in-memory stream, ImageIO#createImageInputStream may use a temp file cache
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes))) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader available for image bytes");
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            // readers may also fail with unchecked exceptions on corrupt data
+            throw new IllegalStateException("Image can't be read", e);
+        }
+    }
+
+    /** Identifies image content by the SHA-256 digest of its bytes. */
+    private static final class ContentId {
+
+        private final byte[] m_digest;
+
+        ContentId(final byte[] digest) {
+            m_digest = digest;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof ContentId && Arrays.equals(m_digest, ((ContentId)obj).m_digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(m_digest);
+        }
+    }
+
+    /** A content id and the subsampling factor of its thumbnail. */
+    private static final class ThumbnailKey {
+
+        private final Object m_id;
+
+        private final int m_subsampling;
+
+        ThumbnailKey(final Object id, final int subsampling) {
+            m_id = id;
+            m_subsampling = subsampling;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof ThumbnailKey)) {
+                return false;
+            }
+            ThumbnailKey other = (ThumbnailKey)obj;
+            return m_subsampling == other.m_subsampling && m_id.equals(other.m_id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * m_id.hashCode() + m_subsampling;
+        }
+    }
+}
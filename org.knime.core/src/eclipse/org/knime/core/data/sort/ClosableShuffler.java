@@ -58,12 +58,15 @@
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.data.container.SingleCellFactory;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.util.CheckUtils;
 
 /**
@@ -71,18 +74,39 @@
  * likely. The shuffling procedure requires only linear runtime. For further details see "Fisher-Yates shuffle", from
  * Dictionary of Algorithms and Data Structures, Paul E. Black, ed., NIST.
  *
+ * <p>
+ * By default a random permutation of the row indices is appended as column, the table is sorted on that column and
+ * the column is removed again, which yields the same outcome for a given seed as earlier versions. This is limited to
+ * tables with less than Integer.MAX_VALUE rows. Larger tables, or any table if requested via
+ * {@link #ClosableShuffler(BufferedDataTable, ExecutionContext, long, boolean)}, are shuffled by scattering their
+ * rows into random buckets that are written to disk, shuffling each bucket in memory and concatenating the shuffled
+ * buckets. Buckets that are still too large to be shuffled in memory are shuffled the same way, recursively. This
+ * reads the table only twice and requires no sorting, but yields a different outcome for a given seed.
+ *
  * @author Adrian Nembach, KNIME GmbH, Konstanz, Germany
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
  * @since 4.3
  */
 public final class ClosableShuffler implements Closeable {
 
+    /** Number of cells of a bucket that are shuffled in memory, determines the number of rows per bucket. */
+    private static final int MAX_CELLS_IN_MEMORY = 1 << 20;
+
+    /** Maximum number of buckets that are written at the same time, i.e. the number of simultaneously open files. */
+    private static final int MAX_BUCKETS = 256;
+
     private final BufferedDataTable m_table;
 
     private final ExecutionContext m_exec;
 
     private final long m_seed;
 
+    private final boolean m_useBuckets;
+
+    private final int m_maxRowsInMemory;
+
+    private final int m_maxBuckets;
+
     private BufferedDataTable m_intermediate;
 
     private BufferedDataTable m_sorted;
@@ -101,12 +125,58 @@ public final class ClosableShuffler implements Closeable {
      * @since 4.3
      */
     public ClosableShuffler(final BufferedDataTable table, final ExecutionContext exec, final long seed) {
-        CheckUtils.checkArgument(table.size() <= Integer.MAX_VALUE,
-            "It's currently not possible to shuffle tables with more than Integer.MAX_VALUE rows.");
+        this(table, exec, seed, table.size() >= Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a {@link ClosableShuffler} that optionally shuffles the table via random buckets (see class description),
+     * which is faster for large tables but yields a different outcome for a given seed than
+     * {@link #ClosableShuffler(BufferedDataTable, ExecutionContext, long)}.
+     *
+     * @param table the table to shuffle
+     * @param exec execution context use for creating tables and reporting progress
+     * @param seed random seed for permutation generation
+     * @param useBuckets whether to shuffle via random buckets, must be true for tables with Integer.MAX_VALUE rows or
+     *            more
+     *
+     * @since 4.4
+     */
+    public ClosableShuffler(final BufferedDataTable table, final ExecutionContext exec, final long seed,
+        final boolean useBuckets) {
+        this(table, exec, seed, useBuckets, defaultMaxRowsInMemory(table), MAX_BUCKETS);
+    }
+
+    /**
+     * Constructor allowing to set the bucket sizes of the bucket shuffle, used in tests.
+     *
+     * @param table the table to shuffle
+     * @param exec execution context use for creating tables and reporting progress
+     * @param seed random seed for permutation generation
+     * @param maxRowsInMemory the maximum number of rows that are shuffled in memory
+     * @param maxBuckets the maximum number of buckets rows are scattered into at once
+     */
+    ClosableShuffler(final BufferedDataTable table, final ExecutionContext exec, final long seed,
+        final int maxRowsInMemory, final int maxBuckets) {
+        this(table, exec, seed, true, maxRowsInMemory, maxBuckets);
+    }
 
+    private ClosableShuffler(final BufferedDataTable table, final ExecutionContext exec, final long seed,
+        final boolean useBuckets, final int maxRowsInMemory, final int maxBuckets) {
+        CheckUtils.checkArgument(useBuckets || table.size() < Integer.MAX_VALUE,
+            "It's currently not possible to shuffle tables with more than Integer.MAX_VALUE rows without buckets.");
+        CheckUtils.checkArgument(maxRowsInMemory > 0, "Number of rows in memory must be positive: %d",
+            maxRowsInMemory);
+        CheckUtils.checkArgument(maxBuckets > 1, "Number of buckets must be larger than 1: %d", maxBuckets);
         m_table = table;
         m_exec = exec;
         m_seed = seed;
+        m_useBuckets = useBuckets;
+        m_maxRowsInMemory = maxRowsInMemory;
+        m_maxBuckets = maxBuckets;
+    }
+
+    private static int defaultMaxRowsInMemory(final BufferedDataTable table) {
+        return Math.max(1, MAX_CELLS_IN_MEMORY / Math.max(1, table.getDataTableSpec().getNumColumns()));
     }
 
     /**
@@ -118,16 +188,23 @@ public ClosableShuffler(final BufferedDataTable table, final ExecutionContext ex
      */
     public BufferedDataTable getShuffled() throws CanceledExecutionException {
         if (m_shuffled == null) {
-            shuffle();
+            if (m_useBuckets) {
+                shuffleViaBuckets();
+            } else {
+                shuffle();
+            }
         }
         return m_shuffled;
     }
 
     @Override
     public void close() {
-        m_exec.clearTable(m_sorted);
-        m_exec.clearTable(m_shuffled);
-        m_exec.clearTable(m_intermediate);
+        // the intermediate tables are only created by the sort based shuffle
+        for (BufferedDataTable table : new BufferedDataTable[]{m_sorted, m_shuffled, m_intermediate}) {
+            if (table != null) {
+                m_exec.clearTable(table);
+            }
+        }
     }
 
     private void shuffle() throws CanceledExecutionException {
@@ -150,6 +227,106 @@ private void shuffle() throws CanceledExecutionException {
         }
     }
 
+    private void shuffleViaBuckets() throws CanceledExecutionException {
+        final BufferedDataContainer cont = m_exec.createDataContainer(m_table.getDataTableSpec());
+        boolean success = false;
+        try {
+            shuffle(m_table, cont, new Random(m_seed), m_exec);
+            cont.close();
+            m_shuffled = cont.getTable();
+            success = true;
+        } finally {
+            if (!success) {
+                // also on I/O or runtime errors, the buckets are cleared by shuffle(...) itself
+                cont.close();
+                m_exec.clearTable(cont.getTable());
+            }
+        }
+    }
+
+    /**
+     * Adds the rows of the table to the container in random order. Tables that are small enough are shuffled in
+     * memory, larger tables are scattered into random buckets first, which are then shuffled individually.
+     */
+    private void shuffle(final BufferedDataTable table, final BufferedDataContainer cont, final Random random,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        final long size = table.size();
+        if (size <= m_maxRowsInMemory) {
+            shuffleInMemory(table, cont, random, exec);
+            return;
+        }
+        // twice the number of buckets needed on average so that buckets rarely exceed the in-memory limit
+        final long nrBuckets = Math.min(m_maxBuckets, 2 * ((size - 1) / m_maxRowsInMemory + 1));
+        final BufferedDataTable[] buckets = scatter(table, (int)nrBuckets, random, exec.createSubProgress(0.5));
+        final ExecutionMonitor bucketsExec = exec.createSubProgress(0.5);
+        try {
+            for (int i = 0; i < buckets.length; i++) {
+                shuffle(buckets[i], cont, random, bucketsExec.createSubProgress(buckets[i].size() / (double)size));
+                m_exec.clearTable(buckets[i]);
+                buckets[i] = null;
+            }
+        } finally {
+            for (BufferedDataTable bucket : buckets) {
+                if (bucket != null) {
+                    m_exec.clearTable(bucket);
+                }
+            }
+        }
+    }
+
+    /** Distributes the rows of the table uniformly at random into the given number of buckets written to disk. */
+    private BufferedDataTable[] scatter(final BufferedDataTable table, final int nrBuckets, final Random random,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final BufferedDataContainer[] containers = new BufferedDataContainer[nrBuckets];
+        for (int i = 0; i < nrBuckets; i++) {
+            containers[i] = m_exec.createDataContainer(spec, true, 0);
+        }
+        final BufferedDataTable[] buckets = new BufferedDataTable[nrBuckets];
+        final double size = table.size();
+        boolean success = false;
+        try (CloseableRowIterator it = table.iterator()) {
+            long rowIndex = 0;
+            while (it.hasNext()) {
+                exec.checkCanceled();
+                containers[random.nextInt(nrBuckets)].addRowToTable(it.next());
+                exec.setProgress(++rowIndex / size);
+            }
+            success = true;
+        } finally {
+            for (int i = 0; i < nrBuckets; i++) {
+                containers[i].close();
+                buckets[i] = containers[i].getTable();
+                if (!success) {
+                    m_exec.clearTable(buckets[i]);
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /** Reads the table into memory and adds its rows to the container in the order of a Fisher Yates shuffle. */
+    private static void shuffleInMemory(final BufferedDataTable table, final BufferedDataContainer cont,
+        final Random random, final ExecutionMonitor exec) throws CanceledExecutionException {
+        final List<DataRow> rows = new ArrayList<>((int)table.size());
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                rows.add(it.next());
+            }
+        }
+        final double size = rows.size();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            exec.checkCanceled();
+            // swap a random one of the remaining rows to position i and emit it
+            final int r = random.nextInt(i + 1);
+            final DataRow row = rows.get(r);
+            rows.set(r, rows.get(i));
+            rows.set(i, null);
+            cont.addRowToTable(row);
+            exec.setProgress((size - i) / size);
+        }
+    }
+
     /*
      * The CellFactory adds a shuffled number to each input DataRow.
      */
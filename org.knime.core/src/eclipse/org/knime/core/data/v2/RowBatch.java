@@ -0,0 +1,156 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.v2;
+
+import org.knime.core.data.DataValue;
+import org.knime.core.data.RowKeyValue;
+
+/**
+ * Read access to a batch of consecutive rows, organized by column. Numeric columns can be accessed as primitive arrays,
+ * string columns as dictionary indices, avoiding per value method calls in tight loops. The arrays returned by this
+ * interface are owned by the batch and may be reused for the next batch, i.e. they must not be modified and are only
+ * valid until the cursor is forwarded. Arrays can be longer than {@link #size()}; entries beyond the size are
+ * undefined.
+ *
+ * <p>
+ * Note that the batch layout alone doesn't avoid the creation of cells: all tables of the row based backend are
+ * currently read via {@link org.knime.core.data.container.FallbackRowBatchCursor}, which derives the arrays from
+ * the {@link org.knime.core.data.DataCell DataCells} returned by the table's row iterator, i.e. one cell per value is
+ * still created (or, for in-memory tables, held). The API only saves consumers the per value type checks and method
+ * calls; only a table backend that stores columns natively can serve the arrays without cells.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ *
+ * @apiNote API still experimental. It might change in future releases of KNIME Analytics Platform.
+ *
+ * @noreference This interface is not intended to be referenced by clients.
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface RowBatch {
+
+    /**
+     * @return number of rows in this batch
+     */
+    int size();
+
+    /**
+     * @return number of columns
+     */
+    int getNumColumns();
+
+    /**
+     * @param row the row index within the batch
+     * @return the key of the row
+     */
+    RowKeyValue getRowKey(int row);
+
+    /**
+     * Get the {@link DataValue} of a single row. Slower than the primitive accessors but available for all column
+     * types.
+     *
+     * @param <D> type of the {@link DataValue}
+     * @param column the column index
+     * @param row the row index within the batch
+     * @return the value or <code>null</code> if the value is missing
+     */
+    <D extends DataValue> D getValue(int column, int row);
+
+    /**
+     * @param column the column index
+     * @param row the row index within the batch
+     * @return <code>true</code> if the value is missing
+     */
+    boolean isMissing(int column, int row);
+
+    /**
+     * Validity bitmap of a column: bit <code>row % 64</code> of word <code>row / 64</code> is set if the value in the
+     * row is not missing.
+     *
+     * @param column the column index
+     * @return the validity bitmap
+     */
+    long[] getValidity(int column);
+
+    /**
+     * @param column the column index, the column type must be compatible to
+     *            {@link org.knime.core.data.DoubleValue}
+     * @return the values of the column, the entries of missing values are undefined
+     * @throws IllegalStateException if the column isn't compatible to {@link org.knime.core.data.DoubleValue}
+     */
+    double[] getDoubles(int column);
+
+    /**
+     * @param column the column index, the column type must be compatible to {@link org.knime.core.data.IntValue}
+     * @return the values of the column, the entries of missing values are undefined
+     * @throws IllegalStateException if the column isn't compatible to {@link org.knime.core.data.IntValue}
+     */
+    int[] getInts(int column);
+
+    /**
+     * @param column the column index, the column type must be compatible to {@link org.knime.core.data.LongValue}
+     * @return the values of the column, the entries of missing values are undefined
+     * @throws IllegalStateException if the column isn't compatible to {@link org.knime.core.data.LongValue}
+     */
+    long[] getLongs(int column);
+
+    /**
+     * Dictionary encoded strings of a column: for each row the index into {@link #getStringDictionary(int)} or -1 if
+     * the value is missing.
+     *
+     * @param column the column index, the column type must be compatible to {@link org.knime.core.data.StringValue}
+     * @return the dictionary indices of the column
+     * @throws IllegalStateException if the column isn't compatible to {@link org.knime.core.data.StringValue}
+     */
+    int[] getStringIndices(int column);
+
+    /**
+     * @param column the column index, the column type must be compatible to {@link org.knime.core.data.StringValue}
+     * @return the distinct strings of the column in this batch, referenced by {@link #getStringIndices(int)}
+     * @throws IllegalStateException if the column isn't compatible to {@link org.knime.core.data.StringValue}
+     */
+    String[] getStringDictionary(int column);
+}
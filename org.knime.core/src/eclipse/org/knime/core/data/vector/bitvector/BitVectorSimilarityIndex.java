@@ -0,0 +1,386 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * An index for similarity searches over bit vectors (such as molecular fingerprints) using the Tanimoto (Jaccard)
+ * coefficient, i.e. the cardinality of the intersection divided by the cardinality of the union of two vectors. The
+ * vectors are packed into contiguous {@code long[]} pages, ordered by their cardinality. As the Tanimoto coefficient
+ * of two vectors with cardinalities a and b is at most min(a, b) / max(a, b), queries only evaluate the vectors whose
+ * cardinality can reach the requested similarity (see S. J. Swamidass and P. Baldi, "Bounds and Algorithms for Fast
+ * Exact Searches of Chemical Fingerprints in Linear and Sublinear Time", J. Chem. Inf. Model. 47 (2), 2007). Large
+ * numbers of candidates are evaluated in parallel.
+ *
+ * <p>
+ * Instances are created using a {@link Builder}, are immutable and can be queried concurrently. Two empty vectors are
+ * considered identical, i.e. their similarity is 1.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class BitVectorSimilarityIndex {
+
+    /** Number of words per page (512kB). */
+    private static final int WORDS_PER_PAGE = 1 << 16;
+
+    /** Minimum number of candidates that are evaluated in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    /** Orders matches by descending similarity and then by ascending index. */
+    private static final Comparator<Match> MATCH_ORDER =
+        Comparator.comparingDouble(Match::getSimilarity).reversed().thenComparingInt(Match::getIndex);
+
+    private final long m_length;
+
+    private final int m_nrWords;
+
+    private final int m_vectorsPerPage;
+
+    private final long[][] m_pages;
+
+    /** The cardinalities of the vectors in the order of the pages, i.e. ascending. */
+    private final int[] m_cardinalities;
+
+    /** The indices of the vectors (as returned by {@link Builder#add(BitVectorValue)}) in the order of the pages. */
+    private final int[] m_indices;
+
+    /** Position of the first vector with cardinality c in the pages, for c in [0, max cardinality + 1]. */
+    private final int[] m_cardinalityOffsets;
+
+    private BitVectorSimilarityIndex(final long length, final int nrWords, final List<long[]> vectors) {
+        m_length = length;
+        m_nrWords = nrWords;
+        m_vectorsPerPage = Math.max(1, WORDS_PER_PAGE / Math.max(1, nrWords));
+        final int size = vectors.size();
+
+        final int[] cardinalities = new int[size];
+        int maxCardinality = 0;
+        for (int i = 0; i < size; i++) {
+            int cardinality = 0;
+            for (long word : vectors.get(i)) {
+                cardinality += Long.bitCount(word);
+            }
+            cardinalities[i] = cardinality;
+            maxCardinality = Math.max(maxCardinality, cardinality);
+        }
+
+        // counting sort by cardinality, stable with respect to the indices
+        m_cardinalityOffsets = new int[maxCardinality + 2];
+        for (int cardinality : cardinalities) {
+            m_cardinalityOffsets[cardinality + 1]++;
+        }
+        for (int c = 1; c < m_cardinalityOffsets.length; c++) {
+            m_cardinalityOffsets[c] += m_cardinalityOffsets[c - 1];
+        }
+        final int[] next = m_cardinalityOffsets.clone();
+        m_cardinalities = new int[size];
+        m_indices = new int[size];
+        m_pages = new long[(size + m_vectorsPerPage - 1) / m_vectorsPerPage][];
+        for (int p = 0; p < m_pages.length; p++) {
+            m_pages[p] = new long[Math.min(m_vectorsPerPage, size - p * m_vectorsPerPage) * nrWords];
+        }
+        for (int i = 0; i < size; i++) {
+            final int pos = next[cardinalities[i]]++;
+            m_cardinalities[pos] = cardinalities[i];
+            m_indices[pos] = i;
+            final long[] vector = vectors.get(i);
+            System.arraycopy(vector, 0, m_pages[pos / m_vectorsPerPage], (pos % m_vectorsPerPage) * nrWords, nrWords);
+        }
+    }
+
+    /**
+     * @return the number of vectors in the index
+     */
+    public int size() {
+        return m_indices.length;
+    }
+
+    /**
+     * @return the length of the vectors in the index
+     */
+    public long length() {
+        return m_length;
+    }
+
+    /**
+     * Finds all vectors whose similarity to the query vector is at least the given threshold.
+     *
+     * @param query the query vector, bits beyond the {@link #length() length} of the index count towards the union
+     *            only
+     * @param minSimilarity the minimum Tanimoto coefficient, in [0, 1]
+     * @return the matches, ordered by descending similarity and ascending index
+     */
+    public List<Match> search(final BitVectorValue query, final double minSimilarity) {
+        CheckUtils.checkNotNull(query, "Query vector must not be null");
+        CheckUtils.checkArgument(minSimilarity >= 0 && minSimilarity <= 1,
+            "Minimum similarity must be in [0, 1]: %s", minSimilarity);
+        final long[] queryWords = toWords(query, m_nrWords, m_length);
+        final long a = query.cardinality();
+        final int maxCardinality = m_cardinalityOffsets.length - 2;
+        // loose bounds on the candidate cardinalities, exact similarities are checked below
+        long minCardinality = 0;
+        long maxCandidateCardinality = maxCardinality;
+        if (minSimilarity > 0) {
+            minCardinality = (long)Math.floor(minSimilarity * a);
+            maxCandidateCardinality = Math.min(maxCardinality, (long)Math.ceil(a / minSimilarity));
+        }
+        final List<Match> matches = new ArrayList<>();
+        if (minCardinality > maxCandidateCardinality) {
+            return matches;
+        }
+        final int from = m_cardinalityOffsets[(int)minCardinality];
+        final int to = m_cardinalityOffsets[(int)maxCandidateCardinality + 1];
+        final double[] similarities = similarities(queryWords, a, from, to);
+        for (int i = 0; i < similarities.length; i++) {
+            if (similarities[i] >= minSimilarity) {
+                matches.add(new Match(m_indices[from + i], similarities[i]));
+            }
+        }
+        Collections.sort(matches, MATCH_ORDER);
+        return matches;
+    }
+
+    /**
+     * Finds the <code>k</code> vectors that are most similar to the query vector. Ties are broken by the index of the
+     * vectors.
+     *
+     * @param query the query vector, bits beyond the {@link #length() length} of the index count towards the union
+     *            only
+     * @param k the maximum number of matches to return
+     * @return the matches, ordered by descending similarity and ascending index
+     */
+    public List<Match> searchTopK(final BitVectorValue query, final int k) {
+        return searchTopK(query, k, 0);
+    }
+
+    /**
+     * Finds the <code>k</code> vectors that are most similar to the query vector and whose similarity is at least the
+     * given threshold. Ties are broken by the index of the vectors.
+     *
+     * @param query the query vector, bits beyond the {@link #length() length} of the index count towards the union
+     *            only
+     * @param k the maximum number of matches to return
+     * @param minSimilarity the minimum Tanimoto coefficient, in [0, 1]
+     * @return the matches, ordered by descending similarity and ascending index
+     */
+    public List<Match> searchTopK(final BitVectorValue query, final int k, final double minSimilarity) {
+        CheckUtils.checkNotNull(query, "Query vector must not be null");
+        CheckUtils.checkArgument(k >= 0, "Number of matches must not be negative: %d", k);
+        CheckUtils.checkArgument(minSimilarity >= 0 && minSimilarity <= 1,
+            "Minimum similarity must be in [0, 1]: %s", minSimilarity);
+        final long[] queryWords = toWords(query, m_nrWords, m_length);
+        final long a = query.cardinality();
+        final int maxCardinality = m_cardinalityOffsets.length - 2;
+
+        // heap of the best matches found so far, the worst match at its head
+        final PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, Math.min(k, size())), MATCH_ORDER.reversed());
+        // visit cardinalities in the order of decreasing upper bound, i.e. expanding from the query's cardinality
+        long lower = Math.min(a, maxCardinality);
+        long upper = lower + 1;
+        while (k > 0 && (lower >= 0 || upper <= maxCardinality)) {
+            final double lowerBound = lower >= 0 ? upperBound(a, lower) : -1;
+            final double upperBound = upper <= maxCardinality ? upperBound(a, upper) : -1;
+            final double bound = Math.max(lowerBound, upperBound);
+            if (bound < minSimilarity || (best.size() == k && bound < best.peek().getSimilarity())) {
+                break;
+            }
+            final int cardinality = (int)(lowerBound >= upperBound ? lower-- : upper++);
+            final int from = m_cardinalityOffsets[cardinality];
+            final double[] similarities = similarities(queryWords, a, from, m_cardinalityOffsets[cardinality + 1]);
+            for (int i = 0; i < similarities.length; i++) {
+                if (similarities[i] < minSimilarity) {
+                    continue;
+                }
+                final Match match = new Match(m_indices[from + i], similarities[i]);
+                if (best.size() < k) {
+                    best.add(match);
+                } else if (MATCH_ORDER.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        }
+        final List<Match> matches = new ArrayList<>(best);
+        Collections.sort(matches, MATCH_ORDER);
+        return matches;
+    }
+
+    /** Computes the similarities of the query to the vectors at positions [from, to). */
+    private double[] similarities(final long[] query, final long a, final int from, final int to) {
+        final double[] similarities = new double[to - from];
+        IntStream positions = IntStream.range(from, to);
+        if (to - from >= PARALLEL_THRESHOLD) {
+            positions = positions.parallel();
+        }
+        positions.forEach(pos -> similarities[pos - from] = similarity(query, a, pos));
+        return similarities;
+    }
+
+    private double similarity(final long[] query, final long a, final int pos) {
+        final long[] page = m_pages[pos / m_vectorsPerPage];
+        final int offset = (pos % m_vectorsPerPage) * m_nrWords;
+        int intersection = 0;
+        for (int w = 0; w < m_nrWords; w++) {
+            intersection += Long.bitCount(query[w] & page[offset + w]);
+        }
+        return tanimoto(intersection, a, m_cardinalities[pos]);
+    }
+
+    /**
+     * @param intersection the cardinality of the intersection
+     * @param a the cardinality of the first vector
+     * @param b the cardinality of the second vector
+     * @return the Tanimoto coefficient
+     */
+    static double tanimoto(final long intersection, final long a, final long b) {
+        final long union = a + b - intersection;
+        return union == 0 ? 1 : intersection / (double)union;
+    }
+
+    /** Converts the query vector into words of 64 bits, ignoring bits beyond the length of the index. */
+    private static long[] toWords(final BitVectorValue query, final int nrWords, final long length) {
+        final long[] words = new long[nrWords];
+        BitVectorUtil.copyWords(query, length, false, words, 0);
+        return words;
+    }
+
+    /** The maximum Tanimoto coefficient of two vectors with the given cardinalities. */
+    private static double upperBound(final long a, final long b) {
+        final long max = Math.max(a, b);
+        return max == 0 ? 1 : Math.min(a, b) / (double)max;
+    }
+
+    /**
+     * A vector found by a similarity search.
+     */
+    public static final class Match {
+
+        private final int m_index;
+
+        private final double m_similarity;
+
+        private Match(final int index, final double similarity) {
+            m_index = index;
+            m_similarity = similarity;
+        }
+
+        /**
+         * @return the index of the vector, as returned by {@link Builder#add(BitVectorValue)}
+         */
+        public int getIndex() {
+            return m_index;
+        }
+
+        /**
+         * @return the Tanimoto coefficient of the vector and the query vector
+         */
+        public double getSimilarity() {
+            return m_similarity;
+        }
+
+        @Override
+        public String toString() {
+            return m_index + ": " + m_similarity;
+        }
+    }
+
+    /**
+     * Builder for {@link BitVectorSimilarityIndex} instances. Vectors are added one by one (e.g. while iterating a
+     * column of {@link DenseBitVectorCell DenseBitVectorCells} or {@link SparseBitVectorCell SparseBitVectorCells}),
+     * each vector is identified by the index returned when adding it.
+     */
+    public static final class Builder {
+
+        private final long m_length;
+
+        private final int m_nrWords;
+
+        private final List<long[]> m_vectors = new ArrayList<>();
+
+        /**
+         * @param length the length of the vectors to index; shorter vectors are padded with zeros
+         */
+        public Builder(final long length) {
+            CheckUtils.checkArgument(length >= 0, "Length must not be negative: %d", length);
+            final long nrWords = (length + 63) >>> 6;
+            CheckUtils.checkArgument(nrWords <= Integer.MAX_VALUE, "Length too large: %d", length);
+            m_length = length;
+            m_nrWords = (int)nrWords;
+        }
+
+        /**
+         * Adds a vector to the index.
+         *
+         * @param vector the vector to add
+         * @return the index of the vector, i.e. the number of vectors added before
+         * @throws IllegalArgumentException if the vector has bits set at or beyond the length of the index
+         */
+        public int add(final BitVectorValue vector) {
+            CheckUtils.checkNotNull(vector, "Vector must not be null");
+            CheckUtils.checkState(m_vectors.size() < Integer.MAX_VALUE, "Too many vectors");
+            final long[] words = new long[m_nrWords];
+            BitVectorUtil.copyWords(vector, m_length, true, words, 0);
+            m_vectors.add(words);
+            return m_vectors.size() - 1;
+        }
+
+        /**
+         * @return a new index containing all vectors added so far
+         */
+        public BitVectorSimilarityIndex build() {
+            return new BitVectorSimilarityIndex(m_length, m_nrWords, m_vectors);
+        }
+    }
+
+}
@@ -47,6 +47,8 @@
  */
 package org.knime.core.data.vector.bitvector;
 
+import java.util.Arrays;
+
 import org.knime.core.node.util.CheckUtils;
 
 /**
@@ -218,6 +220,46 @@ public static long cardinalityOfRelativeComplement(final BitVectorValue bv1, fin
         return toReturn;
     }
 
+    /**
+     * Copies the bits of the vector into 64 bit words, laid out as in {@link DenseBitVector#getAllBits()}. The
+     * destination range of ((length + 63) / 64) words is cleared first, so buffers can be reused.
+     *
+     * @param vector the vector to copy
+     * @param length the number of bits to copy
+     * @param failOnExcessBits whether to fail if any bit at or beyond <code>length</code> is set (or to ignore it)
+     * @param dest the destination array
+     * @param offset the position of the first word in the destination array
+     * @throws IllegalArgumentException if <code>failOnExcessBits</code> is set and the vector has bits set at or beyond
+     *             <code>length</code>
+     */
+    static void copyWords(final BitVectorValue vector, final long length, final boolean failOnExcessBits,
+        final long[] dest, final int offset) {
+        final int nrWords = (int)((length + 63) >>> 6);
+        if (vector instanceof DenseBitVectorCell) {
+            final long[] bits = ((DenseBitVectorCell)vector).getStorage();
+            final int copied = Math.min(nrWords, bits.length);
+            System.arraycopy(bits, 0, dest, offset, copied);
+            Arrays.fill(dest, offset + copied, offset + nrWords, 0L);
+            if ((length & 63) != 0) {
+                dest[offset + nrWords - 1] &= (1L << length) - 1;
+            }
+            if (failOnExcessBits && vector.length() > length && vector.nextSetBit(length) >= 0) {
+                throw new IllegalArgumentException("Bit vector has bits set beyond length " + length);
+            }
+        } else {
+            Arrays.fill(dest, offset, offset + nrWords, 0L);
+            for (long i = vector.nextSetBit(0); i >= 0; i = vector.nextSetBit(i + 1)) {
+                if (i >= length) {
+                    if (failOnExcessBits) {
+                        throw new IllegalArgumentException("Bit vector has bits set beyond length " + length);
+                    }
+                    break;
+                }
+                dest[offset + (int)(i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+
     private static int sparseBitVectorCellCount(final BitVectorValue bv1, final BitVectorValue bv2) {
         int count = 0;
         if (bv1 instanceof SparseBitVectorCell) {
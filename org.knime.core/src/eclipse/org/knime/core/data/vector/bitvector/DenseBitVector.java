@@ -1220,6 +1220,16 @@ public long[] getAllBits() {
         return m_storage.clone();
     }
 
+    /**
+     * Returns the internal storage (not a copy), used for bulk reads that must
+     * not allocate. Callers must not modify the returned array.
+     *
+     * @return the internal storage, laid out as in {@link #getAllBits()}
+     */
+    long[] getStorage() {
+        return m_storage;
+    }
+
     /**
      * Returns a multi-line dump of the internal storage.
      *
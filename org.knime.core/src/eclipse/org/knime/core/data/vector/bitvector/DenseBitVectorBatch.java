@@ -0,0 +1,425 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * A batch of bit vectors of the same length, stored in a single contiguous {@code long[]} (one block of words per
+ * vector, laid out as in {@link DenseBitVector#getAllBits()}). The bulk operations apply AND, OR and XOR, cardinality
+ * and distance computations to all vectors of the batch at once, either against a single query vector or element-wise
+ * against another batch. Results are written into output batches and arrays provided by the caller, so that the same
+ * buffers can be reused for all batches of a column (unlike {@link BitVectorUtil}, which creates a new cell per
+ * result).
+ *
+ * <p>
+ * A typical use reads a column in batches:
+ *
+ * <pre>
+ * DenseBitVectorBatch batch = new DenseBitVectorBatch(length, 1024);
+ * DenseBitVectorBatch result = new DenseBitVectorBatch(length, 1024);
+ * double[] similarities = null;
+ * while (...) {
+ *     batch.clear();
+ *     while (batch.size() &lt; batch.capacity() &amp;&amp; it.hasNext()) {
+ *         batch.add((BitVectorValue)it.next().getCell(col));
+ *     }
+ *     batch.and(query, result);
+ *     similarities = batch.tanimoto(query, similarities);
+ *     ...
+ * }
+ * </pre>
+ *
+ * Instances are not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class DenseBitVectorBatch {
+
+    private static final int AND = 0;
+
+    private static final int OR = 1;
+
+    private static final int XOR = 2;
+
+    private final long m_length;
+
+    private final int m_nrWords;
+
+    private final int m_capacity;
+
+    private final long[] m_words;
+
+    private int m_size;
+
+    /** Buffer for the words of query vectors. */
+    private final long[] m_queryWords;
+
+    /**
+     * Creates a new empty batch.
+     *
+     * @param length the length of the vectors in the batch; shorter vectors are padded with zeros
+     * @param capacity the maximum number of vectors in the batch
+     */
+    public DenseBitVectorBatch(final long length, final int capacity) {
+        CheckUtils.checkArgument(length >= 0, "Length must not be negative: %d", length);
+        CheckUtils.checkArgument(capacity >= 0, "Capacity must not be negative: %d", capacity);
+        final long nrWords = (length + 63) >>> 6;
+        CheckUtils.checkArgument(nrWords * capacity <= Integer.MAX_VALUE - 8,
+            "Batch too large: %d vectors of length %d", capacity, length);
+        m_length = length;
+        m_nrWords = (int)nrWords;
+        m_capacity = capacity;
+        m_words = new long[m_nrWords * capacity];
+        m_queryWords = new long[m_nrWords];
+    }
+
+    /**
+     * @return the length of the vectors in the batch
+     */
+    public long length() {
+        return m_length;
+    }
+
+    /**
+     * @return the number of vectors in the batch
+     */
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * @return the maximum number of vectors in the batch
+     */
+    public int capacity() {
+        return m_capacity;
+    }
+
+    /**
+     * Removes all vectors from the batch (without releasing any memory).
+     */
+    public void clear() {
+        m_size = 0;
+    }
+
+    /**
+     * Appends a vector to the batch.
+     *
+     * @param vector the vector to add
+     * @return the index of the vector in the batch
+     * @throws IllegalStateException if the batch is full
+     * @throws IllegalArgumentException if the vector has bits set at or beyond the length of the batch
+     */
+    public int add(final BitVectorValue vector) {
+        CheckUtils.checkNotNull(vector, "Vector must not be null");
+        CheckUtils.checkState(m_size < m_capacity, "Batch is full (%d vectors)", m_capacity);
+        BitVectorUtil.copyWords(vector, m_length, true, m_words, m_size * m_nrWords);
+        return m_size++;
+    }
+
+    /**
+     * @param index the index of the vector in the batch
+     * @return a new cell holding the vector
+     */
+    public DenseBitVectorCell getCell(final int index) {
+        return new DenseBitVectorCellFactory(getWords(index, null), m_length).createDataCell();
+    }
+
+    /**
+     * Copies the bits of a vector of the batch, laid out as in {@link DenseBitVector#getAllBits()}.
+     *
+     * @param index the index of the vector in the batch
+     * @param out the array to copy the bits into or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the bits
+     */
+    public long[] getWords(final int index, final long[] out) {
+        checkIndex(index);
+        final long[] words = out != null && out.length >= m_nrWords ? out : new long[m_nrWords];
+        System.arraycopy(m_words, index * m_nrWords, words, 0, m_nrWords);
+        return words;
+    }
+
+    /**
+     * Computes the bitwise AND of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, bits beyond the length of the batch are ignored
+     * @param out the batch to write the results to, may be this batch; its size is set to the size of this batch
+     * @return the output batch
+     */
+    public DenseBitVectorBatch and(final BitVectorValue query, final DenseBitVectorBatch out) {
+        return apply(AND, query, out);
+    }
+
+    /**
+     * Computes the bitwise OR of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, bits beyond the length of the batch are ignored
+     * @param out the batch to write the results to, may be this batch; its size is set to the size of this batch
+     * @return the output batch
+     */
+    public DenseBitVectorBatch or(final BitVectorValue query, final DenseBitVectorBatch out) {
+        return apply(OR, query, out);
+    }
+
+    /**
+     * Computes the bitwise XOR of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, bits beyond the length of the batch are ignored
+     * @param out the batch to write the results to, may be this batch; its size is set to the size of this batch
+     * @return the output batch
+     */
+    public DenseBitVectorBatch xor(final BitVectorValue query, final DenseBitVectorBatch out) {
+        return apply(XOR, query, out);
+    }
+
+    /**
+     * Computes the bitwise AND of the vectors of this and the other batch, element by element.
+     *
+     * @param other a batch of the same length and size
+     * @param out the batch to write the results to, may be this or the other batch; its size is set to the size of
+     *            this batch
+     * @return the output batch
+     */
+    public DenseBitVectorBatch and(final DenseBitVectorBatch other, final DenseBitVectorBatch out) {
+        return apply(AND, other, out);
+    }
+
+    /**
+     * Computes the bitwise OR of the vectors of this and the other batch, element by element.
+     *
+     * @param other a batch of the same length and size
+     * @param out the batch to write the results to, may be this or the other batch; its size is set to the size of
+     *            this batch
+     * @return the output batch
+     */
+    public DenseBitVectorBatch or(final DenseBitVectorBatch other, final DenseBitVectorBatch out) {
+        return apply(OR, other, out);
+    }
+
+    /**
+     * Computes the bitwise XOR of the vectors of this and the other batch, element by element.
+     *
+     * @param other a batch of the same length and size
+     * @param out the batch to write the results to, may be this or the other batch; its size is set to the size of
+     *            this batch
+     * @return the output batch
+     */
+    public DenseBitVectorBatch xor(final DenseBitVectorBatch other, final DenseBitVectorBatch out) {
+        return apply(XOR, other, out);
+    }
+
+    /**
+     * Computes the cardinality of each vector of the batch.
+     *
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the cardinalities at the first {@link #size()} positions
+     */
+    public long[] cardinalities(final long[] out) {
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_nrWords) {
+            long cardinality = 0;
+            for (int w = offset, end = offset + m_nrWords; w < end; w++) {
+                cardinality += Long.bitCount(m_words[w]);
+            }
+            result[v] = cardinality;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the cardinality of the intersection of each vector of the batch and the query vector, see
+     * {@link BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)}.
+     *
+     * @param query the query vector, bits beyond the length of the batch are ignored
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the cardinalities at the first {@link #size()} positions
+     */
+    public long[] cardinalitiesOfIntersection(final BitVectorValue query, final long[] out) {
+        final long[] q = queryWords(query);
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_nrWords) {
+            long cardinality = 0;
+            for (int w = 0; w < m_nrWords; w++) {
+                cardinality += Long.bitCount(m_words[offset + w] & q[w]);
+            }
+            result[v] = cardinality;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the Hamming distance (the cardinality of the XOR) of each vector of the batch and the query vector.
+     *
+     * @param query the query vector; as in {@link #tanimoto(BitVectorValue, double[])}, the vectors of the batch are
+     *            extended with zeros, i.e. each bit of the query beyond the length of the batch adds to the distance
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the distances at the first {@link #size()} positions
+     */
+    public long[] hammingDistances(final BitVectorValue query, final long[] out) {
+        final long[] q = queryWords(query);
+        final long excessBits = query.length() > m_length ? query.cardinality() - cardinality(q) : 0;
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_nrWords) {
+            long distance = excessBits;
+            for (int w = 0; w < m_nrWords; w++) {
+                distance += Long.bitCount(m_words[offset + w] ^ q[w]);
+            }
+            result[v] = distance;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the Tanimoto (Jaccard) coefficient of each vector of the batch and the query vector, i.e. the
+     * cardinality of the intersection divided by the cardinality of the union. Two empty vectors have a coefficient of
+     * 1.
+     *
+     * @param query the query vector; as in {@link BitVectorSimilarityIndex}, the vectors of the batch are extended with
+     *            zeros, i.e. bits of the query beyond the length of the batch don't intersect with any vector of the
+     *            batch but count for the union
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the coefficients at the first {@link #size()} positions
+     */
+    public double[] tanimoto(final BitVectorValue query, final double[] out) {
+        final long[] q = queryWords(query);
+        final long queryCardinality = query.cardinality();
+        final double[] result = out != null && out.length >= m_size ? out : new double[m_size];
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_nrWords) {
+            long intersection = 0;
+            long cardinality = 0;
+            for (int w = 0; w < m_nrWords; w++) {
+                final long word = m_words[offset + w];
+                intersection += Long.bitCount(word & q[w]);
+                cardinality += Long.bitCount(word);
+            }
+            result[v] = BitVectorSimilarityIndex.tanimoto(intersection, queryCardinality, cardinality);
+        }
+        return result;
+    }
+
+    private DenseBitVectorBatch apply(final int op, final BitVectorValue query, final DenseBitVectorBatch out) {
+        checkOutput(out);
+        final long[] q = queryWords(query);
+        final long[] src = m_words;
+        final long[] dest = out.m_words;
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_nrWords) {
+            apply(op, src, offset, q, 0, dest, offset, m_nrWords);
+        }
+        out.m_size = m_size;
+        return out;
+    }
+
+    private DenseBitVectorBatch apply(final int op, final DenseBitVectorBatch other, final DenseBitVectorBatch out) {
+        CheckUtils.checkNotNull(other, "Other batch must not be null");
+        CheckUtils.checkArgument(other.m_length == m_length && other.m_size == m_size,
+            "Batches differ in length (%d vs. %d) or size (%d vs. %d)", m_length, other.m_length, m_size,
+            other.m_size);
+        checkOutput(out);
+        final long[] src1 = m_words;
+        final long[] src2 = other.m_words;
+        final long[] dest = out.m_words;
+        apply(op, src1, 0, src2, 0, dest, 0, m_size * m_nrWords);
+        out.m_size = m_size;
+        return out;
+    }
+
+    /** Combines <code>length</code> words of both sources into the destination, dispatching on the operation once. */
+    private static void apply(final int op, final long[] src1, final int offset1, final long[] src2,
+        final int offset2, final long[] dest, final int destOffset, final int length) {
+        switch (op) {
+            case AND:
+                for (int i = 0; i < length; i++) {
+                    dest[destOffset + i] = src1[offset1 + i] & src2[offset2 + i];
+                }
+                break;
+            case OR:
+                for (int i = 0; i < length; i++) {
+                    dest[destOffset + i] = src1[offset1 + i] | src2[offset2 + i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    dest[destOffset + i] = src1[offset1 + i] ^ src2[offset2 + i];
+                }
+        }
+    }
+
+    private void checkOutput(final DenseBitVectorBatch out) {
+        CheckUtils.checkNotNull(out, "Output batch must not be null");
+        CheckUtils.checkArgument(out.m_length == m_length && out.m_capacity >= m_size,
+            "Output batch must have length %d and a capacity of at least %d", m_length, m_size);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= m_size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + m_size + ")");
+        }
+    }
+
+    private long[] queryWords(final BitVectorValue query) {
+        CheckUtils.checkNotNull(query, "Query vector must not be null");
+        BitVectorUtil.copyWords(query, m_length, false, m_queryWords, 0);
+        return m_queryWords;
+    }
+
+    private long cardinality(final long[] words) {
+        long cardinality = 0;
+        for (int w = 0; w < m_nrWords; w++) {
+            cardinality += Long.bitCount(words[w]);
+        }
+        return cardinality;
+    }
+
+    private long[] ensureCapacity(final long[] out) {
+        return out != null && out.length >= m_size ? out : new long[m_size];
+    }
+
+    @Override
+    public String toString() {
+        return "DenseBitVectorBatch [length=" + m_length + ", size=" + m_size + ", capacity=" + m_capacity + "]";
+    }
+
+}
@@ -206,6 +206,13 @@ public long nextSetBit(final long startIdx) {
     }
 
 
+    /**
+     * @return the internal array of bits of the underlying vector (not a copy), must not be modified
+     */
+    long[] getStorage() {
+        return m_bitVector.getStorage();
+    }
+
     /**
      * @see BitVectorUtil#cardinalityOfIntersection(BitVectorValue, BitVectorValue)
      * @param bitVectorCell the other cell containing the operand
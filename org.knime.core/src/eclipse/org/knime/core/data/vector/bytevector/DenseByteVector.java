@@ -480,6 +480,16 @@ public byte[] getAllCountsAsBytes() {
         return m_storage.clone();
     }
 
+    /**
+     * Returns the internal array of counts (not a copy), used for bulk reads
+     * that must not allocate. Callers must not modify the returned array.
+     *
+     * @return the internal byte array.
+     */
+    byte[] getStorage() {
+        return m_storage;
+    }
+
     /**
      * Returns a copy of the internal array of counts. The returned array has
      * the same length as this vector and holds values 0 ... 255
@@ -0,0 +1,439 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bytevector;
+
+import java.util.Arrays;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * A batch of byte vectors of the same length, stored in a single contiguous {@code byte[]}. The bulk operations apply
+ * position-wise sums, minima and maxima, sums of counts and distance computations to all vectors of the batch at once,
+ * either against a single query vector or element-wise against another batch. Results are written into output batches
+ * and arrays provided by the caller, so that the same buffers can be reused for all batches of a column (unlike
+ * {@link DenseByteVectorCellFactory#sum(ByteVectorValue, ByteVectorValue)} and friends, which create a new cell per
+ * result). See {@link org.knime.core.data.vector.bitvector.DenseBitVectorBatch} for the bit vector counterpart.
+ *
+ * <p>
+ * Counts are in the range 0 ... 255; sums larger than 255 are set to 255. Instances are not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class DenseByteVectorBatch {
+
+    private static final int MAX_COUNT = (1 << Byte.SIZE) - 1;
+
+    private static final int SUM = 0;
+
+    private static final int MIN = 1;
+
+    private static final int MAX = 2;
+
+    private final int m_length;
+
+    private final int m_capacity;
+
+    private final byte[] m_counts;
+
+    private int m_size;
+
+    /** Buffer for the counts of query vectors. */
+    private final byte[] m_queryCounts;
+
+    /**
+     * Creates a new empty batch.
+     *
+     * @param length the length of the vectors in the batch; shorter vectors are padded with zeros
+     * @param capacity the maximum number of vectors in the batch
+     */
+    public DenseByteVectorBatch(final int length, final int capacity) {
+        CheckUtils.checkArgument(length >= 0, "Length must not be negative: %d", length);
+        CheckUtils.checkArgument(capacity >= 0, "Capacity must not be negative: %d", capacity);
+        CheckUtils.checkArgument((long)length * capacity <= Integer.MAX_VALUE - 8,
+            "Batch too large: %d vectors of length %d", capacity, length);
+        m_length = length;
+        m_capacity = capacity;
+        m_counts = new byte[length * capacity];
+        m_queryCounts = new byte[length];
+    }
+
+    /**
+     * @return the length of the vectors in the batch
+     */
+    public int length() {
+        return m_length;
+    }
+
+    /**
+     * @return the number of vectors in the batch
+     */
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * @return the maximum number of vectors in the batch
+     */
+    public int capacity() {
+        return m_capacity;
+    }
+
+    /**
+     * Removes all vectors from the batch (without releasing any memory).
+     */
+    public void clear() {
+        m_size = 0;
+    }
+
+    /**
+     * Appends a vector to the batch.
+     *
+     * @param vector the vector to add
+     * @return the index of the vector in the batch
+     * @throws IllegalStateException if the batch is full
+     * @throws IllegalArgumentException if the vector has non-zero counts at or beyond the length of the batch
+     */
+    public int add(final ByteVectorValue vector) {
+        CheckUtils.checkNotNull(vector, "Vector must not be null");
+        CheckUtils.checkState(m_size < m_capacity, "Batch is full (%d vectors)", m_capacity);
+        copyCounts(vector, true, m_counts, m_size * m_length);
+        return m_size++;
+    }
+
+    /**
+     * @param index the index of the vector in the batch
+     * @return a new cell holding the vector
+     */
+    public DenseByteVectorCell getCell(final int index) {
+        checkIndex(index);
+        final int offset = index * m_length;
+        return new DenseByteVectorCellFactory(
+            new DenseByteVector(Arrays.copyOfRange(m_counts, offset, offset + m_length))).createDataCell();
+    }
+
+    /**
+     * @param index the index of the vector in the batch
+     * @param position the position in the vector
+     * @return the count at the position, 0 ... 255
+     */
+    public int get(final int index, final int position) {
+        checkIndex(index);
+        if (position < 0 || position >= m_length) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of range [0, " + m_length + ")");
+        }
+        return m_counts[index * m_length + position] & 0xFF;
+    }
+
+    /**
+     * Computes the position-wise sum of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, counts beyond the length of the batch are ignored
+     * @param out the batch to write the results to, may be this batch; its size is set to the size of this batch
+     * @return the output batch
+     */
+    public DenseByteVectorBatch sum(final ByteVectorValue query, final DenseByteVectorBatch out) {
+        return apply(SUM, query, out);
+    }
+
+    /**
+     * Computes the position-wise minimum of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, counts beyond the length of the batch are ignored
+     * @param out the batch to write the results to, may be this batch; its size is set to the size of this batch
+     * @return the output batch
+     */
+    public DenseByteVectorBatch min(final ByteVectorValue query, final DenseByteVectorBatch out) {
+        return apply(MIN, query, out);
+    }
+
+    /**
+     * Computes the position-wise maximum of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, counts beyond the length of the batch are ignored
+     * @param out the batch to write the results to, may be this batch; its size is set to the size of this batch
+     * @return the output batch
+     */
+    public DenseByteVectorBatch max(final ByteVectorValue query, final DenseByteVectorBatch out) {
+        return apply(MAX, query, out);
+    }
+
+    /**
+     * Computes the position-wise sum of the vectors of this and the other batch, element by element.
+     *
+     * @param other a batch of the same length and size
+     * @param out the batch to write the results to, may be this or the other batch; its size is set to the size of
+     *            this batch
+     * @return the output batch
+     */
+    public DenseByteVectorBatch sum(final DenseByteVectorBatch other, final DenseByteVectorBatch out) {
+        return apply(SUM, other, out);
+    }
+
+    /**
+     * Computes the position-wise minimum of the vectors of this and the other batch, element by element.
+     *
+     * @param other a batch of the same length and size
+     * @param out the batch to write the results to, may be this or the other batch; its size is set to the size of
+     *            this batch
+     * @return the output batch
+     */
+    public DenseByteVectorBatch min(final DenseByteVectorBatch other, final DenseByteVectorBatch out) {
+        return apply(MIN, other, out);
+    }
+
+    /**
+     * Computes the position-wise maximum of the vectors of this and the other batch, element by element.
+     *
+     * @param other a batch of the same length and size
+     * @param out the batch to write the results to, may be this or the other batch; its size is set to the size of
+     *            this batch
+     * @return the output batch
+     */
+    public DenseByteVectorBatch max(final DenseByteVectorBatch other, final DenseByteVectorBatch out) {
+        return apply(MAX, other, out);
+    }
+
+    /**
+     * Computes the sum of all counts of each vector of the batch, see {@link ByteVectorValue#sumOfAllCounts()}.
+     *
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the sums at the first {@link #size()} positions
+     */
+    public long[] sumsOfAllCounts(final long[] out) {
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_length) {
+            long sum = 0;
+            for (int i = offset, end = offset + m_length; i < end; i++) {
+                sum += m_counts[i] & 0xFF;
+            }
+            result[v] = sum;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the number of non-zero counts of each vector of the batch, see {@link ByteVectorValue#cardinality()}.
+     *
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the cardinalities at the first {@link #size()} positions
+     */
+    public long[] cardinalities(final long[] out) {
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_length) {
+            long cardinality = 0;
+            for (int i = offset, end = offset + m_length; i < end; i++) {
+                if (m_counts[i] != 0) {
+                    cardinality++;
+                }
+            }
+            result[v] = cardinality;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the Manhattan distance (the sum of the absolute differences of the counts) of each vector of the batch
+     * and the query vector.
+     *
+     * @param query the query vector, counts beyond the length of the batch are ignored
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the distances at the first {@link #size()} positions
+     */
+    public long[] manhattanDistances(final ByteVectorValue query, final long[] out) {
+        final byte[] q = queryCounts(query);
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_length) {
+            long distance = 0;
+            for (int i = 0; i < m_length; i++) {
+                distance += Math.abs((m_counts[offset + i] & 0xFF) - (q[i] & 0xFF));
+            }
+            result[v] = distance;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the Euclidean distance of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, counts beyond the length of the batch are ignored
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the distances at the first {@link #size()} positions
+     */
+    public double[] euclideanDistances(final ByteVectorValue query, final double[] out) {
+        final byte[] q = queryCounts(query);
+        final double[] result = out != null && out.length >= m_size ? out : new double[m_size];
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_length) {
+            long squaredDistance = 0;
+            for (int i = 0; i < m_length; i++) {
+                final int diff = (m_counts[offset + i] & 0xFF) - (q[i] & 0xFF);
+                squaredDistance += diff * diff;
+            }
+            result[v] = Math.sqrt(squaredDistance);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the dot product of each vector of the batch and the query vector.
+     *
+     * @param query the query vector, counts beyond the length of the batch are ignored
+     * @param out the array to write the results to or <code>null</code>; a new array is allocated if it is too short
+     * @return the array holding the dot products at the first {@link #size()} positions
+     */
+    public long[] dotProducts(final ByteVectorValue query, final long[] out) {
+        final byte[] q = queryCounts(query);
+        final long[] result = ensureCapacity(out);
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_length) {
+            long product = 0;
+            for (int i = 0; i < m_length; i++) {
+                product += (m_counts[offset + i] & 0xFF) * (q[i] & 0xFF);
+            }
+            result[v] = product;
+        }
+        return result;
+    }
+
+    private DenseByteVectorBatch apply(final int op, final ByteVectorValue query, final DenseByteVectorBatch out) {
+        checkOutput(out);
+        final byte[] q = queryCounts(query);
+        final byte[] src = m_counts;
+        final byte[] dest = out.m_counts;
+        for (int v = 0, offset = 0; v < m_size; v++, offset += m_length) {
+            apply(op, src, offset, q, 0, dest, offset, m_length);
+        }
+        out.m_size = m_size;
+        return out;
+    }
+
+    private DenseByteVectorBatch apply(final int op, final DenseByteVectorBatch other,
+        final DenseByteVectorBatch out) {
+        CheckUtils.checkNotNull(other, "Other batch must not be null");
+        CheckUtils.checkArgument(other.m_length == m_length && other.m_size == m_size,
+            "Batches differ in length (%d vs. %d) or size (%d vs. %d)", m_length, other.m_length, m_size,
+            other.m_size);
+        checkOutput(out);
+        final byte[] src1 = m_counts;
+        final byte[] src2 = other.m_counts;
+        final byte[] dest = out.m_counts;
+        apply(op, src1, 0, src2, 0, dest, 0, m_size * m_length);
+        out.m_size = m_size;
+        return out;
+    }
+
+    /** Combines <code>length</code> counts of both sources into the destination, dispatching on the operation once. */
+    private static void apply(final int op, final byte[] src1, final int offset1, final byte[] src2,
+        final int offset2, final byte[] dest, final int destOffset, final int length) {
+        switch (op) {
+            case SUM:
+                for (int i = 0; i < length; i++) {
+                    dest[destOffset + i] =
+                        (byte)Math.min(MAX_COUNT, (src1[offset1 + i] & 0xFF) + (src2[offset2 + i] & 0xFF));
+                }
+                break;
+            case MIN:
+                for (int i = 0; i < length; i++) {
+                    dest[destOffset + i] = (byte)Math.min(src1[offset1 + i] & 0xFF, src2[offset2 + i] & 0xFF);
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    dest[destOffset + i] = (byte)Math.max(src1[offset1 + i] & 0xFF, src2[offset2 + i] & 0xFF);
+                }
+        }
+    }
+
+    /**
+     * Copies the counts of the vector into the destination array, clearing the destination range first.
+     *
+     * @throws IllegalArgumentException if <code>failOnExcessCounts</code> is set and the vector has non-zero counts at
+     *             or beyond the length of the batch
+     */
+    private void copyCounts(final ByteVectorValue vector, final boolean failOnExcessCounts, final byte[] dest,
+        final int offset) {
+        if (vector instanceof DenseByteVectorCell) {
+            final byte[] counts = ((DenseByteVectorCell)vector).getStorage();
+            final int copied = Math.min(m_length, counts.length);
+            System.arraycopy(counts, 0, dest, offset, copied);
+            Arrays.fill(dest, offset + copied, offset + m_length, (byte)0);
+        } else {
+            Arrays.fill(dest, offset, offset + m_length, (byte)0);
+            for (long i = vector.nextCountIndex(0); i >= 0 && i < m_length; i = vector.nextCountIndex(i + 1)) {
+                dest[offset + (int)i] = (byte)vector.get(i);
+            }
+        }
+        if (failOnExcessCounts && vector.length() > m_length && vector.nextCountIndex(m_length) >= 0) {
+            throw new IllegalArgumentException("Byte vector has counts beyond length " + m_length);
+        }
+    }
+
+    private void checkOutput(final DenseByteVectorBatch out) {
+        CheckUtils.checkNotNull(out, "Output batch must not be null");
+        CheckUtils.checkArgument(out.m_length == m_length && out.m_capacity >= m_size,
+            "Output batch must have length %d and a capacity of at least %d", m_length, m_size);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= m_size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + m_size + ")");
+        }
+    }
+
+    private byte[] queryCounts(final ByteVectorValue query) {
+        CheckUtils.checkNotNull(query, "Query vector must not be null");
+        copyCounts(query, false, m_queryCounts, 0);
+        return m_queryCounts;
+    }
+
+    private long[] ensureCapacity(final long[] out) {
+        return out != null && out.length >= m_size ? out : new long[m_size];
+    }
+
+    @Override
+    public String toString() {
+        return "DenseByteVectorBatch [length=" + m_length + ", size=" + m_size + ", capacity=" + m_capacity + "]";
+    }
+
+}
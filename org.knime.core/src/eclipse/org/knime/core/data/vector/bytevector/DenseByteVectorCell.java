@@ -204,6 +204,13 @@ public DenseByteVector getByteVectorCopy() {
         return new DenseByteVector(m_byteVector);
     }
 
+    /**
+     * @return the internal array of counts of the underlying vector (not a copy), must not be modified
+     */
+    byte[] getStorage() {
+        return m_byteVector.getStorage();
+    }
+
     /**
      * Factory for {@link DenseByteVectorCell}s.
      *
@@ -0,0 +1,649 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.xml.io;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.knime.core.data.StringValue;
+import org.knime.core.data.util.LockedSupplier;
+import org.knime.core.data.xml.XMLValue;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.w3c.dom.Document;
+
+/**
+ * Evaluates a streamable subset of XPath 1.0 with a StAX parser directly on serialized XML, without building a DOM.
+ * The supported syntax is
+ * <ul>
+ * <li>absolute and relative location paths with child (<code>/</code>) and descendant (<code>//</code>) steps, e.g.
+ * <code>/order/item</code> or <code>//item</code>,</li>
+ * <li>name tests with namespace prefixes and wildcards (<code>*</code>, <code>ns:*</code>),</li>
+ * <li>predicates on the position among the matching siblings (<code>item[2]</code>) and on attributes
+ * (<code>item[@id]</code>, <code>item[@id='42']</code>, <code>item[@id!='42']</code>),</li>
+ * <li>a trailing attribute (<code>@id</code>, <code>@*</code>) or <code>text()</code> step and</li>
+ * <li>unions of such paths using <code>|</code>.</li>
+ * </ul>
+ * The result of an evaluation is the list of string values of the matched nodes in document order. Predicates that
+ * depend on content following the start tag, e.g. <code>[child='x']</code> or <code>[last()]</code>, cannot be
+ * evaluated while streaming and are rejected by {@link #compile(String, NamespaceContext)}.
+ *
+ * <p>
+ * Instances are immutable and may be used by several threads concurrently, see {@link StreamingXPathCellFactory} for
+ * applying expressions to a column in parallel.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class StreamingXPath {
+
+    private enum Axis {
+        CHILD, DESCENDANT
+    }
+
+    private enum Kind {
+        ELEMENT, ATTRIBUTE, TEXT
+    }
+
+    /** One predicate of a step, either positional or testing an attribute. */
+    private static final class Predicate {
+        /** 1-based position among the siblings passing the previous predicates or 0 for attribute predicates. */
+        private final int m_position;
+
+        /** Index of the sibling counter in {@link Frame#m_positions} for positional predicates. */
+        private final int m_counter;
+
+        private final NameTest m_attribute;
+
+        /** The value to compare the attribute with or <code>null</code> if only its presence is tested. */
+        private final String m_value;
+
+        private final boolean m_negate;
+
+        Predicate(final int position, final int counter) {
+            m_position = position;
+            m_counter = counter;
+            m_attribute = null;
+            m_value = null;
+            m_negate = false;
+        }
+
+        Predicate(final NameTest attribute, final String value, final boolean negate) {
+            m_position = 0;
+            m_counter = -1;
+            m_attribute = attribute;
+            m_value = value;
+            m_negate = negate;
+        }
+
+        boolean test(final XMLStreamReader reader, final Frame parent) {
+            if (m_attribute == null) {
+                return parent.nextPosition(m_counter) == m_position;
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                if (m_attribute.matches(reader.getAttributeNamespace(i), reader.getAttributeLocalName(i))) {
+                    return m_value == null || m_value.equals(reader.getAttributeValue(i)) != m_negate;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** A node name test, <code>null</code> name parts match anything. */
+    private static final class NameTest {
+        private final String m_namespaceURI;
+
+        private final String m_localName;
+
+        NameTest(final String namespaceURI, final String localName) {
+            m_namespaceURI = namespaceURI;
+            m_localName = localName;
+        }
+
+        boolean matches(final String namespaceURI, final String localName) {
+            return (m_localName == null || m_localName.equals(localName)) && (m_namespaceURI == null
+                || m_namespaceURI.equals(namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI));
+        }
+    }
+
+    private static final class Step {
+        private final Axis m_axis;
+
+        private final Kind m_kind;
+
+        private final NameTest m_nameTest;
+
+        private final Predicate[] m_predicates;
+
+        Step(final Axis axis, final Kind kind, final NameTest nameTest, final List<Predicate> predicates) {
+            m_axis = axis;
+            m_kind = kind;
+            m_nameTest = nameTest;
+            m_predicates = predicates.toArray(new Predicate[predicates.size()]);
+        }
+
+        boolean matchesElement(final XMLStreamReader reader, final Frame parent) {
+            if (m_kind != Kind.ELEMENT || !m_nameTest.matches(reader.getNamespaceURI(), reader.getLocalName())) {
+                return false;
+            }
+            for (Predicate predicate : m_predicates) {
+                if (!predicate.test(reader, parent)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** State of an open element (or the document) during an evaluation. */
+    private static final class Frame {
+        /** The automaton states reached in this element, see {@link StreamingXPath#m_stateOffsets}. */
+        private final BitSet m_states;
+
+        /** Whether text children of this element are results. */
+        private boolean m_text;
+
+        /** Index of the result holding the string value of this element or -1 if the element is no result. */
+        private int m_result = -1;
+
+        /** Sibling counters of positional predicates, lazily allocated. */
+        private int[] m_positions;
+
+        private final int m_counterCount;
+
+        Frame(final BitSet states, final int counterCount) {
+            m_states = states;
+            m_counterCount = counterCount;
+        }
+
+        int nextPosition(final int counter) {
+            if (m_positions == null) {
+                m_positions = new int[m_counterCount];
+            }
+            return ++m_positions[counter];
+        }
+    }
+
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.TRUE);
+        if (Boolean.getBoolean(KNIMEConstants.PROPERTY_XML_DISABLE_EXT_ENTITIES)) { // see AP-6752
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        }
+        return factory;
+    });
+
+    private final String m_expression;
+
+    /** The location paths of the union. */
+    private final Step[][] m_paths;
+
+    /**
+     * The automaton state <code>m_stateOffsets[p] + i</code> means that the first <code>i</code> steps of path
+     * <code>p</code> have been matched.
+     */
+    private final int[] m_stateOffsets;
+
+    /** Maps an automaton state back to its path. */
+    private final int[] m_statePaths;
+
+    private final int m_counterCount;
+
+    private StreamingXPath(final String expression, final List<Step[]> paths, final int counterCount) {
+        m_expression = expression;
+        m_paths = paths.toArray(new Step[paths.size()][]);
+        m_stateOffsets = new int[m_paths.length];
+        int stateCount = 0;
+        for (int p = 0; p < m_paths.length; p++) {
+            m_stateOffsets[p] = stateCount;
+            stateCount += m_paths[p].length + 1;
+        }
+        m_statePaths = new int[stateCount];
+        for (int p = 0; p < m_paths.length; p++) {
+            for (int i = 0; i <= m_paths[p].length; i++) {
+                m_statePaths[m_stateOffsets[p] + i] = p;
+            }
+        }
+        m_counterCount = counterCount;
+    }
+
+    /**
+     * Compiles the given expression.
+     *
+     * @param xpath the XPath expression, see the class documentation for the supported syntax
+     * @param nsContext the namespace context resolving the prefixes used in the expression, may be <code>null</code>
+     *            if the expression doesn't use prefixes
+     * @return the compiled expression
+     * @throws InvalidSettingsException if the expression is not supported or uses an undefined prefix
+     */
+    public static StreamingXPath compile(final String xpath, final NamespaceContext nsContext)
+        throws InvalidSettingsException {
+        Parser parser = new Parser(xpath, nsContext);
+        List<Step[]> paths = parser.parseUnion();
+        return new StreamingXPath(xpath, paths, parser.m_counterCount);
+    }
+
+    /** @return the expression as passed to {@link #compile(String, NamespaceContext)} */
+    public String getExpression() {
+        return m_expression;
+    }
+
+    /**
+     * Evaluates the expression on an XML value. For {@link org.knime.core.data.xml.XMLCell XMLCell} and
+     * {@link org.knime.core.data.xml.XMLBlobCell XMLBlobCell} the stored serialized document is parsed, their DOM
+     * is neither used nor created.
+     *
+     * @param value the XML value
+     * @param maxResults the maximum number of results, parsing stops as soon as they are available
+     * @return the string values of the matched nodes in document order
+     * @throws XMLStreamException if the document cannot be parsed
+     */
+    public List<String> evaluate(final XMLValue<?> value, final int maxResults) throws XMLStreamException {
+        if (value instanceof StringValue) {
+            return evaluate(new StringReader(((StringValue)value).getStringValue()), maxResults);
+        }
+        StringWriter xml = new StringWriter();
+        try (LockedSupplier<? extends Document> supplier = value.getDocumentSupplier()) {
+            TransformerFactory.newInstance().newTransformer().transform(new DOMSource(supplier.get()),
+                new StreamResult(xml));
+        } catch (TransformerException ex) {
+            throw new XMLStreamException("Could not serialize XML document: " + ex.getMessage(), ex);
+        }
+        return evaluate(new StringReader(xml.toString()), maxResults);
+    }
+
+    /**
+     * Evaluates the expression on a serialized XML document.
+     *
+     * @param in the serialized document, not closed by this method
+     * @param maxResults the maximum number of results, parsing stops as soon as they are available
+     * @return the string values of the matched nodes in document order
+     * @throws XMLStreamException if the document cannot be parsed
+     */
+    public List<String> evaluate(final Reader in, final int maxResults) throws XMLStreamException {
+        if (maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(in);
+        try {
+            return evaluate(reader, maxResults);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private List<String> evaluate(final XMLStreamReader reader, final int maxResults) throws XMLStreamException {
+        List<String> results = new ArrayList<>();
+        // the string values of matched elements are collected while the element is open, they nest
+        Deque<StringBuilder> captures = new ArrayDeque<>();
+        Deque<Frame> frames = new ArrayDeque<>();
+
+        BitSet rootStates = new BitSet();
+        for (int p = 0; p < m_paths.length; p++) {
+            rootStates.set(m_stateOffsets[p]);
+        }
+        Frame document = new Frame(rootStates, m_counterCount);
+        for (int p = 0; p < m_paths.length; p++) {
+            if (m_paths[p].length == 0 && document.m_result < 0) {
+                // "/" matches the document node
+                document.m_result = addResult(results, captures, maxResults);
+            }
+        }
+        frames.push(document);
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    frames.push(startElement(reader, frames.peek(), results, captures, maxResults));
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    Frame frame = frames.pop();
+                    if (frame.m_result >= 0) {
+                        results.set(frame.m_result, captures.pop().toString());
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    boolean textResult = frames.peek().m_text && results.size() < maxResults;
+                    if (textResult || !captures.isEmpty()) {
+                        String text = reader.getText();
+                        for (StringBuilder capture : captures) {
+                            capture.append(text);
+                        }
+                        if (textResult) {
+                            results.add(text);
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (results.size() >= maxResults && captures.isEmpty()) {
+                break;
+            }
+        }
+        if (document.m_result >= 0 && !captures.isEmpty()) {
+            results.set(document.m_result, captures.pop().toString());
+        }
+        return results;
+    }
+
+    private Frame startElement(final XMLStreamReader reader, final Frame parent, final List<String> results,
+        final Deque<StringBuilder> captures, final int maxResults) {
+        BitSet states = new BitSet();
+        boolean match = false;
+        for (int s = parent.m_states.nextSetBit(0); s >= 0; s = parent.m_states.nextSetBit(s + 1)) {
+            Step[] path = m_paths[m_statePaths[s]];
+            int i = s - m_stateOffsets[m_statePaths[s]];
+            if (i == path.length) {
+                continue;
+            }
+            Step step = path[i];
+            if (step.m_axis == Axis.DESCENDANT) {
+                states.set(s);
+            }
+            if (step.matchesElement(reader, parent)) {
+                states.set(s + 1);
+                match |= i + 1 == path.length;
+            }
+        }
+        Frame frame = new Frame(states, m_counterCount);
+        if (match && results.size() < maxResults) {
+            frame.m_result = addResult(results, captures, maxResults);
+        }
+        // trailing attribute and text() steps apply to the element reaching the state before them
+        List<NameTest> attributeTests = null;
+        for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+            Step[] path = m_paths[m_statePaths[s]];
+            int i = s - m_stateOffsets[m_statePaths[s]];
+            if (i < path.length && path[i].m_kind == Kind.ATTRIBUTE) {
+                if (attributeTests == null) {
+                    attributeTests = new ArrayList<>(2);
+                }
+                attributeTests.add(path[i].m_nameTest);
+            } else if (i < path.length && path[i].m_kind == Kind.TEXT) {
+                frame.m_text = true;
+            }
+        }
+        if (attributeTests != null) {
+            for (int a = 0; a < reader.getAttributeCount() && results.size() < maxResults; a++) {
+                for (NameTest test : attributeTests) {
+                    if (test.matches(reader.getAttributeNamespace(a), reader.getAttributeLocalName(a))) {
+                        results.add(reader.getAttributeValue(a));
+                        break;
+                    }
+                }
+            }
+        }
+        return frame;
+    }
+
+    private static int addResult(final List<String> results, final Deque<StringBuilder> captures,
+        final int maxResults) {
+        if (results.size() >= maxResults) {
+            return -1;
+        }
+        // placeholder keeping document order, set once the element is closed
+        results.add(null);
+        captures.push(new StringBuilder());
+        return results.size() - 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return m_expression;
+    }
+
+    /** Recursive descent parser for the supported XPath subset. */
+    private static final class Parser {
+        private final String m_xpath;
+
+        private final NamespaceContext m_nsContext;
+
+        private int m_pos;
+
+        private int m_counterCount;
+
+        Parser(final String xpath, final NamespaceContext nsContext) {
+            m_xpath = xpath;
+            m_nsContext = nsContext;
+        }
+
+        List<Step[]> parseUnion() throws InvalidSettingsException {
+            List<Step[]> paths = new ArrayList<>();
+            paths.add(parsePath());
+            skipWhitespace();
+            while (m_pos < m_xpath.length() && m_xpath.charAt(m_pos) == '|') {
+                m_pos++;
+                paths.add(parsePath());
+                skipWhitespace();
+            }
+            if (m_pos < m_xpath.length()) {
+                throw error("Unexpected character '" + m_xpath.charAt(m_pos) + "'");
+            }
+            return paths;
+        }
+
+        private Step[] parsePath() throws InvalidSettingsException {
+            skipWhitespace();
+            List<Step> steps = new ArrayList<>();
+            Axis axis = Axis.CHILD;
+            if (m_xpath.startsWith("//", m_pos)) {
+                m_pos += 2;
+                axis = Axis.DESCENDANT;
+            } else if (m_xpath.startsWith("/", m_pos)) {
+                m_pos++;
+                skipWhitespace();
+                if (m_pos == m_xpath.length() || m_xpath.charAt(m_pos) == '|') {
+                    return new Step[0];
+                }
+            }
+            while (true) {
+                Step step = parseStep(axis);
+                steps.add(step);
+                if (m_xpath.startsWith("//", m_pos)) {
+                    m_pos += 2;
+                    axis = Axis.DESCENDANT;
+                } else if (m_xpath.startsWith("/", m_pos)) {
+                    m_pos++;
+                    axis = Axis.CHILD;
+                } else {
+                    break;
+                }
+                if (step.m_kind != Kind.ELEMENT) {
+                    throw error("Attribute and text() steps must be the last step of a path");
+                }
+            }
+            return steps.toArray(new Step[steps.size()]);
+        }
+
+        private Step parseStep(final Axis axis) throws InvalidSettingsException {
+            List<Predicate> predicates = new ArrayList<>();
+            if (m_xpath.startsWith("@", m_pos)) {
+                m_pos++;
+                return new Step(axis, Kind.ATTRIBUTE, parseNameTest(), predicates);
+            }
+            if (m_xpath.startsWith("text()", m_pos)) {
+                m_pos += "text()".length();
+                return new Step(axis, Kind.TEXT, null, predicates);
+            }
+            NameTest nameTest = parseNameTest();
+            while (m_xpath.startsWith("[", m_pos)) {
+                m_pos++;
+                predicates.add(parsePredicate());
+            }
+            return new Step(axis, Kind.ELEMENT, nameTest, predicates);
+        }
+
+        private Predicate parsePredicate() throws InvalidSettingsException {
+            skipWhitespace();
+            Predicate predicate;
+            if (m_pos < m_xpath.length() && Character.isDigit(m_xpath.charAt(m_pos))) {
+                int start = m_pos;
+                while (m_pos < m_xpath.length() && Character.isDigit(m_xpath.charAt(m_pos))) {
+                    m_pos++;
+                }
+                int position;
+                try {
+                    position = Integer.parseInt(m_xpath.substring(start, m_pos));
+                } catch (NumberFormatException ex) {
+                    throw error("Invalid position");
+                }
+                if (position < 1) {
+                    throw error("Positions start at 1");
+                }
+                predicate = new Predicate(position, m_counterCount++);
+            } else if (m_xpath.startsWith("@", m_pos)) {
+                m_pos++;
+                NameTest attribute = parseNameTest();
+                skipWhitespace();
+                if (m_xpath.startsWith("=", m_pos)) {
+                    m_pos++;
+                    predicate = new Predicate(attribute, parseLiteral(), false);
+                } else if (m_xpath.startsWith("!=", m_pos)) {
+                    m_pos += 2;
+                    predicate = new Predicate(attribute, parseLiteral(), true);
+                } else {
+                    predicate = new Predicate(attribute, null, false);
+                }
+            } else {
+                throw error("Only positional and attribute predicates can be evaluated while streaming");
+            }
+            skipWhitespace();
+            if (!m_xpath.startsWith("]", m_pos)) {
+                throw error("Expected ']'");
+            }
+            m_pos++;
+            return predicate;
+        }
+
+        private String parseLiteral() throws InvalidSettingsException {
+            skipWhitespace();
+            if (m_pos >= m_xpath.length() || (m_xpath.charAt(m_pos) != '\'' && m_xpath.charAt(m_pos) != '"')) {
+                throw error("Expected a string literal");
+            }
+            char quote = m_xpath.charAt(m_pos);
+            int end = m_xpath.indexOf(quote, m_pos + 1);
+            if (end < 0) {
+                throw error("Unterminated string literal");
+            }
+            String literal = m_xpath.substring(m_pos + 1, end);
+            m_pos = end + 1;
+            return literal;
+        }
+
+        private NameTest parseNameTest() throws InvalidSettingsException {
+            String first = parseNamePart();
+            if (!m_xpath.startsWith(":", m_pos)) {
+                return "*".equals(first) ? new NameTest(null, null) : new NameTest(XMLConstants.NULL_NS_URI, first);
+            }
+            if ("*".equals(first)) {
+                throw error("Wildcard prefixes are not supported");
+            }
+            m_pos++;
+            String nsURI = m_nsContext == null ? null : m_nsContext.getNamespaceURI(first);
+            if (nsURI == null || nsURI.isEmpty()) {
+                throw new InvalidSettingsException(
+                    "Please specify a namespace for the prefix: \"" + first + "\"");
+            }
+            String localName = parseNamePart();
+            return new NameTest(nsURI, "*".equals(localName) ? null : localName);
+        }
+
+        private String parseNamePart() throws InvalidSettingsException {
+            if (m_xpath.startsWith("*", m_pos)) {
+                m_pos++;
+                return "*";
+            }
+            int start = m_pos;
+            while (m_pos < m_xpath.length() && isNameChar(m_xpath.charAt(m_pos))) {
+                m_pos++;
+            }
+            if (start == m_pos || !Character.isLetter(m_xpath.charAt(start)) && m_xpath.charAt(start) != '_') {
+                throw error("Expected a name");
+            }
+            if (m_xpath.startsWith("(", m_pos) || m_xpath.startsWith("::", m_pos)) {
+                throw error("Functions and explicit axes are not supported");
+            }
+            return m_xpath.substring(start, m_pos);
+        }
+
+        private static boolean isNameChar(final char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+        }
+
+        private void skipWhitespace() {
+            while (m_pos < m_xpath.length() && Character.isWhitespace(m_xpath.charAt(m_pos))) {
+                m_pos++;
+            }
+        }
+
+        private InvalidSettingsException error(final String message) {
+            return new InvalidSettingsException(
+                "Unsupported XPath expression \"" + m_xpath + "\" at position " + (m_pos + 1) + ": " + message);
+        }
+    }
+}
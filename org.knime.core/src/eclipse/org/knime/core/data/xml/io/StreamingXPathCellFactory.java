@@ -0,0 +1,151 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.data.xml.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.container.AbstractCellFactory;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.xml.XMLValue;
+
+/**
+ * Cell factory that appends the results of {@link StreamingXPath} expressions evaluated on an XML column, one new
+ * column per expression. The rows are processed concurrently when used in a
+ * {@link org.knime.core.data.container.ColumnRearranger ColumnRearranger}, and the documents are parsed from their
+ * serialized form, so no DOM is created for the cells.
+ *
+ * <p>
+ * Each new column holds either the first match as string or, if all matches are requested, a list of all matches.
+ * Cells without a match are missing, cells that cannot be parsed are missing with the parser error as message.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class StreamingXPathCellFactory extends AbstractCellFactory {
+
+    private final int m_xmlColumn;
+
+    private final StreamingXPath[] m_xpaths;
+
+    private final boolean m_allMatches;
+
+    /**
+     * Creates a new factory.
+     *
+     * @param xmlColumn index of the column containing {@link XMLValue XML values}
+     * @param xpaths the expressions to evaluate
+     * @param newColumnNames the names of the new columns, one per expression
+     * @param allMatches <code>true</code> if the new columns hold lists of all matches, <code>false</code> if they
+     *            hold the first match only (parsing of a document stops as soon as it has been found)
+     */
+    public StreamingXPathCellFactory(final int xmlColumn, final StreamingXPath[] xpaths,
+        final String[] newColumnNames, final boolean allMatches) {
+        super(true, createColumnSpecs(xpaths, newColumnNames, allMatches));
+        m_xmlColumn = xmlColumn;
+        m_xpaths = xpaths.clone();
+        m_allMatches = allMatches;
+    }
+
+    private static DataColumnSpec[] createColumnSpecs(final StreamingXPath[] xpaths, final String[] newColumnNames,
+        final boolean allMatches) {
+        if (xpaths.length != newColumnNames.length) {
+            throw new IllegalArgumentException("Number of expressions (" + xpaths.length
+                + ") and new column names (" + newColumnNames.length + ") differ");
+        }
+        DataType type = allMatches ? ListCell.getCollectionType(StringCell.TYPE) : StringCell.TYPE;
+        DataColumnSpec[] specs = new DataColumnSpec[xpaths.length];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = new DataColumnSpecCreator(newColumnNames[i], type).createSpec();
+        }
+        return specs;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataCell[] getCells(final DataRow row) {
+        DataCell[] result = new DataCell[m_xpaths.length];
+        DataCell cell = row.getCell(m_xmlColumn);
+        if (cell.isMissing()) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = DataType.getMissingCell();
+            }
+            return result;
+        }
+        XMLValue<?> xml = (XMLValue<?>)cell;
+        for (int i = 0; i < result.length; i++) {
+            try {
+                result[i] = createCell(m_xpaths[i].evaluate(xml, m_allMatches ? Integer.MAX_VALUE : 1));
+            } catch (XMLStreamException ex) {
+                result[i] = new MissingCell(ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private DataCell createCell(final List<String> matches) {
+        if (matches.isEmpty()) {
+            return DataType.getMissingCell();
+        }
+        if (!m_allMatches) {
+            return new StringCell(matches.get(0));
+        }
+        List<StringCell> cells = new ArrayList<>(matches.size());
+        for (String match : matches) {
+            cells.add(new StringCell(match));
+        }
+        return CollectionCellFactory.createListCell(cells);
+    }
+}
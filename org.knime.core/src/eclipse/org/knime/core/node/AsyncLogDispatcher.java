@@ -0,0 +1,290 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Category;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Decouples the {@link NodeLogger} from the log4j appenders. Logging events are put into a bounded, lock-free ring
+ * buffer by the logging threads and are passed on to the appenders of their logger by a single daemon thread. Logging
+ * threads therefore never wait on appender locks (e.g. the one of a workflow log file appender) or on I/O.
+ *
+ * <p>
+ * If the buffer is full, events with a level below the blocking level (see
+ * {@link KNIMEConstants#PROPERTY_LOGGING_ASYNC_BLOCK_LEVEL}) are dropped and counted; all other events wait until
+ * the dispatcher thread has made room so that warnings and errors are never lost.
+ *
+ * <p>
+ * The dispatcher is only used if {@link KNIMEConstants#PROPERTY_LOGGING_ASYNC} is set.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class AsyncLogDispatcher {
+
+    /** Default capacity of the ring buffer, see {@link KNIMEConstants#PROPERTY_LOGGING_ASYNC_QUEUE_SIZE}. */
+    static final int DEF_QUEUE_SIZE = 8192;
+
+    /** The levels we keep track of (index into the dropped counters). */
+    private static final Level[] LEVELS = {Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR, Level.FATAL};
+
+    /** Log4J uses this class name to determine the location info of an event. */
+    private static final String FQCN = NodeLogger.class.getName();
+
+    private final AtomicReferenceArray<LoggingEvent> m_events;
+
+    /** The sequence number per slot; a slot is writable if its sequence equals the producer position and readable
+     * if it equals the producer position + 1 (see D. Vyukov's bounded MPMC queue). */
+    private final AtomicLongArray m_sequences;
+
+    private final int m_mask;
+
+    private final Level m_blockLevel;
+
+    /** Next position to be claimed by a producer. */
+    private final AtomicLong m_tail = new AtomicLong();
+
+    /** Position of the event that is read (and passed to the appenders) next, only written by the dispatcher
+     * thread once the appenders have returned. */
+    private volatile long m_head;
+
+    private volatile boolean m_isDispatcherParked;
+
+    private final AtomicLong[] m_droppedCounts;
+
+    private final Thread m_dispatcherThread;
+
+    /**
+     * @param capacity the minimum capacity of the buffer, rounded up to the next power of 2
+     * @param blockLevel events with this level or above are never dropped
+     */
+    AsyncLogDispatcher(final int capacity, final Level blockLevel) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        m_events = new AtomicReferenceArray<>(size);
+        m_sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            m_sequences.set(i, i);
+        }
+        m_mask = size - 1;
+        m_blockLevel = blockLevel;
+        m_droppedCounts = new AtomicLong[LEVELS.length];
+        for (int i = 0; i < LEVELS.length; i++) {
+            m_droppedCounts[i] = new AtomicLong();
+        }
+        m_dispatcherThread = new Thread(this::dispatchLoop, "KNIME-Log-Dispatcher");
+        m_dispatcherThread.setDaemon(true);
+        m_dispatcherThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(TimeUnit.SECONDS.toNanos(5)),
+            "KNIME-Log-Dispatcher-Shutdown"));
+    }
+
+    /**
+     * Creates the dispatcher if asynchronous logging is enabled via {@link KNIMEConstants#PROPERTY_LOGGING_ASYNC}.
+     *
+     * @return a new dispatcher or <code>null</code> if logging is synchronous
+     */
+    static AsyncLogDispatcher createIfEnabled() {
+        if (!Boolean.getBoolean(KNIMEConstants.PROPERTY_LOGGING_ASYNC)) {
+            return null;
+        }
+        final int capacity = Math.max(16, Integer.getInteger(KNIMEConstants.PROPERTY_LOGGING_ASYNC_QUEUE_SIZE,
+            DEF_QUEUE_SIZE));
+        final Level blockLevel =
+            Level.toLevel(System.getProperty(KNIMEConstants.PROPERTY_LOGGING_ASYNC_BLOCK_LEVEL), Level.WARN);
+        return new AsyncLogDispatcher(capacity, blockLevel);
+    }
+
+    /**
+     * Queues a new event for the given logger. The caller is expected to have checked that the logger is enabled for
+     * the level. The event's thread name, NDC and MDC are captured on the calling thread, the message itself is only
+     * rendered by the appenders on the dispatcher thread.
+     *
+     * @param logger the logger whose appenders receive the event
+     * @param level the level of the event
+     * @param message the message object
+     * @param t an optional throwable, may be <code>null</code>
+     */
+    void publish(final Logger logger, final Level level, final Object message, final Throwable t) {
+        final LoggingEvent event = new LoggingEvent(FQCN, logger, level, message, t);
+        if (Thread.currentThread() == m_dispatcherThread) {
+            // an appender logs itself -- never queue (and possibly wait on) our own events
+            logger.callAppenders(event);
+            return;
+        }
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        if (!offer(event)) {
+            if (level.isGreaterOrEqual(m_blockLevel)) {
+                while (!offer(event)) {
+                    wakeUpDispatcher();
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                }
+            } else {
+                m_droppedCounts[levelIndex(level)].incrementAndGet();
+                return;
+            }
+        }
+        wakeUpDispatcher();
+    }
+
+    private boolean offer(final LoggingEvent event) {
+        long pos = m_tail.get();
+        while (true) {
+            final int index = (int)(pos & m_mask);
+            final long diff = m_sequences.get(index) - pos;
+            if (diff == 0) {
+                if (m_tail.compareAndSet(pos, pos + 1)) {
+                    m_events.lazySet(index, event);
+                    m_sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = m_tail.get();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                pos = m_tail.get();
+            }
+        }
+    }
+
+    private void wakeUpDispatcher() {
+        if (m_isDispatcherParked) {
+            LockSupport.unpark(m_dispatcherThread);
+        }
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            final long pos = m_head;
+            final int index = (int)(pos & m_mask);
+            if (m_sequences.get(index) == pos + 1) {
+                final LoggingEvent event = m_events.get(index);
+                m_events.lazySet(index, null);
+                m_sequences.set(index, pos + m_mask + 1);
+                dispatch(event);
+                m_head = pos + 1;
+            } else {
+                m_isDispatcherParked = true;
+                // re-check after announcing that we park, a producer might have published in between
+                if (m_sequences.get(index) != pos + 1) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                m_isDispatcherParked = false;
+            }
+        }
+    }
+
+    private static void dispatch(final LoggingEvent event) {
+        try {
+            final Category logger = event.getLogger();
+            logger.callAppenders(event);
+        } catch (Throwable t) { // NOSONAR the dispatcher must survive misbehaving appenders
+            LogLog.error("Unable to dispatch logging event: " + t.getMessage(), t);
+        }
+    }
+
+    /**
+     * Waits until all events queued prior to this call have been passed to the appenders, for instance before an
+     * appender is closed. Returns immediately if called from the dispatcher thread itself.
+     *
+     * @param timeoutNanos the maximum time to wait
+     */
+    void flush(final long timeoutNanos) {
+        if (Thread.currentThread() == m_dispatcherThread) {
+            return;
+        }
+        final long target = m_tail.get();
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (m_head < target && System.nanoTime() - deadline < 0) {
+            LockSupport.unpark(m_dispatcherThread);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    /** @return the number of events currently waiting to be dispatched, including the one currently dispatched */
+    int getQueueDepth() {
+        return (int)Math.max(0, m_tail.get() - m_head);
+    }
+
+    /** @return the capacity of the ring buffer */
+    int getCapacity() {
+        return m_mask + 1;
+    }
+
+    /**
+     * @param level the level of interest or <code>null</code> (or {@link Level#ALL}) for all levels
+     * @return the number of events dropped because the buffer was full
+     */
+    long getDroppedCount(final Level level) {
+        if (level != null && level != Level.ALL) {
+            return m_droppedCounts[levelIndex(level)].get();
+        }
+        long sum = 0;
+        for (AtomicLong count : m_droppedCounts) {
+            sum += count.get();
+        }
+        return sum;
+    }
+
+    private static int levelIndex(final Level level) {
+        for (int i = LEVELS.length - 1; i >= 0; i--) {
+            if (level.isGreaterOrEqual(LEVELS[i])) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -82,6 +82,7 @@
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.container.DefaultTableStoreFormat;
+import org.knime.core.data.container.FallbackRowBatchCursor;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
 import org.knime.core.data.container.TableSpecReplacerTable;
@@ -91,6 +92,7 @@
 import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.container.storage.TableStoreFormat;
 import org.knime.core.data.container.storage.TableStoreFormatRegistry;
+import org.knime.core.data.v2.RowBatchCursor;
 import org.knime.core.data.v2.RowCursor;
 import org.knime.core.internal.ReferencedFile;
 import org.knime.core.node.config.Config;
@@ -378,6 +380,34 @@ public RowCursor cursor(final TableFilter filter) {
         return m_delegate.cursor(filter);
     }
 
+    /**
+     * Provides a {@link RowBatchCursor} to access the rows of this table in batches of column arrays. All tables of
+     * the row based backend use the {@link org.knime.core.data.container.FallbackRowBatchCursor}, which still creates
+     * a {@link org.knime.core.data.DataCell} per value while reading; see {@link RowBatch} for details.
+     *
+     * @param batchSize maximum number of rows per batch, &gt; 0
+     * @return {@link RowBatchCursor} to access the rows of this table.
+     * @apiNote Must not to be called by clients. Experimental API.
+     * @since 4.4
+     */
+    public RowBatchCursor batchCursor(final int batchSize) {
+        return m_delegate.batchCursor(batchSize);
+    }
+
+    /**
+     * Provides a {@link RowBatchCursor} to access the rows of this table in batches of column arrays, filtered
+     * according to a given {@link TableFilter}. Columns not materialized by the filter are reported as missing.
+     *
+     * @param filter to filter rows and columns.
+     * @param batchSize maximum number of rows per batch, &gt; 0
+     * @return {@link RowBatchCursor} to access the rows of this table.
+     * @apiNote Must not to be called by clients. Experimental API.
+     * @since 4.4
+     */
+    public RowBatchCursor batchCursor(final TableFilter filter, final int batchSize) {
+        return m_delegate.batchCursor(filter, batchSize);
+    }
+
     /**
      * Provides a {@link CloseableDataRowIterable} that is filtered according to a given {@link TableFilter} and can be
      * iterated over. The filtering won't change this BufferedDataTable or impact subsequent calls of this method with
@@ -1053,6 +1083,30 @@ void saveToFile(final File f, final NodeSettingsWO settings,
          */
         RowCursor cursor(final TableFilter filter);
 
+        /**
+         * The default implementation derives the batches from the cells of {@link #iterator()}; implementations that
+         * store columns natively should override it to provide the arrays without creating cells.
+         *
+         * @param batchSize maximum number of rows per batch, &gt; 0
+         * @return {@link RowBatchCursor} to access rows of a table in batches.
+         * @apiNote Must not to be called by clients. Experimental API.
+         * @since 4.4
+         */
+        default RowBatchCursor batchCursor(final int batchSize) {
+            return new FallbackRowBatchCursor(iterator(), getDataTableSpec(), batchSize);
+        }
+
+        /**
+         * @param filter to filter rows and columns.
+         * @param batchSize maximum number of rows per batch, &gt; 0
+         * @return {@link RowBatchCursor} to access rows of a table in batches.
+         * @apiNote Must not to be called by clients. Experimental API.
+         * @since 4.4
+         */
+        default RowBatchCursor batchCursor(final TableFilter filter, final int batchSize) {
+            return new FallbackRowBatchCursor(iteratorWithFilter(filter), getDataTableSpec(), batchSize);
+        }
+
         /**
          * Provides a {@link CloseableRowIterator} that is filtered according to a given {@link TableFilter}. The
          * filtering won't change this KnowsRowCountTable or impact subsequent calls of this method with other filters.
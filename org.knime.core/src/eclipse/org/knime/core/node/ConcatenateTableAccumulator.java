@@ -0,0 +1,429 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.util.CheckUtils;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Collects the tables produced in the iterations of a loop into one result table. Instead of copying every iteration
+ * into a single container (and possibly copying the result once more at the end) the accumulator keeps a list of
+ * segments, which are concatenated by reference when the loop terminates (see
+ * {@link ExecutionContext#createConcatenateTable(ExecutionMonitor, Optional, boolean, BufferedDataTable...)}).
+ *
+ * <p>
+ * Tables appended to the accumulator are treated as follows:
+ * <ul>
+ * <li>Tables that were created by the accumulating node itself and do not reference tables of other nodes are
+ * appended by reference. Their ownership is handed over to the accumulator, i.e. they must not be cleared or used
+ * otherwise by the client.</li>
+ * <li>Any other table (typically the output of the loop body, which is discarded once the loop body is reset for the
+ * next iteration) is copied into new segments of at most {@link #getMinSegmentSize()} rows. The segments are created
+ * and closed with the execution context passed to {@link #append(BufferedDataTable, ExecutionContext)}, so they are
+ * registered with the node like any other table created in that iteration.</li>
+ * </ul>
+ * Once {@value #COMPACTION_THRESHOLD} consecutive segments with less than {@link #getMinSegmentSize()} rows have been
+ * collected, they are merged into one segment in the background and the merged source tables are cleared. The loop
+ * result therefore consists of a few reasonably sized segments, even if the loop runs thousands of iterations with
+ * tiny result tables. A merged segment is completed in a later call and registered with the execution context of that
+ * call.
+ *
+ * <p>
+ * The row keys of all appended tables must be unique (the accumulator does not check for duplicates across
+ * segments). Instances are not thread-safe; they are meant to be kept as a field in a loop end node and fed with the
+ * execution context of the current iteration. Use {@link ExecutionContext#createConcatenateTableAccumulator()} to
+ * create new instances. If the loop does not complete (the node is reset, canceled or fails) the node must call
+ * {@link #dispose()}, which stops pending compactions and clears the tables held by the accumulator.
+ *
+ * <pre>
+ * protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec) {
+ *     if (m_accumulator == null) {
+ *         m_accumulator = exec.createConcatenateTableAccumulator();
+ *     }
+ *     m_accumulator.append(inData[0], exec);
+ *     if (!terminateLoop()) {
+ *         continueLoop();
+ *         return null;
+ *     }
+ *     BufferedDataTable result = m_accumulator.finish(exec);
+ *     m_accumulator = null;
+ *     return new BufferedDataTable[]{result};
+ * }
+ *
+ * protected void reset() {
+ *     if (m_accumulator != null) {
+ *         m_accumulator.dispose();
+ *         m_accumulator = null;
+ *     }
+ * }
+ * </pre>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class ConcatenateTableAccumulator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ConcatenateTableAccumulator.class);
+
+    /** Default number of rows below which a segment is considered small and subject to compaction. */
+    public static final long DEF_MIN_SEGMENT_SIZE = 10000;
+
+    /** Number of consecutive small segments that triggers a background compaction. */
+    static final int COMPACTION_THRESHOLD = 16;
+
+    private final Node m_node;
+
+    private final long m_minSegmentSize;
+
+    private final ThreadPool m_compactionPool;
+
+    private final List<Segment> m_segments;
+
+    private DataTableSpec m_firstSpec;
+
+    private long m_rowCount;
+
+    private boolean m_isFinished;
+
+    /** Set by {@link #dispose()}, checked by the background compactions. */
+    private volatile boolean m_isDisposed;
+
+    /**
+     * @param node the accumulating node, not null
+     * @param minSegmentSize number of rows below which a segment is compacted
+     */
+    ConcatenateTableAccumulator(final Node node, final long minSegmentSize) {
+        m_node = CheckUtils.checkArgumentNotNull(node);
+        CheckUtils.checkArgument(minSegmentSize > 0, "Minimum segment size must be positive: %d", minSegmentSize);
+        m_minSegmentSize = minSegmentSize;
+        m_compactionPool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(1);
+        m_segments = new ArrayList<>();
+    }
+
+    /** @return the number of rows below which a segment is considered small and subject to compaction */
+    public long getMinSegmentSize() {
+        return m_minSegmentSize;
+    }
+
+    /** @return the number of rows appended so far */
+    public long size() {
+        return m_rowCount;
+    }
+
+    /**
+     * @return the number of segments the result table is currently composed of (including segments that are being
+     *         compacted)
+     */
+    public int getSegmentCount() {
+        return m_segments.size();
+    }
+
+    /**
+     * Appends the argument table. See the class description for details on which tables are referenced and which are
+     * copied.
+     *
+     * @param table the table to append, not null
+     * @param exec the execution context of the current iteration, used to create new segments and for cancellation
+     * @throws CanceledExecutionException if canceled while copying the table
+     * @throws IllegalStateException if {@link #finish(ExecutionContext)} or {@link #dispose()} has already been called
+     *             or if the context belongs to a different node
+     */
+    public void append(final BufferedDataTable table, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        checkContext(exec);
+        CheckUtils.checkArgumentNotNull(table, "Table must not be null");
+        if (m_firstSpec == null) {
+            m_firstSpec = table.getDataTableSpec();
+        }
+        harvestCompactions(exec, false);
+        if (table.size() == 0) {
+            return;
+        }
+        if (isSelfContained(table)) {
+            m_segments.add(new Segment(table));
+        } else {
+            copyToSegments(table, exec);
+        }
+        m_rowCount += table.size();
+        triggerCompaction(exec);
+    }
+
+    /**
+     * Waits for pending compactions and creates the result table. The accumulator must not be used after this call.
+     *
+     * @param exec the execution context of the final iteration, used to create the result table
+     * @return the concatenation of all appended tables, in the order they were appended
+     * @throws CanceledExecutionException if canceled while waiting for pending compactions
+     * @throws IllegalStateException if no table was appended or the accumulator is already finished
+     */
+    public BufferedDataTable finish(final ExecutionContext exec) throws CanceledExecutionException {
+        checkContext(exec);
+        CheckUtils.checkState(m_firstSpec != null, "No table has been appended");
+        harvestCompactions(exec, true);
+        m_isFinished = true;
+        m_compactionPool.shutdown();
+        if (m_segments.isEmpty()) {
+            final BufferedDataContainer empty = exec.createDataContainer(m_firstSpec);
+            empty.close();
+            return empty.getTable();
+        }
+        final BufferedDataTable[] tables = m_segments.stream().map(s -> s.m_table).toArray(BufferedDataTable[]::new);
+        m_segments.clear();
+        if (tables.length == 1) {
+            return tables[0];
+        }
+        LOGGER.debugWithFormat("Concatenating %d segments with %d rows in total", tables.length, m_rowCount);
+        return exec.createConcatenateTable(exec, Optional.empty(), false, tables);
+    }
+
+    /**
+     * Discards the accumulator, e.g. when the loop is reset, canceled or fails before {@link #finish(ExecutionContext)}
+     * was called. Pending compactions are stopped and all tables held by the accumulator, including the tables appended
+     * by reference, are cleared. Does nothing if the accumulator has already been finished or disposed.
+     */
+    public void dispose() {
+        if (m_isFinished) {
+            return;
+        }
+        m_isFinished = true;
+        m_isDisposed = true;
+        m_compactionPool.shutdown();
+        m_compactionPool.interruptAll();
+        try {
+            m_compactionPool.waitForTermination();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.debug("Interrupted while waiting for segment compactions to stop", ex);
+        }
+        for (Segment segment : m_segments) {
+            if (segment.m_target != null) {
+                segment.m_target.close();
+                segment.m_target.getTable().clearSingle(m_node);
+                segment.m_sources.forEach(t -> t.clearSingle(m_node));
+            } else {
+                segment.m_table.clearSingle(m_node);
+            }
+        }
+        m_segments.clear();
+        m_rowCount = 0;
+    }
+
+    private void checkContext(final ExecutionContext exec) {
+        CheckUtils.checkState(!m_isFinished, "Accumulator has already been finished or disposed");
+        CheckUtils.checkState(exec.getNode() == m_node, "Execution context belongs to a different node");
+    }
+
+    /** Whether the table and all tables it references are owned by the accumulating node, i.e. won't be cleared
+     * when an upstream node is reset. */
+    private boolean isSelfContained(final BufferedDataTable table) {
+        if (table.getOwner() != m_node) {
+            return false;
+        }
+        for (BufferedDataTable reference : table.getDelegate().getReferenceTables()) {
+            if (!isSelfContained(reference)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the table into new segments, which are created and closed with the argument context. If copying fails or
+     * is canceled, the segments added by this call are removed and cleared again, leaving the accumulator unchanged.
+     */
+    private void copyToSegments(final BufferedDataTable table, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final int segmentCount = m_segments.size();
+        BufferedDataContainer container = exec.createDataContainer(spec);
+        boolean success = false;
+        try (final CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                exec.checkCanceled();
+                container.addRowToTable(it.next());
+                if (container.size() >= m_minSegmentSize) {
+                    final BufferedDataContainer full = container;
+                    container = null;
+                    seal(full, exec);
+                    container = exec.createDataContainer(spec);
+                }
+            }
+            final BufferedDataContainer last = container;
+            container = null;
+            seal(last, exec);
+            success = true;
+        } finally {
+            if (!success) {
+                if (container != null) {
+                    container.close();
+                    exec.clearTable(container.getTable());
+                }
+                final List<Segment> added = m_segments.subList(segmentCount, m_segments.size());
+                added.forEach(segment -> exec.clearTable(segment.m_table));
+                added.clear();
+            }
+        }
+    }
+
+    private void seal(final BufferedDataContainer container, final ExecutionContext exec) {
+        container.close();
+        final BufferedDataTable sealed = container.getTable();
+        if (sealed.size() > 0) {
+            m_segments.add(new Segment(sealed));
+        } else {
+            exec.clearTable(sealed);
+        }
+    }
+
+    /** Merges the trailing run of small segments in the background if it has reached the compaction threshold. */
+    private void triggerCompaction(final ExecutionContext exec) {
+        int runStart = m_segments.size();
+        while (runStart > 0 && isCompactionCandidate(m_segments.get(runStart - 1))
+            && m_segments.get(runStart - 1).m_table.getDataTableSpec()
+                .equalStructure(m_segments.get(m_segments.size() - 1).m_table.getDataTableSpec())) {
+            runStart--;
+        }
+        final int runLength = m_segments.size() - runStart;
+        if (runLength < COMPACTION_THRESHOLD) {
+            return;
+        }
+        final List<Segment> run = m_segments.subList(runStart, m_segments.size());
+        final List<BufferedDataTable> sources = new ArrayList<>(runLength);
+        final DataTableSpec[] specs = new DataTableSpec[runLength];
+        for (int i = 0; i < runLength; i++) {
+            sources.add(run.get(i).m_table);
+            specs[i] = sources.get(i).getDataTableSpec();
+        }
+        run.clear();
+        // containers are created and closed on the calling thread, only the row copying happens in the background;
+        // the target is closed in a later call and its table is then added to that call's context (harvestCompactions)
+        final BufferedDataContainer target = exec.createDataContainer(DataTableSpec.mergeDataTableSpecs(specs));
+        final Future<Void> future = m_compactionPool.enqueue(() -> {
+            for (BufferedDataTable source : sources) {
+                try (final CloseableRowIterator it = source.iterator()) {
+                    while (it.hasNext()) {
+                        if (m_isDisposed) {
+                            throw new CanceledExecutionException("Accumulator has been disposed");
+                        }
+                        target.addRowToTable(it.next());
+                    }
+                }
+            }
+            return null;
+        });
+        m_segments.add(new Segment(sources, target, future));
+    }
+
+    private boolean isCompactionCandidate(final Segment segment) {
+        return segment.m_compaction == null && segment.m_table.size() < m_minSegmentSize
+            && segment.m_table.getOwner() == m_node && segment.m_table.getDelegate().getReferenceTables().length == 0;
+    }
+
+    /**
+     * Replaces completed compactions by their result and clears the merged source tables. The merged table is added to
+     * the local table repository of the argument context: the context that created the target container may belong to
+     * an earlier iteration whose tables have already been handed over to the node.
+     */
+    private void harvestCompactions(final ExecutionContext exec, final boolean wait)
+        throws CanceledExecutionException {
+        for (Segment segment : m_segments) {
+            if (segment.m_compaction == null || !(wait || segment.m_compaction.isDone())) {
+                continue;
+            }
+            try {
+                segment.m_compaction.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while waiting for segment compaction");
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                throw new IllegalStateException("Compacting loop result segments failed: " + cause.getMessage(),
+                    cause);
+            }
+            segment.m_target.close();
+            segment.m_table = segment.m_target.getTable();
+            exec.addToLocalTableRepository(segment.m_table);
+            for (BufferedDataTable source : segment.m_sources) {
+                exec.clearTable(source);
+            }
+            segment.m_compaction = null;
+            segment.m_target = null;
+            segment.m_sources = null;
+            exec.checkCanceled();
+        }
+    }
+
+    /** A segment of the result, either a finished table or a pending compaction of several tables. */
+    private static final class Segment {
+
+        private BufferedDataTable m_table;
+
+        private List<BufferedDataTable> m_sources;
+
+        private BufferedDataContainer m_target;
+
+        private Future<Void> m_compaction;
+
+        Segment(final BufferedDataTable table) {
+            m_table = table;
+        }
+
+        Segment(final List<BufferedDataTable> sources, final BufferedDataContainer target,
+            final Future<Void> compaction) {
+            m_sources = sources;
+            m_target = target;
+            m_compaction = compaction;
+        }
+    }
+}
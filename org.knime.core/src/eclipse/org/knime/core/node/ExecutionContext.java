@@ -47,6 +47,7 @@
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -238,6 +239,25 @@ public FileStore createFileStore(final String relativePath)
         return m_fileStoreHandler.createFileStore(relativePath);
     }
 
+    /** Creates a FileStore handle with the given content. It's the counterpart to {@link #createFileStore(String)}
+     * for file stores whose content is available as a whole, e.g. small images or documents. If
+     * {@linkplain KNIMEConstants#PROPERTY_FILESTORE_PACKED packed file stores} are enabled the content is appended to
+     * a shared segment file, which avoids creating one file per file store. The content can be read via
+     * {@link FileStore#getContent()}; {@link FileStore#getFile()} remains functional but extracts the content into a
+     * separate file on first access.
+     * @param relativePath Name of the file store, see {@link #createFileStore(String)}.
+     * @param content The content of the file store, read from its current position to its limit.
+     * @return a new file store object
+     * @throws IOException if the name is invalid or the content can't be written
+     * @throws DuplicateKeyException If the name was already used in a previous invocation.
+     * @since 4.4
+     * @noreference Pending API. Feel free to use the method but keep in mind
+     * that it might change in a future version of KNIME.
+     */
+    public FileStore createFileStore(final String relativePath, final ByteBuffer content) throws IOException {
+        return m_fileStoreHandler.createFileStore(relativePath, content);
+    }
+
     /**
      * Caches the table argument and returns a reference to a BufferedDataTable
      * wrapping the content. When saving the workflow, the entire data is
@@ -569,6 +589,19 @@ public BufferedDataTable createConcatenateTable(final ExecutionMonitor exec,
         return out;
     }
 
+    /**
+     * Creates a new accumulator that collects the result tables of consecutive loop iterations and concatenates them
+     * when the loop terminates. Compared to copying all iterations into one container (or to concatenating thousands
+     * of small per-iteration tables) tables created by this node are referenced rather than copied and small
+     * segments are compacted in the background. See {@link ConcatenateTableAccumulator} for details.
+     *
+     * @return a new accumulator, which is bound to the node of this execution context.
+     * @since 4.4
+     */
+    public ConcatenateTableAccumulator createConcatenateTableAccumulator() {
+        return new ConcatenateTableAccumulator(m_node, ConcatenateTableAccumulator.DEF_MIN_SEGMENT_SIZE);
+    }
+
     /**
      * Creates a new {@link BufferedDataTable} that is a column based join of
      * the argument tables. The <code>left</code> table argument contributes
@@ -660,6 +693,20 @@ public void clearTable(final BufferedDataTable table) {
         m_localTableRepository.removeTable(id);
     }
 
+    /**
+     * Adds a table of the node to the local table repository of this context. Used for tables whose container was
+     * created with the context of an earlier loop iteration but closed during the current one (the local tables of the
+     * earlier context have already been handed over to the node when that iteration finished).
+     *
+     * @param table the closed table, owned by this context's node
+     */
+    void addToLocalTableRepository(final BufferedDataTable table) {
+        CheckUtils.checkArgument(table.getOwner() == m_node, "Table not created by this node");
+        if (table.getDelegate() instanceof ContainerTable) {
+            m_localTableRepository.addTable((ContainerTable)table.getDelegate());
+        }
+    }
+
     /**
      * Creates a new execution context with a different max progress value.
      * This method is the counterpart to {@link #createSubProgress(double)}
@@ -205,6 +205,43 @@ public final class KNIMEConstants {
      */
     public static final String PROPERTY_DISCOURAGE_GC = "knime.discourage.gc";
 
+    /**
+     * Java property to enable packed file stores. If set to {@code true}, the content of file stores that are created
+     * with their content (see {@link ExecutionContext#createFileStore(String, java.nio.ByteBuffer)}) is appended to a
+     * few large segment files instead of being written to one file per file store. This reduces the number of files
+     * for nodes that create many small file stores. The default is {@code false}.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_FILESTORE_PACKED = "knime.filestore.packed";
+
+    /**
+     * Java property to enable asynchronous logging. If set to {@code true}, messages logged via {@link NodeLogger} are
+     * passed to the log4j appenders by a separate thread so that logging threads don't wait on appender locks or
+     * I/O. The default is {@code false}.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_LOGGING_ASYNC = "knime.logging.async";
+
+    /**
+     * Java property to set the number of messages that can be buffered if asynchronous logging is enabled (see
+     * {@link #PROPERTY_LOGGING_ASYNC}). The default is 8192.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_LOGGING_ASYNC_QUEUE_SIZE = "knime.logging.async.queuesize";
+
+    /**
+     * Java property to set the minimum log level (e.g. "WARN") of messages that are never dropped if the buffer of
+     * the asynchronous logger is full (see {@link #PROPERTY_LOGGING_ASYNC}). Messages of this level or above wait for
+     * the buffer to drain, messages of lower levels are dropped and counted (see
+     * {@link NodeLogger#getAsyncDroppedMessageCount()}). The default is "WARN".
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_LOGGING_ASYNC_BLOCK_LEVEL = "knime.logging.async.blocklevel";
+
     /**
      * Java property to enable/disable table stream compression. Compression results in smaller temp-file sizes but also
      * (sometimes significant) longer runtime. By default {@code Gzip} is used.
@@ -222,6 +259,42 @@ public final class KNIMEConstants {
     @Deprecated
     public static final String PROPERTY_TABLE_GZIP_COMPRESSION = PROPERTY_TABLE_COMPRESSION;
 
+    /**
+     * Java property to save the binary data of tables next to the table's zip file (as "data.bin" next to "data.zip")
+     * instead of adding it to the zip file. Tables saved this way are not extracted to the temp directory when
+     * accessed after the workflow is loaded but are hard-linked into it (falling back to a copy if the temp directory
+     * is on a different file system), which avoids copying large tables. The default is {@code false}.
+     * <p>
+     * <strong>Warning:</strong> Workflows saved with this property set can't be read by KNIME versions prior 4.4.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_TABLE_SIDECAR = "knime.table.sidecar";
+
+    /**
+     * Java property to set the depth from which chains of column-rearranging reference tables (as created by
+     * {@link ExecutionContext#createColumnRearrangeTable(BufferedDataTable, org.knime.core.data.container.ColumnRearranger,
+     * ExecutionMonitor) column rearrangers}, joined tables and spec replacer tables) are read through a single flattened
+     * column mapping over the underlying tables rather than through one wrapper per table in the chain. The reference
+     * structure of the tables (used for saving) is not changed. A non-positive value disables flattening. The default
+     * is 4.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_TABLE_FLATTEN_DEPTH = "knime.table.flattendepth";
+
+    /**
+     * Java property to enable dictionary encoding of string cells when tables are written to disc. Repeated strings
+     * are then written as references into a dictionary of previously written strings, which is bounded in size and
+     * restarted once full. Reading such a table shares a single cell instance among all repetitions of a string. The
+     * default is {@code false}.
+     * <p>
+     * <strong>Warning:</strong> Tables written with this property set can't be read by KNIME versions prior 4.4.
+     *
+     * @since 4.4
+     */
+    public static final String PROPERTY_TABLE_STRING_DICTIONARY = "knime.table.stringdictionary";
+
     /** Java property to enable/disable row ID duplicate checks on tables.
      * Tables in KNIME are supposed to have unique IDs, whereby the uniqueness
      * is asserted using a duplicate checker. This property will disable this
@@ -314,6 +387,19 @@ public final class KNIMEConstants {
      * @since 2.6 */
     public static final String PROPERTY_DATABASE_BATCH_WRITE_SIZE = "knime.database.batch_write_size";
 
+    /** Java property to enable pipelined batch inserts into a database: the number of writer threads, each using its
+     * own connection, that execute the batches while the input table is read. Only applies if the batch write size is
+     * larger than 1. The writers commit their connections' transactions once all rows have been written, the commits
+     * are not atomic across the connections though. Default is 0, that is rows are bound and written synchronously on
+     * the node's connection.
+     * @since 4.4 */
+    public static final String PROPERTY_DATABASE_WRITER_THREADS = "knime.database.writer_threads";
+
+    /** Java property to set the maximum number of dedicated (pooled) connections per database and user, which are used
+     * for parallel reads and writes. Default is 16.
+     * @since 4.4 */
+    public static final String PROPERTY_DATABASE_POOL_SIZE = "knime.database.pool.max_size";
+
     /** Java property to switch on/off the database connection access (applies only for the same database connection).
      * Default is true, that is all database accesses are synchronized based on single connection; false means off,
      * that is, the access is not synchronized and may lead to database errors.
@@ -79,6 +79,7 @@
 import org.knime.core.data.filestore.internal.IFileStoreHandler;
 import org.knime.core.data.filestore.internal.IWriteFileStoreHandler;
 import org.knime.core.internal.ReferencedFile;
+import org.knime.core.node.BufferedDataTable.KnowsRowCountTable;
 import org.knime.core.node.NodeFactory.NodeType;
 import org.knime.core.node.context.ModifiableNodeCreationConfiguration;
 import org.knime.core.node.context.NodeCreationConfiguration;
@@ -2506,6 +2507,17 @@ public static void invokeEnsureOpen(final BufferedDataTable table) {
         table.ensureOpen();
     }
 
+    /** Exposes {@link BufferedDataTable#getDelegate()} as public method. Used by the table framework to read
+     * through chains of reference tables.
+     * @param table To invoke this method on.
+     * @return the underlying table implementation
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.4
+     */
+    public static KnowsRowCountTable invokeGetDelegate(final BufferedDataTable table) {
+        return table.getDelegate();
+    }
+
     /***
      *
      * Creates a new {@link BufferedDataContainer} with or without {@link RowKey}s.
@@ -64,6 +64,7 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Appender;
@@ -220,6 +221,30 @@ public String toString() {
         }
     }
 
+    /**
+     * Message of the <i>xyzWithFormat</i> methods if logging is asynchronous. The message is formatted when it's first
+     * rendered, i.e. on the dispatcher thread and only if any appender accepts the event.
+     */
+    private static final class FormattedMessage {
+
+        private final String m_format;
+        private final Object[] m_args;
+        private String m_formatted;
+
+        private FormattedMessage(final String format, final Object[] args) {
+            m_format = format;
+            m_args = args;
+        }
+
+        @Override
+        public String toString() {
+            if (m_formatted == null) {
+                m_formatted = String.format(m_format, m_args);
+            }
+            return m_formatted;
+        }
+    }
+
     /**
      * Listener that calls {@link NodeLogger#removeWorkflowDirAppender(File)} on workflow closing to
      * remove all workflow relative log file appender.
@@ -297,6 +322,10 @@ public void workflowChanged(final WorkflowEvent event) {
     /** Default log file appender. */
     private static final Appender LOG_FILE_APPENDER;
 
+    /** Passes logging events to the appenders on a separate thread; <code>null</code> if logging is synchronous,
+     * see {@link KNIMEConstants#PROPERTY_LOGGING_ASYNC}. */
+    private static final AsyncLogDispatcher ASYNC_DISPATCHER = AsyncLogDispatcher.createIfEnabled();
+
     private static boolean LOG_IN_WF_DIR = false;
 
     private static boolean LOG_GLOBAL_IN_WF_DIR = false;
@@ -634,7 +663,7 @@ public static NodeLogger getLogger(final String s) {
      * @param o The object to print.
      */
     public void warn(final Object o) {
-        getLoggerInternal().warn(getLogObject(o));
+        log(Level.WARN, o, null);
     }
 
     /**
@@ -643,7 +672,7 @@ public void warn(final Object o) {
      * @param o The object to print.
      */
     public void debug(final Object o) {
-        getLoggerInternal().debug(getLogObject(o));
+        log(Level.DEBUG, o, null);
     }
 
 
@@ -745,6 +774,33 @@ private Logger getLoggerInternal() {
         return m_logger;
     }
 
+    /**
+     * Logs the message either directly or, if asynchronous logging is enabled, via the {@link AsyncLogDispatcher}.
+     *
+     * @param level the log level
+     * @param o the message
+     * @param t an optional throwable, may be <code>null</code>
+     */
+    private void log(final Level level, final Object o, final Throwable t) {
+        final Logger logger = getLoggerInternal();
+        if (ASYNC_DISPATCHER == null) {
+            logger.log(level, getLogObject(o), t);
+        } else if (logger.isEnabledFor(level)) {
+            ASYNC_DISPATCHER.publish(logger, level, getLogObject(o), t);
+        }
+    }
+
+    /**
+     * @return the message for the <i>xyzWithFormat</i> methods -- the formatted string if logging is synchronous,
+     * otherwise an object that formats the message not before it is rendered by the appenders
+     */
+    private static Object formatMessage(final String format, final Object... args) {
+        if (ASYNC_DISPATCHER == null) {
+            return String.format(format, args);
+        }
+        return new FormattedMessage(format, args);
+    }
+
     /**
      * Adds a new workflow directory logger for the given workflow directory if it doesn't exists yet.
      * @param workflowDir the directory of the workflow that should be logged to
@@ -820,6 +876,10 @@ private static void removeWorkflowDirAppender(final File workflowDir) {
         }
         final String workflowDirPath = workflowDir.getPath();
         if (workflowDirPath != null) {
+            if (ASYNC_DISPATCHER != null) {
+                // pending events may still go to the appender that is about to be closed
+                ASYNC_DISPATCHER.flush(TimeUnit.SECONDS.toNanos(5));
+            }
             synchronized (WF_APPENDER) {
                 final Appender appender = WF_APPENDER.remove(workflowDirPath);
                 if (appender != null) {
@@ -841,7 +901,7 @@ private static void removeWorkflowDirAppender(final File workflowDir) {
      * @param o The object to print.
      */
     public void info(final Object o) {
-        getLoggerInternal().info(getLogObject(o));
+        log(Level.INFO, o, null);
     }
 
     /**
@@ -850,7 +910,7 @@ public void info(final Object o) {
      * @param o The object to print.
      */
     public void error(final Object o) {
-        getLoggerInternal().error(getLogObject(o));
+        log(Level.ERROR, o, null);
     }
 
     /**
@@ -859,7 +919,7 @@ public void error(final Object o) {
      * @param o The object to print.
      */
     public void fatal(final Object o) {
-        getLoggerInternal().fatal(getLogObject(o));
+        log(Level.FATAL, o, null);
     }
 
     /**
@@ -869,7 +929,7 @@ public void fatal(final Object o) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void warn(final Object o, final Throwable t) {
-        getLoggerInternal().warn(getLogObject(o), t);
+        log(Level.WARN, o, t);
     }
 
     /**
@@ -879,7 +939,7 @@ public void warn(final Object o, final Throwable t) {
      * @param t The exception to log, including its stack trace.
      */
     public void debug(final Object o, final Throwable t) {
-        getLoggerInternal().debug(getLogObject(o), t);
+        log(Level.DEBUG, o, t);
     }
 
     /**
@@ -889,7 +949,7 @@ public void debug(final Object o, final Throwable t) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void info(final Object o, final Throwable t) {
-        getLoggerInternal().info(getLogObject(o), t);
+        log(Level.INFO, o, t);
     }
 
     /**
@@ -899,7 +959,7 @@ public void info(final Object o, final Throwable t) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void error(final Object o, final Throwable t) {
-        getLoggerInternal().error(getLogObject(o), t);
+        log(Level.ERROR, o, t);
     }
 
     /**
@@ -940,7 +1000,7 @@ public void assertLog(final boolean b, final String m,
      */
     public void coding(final Object o) {
         if (isToLogCodingMessages()) {
-            getLoggerInternal().error(getLogObject(CODING_PROBLEM_PREFIX + o));
+            log(Level.ERROR, CODING_PROBLEM_PREFIX + o, null);
         }
     }
 
@@ -953,7 +1013,7 @@ public void coding(final Object o) {
      */
     public void coding(final Object o, final Throwable t) {
         if (isToLogCodingMessages()) {
-            getLoggerInternal().error(getLogObject(CODING_PROBLEM_PREFIX + o), t);
+            log(Level.ERROR, CODING_PROBLEM_PREFIX + o, t);
         }
     }
 
@@ -977,7 +1037,7 @@ public void codingWithoutContext(final Object o) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void fatal(final Object o, final Throwable t) {
-        getLoggerInternal().fatal(getLogObject(o), t);
+        log(Level.FATAL, o, t);
     }
 
     /**
@@ -991,7 +1051,7 @@ public void fatal(final Object o, final Throwable t) {
      */
     public void warnWithFormat(final String format, final Object... args) {
         if (isEnabledFor(LEVEL.WARN)) {
-            this.warn(String.format(format, args));
+            log(Level.WARN, formatMessage(format, args), null);
         }
     }
 
@@ -1006,7 +1066,7 @@ public void warnWithFormat(final String format, final Object... args) {
      */
     public void debugWithFormat(final String format, final Object... args) {
         if (isEnabledFor(LEVEL.DEBUG)) {
-            this.debug(String.format(format, args));
+            log(Level.DEBUG, formatMessage(format, args), null);
         }
     }
 
@@ -1021,7 +1081,7 @@ public void debugWithFormat(final String format, final Object... args) {
      */
     public void infoWithFormat(final String format, final Object... args) {
         if (isEnabledFor(LEVEL.INFO)) {
-            this.info(String.format(format, args));
+            log(Level.INFO, formatMessage(format, args), null);
         }
     }
 
@@ -1036,7 +1096,7 @@ public void infoWithFormat(final String format, final Object... args) {
      */
     public void errorWithFormat(final String format, final Object... args) {
         if (isEnabledFor(LEVEL.ERROR)) {
-            this.error(String.format(format, args));
+            log(Level.ERROR, formatMessage(format, args), null);
         }
     }
 
@@ -1051,7 +1111,7 @@ public void errorWithFormat(final String format, final Object... args) {
      */
     public void fatalWithFormat(final String format, final Object... args) {
         if (isEnabledFor(LEVEL.FATAL)) {
-            this.fatal(String.format(format, args));
+            log(Level.FATAL, formatMessage(format, args), null);
         }
     }
 
@@ -1066,7 +1126,7 @@ public void fatalWithFormat(final String format, final Object... args) {
      */
     public void codingWithFormat(final String format, final Object... args) {
         if (isToLogCodingMessages()) {
-            coding(String.format(format, args));
+            log(Level.ERROR, formatMessage(CODING_PROBLEM_PREFIX + format, args), null);
         }
     }
 
@@ -1255,6 +1315,43 @@ public boolean isEnabledFor(final LEVEL level) {
         return getLoggerInternal().isEnabledFor(transLEVEL(level));
     }
 
+    /**
+     * @return <code>true</code> if messages are passed to the appenders asynchronously, see
+     *         {@link KNIMEConstants#PROPERTY_LOGGING_ASYNC}
+     * @since 4.4
+     */
+    public static boolean isAsyncLoggingEnabled() {
+        return ASYNC_DISPATCHER != null;
+    }
+
+    /**
+     * @return the number of messages that were dropped by the asynchronous logger because its buffer was full, 0 if
+     *         logging is synchronous
+     * @since 4.4
+     */
+    public static long getAsyncDroppedMessageCount() {
+        return ASYNC_DISPATCHER == null ? 0 : ASYNC_DISPATCHER.getDroppedCount(null);
+    }
+
+    /**
+     * @param level the level of interest
+     * @return the number of messages of the given level that were dropped by the asynchronous logger because its
+     *         buffer was full, 0 if logging is synchronous
+     * @since 4.4
+     */
+    public static long getAsyncDroppedMessageCount(final LEVEL level) {
+        return ASYNC_DISPATCHER == null ? 0 : ASYNC_DISPATCHER.getDroppedCount(transLEVEL(level));
+    }
+
+    /**
+     * @return the number of messages currently waiting to be passed to the appenders by the asynchronous logger, 0 if
+     *         logging is synchronous
+     * @since 4.4
+     */
+    public static int getAsyncQueueDepth() {
+        return ASYNC_DISPATCHER == null ? 0 : ASYNC_DISPATCHER.getQueueDepth();
+    }
+
     /**
      * @return <code>true</code> if assertions are on or run from the SDK.
      */
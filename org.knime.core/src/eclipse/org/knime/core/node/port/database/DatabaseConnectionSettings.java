@@ -257,6 +257,29 @@ private static int initBatchWriteSize() {
         return 1;
     }
 
+    /** Number of writer threads used for pipelined batch inserts, 0 if disabled.
+     * @see KNIMEConstants#PROPERTY_DATABASE_WRITER_THREADS
+     * @since 4.4 */
+    public static final int WRITER_THREADS = initWriterThreads();
+    private static int initWriterThreads() {
+        String threads = System.getProperty(KNIMEConstants.PROPERTY_DATABASE_WRITER_THREADS);
+        if (threads != null) {
+            try {
+                final int writerThreads = Integer.parseInt(threads);
+                if (writerThreads >= 0) {
+                    LOGGER.debug("Database writer threads: " + writerThreads);
+                    return writerThreads;
+                } else {
+                    LOGGER.warn("Database property " + KNIMEConstants.PROPERTY_DATABASE_WRITER_THREADS + "="
+                        + writerThreads + " can't be negative, pipelined writing disabled.");
+                }
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database writer threads not valid '" + threads + "', pipelined writing disabled.");
+            }
+        }
+        return 0;
+    }
+
     private String m_driver;
     private String m_credName = null;
 
@@ -391,6 +391,18 @@ public static final String writeData(final DatabaseConnectionSettings dbConn, fi
 
         // create table meta data with empty column information
         final String query = "INSERT INTO " + table + " " + columnNamesForInsertStatement + " VALUES " + wildcard;
+        if (DatabaseConnectionSettings.WRITER_THREADS > 0 && batchSize > 1) {
+            // make the (new) table visible to the writers' connections
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            final TimeZone timezone = dbConn.getTimeZone();
+            final Map<Integer, Integer> finalColumnTypes = columnTypes;
+            final PipelinedBatchWriter writer = new PipelinedBatchWriter(dbConn, cp, query, (insertStmt, r) -> bindRow(
+                insertStmt, r, spec, mapping, insertNullForMissingCols, timezone, finalColumnTypes), batchSize,
+                DatabaseConnectionSettings.WRITER_THREADS, exec);
+            return writer.write(input, rowCount);
+        }
         LOGGER.debug("Executing SQL statement as prepareStatement: " + query);
         final PreparedStatement stmt = conn.prepareStatement(query);
         // remember auto-commit flag
@@ -411,19 +423,7 @@ public static final String writeData(final DatabaseConnectionSettings dbConn, fi
                         exec.setProgress("Writing Row#" + cnt);
                     }
 
-                int dbIdx = 1;
-                for (int i = 0; i < mapping.length; i++) {
-                    if (mapping[i] < 0) {
-                        if (insertNullForMissingCols) {
-                            //insert only null if the insert null for missing col option is enabled
-                            stmt.setNull(dbIdx++, Types.NULL);
-                        }
-                    } else {
-                        final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
-                        final DataCell cell = row.getCell(mapping[i]);
-                        fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
-                    }
-                }
+                bindRow(stmt, row, spec, mapping, insertNullForMissingCols, timezone, columnTypes);
                 // if batch mode
                 if (batchSize > 1) {
                     // a new row will be added
@@ -823,6 +823,25 @@ public static final String deleteRows(
         });
     }
 
+    /** Sets the parameters of the insert statement to the values of the given row. */
+    private static void bindRow(final PreparedStatement stmt, final DataRow row, final DataTableSpec spec,
+        final int[] mapping, final boolean insertNullForMissingCols, final TimeZone timezone,
+        final Map<Integer, Integer> columnTypes) throws SQLException {
+        int dbIdx = 1;
+        for (int i = 0; i < mapping.length; i++) {
+            if (mapping[i] < 0) {
+                if (insertNullForMissingCols) {
+                    //insert only null if the insert null for missing col option is enabled
+                    stmt.setNull(dbIdx++, Types.NULL);
+                }
+            } else {
+                final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
+                final DataCell cell = row.getCell(mapping[i]);
+                fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
+            }
+        }
+    }
+
     /**
      * Set given column value into SQL statement.
      * @param stmt statement used
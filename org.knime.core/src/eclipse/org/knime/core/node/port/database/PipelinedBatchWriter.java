@@ -0,0 +1,361 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Inserts rows in batches with several writer threads. The calling thread reads the input and collects the rows into
+ * batches, which are handed to the writer threads via a bounded queue. Each writer binds and executes the batches on
+ * its own connection (see
+ * {@link org.knime.core.node.port.database.connection.DBConnectionFactory#createDedicatedConnection(CredentialsProvider, DatabaseConnectionSettings)}).
+ * Failing batches are reported and counted as in {@link DatabaseWriterConnection}, i.e. they don't stop the insert.
+ *
+ * <p>
+ * Transactions: each writer writes into the transaction of its own connection. As in the sequential insert, the rows
+ * are committed once all rows have been written (and after a failing batch, see
+ * {@link DatabaseWriterConnection}): the writers wait for each other after their last batch and commit only once all
+ * of them have succeeded. If the insert fails or is canceled, all writers roll back their uncommitted rows before they
+ * restore the auto-commit flag. The commits of the writers are not atomic though, if committing fails on one of the
+ * connections, the rows of the writers that have already committed remain in the table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see DatabaseConnectionSettings#WRITER_THREADS
+ */
+final class PipelinedBatchWriter {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PipelinedBatchWriter.class);
+
+    /** Sets the parameters of the insert statement for a row. */
+    @FunctionalInterface
+    interface RowBinder {
+        void bind(PreparedStatement stmt, DataRow row) throws SQLException;
+    }
+
+    /** Rows written in one batch, with the (1-based) index of the first row for error reporting. */
+    private static final class Batch {
+
+        private final List<DataRow> m_rows;
+
+        private final long m_firstRow;
+
+        Batch(final List<DataRow> rows, final long firstRow) {
+            m_rows = rows;
+            m_firstRow = firstRow;
+        }
+    }
+
+    /** Queued once per writer to signal the end of the input. */
+    private static final Batch END = new Batch(Collections.emptyList(), -1);
+
+    /** Opens the connection of a writer. */
+    private final Callable<Connection> m_connectionFactory;
+
+    private final String m_insertQuery;
+
+    private final RowBinder m_binder;
+
+    private final int m_batchSize;
+
+    private final int m_writerCount;
+
+    private final ExecutionMonitor m_exec;
+
+    private final BlockingQueue<Batch> m_queue;
+
+    private final AtomicLong m_allErrors = new AtomicLong();
+
+    /** Counted down by each writer once it has written its last batch, before committing. */
+    private final CountDownLatch m_written;
+
+    /** Completed by the calling thread once all rows are written: whether the writers commit or roll back. */
+    private final CompletableFuture<Boolean> m_commit = new CompletableFuture<>();
+
+    /** Number of errors logged on warn level, -1 once further errors are only counted. */
+    private int m_reportedErrors;
+
+    /**
+     * @param dbConn the connection settings
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param insertQuery the insert statement with a parameter for each value
+     * @param binder sets the parameters of the statement for a row
+     * @param batchSize number of rows written in one batch
+     * @param writerCount number of writer threads (and connections)
+     * @param exec for progress and cancellation
+     */
+    PipelinedBatchWriter(final DatabaseConnectionSettings dbConn, final CredentialsProvider cp,
+        final String insertQuery, final RowBinder binder, final int batchSize, final int writerCount,
+        final ExecutionMonitor exec) {
+        this(() -> dbConn.getUtility().getConnectionFactory().createDedicatedConnection(cp, dbConn), insertQuery,
+            binder, batchSize, writerCount, exec);
+    }
+
+    /**
+     * @param connectionFactory opens a new connection per writer, which is closed by the writer
+     * @param insertQuery the insert statement with a parameter for each value
+     * @param binder sets the parameters of the statement for a row
+     * @param batchSize number of rows written in one batch
+     * @param writerCount number of writer threads (and connections)
+     * @param exec for progress and cancellation
+     */
+    PipelinedBatchWriter(final Callable<Connection> connectionFactory, final String insertQuery,
+        final RowBinder binder, final int batchSize, final int writerCount, final ExecutionMonitor exec) {
+        m_connectionFactory = connectionFactory;
+        m_insertQuery = insertQuery;
+        m_binder = binder;
+        m_batchSize = batchSize;
+        m_writerCount = writerCount;
+        m_exec = exec;
+        m_queue = new ArrayBlockingQueue<>(2 * writerCount);
+        m_written = new CountDownLatch(writerCount);
+    }
+
+    /**
+     * Writes all rows of the input.
+     *
+     * @param input the rows to insert
+     * @param rowCount the number of rows (for progress) or a non-positive value if unknown
+     * @return <code>null</code> if all rows have been written, otherwise an error summary
+     * @throws Exception if reading the input, opening a connection, binding a row or committing fails or if canceled;
+     *             the writers have rolled back their uncommitted rows when this method throws
+     */
+    String write(final RowInput input, final long rowCount) throws Exception {
+        final ExecutorService executor =
+            ThreadUtils.executorServiceWithContext(Executors.newFixedThreadPool(m_writerCount));
+        boolean success = false;
+        try {
+            final List<Future<Void>> writers = new ArrayList<>(m_writerCount);
+            for (int i = 0; i < m_writerCount; i++) {
+                writers.add(executor.submit(this::runWriter));
+            }
+            long cnt = 0;
+            List<DataRow> rows = new ArrayList<>(m_batchSize);
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                cnt++;
+                m_exec.checkCanceled();
+                if (rowCount > 0) {
+                    m_exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt);
+                } else {
+                    m_exec.setProgress("Writing Row#" + cnt);
+                }
+                rows.add(row);
+                if (rows.size() == m_batchSize) {
+                    enqueue(new Batch(rows, cnt - rows.size() + 1), writers);
+                    rows = new ArrayList<>(m_batchSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                enqueue(new Batch(rows, cnt - rows.size() + 1), writers);
+            }
+            for (int i = 0; i < m_writerCount; i++) {
+                enqueue(END, writers);
+            }
+            // commit only if all writers have written their rows
+            while (!m_written.await(100, TimeUnit.MILLISECONDS)) {
+                checkWriters(writers);
+                m_exec.checkCanceled();
+            }
+            m_commit.complete(Boolean.TRUE);
+            for (Future<Void> writer : writers) {
+                getResult(writer);
+            }
+            success = true;
+            final long allErrors = m_allErrors.get();
+            if (allErrors == 0) {
+                return null;
+            } else {
+                return "Errors \"" + allErrors + "\" writing " + cnt + " rows.";
+            }
+        } finally {
+            // the writers waiting for the outcome roll back (no-op if the commit has already been started)
+            m_commit.complete(Boolean.FALSE);
+            // interrupts the writers waiting for batches
+            executor.shutdownNow();
+            if (!success) {
+                awaitTermination(executor);
+            }
+        }
+    }
+
+    /** Waits for the writers to roll back and close their connections. */
+    private static void awaitTermination(final ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.debug("Waiting for database writers to stop...");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.debug("Interrupted while waiting for database writers to stop", ex);
+        }
+    }
+
+    /** Puts the batch into the queue, failing if any of the writers failed in the meantime. */
+    private void enqueue(final Batch batch, final List<Future<Void>> writers) throws Exception {
+        while (!m_queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            checkWriters(writers);
+            m_exec.checkCanceled();
+        }
+    }
+
+    /** Throws the exception of the first writer that failed, if any. */
+    private static void checkWriters(final List<Future<Void>> writers) throws Exception {
+        for (Future<Void> writer : writers) {
+            if (writer.isDone()) {
+                getResult(writer);
+            }
+        }
+    }
+
+    private static void getResult(final Future<Void> writer) throws Exception {
+        try {
+            writer.get();
+        } catch (ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    private Void runWriter() throws Exception {
+        try (Connection conn = m_connectionFactory.call();
+                PreparedStatement stmt = conn.prepareStatement(m_insertQuery)) {
+            // remember auto-commit flag
+            final boolean autoCommit = conn.getAutoCommit();
+            DatabaseConnectionSettings.setAutoCommit(conn, false);
+            boolean committed = false;
+            try {
+                Batch batch;
+                while ((batch = m_queue.take()) != END) {
+                    writeBatch(conn, stmt, batch);
+                }
+                m_written.countDown();
+                if (m_commit.get().booleanValue()) {
+                    if (!conn.getAutoCommit()) {
+                        conn.commit();
+                    }
+                    committed = true;
+                }
+            } finally {
+                if (!committed) {
+                    rollback(conn);
+                }
+                // restoring auto-commit would otherwise commit the rows of a failed or canceled insert
+                DatabaseConnectionSettings.setAutoCommit(conn, autoCommit);
+            }
+        }
+        return null;
+    }
+
+    private static void rollback(final Connection conn) {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+            }
+        } catch (SQLException ex) {
+            LOGGER.debug("Unable to roll back database writer: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void writeBatch(final Connection conn, final PreparedStatement stmt, final Batch batch)
+        throws SQLException {
+        for (DataRow row : batch.m_rows) {
+            m_binder.bind(stmt, row);
+            stmt.addBatch();
+        }
+        try {
+            stmt.executeBatch();
+        } catch (Throwable t) {
+            // Postgres will refuse any more commands in this transaction after errors
+            // Therefore we commit the changes that were possible. We commit everything at the end
+            // anyway.
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            m_allErrors.incrementAndGet();
+            reportError("Error while adding rows #" + batch.m_firstRow + " - #"
+                + (batch.m_firstRow + batch.m_rows.size() - 1) + ", reason: " + t.getMessage(), t);
+        } finally {
+            stmt.clearBatch();
+        }
+    }
+
+    private synchronized void reportError(final String errorMsg, final Throwable t) {
+        if (m_reportedErrors > -1) {
+            m_exec.setMessage(errorMsg);
+            if (m_reportedErrors++ < 10) {
+                LOGGER.warn(errorMsg);
+            } else {
+                m_reportedErrors = -1;
+                LOGGER.warn(errorMsg + " - more errors...", t);
+            }
+        }
+    }
+}
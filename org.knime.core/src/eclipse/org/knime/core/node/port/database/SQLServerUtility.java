@@ -85,6 +85,15 @@ public String randomRows(final String sql, final long count) {
             return "SELECT TOP " + count + " * FROM (" + sql + ") " + getTempTableName() + " ORDER BY NEWID()";
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String getModuloPredicate(final String column, final int partitionCount, final int partition) {
+            final String predicate = "ABS(" + column + " % " + partitionCount + ") = " + partition;
+            return partition == 0 ? "(" + predicate + " OR " + column + " IS NULL)" : predicate;
+        }
+
         /**
          * {@inheritDoc}
          */
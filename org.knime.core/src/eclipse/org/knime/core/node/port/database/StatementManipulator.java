@@ -162,6 +162,37 @@ public String forMetadataOnly(final String sql) {
         return "SELECT * FROM (" + sql + ") " + getTempTableName() + " WHERE (1 = 0)";
     }
 
+    /**
+     * Restricts the query to one of <code>partitionCount</code> disjoint partitions, based on the remainder of an
+     * integer column divided by the partition count. Rows with a <code>NULL</code> value in the column belong to
+     * partition 0. The default implementation uses the <code>MOD</code> function.
+     *
+     * @param sql any valid SQL query
+     * @param column the name of an integer column of the query's result
+     * @param partitionCount the number of partitions, &gt; 0
+     * @param partition the partition to select, 0 &lt;= partition &lt; partitionCount
+     * @return an SQL query
+     * @since 4.4
+     */
+    public String partitionByModulo(final String sql, final String column, final int partitionCount,
+        final int partition) {
+        return "SELECT * FROM (" + sql + ") " + getTempTableName() + " WHERE "
+            + getModuloPredicate(quoteIdentifier(column), partitionCount, partition);
+    }
+
+    /**
+     * @param column the quoted column
+     * @param partitionCount the number of partitions
+     * @param partition the partition to select
+     * @return the predicate selecting the partition's rows, see
+     *         {@link #partitionByModulo(String, String, int, int)}
+     * @since 4.4
+     */
+    protected String getModuloPredicate(final String column, final int partitionCount, final int partition) {
+        final String predicate = "ABS(MOD(" + column + ", " + partitionCount + ")) = " + partition;
+        return partition == 0 ? "(" + predicate + " OR " + column + " IS NULL)" : predicate;
+    }
+
     /**
      * @param tableName the name of the table to create
      * @param query the select statement
@@ -56,16 +56,20 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
 import org.knime.core.node.port.database.RegisteredDriversConnectionFactory;
@@ -87,6 +91,28 @@ public class CachedConnectionFactory implements DBConnectionFactory {
      * process. */
     private static final Map<ConnectionKey, ConnectionKey> CONNECTION_KEYS = new HashMap<ConnectionKey, ConnectionKey>();
     private static final ExecutorService CONNECTION_CREATOR_EXECUTOR = ThreadUtils.executorServiceWithContext(Executors.newCachedThreadPool());
+    /** Pools of dedicated connections per key, see {@link #createDedicatedConnection}. */
+    private static final Map<ConnectionKey, ConnectionPool> CONNECTION_POOLS = new ConcurrentHashMap<>();
+    /** Maximum number of dedicated connections per key, see {@link KNIMEConstants#PROPERTY_DATABASE_POOL_SIZE}. */
+    private static final int POOL_MAX_SIZE = initPoolMaxSize();
+    private static final long POOL_IDLE_TIMEOUT_MINUTES = 10;
+    private static final long POOL_MAX_LIFETIME_MINUTES = 30;
+    /** Maximum time to wait for a free dedicated connection if no timeout is given. */
+    private static final long POOL_BORROW_TIMEOUT_MINUTES = 5;
+    /** Closes expired idle connections of all pools, see {@link ConnectionPool#evictExpired()}. */
+    private static final ScheduledExecutorService POOL_EVICTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "KNIME-DB-Connection-Pool-Evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        POOL_EVICTOR.scheduleWithFixedDelay(() -> CONNECTION_POOLS.values().forEach(ConnectionPool::evictExpired),
+            1, 1, TimeUnit.MINUTES);
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(CachedConnectionFactory::closePools, "KNIME-DB-Connection-Pool-Shutdown"));
+    }
+
     private DBDriverFactory m_driverFactory;
 
     /**
@@ -151,6 +177,23 @@ public String toString() {
         }
     }
 
+    private static int initPoolMaxSize() {
+        final String size = System.getProperty(KNIMEConstants.PROPERTY_DATABASE_POOL_SIZE);
+        if (size != null) {
+            try {
+                final int poolSize = Integer.parseInt(size);
+                if (poolSize > 0) {
+                    LOGGER.debug("Database connection pool size: " + poolSize);
+                    return poolSize;
+                }
+                LOGGER.warn("Database connection pool size must be positive: " + poolSize + ", using default.");
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database connection pool size not valid '" + size + "', using default.");
+            }
+        }
+        return 16;
+    }
+
     /**
      * @param driverFactory the {@link DBDriverFactory} to get the {@link Driver}
      */
@@ -172,10 +215,8 @@ public DBDriverFactory getDriverFactory() {
      */
     @Override
     public Connection getConnection(final CredentialsProvider cp, final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
-        final String jdbcUrl = settings.getJDBCUrl();
         final String user = settings.getUserName(cp);
         final String pass = settings.getPassword(cp);
-        final boolean kerberos = settings.useKerberos();
 
         ConnectionKey databaseConnKey = createConnectionKey(cp, settings);
 
@@ -205,44 +246,112 @@ public Connection getConnection(final CredentialsProvider cp, final DatabaseConn
                 CONNECTION_MAP.remove(databaseConnKey);
             }
             LOGGER.debug("Create new connection for key: " + databaseConnKey);
-            final Driver d;
-            try {
-                d = getDriverFactory().getDriver(settings);
-            } catch (Exception ex1) {
-                throw new InvalidSettingsException(ex1);
+            conn = openConnection(settings, user, pass);
+            LOGGER.debug("Add connection to map for key: " + databaseConnKey);
+            CONNECTION_MAP.put(databaseConnKey, conn);
+            return conn;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Connections are leased from a pool of at most {@link KNIMEConstants#PROPERTY_DATABASE_POOL_SIZE} connections
+     * per database and user. If all of them are in use, this method waits for one to be returned, but fails after a
+     * few minutes rather than blocking forever.
+     *
+     * @since 4.4
+     */
+    @Override
+    public Connection createDedicatedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
+        return createDedicatedConnection(cp, settings, POOL_BORROW_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @since 4.4
+     */
+    @Override
+    public Connection createDedicatedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings, final long timeout, final TimeUnit unit)
+        throws InvalidSettingsException, SQLException, IOException {
+        final String user = settings.getUserName(cp);
+        final String pass = settings.getPassword(cp);
+        final ConnectionKey databaseConnKey = createConnectionKey(cp, settings);
+        final ConnectionPool pool = CONNECTION_POOLS.computeIfAbsent(databaseConnKey,
+            k -> new ConnectionPool(k.toString(), () -> openConnection(settings, user, pass),
+                conn -> settings.getUtility().isValid(conn), POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MINUTES,
+                POOL_MAX_LIFETIME_MINUTES, TimeUnit.MINUTES));
+        LOGGER.debug("Lease dedicated connection for key: " + databaseConnKey + " (" + pool.getStatistics() + ")");
+        return pool.borrow(timeout, unit);
+    }
+
+    /**
+     * Returns the usage of the pool of dedicated connections (see
+     * {@link #createDedicatedConnection(CredentialsProvider, DatabaseConnectionSettings)}) for the given settings.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return the pool's statistics or an empty optional if no dedicated connection has been requested yet
+     * @since 4.4
+     */
+    public static Optional<ConnectionPool.Statistics> getPoolStatistics(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) {
+        return Optional.ofNullable(CONNECTION_POOLS.get(createConnectionKey(cp, settings)))
+            .map(ConnectionPool::getStatistics);
+    }
+
+    /** Closes all pools of dedicated connections, called when the JVM shuts down. */
+    private static void closePools() {
+        POOL_EVICTOR.shutdownNow();
+        for (final ConnectionKey key : CONNECTION_POOLS.keySet()) {
+            final ConnectionPool pool = CONNECTION_POOLS.remove(key);
+            if (pool != null) {
+                pool.close();
             }
-            if (!d.acceptsURL(jdbcUrl)) {
-                throw new InvalidSettingsException("Driver \"" + d + "\" does not accept URL: " + jdbcUrl);
+        }
+    }
+
+    /** Opens a new connection (via the {@link #CONNECTION_CREATOR_EXECUTOR} to apply the database timeout). */
+    private Connection openConnection(final DatabaseConnectionSettings settings, final String user,
+        final String pass) throws InvalidSettingsException, SQLException, IOException {
+        final String jdbcUrl = settings.getJDBCUrl();
+        final boolean kerberos = settings.useKerberos();
+        final Driver d;
+        try {
+            d = getDriverFactory().getDriver(settings);
+        } catch (Exception ex1) {
+            throw new InvalidSettingsException(ex1);
+        }
+        if (!d.acceptsURL(jdbcUrl)) {
+            throw new InvalidSettingsException("Driver \"" + d + "\" does not accept URL: " + jdbcUrl);
+        }
+        // if a connection is not available
+        Callable<Connection> callable = new Callable<Connection>() {
+            /** {@inheritDoc} */
+            @Override
+            public Connection call() throws Exception {
+                LOGGER.debug("Opening database connection to \"" + jdbcUrl + "\"...");
+                return createConnection(settings, jdbcUrl, user, pass, kerberos, d);
             }
-            // if a connection is not available
-            Callable<Connection> callable = new Callable<Connection>() {
-                /** {@inheritDoc} */
-                @Override
-                public Connection call() throws Exception {
-                    LOGGER.debug("Opening database connection to \"" + jdbcUrl + "\"...");
-                    return createConnection(settings, jdbcUrl, user, pass, kerberos, d);
-                }
-            };
-            //TODO:this has to be more robust e.g. the thread should terminate when KNIME terminates and should be
-            //cancelable if the user presses cancel. If no credentials are present for Phoenix the thread keeps KNIME
-            //alive for ages
-            Future<Connection> task = CONNECTION_CREATOR_EXECUTOR.submit(callable);
-            try {
-                conn = task.get(DatabaseConnectionSettings.getDatabaseTimeout() + 1, TimeUnit.SECONDS);
-                LOGGER.debug("Add connection to map for key: " + databaseConnKey);
-                CONNECTION_MAP.put(databaseConnKey, conn);
-                return conn;
-            } catch (ExecutionException ee) {
-                if (ee.getCause() instanceof SQLException) {
-                    throw (SQLException) ee.getCause();
-                } else {
-                    throw new SQLException(ee.getCause());
-                }
-            } catch (InterruptedException ex) {
-                throw new SQLException("Thread was interrupted while waiting for database to respond");
-            } catch (TimeoutException ex) {
-                throw new IOException("Connection to database '" + jdbcUrl + "' timed out");
+        };
+        //TODO:this has to be more robust e.g. the thread should terminate when KNIME terminates and should be
+        //cancelable if the user presses cancel. If no credentials are present for Phoenix the thread keeps KNIME
+        //alive for ages
+        Future<Connection> task = CONNECTION_CREATOR_EXECUTOR.submit(callable);
+        try {
+            return task.get(DatabaseConnectionSettings.getDatabaseTimeout() + 1, TimeUnit.SECONDS);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof SQLException) {
+                throw (SQLException) ee.getCause();
+            } else {
+                throw new SQLException(ee.getCause());
             }
+        } catch (InterruptedException ex) {
+            throw new SQLException("Thread was interrupted while waiting for database to respond");
+        } catch (TimeoutException ex) {
+            throw new IOException("Connection to database '" + jdbcUrl + "' timed out");
         }
     }
 
@@ -0,0 +1,475 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A bounded pool of connections to one database (as identified by a {@link CachedConnectionFactory.ConnectionKey}).
+ * Connections are leased by {@link #borrow()} and returned to the pool by closing the leased connection. Idle
+ * connections are validated before they are handed out again, closed if they have been idle for too long and
+ * connections are retired after a maximum lifetime. Expired connections are evicted whenever a connection is borrowed
+ * or returned and by {@link #evictExpired()}, which the owner of the pool should call periodically. The auto-commit,
+ * read-only and transaction isolation settings a connection had when it was opened are restored when it is returned
+ * (fetch sizes are set per statement and hence not affected by a previous lease).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ConnectionPool.class);
+
+    /** Opens a new physical connection. */
+    @FunctionalInterface
+    public interface ConnectionOpener {
+        /**
+         * @return a new connection
+         * @throws Exception if the connection can't be opened
+         */
+        Connection open() throws Exception;
+    }
+
+    /** Checks whether an idle connection can still be used. */
+    @FunctionalInterface
+    public interface ConnectionValidator {
+        /**
+         * @param conn an open connection
+         * @return <code>true</code> if the connection is valid
+         * @throws Exception if validation fails (the connection is then considered invalid)
+         */
+        boolean isValid(Connection conn) throws Exception;
+    }
+
+    /** Snapshot of the pool's usage. */
+    public static final class Statistics {
+
+        private final int m_activeConnections;
+
+        private final int m_idleConnections;
+
+        private final long m_borrowCount;
+
+        private final long m_totalWaitNanos;
+
+        private final long m_maxWaitNanos;
+
+        private Statistics(final int activeConnections, final int idleConnections, final long borrowCount,
+            final long totalWaitNanos, final long maxWaitNanos) {
+            m_activeConnections = activeConnections;
+            m_idleConnections = idleConnections;
+            m_borrowCount = borrowCount;
+            m_totalWaitNanos = totalWaitNanos;
+            m_maxWaitNanos = maxWaitNanos;
+        }
+
+        /** @return number of connections currently leased (including connections being opened) */
+        public int getActiveConnections() {
+            return m_activeConnections;
+        }
+
+        /** @return number of open connections in the pool that are not leased */
+        public int getIdleConnections() {
+            return m_idleConnections;
+        }
+
+        /** @return number of successful {@link ConnectionPool#borrow()} calls */
+        public long getBorrowCount() {
+            return m_borrowCount;
+        }
+
+        /** @return the total time spent waiting for a free connection, in nanoseconds */
+        public long getTotalWaitNanos() {
+            return m_totalWaitNanos;
+        }
+
+        /** @return the longest time a single borrow waited for a free connection, in nanoseconds */
+        public long getMaxWaitNanos() {
+            return m_maxWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "active=" + m_activeConnections + ", idle=" + m_idleConnections + ", borrowed=" + m_borrowCount
+                + ", total wait=" + TimeUnit.NANOSECONDS.toMillis(m_totalWaitNanos) + "ms, max wait="
+                + TimeUnit.NANOSECONDS.toMillis(m_maxWaitNanos) + "ms";
+        }
+    }
+
+    /** A physical connection with its creation and last return time and its initial state. */
+    private static final class PooledConnection {
+
+        private final Connection m_connection;
+
+        private final long m_createdNanos;
+
+        private final boolean m_autoCommit;
+
+        private final boolean m_readOnly;
+
+        private final int m_transactionIsolation;
+
+        private long m_idleSinceNanos;
+
+        PooledConnection(final Connection connection, final long createdNanos) throws SQLException {
+            m_connection = connection;
+            m_createdNanos = createdNanos;
+            m_autoCommit = connection.getAutoCommit();
+            m_readOnly = connection.isReadOnly();
+            m_transactionIsolation = connection.getTransactionIsolation();
+        }
+
+        /** Rolls back pending changes and restores the state the connection had when it was opened. */
+        void reset() throws SQLException {
+            if (!m_connection.getAutoCommit()) {
+                // don't leak uncommitted changes into the next lease
+                m_connection.rollback();
+            }
+            if (m_connection.getAutoCommit() != m_autoCommit) {
+                m_connection.setAutoCommit(m_autoCommit);
+            }
+            if (m_connection.isReadOnly() != m_readOnly) {
+                m_connection.setReadOnly(m_readOnly);
+            }
+            if (m_connection.getTransactionIsolation() != m_transactionIsolation) {
+                m_connection.setTransactionIsolation(m_transactionIsolation);
+            }
+            m_connection.clearWarnings();
+        }
+    }
+
+    private final String m_name;
+
+    private final ConnectionOpener m_opener;
+
+    private final ConnectionValidator m_validator;
+
+    private final int m_maxSize;
+
+    private final long m_idleTimeoutNanos;
+
+    private final long m_maxLifetimeNanos;
+
+    /** Idle connections, the most recently returned last. Guarded by this. */
+    private final Deque<PooledConnection> m_idle = new ArrayDeque<>();
+
+    /** Number of leased connections (including the ones being opened). Guarded by this. */
+    private int m_active;
+
+    private long m_borrowCount;
+
+    private long m_totalWaitNanos;
+
+    private long m_maxWaitNanos;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param name the name of the pool (for logging)
+     * @param opener opens new connections
+     * @param validator validates idle connections before they are leased again
+     * @param maxSize the maximum number of open connections, &gt; 0
+     * @param idleTimeout time after which an idle connection is closed
+     * @param maxLifetime time after which a connection is closed (when it is idle)
+     * @param unit the unit of the timeouts
+     */
+    public ConnectionPool(final String name, final ConnectionOpener opener, final ConnectionValidator validator,
+        final int maxSize, final long idleTimeout, final long maxLifetime, final TimeUnit unit) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+        }
+        m_name = name;
+        m_opener = opener;
+        m_validator = validator;
+        m_maxSize = maxSize;
+        m_idleTimeoutNanos = unit.toNanos(idleTimeout);
+        m_maxLifetimeNanos = unit.toNanos(maxLifetime);
+    }
+
+    /**
+     * Leases a connection, waiting for a free one if the maximum number of connections is leased. The returned
+     * connection must be closed to return it to the pool.
+     *
+     * @return a valid connection
+     * @throws SQLException if a new connection can't be opened, the pool is closed or the thread is interrupted while
+     *             waiting
+     */
+    public Connection borrow() throws SQLException {
+        return borrow(-1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Leases a connection, see {@link #borrow()}.
+     *
+     * @param timeout maximum time to wait for a free connection, 0 to not wait at all and a negative value to wait
+     *            without limit
+     * @param unit the unit of the timeout
+     * @return a valid connection
+     * @throws SQLTimeoutException if no connection became free within the timeout
+     * @throws SQLException if a new connection can't be opened, the pool is closed or the thread is interrupted while
+     *             waiting
+     */
+    public Connection borrow(final long timeout, final TimeUnit unit) throws SQLException {
+        final long start = System.nanoTime();
+        while (true) {
+            final List<PooledConnection> expired = new ArrayList<>();
+            final PooledConnection pooled;
+            try {
+                pooled = acquireSlot(start, timeout < 0 ? -1 : unit.toNanos(timeout), expired);
+            } finally {
+                // outside of the lock, closing may be slow and must not block other borrowers
+                expired.forEach(p -> closeSafely(p.m_connection));
+            }
+            if (pooled == null) {
+                final Connection conn;
+                try {
+                    conn = m_opener.open();
+                } catch (Exception ex) {
+                    releaseSlot();
+                    if (ex instanceof SQLException) {
+                        throw (SQLException)ex;
+                    }
+                    throw new SQLException(ex.getMessage(), ex);
+                }
+                if (conn == null) {
+                    releaseSlot();
+                    throw new SQLException("Unable to open connection for " + m_name);
+                }
+                final PooledConnection newPooled;
+                try {
+                    newPooled = new PooledConnection(conn, System.nanoTime());
+                } catch (SQLException ex) {
+                    closeSafely(conn);
+                    releaseSlot();
+                    throw ex;
+                }
+                return lease(newPooled);
+            }
+            if (isValid(pooled.m_connection)) {
+                return lease(pooled);
+            }
+            LOGGER.debug("Discarding invalid pooled connection for " + m_name);
+            closeSafely(pooled.m_connection);
+            releaseSlot();
+        }
+    }
+
+    /**
+     * Waits for a free slot and takes an idle connection or reserves the slot for a new connection (returns null).
+     * Expired idle connections are moved into the argument list, to be closed by the caller (outside of the lock).
+     */
+    private synchronized PooledConnection acquireSlot(final long start, final long timeoutNanos,
+        final List<PooledConnection> expired) throws SQLException {
+        while (true) {
+            if (m_isClosed) {
+                throw new SQLException("Connection pool for " + m_name + " is closed");
+            }
+            final long now = System.nanoTime();
+            collectExpired(now, expired);
+            if (!m_idle.isEmpty() || m_active + m_idle.size() < m_maxSize) {
+                m_active++;
+                final long waitNanos = now - start;
+                m_totalWaitNanos += waitNanos;
+                m_maxWaitNanos = Math.max(m_maxWaitNanos, waitNanos);
+                return m_idle.pollLast();
+            }
+            final long remaining = timeoutNanos < 0 ? Long.MAX_VALUE : timeoutNanos - (now - start);
+            if (remaining <= 0) {
+                throw new SQLTimeoutException("Timeout waiting for a free connection for " + m_name + " ("
+                    + m_maxSize + " connections in use)");
+            }
+            try {
+                wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a free connection for " + m_name, ex);
+            }
+        }
+    }
+
+    private synchronized void releaseSlot() {
+        m_active--;
+        notifyAll();
+    }
+
+    /** Moves idle connections that exceeded their idle time or lifetime into the argument list. */
+    private void collectExpired(final long now, final List<PooledConnection> expired) {
+        for (Iterator<PooledConnection> it = m_idle.iterator(); it.hasNext();) {
+            final PooledConnection p = it.next();
+            if (now - p.m_idleSinceNanos >= m_idleTimeoutNanos || now - p.m_createdNanos >= m_maxLifetimeNanos) {
+                it.remove();
+                expired.add(p);
+            }
+        }
+    }
+
+    private boolean isValid(final Connection conn) {
+        try {
+            return !conn.isClosed() && m_validator.isValid(conn);
+        } catch (Exception ex) {
+            LOGGER.debug("Validation of pooled connection for " + m_name + " failed: " + ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    /** Called when a leased connection is closed by its user. */
+    private void giveBack(final PooledConnection pooled) {
+        boolean reuse;
+        try {
+            reuse = !pooled.m_connection.isClosed();
+            if (reuse) {
+                pooled.reset();
+            }
+        } catch (SQLException ex) {
+            LOGGER.debug("Discarding pooled connection for " + m_name + ": " + ex.getMessage(), ex);
+            reuse = false;
+        }
+        final List<PooledConnection> expired = new ArrayList<>();
+        synchronized (this) {
+            m_active--;
+            final long now = System.nanoTime();
+            if (reuse && !m_isClosed && now - pooled.m_createdNanos < m_maxLifetimeNanos) {
+                pooled.m_idleSinceNanos = now;
+                m_idle.addLast(pooled);
+            } else {
+                expired.add(pooled);
+            }
+            collectExpired(now, expired);
+            notifyAll();
+        }
+        expired.forEach(p -> closeSafely(p.m_connection));
+    }
+
+    /** Wraps the connection so that {@link Connection#close()} returns it to the pool. */
+    private Connection lease(final PooledConnection pooled) {
+        synchronized (this) {
+            m_borrowCount++;
+        }
+        final AtomicBoolean returned = new AtomicBoolean();
+        return (Connection)Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        if (returned.compareAndSet(false, true)) {
+                            giveBack(pooled);
+                        }
+                        return null;
+                    case "isClosed":
+                        if (returned.get()) {
+                            return true;
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled " + pooled.m_connection;
+                    default:
+                        if (returned.get()) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                }
+                try {
+                    return method.invoke(pooled.m_connection, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            });
+    }
+
+    /** Closes all idle connections that exceeded their idle time or lifetime. */
+    public void evictExpired() {
+        final List<PooledConnection> expired = new ArrayList<>();
+        synchronized (this) {
+            collectExpired(System.nanoTime(), expired);
+        }
+        expired.forEach(p -> closeSafely(p.m_connection));
+    }
+
+    /** @return a snapshot of the pool's usage */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(m_active, m_idle.size(), m_borrowCount, m_totalWaitNanos, m_maxWaitNanos);
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows. Leased connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        final List<PooledConnection> idle;
+        synchronized (this) {
+            m_isClosed = true;
+            idle = new ArrayList<>(m_idle);
+            m_idle.clear();
+            notifyAll();
+        }
+        idle.forEach(p -> closeSafely(p.m_connection));
+    }
+
+    private void closeSafely(final Connection conn) {
+        try {
+            if (!conn.isClosed()) {
+                conn.close();
+            }
+        } catch (Exception ex) {
+            LOGGER.debug("Error closing pooled connection for " + m_name + ": " + ex.getMessage(), ex);
+        }
+    }
+}
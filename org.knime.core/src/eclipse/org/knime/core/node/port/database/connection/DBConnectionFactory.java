@@ -51,6 +51,9 @@
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
 
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
@@ -74,6 +77,47 @@ public interface DBConnectionFactory {
     Connection getConnection(final CredentialsProvider cp,
         final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException;
 
+    /**
+     * Opens a new connection that is not shared with any other caller, e.g. to read from the database in parallel. In
+     * contrast to {@link #getConnection(CredentialsProvider, DatabaseConnectionSettings)} the caller owns the returned
+     * connection and must close it.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return a new {@link Connection}, to be closed by the caller
+     * @throws InvalidSettingsException
+     * @throws SQLException if the connection can't be opened or the factory doesn't support dedicated connections
+     * @throws IOException
+     * @since 4.4
+     */
+    default Connection createDedicatedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
+        throw new SQLFeatureNotSupportedException(
+            "Dedicated connections not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Like {@link #createDedicatedConnection(CredentialsProvider, DatabaseConnectionSettings)} but waits at most the
+     * given time if the factory limits the number of dedicated connections and all of them are in use. The default
+     * implementation ignores the timeout.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @param timeout maximum time to wait for a free connection, 0 to not wait at all
+     * @param unit the unit of the timeout
+     * @return a new {@link Connection}, to be closed by the caller
+     * @throws InvalidSettingsException
+     * @throws SQLTimeoutException if no connection became available within the timeout
+     * @throws SQLException if the connection can't be opened or the factory doesn't support dedicated connections
+     * @throws IOException
+     * @since 4.4
+     */
+    default Connection createDedicatedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings, final long timeout, final TimeUnit unit)
+        throws InvalidSettingsException, SQLException, IOException {
+        return createDedicatedConnection(cp, settings);
+    }
+
     /**
      * @return the {@link DBDriverFactory} the connection factory uses
      */
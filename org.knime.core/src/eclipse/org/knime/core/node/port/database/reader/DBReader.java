@@ -121,6 +121,26 @@ default BufferedDataTable createTable(final ExecutionContext exec, final Credent
         return createTable(exec, cp, true);
     }
 
+    /**
+     * Read data from database in parallel. The query is split into <code>partitionCount</code> disjoint partitions
+     * (see {@link org.knime.core.node.port.database.StatementManipulator#partitionByModulo(String, String, int, int)})
+     * which are read on separate connections and concatenated. The row order of the result is not the order of the
+     * query and the row ids are generated per partition. The default implementation reads the table unpartitioned.
+     *
+     * @param exec used for progress info
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param partitionColumn the name of an integer column of the query's result used to split the query
+     * @param partitionCount the number of partitions (and parallel connections)
+     * @return buffered data table read from database
+     * @throws CanceledExecutionException if canceled in between
+     * @throws SQLException if the connection could not be opened
+     * @since 4.4
+     */
+    default BufferedDataTable createPartitionedTable(final ExecutionContext exec, final CredentialsProvider cp,
+        final String partitionColumn, final int partitionCount) throws CanceledExecutionException, SQLException {
+        return createTable(exec, cp, false);
+    }
+
     /**
      * Read data from database.
      * @param exec used for progress info
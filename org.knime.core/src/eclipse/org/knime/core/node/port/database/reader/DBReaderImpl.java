@@ -44,14 +44,26 @@
  */
 package org.knime.core.node.port.database.reader;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.knime.core.data.DataCell;
@@ -73,13 +85,17 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
 import org.knime.core.node.port.database.DatabaseHelper;
 import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.node.port.database.connection.DBConnectionFactory;
 import org.knime.core.node.streamable.BufferedDataTableRowOutput;
 import org.knime.core.node.streamable.RowInput;
 import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadUtils;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -182,10 +198,7 @@ public DataTableSpec getDataTableSpec(final CredentialsProvider cp)
             final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
             final String[] oQueries =  dbConn.getQuery().split(SQL_QUERY_SEPARATOR);
             final int selectIndex = oQueries.length - 1;
-            if (oQueries[selectIndex].trim().endsWith(";")) {
-                oQueries[selectIndex] = oQueries[selectIndex].trim();
-                oQueries[selectIndex] = oQueries[selectIndex].substring(0, oQueries[selectIndex].length() - 1);
-            }
+            oQueries[selectIndex] = removeTrailingSemicolon(oQueries[selectIndex]);
 
             oQueries[selectIndex] =
                 dbConn.getUtility().getStatementManipulator().forMetadataOnly(oQueries[selectIndex]);
@@ -258,6 +271,242 @@ public RowIterator iterator() {
 
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Falls back to an unpartitioned read if less than two partitions are requested, if the query consists of
+     * several statements (these may depend on the session, e.g. temporary tables, and can't be repeated per
+     * partition) or if the connection factory doesn't support dedicated connections. The number of partitions is
+     * reduced to the number of dedicated connections that are available right away (see
+     * {@link org.knime.core.node.port.database.connection.CachedConnectionFactory}), the read never waits for
+     * connections held by other reads.
+     *
+     * @since 4.4
+     */
+    @Override
+    public BufferedDataTable createPartitionedTable(final ExecutionContext exec, final CredentialsProvider cp,
+        final String partitionColumn, final int partitionCount) throws CanceledExecutionException, SQLException {
+        final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
+        final String[] oQueries = dbConn.getQuery().split(SQL_QUERY_SEPARATOR);
+        if (partitionCount < 2 || oQueries.length > 1) {
+            LOGGER.debug("Reading database table unpartitioned (partition count: " + partitionCount
+                + ", number of statements: " + oQueries.length + ")");
+            return createTable(exec, cp, false);
+        }
+        final Connection[] connections;
+        try {
+            connections = createDedicatedConnections(cp, partitionCount);
+        } catch (SQLFeatureNotSupportedException ex) {
+            LOGGER.debug("Reading database table unpartitioned: " + ex.getMessage(), ex);
+            return createTable(exec, cp, false);
+        }
+        if (connections.length < 2) {
+            closeConnections(connections);
+            LOGGER.debug("Reading database table unpartitioned, no dedicated connections available");
+            return createTable(exec, cp, false);
+        }
+        if (connections.length < partitionCount) {
+            LOGGER.debug("Reading database table in " + connections.length + " instead of " + partitionCount
+                + " partitions, no more dedicated connections available");
+        }
+        return readPartitions(exec, connections, createPartitionQueries(partitionColumn, connections.length));
+    }
+
+    /**
+     * @param partitionColumn the name of the integer column to split the query by
+     * @param partitionCount the number of partitions
+     * @return the query per partition, derived from the (single statement) query of the connection settings
+     */
+    String[] createPartitionQueries(final String partitionColumn, final int partitionCount) {
+        final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
+        final StatementManipulator manipulator = dbConn.getUtility().getStatementManipulator();
+        // like in getDataTableSpec, the query is nested and must not end with a semicolon
+        final String selectQuery = removeTrailingSemicolon(dbConn.getQuery().split(SQL_QUERY_SEPARATOR)[0]);
+        final String[] queries = new String[partitionCount];
+        for (int p = 0; p < partitionCount; p++) {
+            queries[p] = manipulator.partitionByModulo(selectQuery, partitionColumn, partitionCount, p);
+        }
+        return queries;
+    }
+
+    private static String removeTrailingSemicolon(final String query) {
+        final String trimmed = query.trim();
+        return trimmed.endsWith(";") ? trimmed.substring(0, trimmed.length() - 1) : query;
+    }
+
+    /**
+     * Opens up to one dedicated connection per partition, without waiting for connections that are in use (all
+     * connections are borrowed by the calling thread, waiting could dead-lock with other partitioned reads). Returns
+     * fewer connections (possibly none) if no more are available right away; on failure none are returned.
+     */
+    private Connection[] createDedicatedConnections(final CredentialsProvider cp, final int count)
+        throws SQLException {
+        final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
+        final DBConnectionFactory factory = dbConn.getUtility().getConnectionFactory();
+        final Connection[] connections = new Connection[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                try {
+                    connections[i] = factory.createDedicatedConnection(cp, dbConn, 0, TimeUnit.MILLISECONDS);
+                } catch (SQLTimeoutException ex) { // NOSONAR
+                    return Arrays.copyOf(connections, i);
+                }
+            }
+            return connections;
+        } catch (SQLException ex) {
+            closeConnections(connections);
+            throw ex;
+        } catch (InvalidSettingsException | IOException ex) {
+            closeConnections(connections);
+            throw new SQLException(ex.getMessage(), ex);
+        }
+    }
+
+    private static void closeConnections(final Connection[] connections) {
+        for (Connection conn : connections) {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException ex) {
+                    LOGGER.debug("Unable to close database connection: " + ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the partitions in parallel, each query on its own connection, and concatenates the partial tables (in the
+     * order of the queries) without copying them. The connections are closed when this method returns. If reading any
+     * of the partitions fails or the execution is canceled, the method waits for the other readers to stop and clears
+     * the partial tables before it throws.
+     *
+     * @param exec the context to create the tables with
+     * @param connections the connection per partition, owned by this method
+     * @param queries the query per partition, as many as connections
+     * @return the concatenated table
+     */
+    BufferedDataTable readPartitions(final ExecutionContext exec, final Connection[] connections,
+        final String[] queries) throws CanceledExecutionException, SQLException {
+        final int partitionCount = queries.length;
+        final ExecutorService executor =
+            ThreadUtils.executorServiceWithContext(Executors.newFixedThreadPool(partitionCount));
+        final List<Future<BufferedDataTable>> futures = new ArrayList<>(partitionCount);
+        // set by the readers, as a canceled future doesn't provide the table a reader may still create
+        final AtomicReferenceArray<BufferedDataTable> tables = new AtomicReferenceArray<>(partitionCount);
+        boolean success = false;
+        try {
+            exec.setMessage("Start reading " + partitionCount + " partitions from database...");
+            for (int p = 0; p < partitionCount; p++) {
+                final int partition = p;
+                final ExecutionContext partitionExec = exec.createSubExecutionContext(1.0 / partitionCount);
+                futures.add(executor.submit(() -> {
+                    final BufferedDataTable table =
+                        readPartition(partitionExec, connections[partition], queries[partition], partition);
+                    tables.set(partition, table);
+                    return table;
+                }));
+            }
+            final BufferedDataTable[] result = new BufferedDataTable[partitionCount];
+            for (int p = 0; p < partitionCount; p++) {
+                result[p] = getPartition(futures.get(p));
+            }
+            m_spec = result[0].getDataTableSpec();
+            final BufferedDataTable concatenated = exec.createConcatenateTable(exec, Optional.empty(), false, result);
+            success = true;
+            return concatenated;
+        } finally {
+            if (!success) {
+                futures.forEach(f -> f.cancel(true));
+            }
+            executor.shutdownNow();
+            if (!success) {
+                awaitTermination(executor);
+                for (int p = 0; p < partitionCount; p++) {
+                    final BufferedDataTable table = tables.get(p);
+                    if (table != null) {
+                        exec.clearTable(table);
+                    }
+                }
+            }
+            // connections of readers that didn't start (or didn't stop in time)
+            closeConnections(connections);
+        }
+    }
+
+    private static void awaitTermination(final ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.debug("Waiting for partition readers to stop...");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.debug("Interrupted while waiting for partition readers to stop", ex);
+        }
+    }
+
+    private static BufferedDataTable getPartition(final Future<BufferedDataTable> future)
+        throws CanceledExecutionException, SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while reading from database");
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof SQLException) {
+                throw (SQLException)cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * Reads one partition of a partitioned read on the given connection, which is closed afterwards. The row ids are
+     * unique over all partitions. The partial table is cleared if reading fails.
+     */
+    private BufferedDataTable readPartition(final ExecutionContext exec, final Connection connection,
+        final String query, final int partition) throws Exception {
+        final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
+        final int fetchsize =
+            (DatabaseConnectionSettings.FETCH_SIZE != null) ? DatabaseConnectionSettings.FETCH_SIZE : -1;
+        try (Connection conn = connection; Statement stmt = conn.createStatement()) {
+            dbConn.getUtility().getStatementManipulator().setFetchSize(stmt, fetchsize);
+            LOGGER.debug("Executing SQL statement as executeQuery: " + query);
+            try (ResultSet result = stmt.executeQuery(query)) {
+                final DataTableSpec spec = createTableSpec(result.getMetaData());
+                final RowIterator it = createDBRowIterator(spec, dbConn, new BinaryObjectCellFactory(exec), false,
+                    result);
+                final BufferedDataContainer container = exec.createDataContainer(spec);
+                boolean success = false;
+                try {
+                    final String keyPrefix = "Row" + partition + "_";
+                    long rowCount = 0;
+                    while (it.hasNext()) {
+                        exec.checkCanceled();
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new CanceledExecutionException("Reading partition " + partition + " interrupted");
+                        }
+                        container.addRowToTable(new DefaultRow(new RowKey(keyPrefix + rowCount), it.next()));
+                        rowCount++;
+                    }
+                    success = true;
+                } finally {
+                    container.close();
+                    if (!success) {
+                        exec.clearTable(container.getTable());
+                    }
+                }
+                return container.getTable();
+            } finally {
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -126,6 +126,18 @@ public class DBRowIteratorImpl extends RowIterator {
 
     protected final BinaryObjectCellFactory m_blobFactory;
 
+    /** Reads the value of a column (argument is the column index) as cell. */
+    @FunctionalInterface
+    private interface CellReader {
+        DataCell read(int i) throws SQLException, IOException;
+    }
+
+    /** The reader for each column, initialized when the first row is read, see {@link #initCellReaders()}. */
+    private CellReader[] m_cellReaders;
+
+    /** The JDBC type of each column (for error messages), initialized together with {@link #m_cellReaders}. */
+    private int[] m_dbTypes;
+
     /**
      * @param spec {@link DataTableSpec}
      * @param conn {@link DatabaseConnectionSettings}
@@ -189,120 +201,18 @@ public boolean hasNext() {
      */
     @Override
     public DataRow next() {
-        DataCell[] cells = new DataCell[m_spec.getNumColumns()];
+        if (m_cellReaders == null) {
+            initCellReaders();
+        }
+        DataCell[] cells = new DataCell[m_cellReaders.length];
         for (int i = 0; i < cells.length; i++) {
-            DataType type = m_spec.getColumnSpec(i).getType();
-            int dbType = Types.NULL;
-            final DataCell cell;
             try {
-                dbType = m_result.getMetaData().getColumnType(i + 1);
-                if (type.isCompatible(BooleanValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as boolean
-                        case Types.BIT:
-                        case Types.BOOLEAN:
-                            cell = readBoolean(i);
-                            break;
-                        default: cell = readBoolean(i);
-                    }
-                } else if (type.isCompatible(IntValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as integer
-                        case Types.TINYINT:
-                            cell = readByte(i);
-                            break;
-                        case Types.SMALLINT:
-                            cell = readShort(i);
-                            break;
-                        case Types.INTEGER:
-                            cell = readInt(i);
-                            break;
-                        default: cell = readInt(i);
-                    }
-                } else if (type.isCompatible(LongValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as long
-                        case Types.BIGINT:
-                            cell = readLong(i);
-                            break;
-                        default: cell = readLong(i);
-                    }
-                } else if (type.isCompatible(DoubleValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as double
-                        case Types.REAL:
-                            cell = readFloat(i);
-                            break;
-                        default: cell = readDouble(i);
-                    }
-                } else if (type.isCompatible(DateAndTimeValue.class)) {
-                    switch (dbType) {
-                        case Types.DATE:
-                            cell = readDate(i); break;
-                        case Types.TIME:
-                            cell = readTime(i); break;
-                        case Types.TIMESTAMP:
-                            cell = readTimestamp(i); break;
-                        default: cell = readString(i);
-                    }
-                } else if (type.isCompatible(BinaryObjectDataValue.class)) {
-                    switch (dbType) {
-                        case Types.BLOB:
-                            DataCell c = null;
-                            try {
-                                c = readBlob(i);
-                            } catch (SQLException ex) {
-                                // probably not supported (e.g. SQLite), therefore try another method
-                                c = readBytesAsBLOB(i);
-                            }
-                            cell = c;
-                            break;
-                        case Types.LONGVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readAsciiStream(i); break;
-                        case Types.BINARY:
-                        case Types.LONGVARBINARY:
-                        case Types.VARBINARY:
-                            cell = readBinaryStream(i); break;
-                        default: cell = readString(i);
-                    }
-                } else {
-                    switch (dbType) {
-                        case Types.CLOB:
-                            cell = readClob(i); break;
-                        case Types.ARRAY:
-                            cell = readArray(i); break;
-                        case Types.CHAR:
-                        case Types.VARCHAR:
-                        case Types.LONGVARCHAR:
-                            cell = readString(i); break;
-                        case Types.VARBINARY:
-                            cell = readBytesAsString(i); break;
-                        case Types.REF:
-                            cell = readRef(i); break;
-                        case Types.NCHAR:
-                        case Types.NVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readNString(i); break;
-                        case Types.NCLOB:
-                            cell = readNClob(i); break;
-                        case Types.DATALINK:
-                            cell = readURL(i); break;
-                        case Types.STRUCT:
-                        case Types.JAVA_OBJECT:
-                            cell = readObject(i); break;
-                        default:
-                            cell = readObject(i); break;
-
-                    }
-                }
-                // finally set the new cell into the array of cells
-                cells[i] = cell;
+                cells[i] = m_cellReaders[i].read(i);
             } catch (SQLException sqle) {
-                handlerException("SQL Exception reading Object of type \"" + dbType + "\": ", sqle);
+                handlerException("SQL Exception reading Object of type \"" + m_dbTypes[i] + "\": ", sqle);
                 cells[i] = new MissingCell(sqle.getMessage());
             } catch (IOException ioe) {
-                handlerException("I/O Exception reading Object of type \"" + dbType + "\": ", ioe);
+                handlerException("I/O Exception reading Object of type \"" + m_dbTypes[i] + "\": ", ioe);
                 cells[i] = new MissingCell(ioe.getMessage());
             }
         }
@@ -324,6 +234,116 @@ public DataRow next() {
         return new DefaultRow(RowKey.createRowKey(rowId), cells);
     }
 
+    /**
+     * Determines the reader for each column from the column's KNIME type and the JDBC type of the result set, once
+     * before the first row is read.
+     */
+    private void initCellReaders() {
+        final int numColumns = m_spec.getNumColumns();
+        final CellReader[] readers = new CellReader[numColumns];
+        final int[] dbTypes = new int[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            int dbType = Types.NULL;
+            try {
+                dbType = m_result.getMetaData().getColumnType(i + 1);
+                readers[i] = createCellReader(m_spec.getColumnSpec(i).getType(), dbType);
+            } catch (SQLException sqle) {
+                // reported (as before) for each cell read from this column
+                readers[i] = c -> {
+                    throw sqle;
+                };
+            }
+            dbTypes[i] = dbType;
+        }
+        m_dbTypes = dbTypes;
+        m_cellReaders = readers;
+    }
+
+    private CellReader createCellReader(final DataType type, final int dbType) {
+        if (type.isCompatible(BooleanValue.class)) {
+            // all types that can be interpreted as boolean
+            return this::readBoolean;
+        } else if (type.isCompatible(IntValue.class)) {
+            switch (dbType) {
+                // all types that can be interpreted as integer
+                case Types.TINYINT:
+                    return this::readByte;
+                case Types.SMALLINT:
+                    return this::readShort;
+                default:
+                    return this::readInt;
+            }
+        } else if (type.isCompatible(LongValue.class)) {
+            // all types that can be interpreted as long
+            return this::readLong;
+        } else if (type.isCompatible(DoubleValue.class)) {
+            switch (dbType) {
+                // all types that can be interpreted as double
+                case Types.REAL:
+                    return this::readFloat;
+                default:
+                    return this::readDouble;
+            }
+        } else if (type.isCompatible(DateAndTimeValue.class)) {
+            switch (dbType) {
+                case Types.DATE:
+                    return this::readDate;
+                case Types.TIME:
+                    return this::readTime;
+                case Types.TIMESTAMP:
+                    return this::readTimestamp;
+                default:
+                    return this::readString;
+            }
+        } else if (type.isCompatible(BinaryObjectDataValue.class)) {
+            switch (dbType) {
+                case Types.BLOB:
+                    return i -> {
+                        try {
+                            return readBlob(i);
+                        } catch (SQLException ex) {
+                            // probably not supported (e.g. SQLite), therefore try another method
+                            return readBytesAsBLOB(i);
+                        }
+                    };
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return this::readAsciiStream;
+                case Types.BINARY:
+                case Types.LONGVARBINARY:
+                case Types.VARBINARY:
+                    return this::readBinaryStream;
+                default:
+                    return this::readString;
+            }
+        } else {
+            switch (dbType) {
+                case Types.CLOB:
+                    return this::readClob;
+                case Types.ARRAY:
+                    return this::readArray;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                    return this::readString;
+                case Types.VARBINARY:
+                    return this::readBytesAsString;
+                case Types.REF:
+                    return this::readRef;
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return this::readNString;
+                case Types.NCLOB:
+                    return this::readNClob;
+                case Types.DATALINK:
+                    return this::readURL;
+                default:
+                    return this::readObject;
+            }
+        }
+    }
+
     protected DataCell readClob(final int i)
             throws IOException, SQLException {
         Clob clob = m_result.getClob(i + 1);
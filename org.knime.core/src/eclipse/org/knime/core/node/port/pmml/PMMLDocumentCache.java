@@ -0,0 +1,132 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.port.pmml;
+
+import java.lang.ref.SoftReference;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.dmg.pmml.PMMLDocument;
+
+/**
+ * Process-wide cache of parsed PMML documents, keyed by the SHA-256 hash of their serialized form. Port objects
+ * that load the same PMML content (e.g. several nodes reading the same model) share one parsed document instead of
+ * running the XMLBeans parser again. Cached documents are shared and must therefore never be modified in place --
+ * {@link PMMLPortObject} copies them before the first modification.
+ *
+ * <p>
+ * Entries are held softly so that the cache never keeps a large model alive under memory pressure.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PMMLDocumentCache {
+
+    /** Maximum number of documents referenced by the cache, least recently used ones are dropped first. */
+    private static final int MAX_ENTRIES = 32;
+
+    private static final Map<String, SoftReference<PMMLDocument>> CACHE =
+        new LinkedHashMap<String, SoftReference<PMMLDocument>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, SoftReference<PMMLDocument>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private PMMLDocumentCache() {
+        // utility class with static methods only
+    }
+
+    /**
+     * @param contentHash the hash as returned by {@link #toHash(MessageDigest)}, may be <code>null</code>
+     * @return the cached document or <code>null</code> if not cached (anymore)
+     */
+    static synchronized PMMLDocument get(final String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+        SoftReference<PMMLDocument> ref = CACHE.get(contentHash);
+        PMMLDocument doc = ref == null ? null : ref.get();
+        if (ref != null && doc == null) {
+            CACHE.remove(contentHash);
+        }
+        return doc;
+    }
+
+    /**
+     * @param contentHash the hash of the serialized form of the document, not <code>null</code>
+     * @param doc the parsed document, must not be modified by anyone after this call
+     */
+    static synchronized void put(final String contentHash, final PMMLDocument doc) {
+        CACHE.put(contentHash, new SoftReference<>(doc));
+    }
+
+    /** Drops all entries. */
+    static synchronized void clear() {
+        CACHE.clear();
+    }
+
+    /** @return a new digest used to compute content hashes */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param digest the digest that has seen the full serialized document
+     * @return the content hash as hex string
+     */
+    static String toHash(final MessageDigest digest) {
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+}
@@ -44,23 +44,33 @@
  */
 package org.knime.core.node.port.pmml;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.swing.JComponent;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.xmlbeans.SchemaType;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
@@ -92,7 +102,6 @@
 import org.dmg.pmml.TransformationDictionaryDocument.TransformationDictionary;
 import org.dmg.pmml.TreeModelDocument.TreeModel;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.util.LockedSupplier;
 import org.knime.core.data.util.NonClosableInputStream;
 import org.knime.core.data.xml.PMMLCellFactory;
 import org.knime.core.data.xml.PMMLValue;
@@ -105,12 +114,17 @@
 import org.knime.core.pmml.PMMLModelType;
 import org.knime.core.pmml.PMMLUtils;
 import org.knime.core.pmml.PMMLValidator;
-import org.w3c.dom.Document;
 import org.w3c.dom.DocumentFragment;
 import org.xml.sax.SAXException;
 
 
 /**
+ * Port object holding a PMML document.
+ *
+ * <p>
+ * Since 4.4 a document read by {@link #loadFrom(PMMLPortObjectSpec, InputStream)} is only parsed when it is first
+ * inspected. Content that can't be parsed is hence no longer reported while loading but by the first method that
+ * needs the parsed document, which throws an {@link IllegalStateException}.
  *
  * @author Fabian Dill, University of Konstanz
  * @author Dominik Morent, KNIME AG, Zurich, Switzerland
@@ -199,9 +213,35 @@ public final class PMMLPortObject implements PortObject {
             + "pmml:PPCell[@predictorName='";
     /* ------------------------------------------------------ */
 
+    /** The start tag of the root element of a serialized document. */
+    private static final Pattern PMML_ROOT_PATTERN = Pattern.compile("<(?:[\\w.-]+:)?PMML[\\s>][^>]*>?");
+
+    /** The version attribute of the current PMML version within the root start tag. */
+    private static final Pattern PMML_CURRENT_VERSION_PATTERN =
+        Pattern.compile("\\sversion\\s*=\\s*[\"']" + Pattern.quote(PMML_V4_2) + "[\"']");
+
 
+    /** The parsed document, <code>null</code> while the document read in {@link #loadFrom} is not parsed yet. */
     private PMMLDocument m_pmmlDoc;
 
+    /** The serialized document as read in {@link #loadFrom}, only kept until it is parsed. */
+    private byte[] m_pmmlBytes;
+
+    /** The hash of the serialized document (see {@link PMMLDocumentCache}) or <code>null</code> if unknown. */
+    private String m_contentHash;
+
+    /**
+     * Whether {@link #m_pmmlDoc} is also referenced by other port objects or the {@link PMMLDocumentCache}. A shared
+     * document is copied before it is modified (copy-on-write).
+     */
+    private boolean m_shared;
+
+    /**
+     * Whether {@link #m_pmmlDoc} was passed to the constructor and hence may still be modified by the caller. Such a
+     * document is never put into the {@link PMMLDocumentCache} and its content hash is not retained.
+     */
+    private boolean m_external;
+
     private PMMLPortObjectSpec m_spec;
 
     /**
@@ -234,6 +274,9 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
             final PMMLDocument pmmlDoc) {
         m_spec = spec;
         m_pmmlDoc = pmmlDoc;
+        // the caller keeps a reference, hence copy before modifying it
+        m_shared = true;
+        m_external = true;
         if (!m_pmmlDoc.validate()) {
             throw new IllegalArgumentException(
                     "The passed PMML document is not valid.");
@@ -268,9 +311,7 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
             final PMMLPortObject port, final DataTableSpec inData) {
         m_spec = spec;
         if (port != null) {
-            try (LockedSupplier<Document> supplier = port.getPMMLValue().getDocumentSupplier()) {
-                parse(supplier.get());
-            }
+            port.shareDocumentWith(this);
         } else if (inData != null) {
             initializePMMLDocument(inData);
         } else {
@@ -279,16 +320,62 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
     }
 
     /**
-     * @param doc
+     * Lets the argument port object use the same (immutable) document as this one. Neither of them parses or copies
+     * the document unless it is inspected or modified, respectively.
+     *
+     * @param target the port object to initialize
      */
-    private void parse(final Document doc) {
-        try {
-            m_pmmlDoc = PMMLDocument.Factory.parse(doc);
-            // no validation needed here as the input is already validated
-        } catch (XmlException e) {
-            throw new IllegalArgumentException("An error occurred while "
-                    + "parsing the PMML document.", e);
+    private synchronized void shareDocumentWith(final PMMLPortObject target) {
+        target.m_pmmlDoc = m_pmmlDoc;
+        target.m_pmmlBytes = m_pmmlBytes;
+        target.m_contentHash = m_contentHash;
+        target.m_external = m_external;
+        if (m_pmmlDoc != null) {
+            m_shared = true;
+            target.m_shared = true;
+        }
+    }
+
+    /**
+     * Returns the parsed document for read access, parsing the lazily loaded document on first access. The returned
+     * document must not be modified, use {@link #getWritableDocument()} for that.
+     *
+     * @return the document
+     */
+    private synchronized PMMLDocument getDocument() {
+        if (m_pmmlDoc == null && m_pmmlBytes != null) {
+            PMMLDocument doc = PMMLDocumentCache.get(m_contentHash);
+            if (doc == null) {
+                try {
+                    doc = parseDocument(new ByteArrayInputStream(m_pmmlBytes));
+                } catch (IOException | XmlException e) {
+                    throw new IllegalStateException("An error occurred while parsing the PMML document.", e);
+                }
+                PMMLDocumentCache.put(m_contentHash, doc);
+            }
+            m_pmmlDoc = doc;
+            m_pmmlBytes = null;
+            m_shared = true;
+        }
+        return m_pmmlDoc;
+    }
+
+    /**
+     * Returns the parsed document for modification. Copies the document first if it is shared with other port
+     * objects or the parsed-model cache.
+     *
+     * @return the document, private to this port object
+     */
+    private synchronized PMMLDocument getWritableDocument() {
+        PMMLDocument doc = getDocument();
+        if (m_shared) {
+            doc = (PMMLDocument)doc.copy();
+            m_pmmlDoc = doc;
+            m_shared = false;
+            m_external = false;
         }
+        m_contentHash = null;
+        return doc;
     }
 
     /* Just added temporary for models still using SAX. Will be removed soon.*/
@@ -331,7 +418,7 @@ public void addPMMLModelFromHandler(final PMMLContentHandler handler)
         } finally {
             current.setContextClassLoader(oldLoader);
         }
-        PMML pmmlXml = m_pmmlDoc.getPMML();
+        PMML pmmlXml = getWritableDocument().getPMML();
         XmlCursor pmmlCursor = pmmlXml.newCursor();
         pmmlCursor.toEndToken();
         XmlCursor modelCursor = model.newCursor();
@@ -349,8 +436,47 @@ public void addPMMLModelFromHandler(final PMMLContentHandler handler)
      * @param out stream which reads the PMML file
      * @throws IOException if the file cannot be written to the stream
      */
-    public final void save(final OutputStream out) throws IOException {
-        PMMLFormatter.save(m_pmmlDoc, out);
+    public final synchronized void save(final OutputStream out) throws IOException {
+        if (m_pmmlBytes != null && isCurrentVersion(m_pmmlBytes)) {
+            // not parsed (and hence not modified) since it was loaded
+            out.write(m_pmmlBytes);
+            return;
+        }
+        PMMLDocument pmmlDoc = getDocument();
+        MessageDigest digest = PMMLDocumentCache.newDigest();
+        PMMLFormatter.save(pmmlDoc, new DigestOutputStream(out, digest));
+        if (!m_external) {
+            // register the document so that loading the written content doesn't parse it again
+            String contentHash = PMMLDocumentCache.toHash(digest);
+            PMMLDocumentCache.put(contentHash, pmmlDoc);
+            m_shared = true;
+            if (m_contentHash == null) {
+                m_contentHash = contentHash;
+            }
+        }
+    }
+
+    /**
+     * Returns the hash of the content without parsing a lazily loaded document. For a parsed document that has not
+     * been written or loaded in its current state the hash is computed from its serialized form.
+     *
+     * @return the content hash or <code>null</code> if there is no document
+     */
+    private synchronized String getContentHash() {
+        if (m_contentHash != null || m_pmmlDoc == null) {
+            return m_contentHash;
+        }
+        MessageDigest digest = PMMLDocumentCache.newDigest();
+        try (OutputStream out = new DigestOutputStream(new NullOutputStream(), digest)) {
+            PMMLFormatter.save(m_pmmlDoc, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("An error occurred while serializing the PMML document.", e);
+        }
+        String contentHash = PMMLDocumentCache.toHash(digest);
+        if (!m_external) {
+            m_contentHash = contentHash;
+        }
+        return contentHash;
     }
 
    /**
@@ -359,6 +485,10 @@ public final void save(final OutputStream out) throws IOException {
      * @param inData the data table spec
      */
     private void initializePMMLDocument(final DataTableSpec inData) {
+        m_pmmlBytes = null;
+        m_contentHash = null;
+        m_shared = false;
+        m_external = false;
         m_pmmlDoc = PMMLDocument.Factory.newInstance(
                 PMMLFormatter.getOptions());
         PMML pmml = m_pmmlDoc.addNewPMML();
@@ -373,7 +503,8 @@ private void initializePMMLDocument(final DataTableSpec inData) {
      * @param translator the model translator to be initialized
      */
     public void initializeModelTranslator(final PMMLTranslator translator) {
-        translator.initializeFrom(m_pmmlDoc);
+        // the translator gets a copy as the document may be shared with other port objects
+        translator.initializeFrom((PMMLDocument)getDocument().copy());
     }
 
     /**
@@ -382,7 +513,8 @@ public void initializeModelTranslator(final PMMLTranslator translator) {
      *      added
      */
     public void addModelTranslater(final PMMLTranslator modelTranslator) {
-        SchemaType type = modelTranslator.exportTo(m_pmmlDoc, m_spec);
+        PMMLDocument pmmlDoc = getWritableDocument();
+        SchemaType type = modelTranslator.exportTo(pmmlDoc, m_spec);
         LocalTransformations localTransformations = moveDerivedFields(type);
 
         /* Remove mining fields from mining schema that where created as a
@@ -395,7 +527,7 @@ public void addModelTranslater(final PMMLTranslator modelTranslator) {
         for (DerivedField derivedField : getDerivedFields()) {
             derivedFields.add(derivedField.getName());
         }
-        MiningSchema miningSchema = PMMLUtils.getFirstMiningSchema(m_pmmlDoc,
+        MiningSchema miningSchema = PMMLUtils.getFirstMiningSchema(pmmlDoc,
                 type);
         if (miningSchema == null) {
             LOGGER.info("No mining schema found.");
@@ -454,7 +586,7 @@ public void addModelTranslater(final PMMLTranslator modelTranslator) {
     /** Moves the content of the transformation dictionary to local
      * transformations of the model if a model exists. */
     public void moveGlobalTransformationsToModel() {
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = getWritableDocument().getPMML();
         TransformationDictionary transDict
                 = pmml.getTransformationDictionary();
         if (transDict == null || transDict.getDerivedFieldArray() == null
@@ -527,7 +659,7 @@ public void moveGlobalTransformationsToModel() {
      *      has to be moved
      */
     private LocalTransformations moveDerivedFields(final SchemaType type) {
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = getWritableDocument().getPMML();
 
         TransformationDictionary transDict
                 = pmml.getTransformationDictionary();
@@ -606,11 +738,12 @@ private LocalTransformations moveDerivedFields(final SchemaType type) {
     public String getSummary() {
         StringBuffer sb = new StringBuffer();
         sb.append("PMML document with version ");
-        sb.append(m_pmmlDoc.getPMML().getVersion());
+        PMMLDocument pmmlDoc = getDocument();
+        sb.append(pmmlDoc.getPMML().getVersion());
         sb.append(" and models: ");
         boolean first = true;
         for (PMMLModelType modelType
-                : PMMLUtils.getNumberOfModels(m_pmmlDoc).keySet()) {
+                : PMMLUtils.getNumberOfModels(pmmlDoc).keySet()) {
             if (!first) {
                 sb.append(",");
             } else {
@@ -644,7 +777,10 @@ public void loadFrom(final PMMLPortObjectSpec spec, final InputStream in, final
     }
 
     /**
-     * Initializes the pmml port object based on the xml input stream.
+     * Initializes the pmml port object based on the xml input stream. The stream is read completely but the document
+     * is only parsed once it is inspected; if the same content has been parsed before (see
+     * {@link PMMLDocumentCache}) the parsed document is reused. Parse errors are hence not thrown by this method but
+     * as {@link IllegalStateException} by the first method that inspects the document.
      * @param spec the referring spec of this object
      * @param is the pmml input stream
      * @throws IOException if the file cannot be found
@@ -657,43 +793,91 @@ public void loadFrom(final PMMLPortObjectSpec spec, final InputStream is)
         // the argument input stream is a NonClosableZipInput, which delegates
         // close to closeEntry(), we have to make sure that close is only
         // called once.
-        // TODO: The document is read twice here. Could we "probe" into the file to check the version?
+        MessageDigest digest = PMMLDocumentCache.newDigest();
+        byte[] bytes;
+        try (InputStream in = new DigestInputStream(new NonClosableInputStream(is), digest)) {
+            bytes = IOUtils.toByteArray(in);
+        } finally {
+            is.close(); // call only once (see above)
+        }
+        String contentHash = PMMLDocumentCache.toHash(digest);
+        PMMLDocument cachedDoc = PMMLDocumentCache.get(contentHash);
+        synchronized (this) {
+            m_contentHash = contentHash;
+            m_pmmlDoc = cachedDoc;
+            m_pmmlBytes = cachedDoc == null ? bytes : null;
+            m_shared = cachedDoc != null;
+            m_external = false;
+            m_spec = spec;
+        }
+    }
+
+    /**
+     * Checks whether a serialized document can be exposed without parsing it, i.e. whether its root element declares
+     * the current PMML version and namespace. Documents of older versions need to be parsed so that they are
+     * converted (see {@link #parseDocument(InputStream)}).
+     *
+     * @param bytes the serialized document
+     * @return true if the document is known to be of the current version, false if it needs to be converted or the
+     *         root element cannot be determined
+     */
+    private static boolean isCurrentVersion(final byte[] bytes) {
+        // the markup is ASCII in all encodings that don't fail this check (which then only costs a parse)
+        Matcher rootMatcher = PMML_ROOT_PATTERN.matcher(new String(bytes, StandardCharsets.ISO_8859_1));
+        if (!rootMatcher.find()) {
+            return false;
+        }
+        String root = rootMatcher.group();
+        String namespace = PMMLUtils.getPMMLCurrentVersionNamespace();
+        return PMML_CURRENT_VERSION_PATTERN.matcher(root).find()
+            && (root.contains('"' + namespace + '"') || root.contains('\'' + namespace + '\''));
+    }
 
+    /**
+     * Parses a serialized PMML document, converting KNIME produced PMML 3.x/4.0 documents to the current version.
+     *
+     * @param is the serialized document, closed by this method
+     * @return the parsed document
+     * @throws IOException if the stream cannot be read
+     * @throws XmlException if something goes wrong during parsing
+     */
+    private static PMMLDocument parseDocument(final InputStream is) throws IOException, XmlException {
+        // TODO: The document is read twice here. Could we "probe" into the file to check the version?
         XmlObject xmlDoc = null;
         Thread current = Thread.currentThread();
         ClassLoader oldLoader = current.getContextClassLoader();
         current.setContextClassLoader(PMMLDocument.class.getClassLoader());
-        try (NonClosableInputStream nonClosableIn = new NonClosableInputStream(is)) {
-            xmlDoc = XmlObject.Factory.parse(nonClosableIn);
+        try {
+            xmlDoc = XmlObject.Factory.parse(is);
         } finally {
             current.setContextClassLoader(oldLoader);
-            is.close(); // call only once (see above)
+            is.close();
         }
         if (xmlDoc instanceof PMMLDocument) {
-            m_pmmlDoc = (PMMLDocument)xmlDoc;
-        } else {
-            /* Try to recover when reading a PMML 3.x/4.0 document that
-             * was produced by KNIME by just replacing the PMML version and
-             * namespace. */
-            if (PMMLUtils.isOldKNIMEPMML(xmlDoc) || PMMLUtils.is4_1PMML(xmlDoc)) {
-                try {
-                    String updatedPMML
-                            = PMMLUtils.getUpdatedVersionAndNamespace(xmlDoc);
-                    /* Parse the modified document and assign it to a
-                     * PMMLDocument.*/
-                    m_pmmlDoc = PMMLDocument.Factory.parse(updatedPMML);
-                } catch (Exception e) {
-                    throw new RuntimeException(
-                            "Parsing of PMML v 3.x/4.0 document failed.", e);
-                }
-                LOGGER.info(
-                        "KNIME produced PMML 3.x/4.0  converted to PMML 4.1.");
-            } else {
+            return (PMMLDocument)xmlDoc;
+        }
+        /* Try to recover when reading a PMML 3.x/4.0 document that
+         * was produced by KNIME by just replacing the PMML version and
+         * namespace. */
+        if (PMMLUtils.isOldKNIMEPMML(xmlDoc) || PMMLUtils.is4_1PMML(xmlDoc)) {
+            PMMLDocument pmmlDoc;
+            try {
+                String updatedPMML
+                        = PMMLUtils.getUpdatedVersionAndNamespace(xmlDoc);
+                /* Parse the modified document and assign it to a
+                 * PMMLDocument.*/
+                pmmlDoc = PMMLDocument.Factory.parse(updatedPMML);
+            } catch (Exception e) {
                 throw new RuntimeException(
-                        "Parsing of PMML v 3.x/4.0 document failed.");
+                        "Parsing of PMML v 3.x/4.0 document failed.", e);
             }
+            LOGGER.info(
+                    "KNIME produced PMML 3.x/4.0  converted to PMML 4.1.");
+            return pmmlDoc;
+        } else {
+            throw new RuntimeException(
+                    "Parsing of PMML v 3.x/4.0 document failed.");
         }
-        m_spec = spec;
     }
 
     /**
@@ -731,11 +915,11 @@ public void addGlobalTransformations(
                     + "supported so far. Only derived fields are allowed.");
         }
 
-        TransformationDictionary dict
-            = m_pmmlDoc.getPMML().getTransformationDictionary();
+        PMML pmml = getWritableDocument().getPMML();
+        TransformationDictionary dict = pmml.getTransformationDictionary();
         if (dict == null) {
-            m_pmmlDoc.getPMML().setTransformationDictionary(dictionary);
-            dict = m_pmmlDoc.getPMML().getTransformationDictionary();
+            pmml.setTransformationDictionary(dictionary);
+            dict = pmml.getTransformationDictionary();
         } else {
             // append the transformations to the existing dictionary
             DerivedField[] existingFields = dict.getDerivedFieldArray();
@@ -765,7 +949,7 @@ public void addGlobalTransformations(
          * results in duplicate entries. Those columns should only appear once
          * as derived field in the transformation dictionary or local
          * transformations. */
-        DataDictionary dataDict = m_pmmlDoc.getPMML().getDataDictionary();
+        DataDictionary dataDict = pmml.getDataDictionary();
         DataField[] dataFieldArray = dataDict.getDataFieldArray();
         List<DataField> dataFields = new ArrayList<DataField>(Arrays.asList(
                 dataFieldArray));
@@ -784,7 +968,6 @@ public void addGlobalTransformations(
         Map<String, String> derivedFieldMap = dfm.getDerivedFieldMap();
         /* Use XPATH to update field names in the model and move the derived
          * fields to local transformations. */
-        PMML pmml = m_pmmlDoc.getPMML();
         if (pmml.getTreeModelArray().length > 0) {
             fixAttributeAtPath(pmml, TREE_PATH, FIELD, derivedFieldMap);
         } else if (pmml.getClusteringModelArray().length > 0) {
@@ -873,7 +1056,12 @@ private void fixAttributeAtPath(final PMML pmml, final String xpath,
      *          are defined.
      */
     public DerivedField[] getDerivedFields() {
-        return DerivedFieldMapper.getDerivedFields(m_pmmlDoc.getPMML());
+        DerivedField[] derivedFields = DerivedFieldMapper.getDerivedFields(getDocument().getPMML());
+        // hand out copies as the document may be shared with other port objects
+        for (int i = 0; i < derivedFields.length; i++) {
+            derivedFields[i] = (DerivedField)derivedFields[i].copy();
+        }
+        return derivedFields;
     }
 
     /**
@@ -883,7 +1071,13 @@ public DerivedField[] getDerivedFields() {
      */
     public PMMLValue getPMMLValue() {
         try {
-            return (PMMLValue)PMMLCellFactory.create(PMMLFormatter.xmlText(m_pmmlDoc));
+            synchronized (this) {
+                if (m_pmmlBytes != null && isCurrentVersion(m_pmmlBytes)) {
+                    // avoid the XMLBeans parse if the document is not needed otherwise
+                    return (PMMLValue)PMMLCellFactory.create(new ByteArrayInputStream(m_pmmlBytes));
+                }
+            }
+            return (PMMLValue)PMMLCellFactory.create(PMMLFormatter.xmlText(getDocument()));
         } catch (Exception e) {
             throw new RuntimeException("Could not create PMML value.", e);
         }
@@ -895,7 +1089,7 @@ public PMMLValue getPMMLValue() {
      *      valid PMML document
      */
     public void validate() throws IllegalStateException {
-        Map<String, String> errors = PMMLValidator.validatePMML(m_pmmlDoc);
+        Map<String, String> errors = PMMLValidator.validatePMML(getDocument());
         if (!errors.isEmpty()) {
             StringBuffer sb = new StringBuffer("Invalid PMML document found. "
                     + "Errors: ");
@@ -978,18 +1172,21 @@ public boolean equals(final Object obj) {
             return false;
         }
         PMMLPortObject other = (PMMLPortObject)obj;
-        if (m_pmmlDoc == null) {
-            if (other.m_pmmlDoc != null) {
-                return false;
-            }
-        } else if (!m_pmmlDoc.valueEquals(other.m_pmmlDoc)) {
+        if (!Objects.equals(m_spec, other.m_spec)) {
             return false;
         }
-        if (m_spec == null) {
-            if (other.m_spec != null) {
+        String contentHash = getContentHash();
+        if (contentHash != null && contentHash.equals(other.getContentHash())) {
+            // same serialized content, no need to parse and compare the documents
+            return true;
+        }
+        PMMLDocument pmmlDoc = getDocument();
+        PMMLDocument otherPmmlDoc = other.getDocument();
+        if (pmmlDoc == null) {
+            if (otherPmmlDoc != null) {
                 return false;
             }
-        } else if (!m_spec.equals(other.m_spec)) {
+        } else if (pmmlDoc != otherPmmlDoc && !pmmlDoc.valueEquals(otherPmmlDoc)) {
             return false;
         }
         return true;
@@ -997,15 +1194,13 @@ public boolean equals(final Object obj) {
 
     /**
      * {@inheritDoc}
+     *
+     * The hash is based on the spec only: documents that are equal (see {@link #equals(Object)}) may differ in their
+     * serialized form, and a lazily loaded document is not parsed.
      */
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result
-                + ((m_pmmlDoc == null) ? 0 : m_pmmlDoc.hashCode());
-        result = prime * result + ((m_spec == null) ? 0 : m_spec.hashCode());
-        return result;
+        return Objects.hashCode(m_spec);
     }
 
 }
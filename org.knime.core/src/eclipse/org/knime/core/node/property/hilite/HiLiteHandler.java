@@ -61,7 +61,13 @@
  * This implementation keeps a list of row keys only for the hilit items.
  * Furthermore, an event is only sent for items whose status actually changed.
  * The list of hilite keys is modified (delete or add keys) before the actual
- * event is send.
+ * event is send. The set is modified in place (it is not copied per event), hence
+ * queries are answered without locking while an event is processed.
+ * <p>
+ * Listeners interested in row indices of a particular table rather than row
+ * keys can be registered along with a {@link RowKeyIndex}, see
+ * {@link #addHiLiteListener(RowKeyIndex, RowIndexHiLiteListener)}. Events
+ * fired as {@link RowIndexKeyEvent} are processed and passed on as bitmaps.
  * <p>
  * Do NOT derive this class which intended to be final but can't due to the
  * historical <code>DefaultHiLiteHandler</code> class.
@@ -101,8 +107,11 @@ public class HiLiteHandler {
     /** List of registered <code>HiLiteListener</code>s to fire event to. */
     private final CopyOnWriteArrayList<HiLiteListener> m_listenerList;
 
-    /** Set of non-<code>null</code> hilit items. */
-    private Set<RowKey> m_hiLitKeys;
+    /**
+     * Set of non-<code>null</code> hilit items in the order they were hilit. Never modified once assigned, events
+     * are applied to a copy that then replaces it, so readers always see a complete state.
+     */
+    private volatile Set<RowKey> m_hiLitKeys;
 
     /** Not-null if this {@link HiLiteHandler} is associated with one or more {@link HiLiteTranslator}s */
     private Set<HiLiteTranslator> m_hiliteTranslators;
@@ -154,6 +163,34 @@ public void removeHiLiteListener(final HiLiteListener listener) {
         m_listenerList.remove(listener);
     }
 
+    /**
+     * Appends a new hilite listener working on row indices of the given
+     * index, if the listener has not been added before. This method does not
+     * send a hilite event to the new listener, see
+     * {@link #getHiLitRows(RowKeyIndex)} for the current state.
+     *
+     * @param index the index the listener's rows refer to
+     * @param listener the hilite listener to append to the list
+     * @since 4.4
+     */
+    public void addHiLiteListener(final RowKeyIndex index,
+            final RowIndexHiLiteListener listener) {
+        if (index == null || listener == null) {
+            throw new NullPointerException("Arguments must not be null");
+        }
+        addHiLiteListener(new RowIndexListenerAdapter(index, listener));
+    }
+
+    /**
+     * Removes the given row index hilite listener from the list.
+     *
+     * @param listener the hilite listener to remove from the list
+     * @since 4.4
+     */
+    public void removeHiLiteListener(final RowIndexHiLiteListener listener) {
+        m_listenerList.remove(new RowIndexListenerAdapter(null, listener));
+    }
+
     /**
      * Removes all hilite listeners from the list.
      */
@@ -251,18 +288,78 @@ public boolean isHiLit(final RowKey... ids) {
         if (ids == null) {
             throw new IllegalArgumentException("Key array must not be null.");
         }
+        final Set<RowKey> hiLitKeys = m_hiLitKeys;
         for (final RowKey c : ids) {
             if (c == null) {
                 throw new IllegalArgumentException(
                         "Key array must not contain null elements.");
             }
-            if (!m_hiLitKeys.contains(c)) {
+            if (!hiLitKeys.contains(c)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Returns <code>true</code> if the row with the given index is hilit.
+     *
+     * @param index the index the row refers to
+     * @param row the row index
+     * @return <code>true</code> if the row is hilit
+     * @since 4.4
+     */
+    public boolean isHiLit(final RowKeyIndex index, final int row) {
+        return m_hiLitKeys.contains(index.getKey(row));
+    }
+
+    /**
+     * Returns the hilit rows of the given index.
+     *
+     * @param index the index
+     * @return a new bitmap of the hilit rows of the index
+     * @since 4.4
+     */
+    public RowIndexBitmap getHiLitRows(final RowKeyIndex index) {
+        final Set<RowKey> hiLitKeys = m_hiLitKeys;
+        if (hiLitKeys.size() < index.size()) {
+            return index.toRows(hiLitKeys);
+        }
+        RowIndexBitmap rows = new RowIndexBitmap();
+        for (int i = 0; i < index.size(); i++) {
+            if (hiLitKeys.contains(index.getKey(i))) {
+                rows.add(i);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sets the status of the specified rows to 'hilit'. Same as
+     * {@link #fireHiLiteEvent(KeyEvent)} with a {@link RowIndexKeyEvent}.
+     *
+     * @param index the index the rows refer to
+     * @param rows the rows to hilite, must not be modified afterwards
+     * @since 4.4
+     */
+    public synchronized void fireHiLiteEvent(final RowKeyIndex index,
+            final RowIndexBitmap rows) {
+        fireHiLiteEvent(new RowIndexKeyEvent(this, index, rows));
+    }
+
+    /**
+     * Sets the status of the specified rows to 'unhilit'. Same as
+     * {@link #fireUnHiLiteEvent(KeyEvent)} with a {@link RowIndexKeyEvent}.
+     *
+     * @param index the index the rows refer to
+     * @param rows the rows to unhilite, must not be modified afterwards
+     * @since 4.4
+     */
+    public synchronized void fireUnHiLiteEvent(final RowKeyIndex index,
+            final RowIndexBitmap rows) {
+        fireUnHiLiteEvent(new RowIndexKeyEvent(this, index, rows));
+    }
+
     /**
      * Sets the status of the specified row IDs to 'hilit'. It will send a
      * hilite event to all registered listeners - only if the keys were not
@@ -356,8 +453,6 @@ public synchronized void fireHiLiteEvent(final KeyEvent event) {
             throw new NullPointerException("KeyEvent must not be null");
         }
 
-        Set<RowKey> newHilitKeys = new LinkedHashSet<RowKey>(m_hiLitKeys);
-
         /*
          * Do not change this implementation, unless you are aware of the
          * following problem:
@@ -370,30 +465,43 @@ public synchronized void fireHiLiteEvent(final KeyEvent event) {
          * the event must be queued in both cases to avoid nested events to be
          * waiting on each other.
          */
-        final Set<RowKey> ids = event.keys();
         // check if at least one id is present
-        if (ids.isEmpty()) {
+        if (event.isEmpty()) {
             return;
         }
-        // create list of row keys from input key array
-        final Set<RowKey> changedIDs = new LinkedHashSet<RowKey>();
-        // iterates over all keys and adds them to the changed set
-        for (final RowKey id : ids) {
-            if (id == null) {
-                throw new IllegalArgumentException(
-                        "Key array must not contains null elements.");
-            }
-            // if the key is already hilit, do not add it
-            if (newHilitKeys.add(id)) {
-                changedIDs.add(id);
+        final Set<RowKey> newHilitKeys = new LinkedHashSet<RowKey>(m_hiLitKeys);
+        final KeyEvent fireEvent;
+        if (event instanceof RowIndexKeyEvent) {
+            // compute the changed rows as bitmap, keys are not copied
+            final RowIndexKeyEvent indexEvent = (RowIndexKeyEvent)event;
+            final RowKeyIndex index = indexEvent.getRowKeyIndex();
+            final RowIndexBitmap changedRows = new RowIndexBitmap();
+            indexEvent.rows().forEach(row -> {
+                if (newHilitKeys.add(index.getKey(row))) {
+                    changedRows.add(row);
+                }
+            });
+            fireEvent = changedRows.isEmpty() ? null
+                : new RowIndexKeyEvent(event.getSource(), index, changedRows);
+        } else {
+            final Set<RowKey> ids = event.keys();
+            checkNoNullKeys(ids);
+            // create list of row keys from input key array
+            final Set<RowKey> changedIDs = new LinkedHashSet<RowKey>();
+            // iterates over all keys and adds them to the changed set
+            for (final RowKey id : ids) {
+                // if the key is already hilit, do not add it
+                if (newHilitKeys.add(id)) {
+                    changedIDs.add(id);
+                }
             }
+            fireEvent = changedIDs.isEmpty() ? null
+                : new KeyEvent(event.getSource(), changedIDs);
         }
 
         // if at least on key changed
-        if (!changedIDs.isEmpty()) {
+        if (fireEvent != null) {
             m_hiLitKeys = newHilitKeys;
-            final KeyEvent fireEvent =
-                new KeyEvent(event.getSource(), changedIDs);
             final Runnable r = new Runnable() {
                 @Override
                 public void run() {
@@ -438,32 +546,41 @@ public synchronized void fireUnHiLiteEvent(final KeyEvent event) {
          * Do not change this implementation, see #fireHiLiteEvent for
          * more details.
          */
-        final Set<RowKey> ids = event.keys();
         // check if at least one id is present
-        if (ids.isEmpty()) {
+        if (event.isEmpty()) {
             return;
         }
-
-        Set<RowKey> newHilitKeys = new LinkedHashSet<RowKey>(m_hiLitKeys);
-
-        // create list of row keys from input key array
-        final Set<RowKey> changedIDs = new LinkedHashSet<RowKey>();
-        // iterate over all keys and removes all not hilit ones
-        for (final RowKey id : ids) {
-            if (id == null) {
-                throw new IllegalArgumentException(
-                        "Key array must not contains null elements.");
-            }
-            if (newHilitKeys.remove(id)) {
-                changedIDs.add(id);
+        final Set<RowKey> newHilitKeys = new LinkedHashSet<RowKey>(m_hiLitKeys);
+        final KeyEvent fireEvent;
+        if (event instanceof RowIndexKeyEvent) {
+            final RowIndexKeyEvent indexEvent = (RowIndexKeyEvent)event;
+            final RowKeyIndex index = indexEvent.getRowKeyIndex();
+            final RowIndexBitmap changedRows = new RowIndexBitmap();
+            indexEvent.rows().forEach(row -> {
+                if (newHilitKeys.remove(index.getKey(row))) {
+                    changedRows.add(row);
+                }
+            });
+            fireEvent = changedRows.isEmpty() ? null
+                : new RowIndexKeyEvent(event.getSource(), index, changedRows);
+        } else {
+            final Set<RowKey> ids = event.keys();
+            checkNoNullKeys(ids);
+            // create list of row keys from input key array
+            final Set<RowKey> changedIDs = new LinkedHashSet<RowKey>();
+            // iterate over all keys and removes all not hilit ones
+            for (final RowKey id : ids) {
+                if (newHilitKeys.remove(id)) {
+                    changedIDs.add(id);
+                }
             }
+            fireEvent = changedIDs.isEmpty() ? null
+                : new KeyEvent(event.getSource(), changedIDs);
         }
         // if at least on key changed
-        if (!changedIDs.isEmpty()) {
+        if (fireEvent != null) {
             m_hiLitKeys = newHilitKeys;
             // throw unhilite event
-            final KeyEvent fireEvent = new KeyEvent(
-                    event.getSource(), changedIDs);
             final Runnable r = new Runnable() {
                 @Override
                 public void run() {
@@ -526,10 +643,80 @@ public void run() {
 
     /**
      * Returns a copy of all hilit keys.
-     * @return a set of hilit row keys
+     * @return a set of hilit row keys in the order they were hilit
      * @see HiLiteHandler#getHiLitKeys()
      */
     public Set<RowKey> getHiLitKeys() {
         return new LinkedHashSet<RowKey>(m_hiLitKeys);
     }
+
+    /** Checks the keys before any of them is applied to the hilite state. */
+    private static void checkNoNullKeys(final Set<RowKey> ids) {
+        for (final RowKey id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException(
+                        "Key array must not contains null elements.");
+            }
+        }
+    }
+
+    /**
+     * Passes events to a {@link RowIndexHiLiteListener}, translating them to
+     * its index unless they already refer to it. Equal to all adapters of the
+     * same listener.
+     */
+    private static final class RowIndexListenerAdapter
+            implements HiLiteListener {
+
+        private final RowKeyIndex m_index;
+
+        private final RowIndexHiLiteListener m_listener;
+
+        RowIndexListenerAdapter(final RowKeyIndex index,
+                final RowIndexHiLiteListener listener) {
+            m_index = index;
+            m_listener = listener;
+        }
+
+        private RowIndexKeyEvent translate(final KeyEvent event) {
+            if (event instanceof RowIndexKeyEvent
+                    && ((RowIndexKeyEvent)event).getRowKeyIndex() == m_index) {
+                return (RowIndexKeyEvent)event;
+            }
+            return new RowIndexKeyEvent(event.getSource(), m_index,
+                m_index.toRows(event.keys()));
+        }
+
+        @Override
+        public void hiLite(final KeyEvent event) {
+            final RowIndexKeyEvent indexEvent = translate(event);
+            if (!indexEvent.isEmpty()) {
+                m_listener.hiLite(indexEvent);
+            }
+        }
+
+        @Override
+        public void unHiLite(final KeyEvent event) {
+            final RowIndexKeyEvent indexEvent = translate(event);
+            if (!indexEvent.isEmpty()) {
+                m_listener.unHiLite(indexEvent);
+            }
+        }
+
+        @Override
+        public void unHiLiteAll(final KeyEvent event) {
+            m_listener.unHiLiteAll(event);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof RowIndexListenerAdapter
+                && ((RowIndexListenerAdapter)obj).m_listener == m_listener;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(m_listener);
+        }
+    }
 }
@@ -58,7 +58,8 @@
  * {@link HiLiteHandler} and a number of target handlers (to). The source hilite
  * handler is passed through the constructor of this class. The target hilite
  * handlers can be set independently, as well as the mapping which is defined
- * between {@link RowKey} row keys and {@link RowKey} sets.
+ * between {@link RowKey} row keys and {@link RowKey} sets. With a
+ * {@link RowIndexHiLiteMapper} events are translated as row index bitmaps.
  * <p>
  * This class hosts two listeners one which is registered with the source
  * handler and one which is registered with all target handlers. These listeners
@@ -98,7 +99,15 @@ public void hiLite(final KeyEvent event) {
             if (event.getSource() == m_eventSource) {
                 return;
             }
-            if (m_mapper != null && m_targetHandlers.size() > 0) {
+            final HiLiteMapper mapper = m_mapper;
+            if (mapper instanceof RowIndexHiLiteMapper) {
+                final RowIndexKeyEvent fireEvent = mapToTargets((RowIndexHiLiteMapper)mapper, event);
+                if (fireEvent != null) {
+                    for (HiLiteHandler h : m_targetHandlers) {
+                        h.fireHiLiteEvent(fireEvent);
+                    }
+                }
+            } else if (m_mapper != null && m_targetHandlers.size() > 0) {
                 Set<RowKey> fireSet = new LinkedHashSet<RowKey>();
                 for (RowKey key : event.keys()) {
                     Set<RowKey> s = m_mapper.getKeys(key);
@@ -122,7 +131,15 @@ public void unHiLite(final KeyEvent event) {
             if (event.getSource() == m_eventSource) {
                 return;
             }
-            if (m_mapper != null && m_targetHandlers.size() > 0) {
+            final HiLiteMapper mapper = m_mapper;
+            if (mapper instanceof RowIndexHiLiteMapper) {
+                final RowIndexKeyEvent fireEvent = mapToTargets((RowIndexHiLiteMapper)mapper, event);
+                if (fireEvent != null) {
+                    for (HiLiteHandler h : m_targetHandlers) {
+                        h.fireUnHiLiteEvent(fireEvent);
+                    }
+                }
+            } else if (m_mapper != null && m_targetHandlers.size() > 0) {
                 Set<RowKey> fireSet = new LinkedHashSet<RowKey>();
                 for (RowKey key : event.keys()) {
                     Set<RowKey> s = m_mapper.getKeys(key);
@@ -166,7 +183,24 @@ public void hiLite(final KeyEvent event) {
             if (event.getSource() == m_eventSource) {
                 return;
             }
-            if (m_mapper != null) {
+            final HiLiteMapper mapper = m_mapper;
+            if (mapper instanceof RowIndexHiLiteMapper) {
+                // only source rows mapping to one of the changed rows can become hilit
+                final RowIndexHiLiteMapper indexMapper = (RowIndexHiLiteMapper)mapper;
+                final RowKeyIndex targetIndex = indexMapper.getTargetIndex();
+                final RowIndexBitmap targetRows = targetIndex.toRows(event);
+                final RowIndexBitmap sourceRows = new RowIndexBitmap();
+                indexMapper.mapRowsBack(targetRows).forEach(source -> {
+                    if (indexMapper.allTargetsMatch(source, target -> targetRows.contains(target)
+                        || isHiLitInTargets(targetIndex.getKey(target)))) {
+                        sourceRows.add(source);
+                    }
+                });
+                if (!sourceRows.isEmpty()) {
+                    m_sourceHandler.fireHiLiteEvent(
+                        new RowIndexKeyEvent(m_eventSource, indexMapper.getSourceIndex(), sourceRows));
+                }
+            } else if (m_mapper != null) {
                 // add all hilite keys from the event and all hilite keys
                 // from the target hilite handlers
                 final Set<RowKey> all = new LinkedHashSet<RowKey>(
@@ -193,7 +227,17 @@ public void unHiLite(final KeyEvent event) {
             if (event.getSource() == m_eventSource) {
                 return;
             }
-            if (m_mapper != null) {
+            final HiLiteMapper mapper = m_mapper;
+            if (mapper instanceof RowIndexHiLiteMapper) {
+                // all source rows mapping to one of the changed rows
+                final RowIndexHiLiteMapper indexMapper = (RowIndexHiLiteMapper)mapper;
+                final RowIndexBitmap sourceRows =
+                    indexMapper.mapRowsBack(indexMapper.getTargetIndex().toRows(event));
+                if (!sourceRows.isEmpty()) {
+                    m_sourceHandler.fireUnHiLiteEvent(
+                        new RowIndexKeyEvent(m_eventSource, indexMapper.getSourceIndex(), sourceRows));
+                }
+            } else if (m_mapper != null) {
                 // check all mappings
                 for (RowKey key : m_mapper.keySet()) {
                     final Set<RowKey> keys = m_mapper.getKeys(key);
@@ -220,6 +264,33 @@ public void unHiLiteAll(final KeyEvent event) {
         }
     };
 
+    /**
+     * Maps the keys of an event on the source handler to the target rows of
+     * the mapper.
+     * @return the event to fire on the target handlers or null if no rows
+     *      are affected
+     */
+    private RowIndexKeyEvent mapToTargets(final RowIndexHiLiteMapper mapper,
+            final KeyEvent event) {
+        if (m_targetHandlers.isEmpty()) {
+            return null;
+        }
+        final RowIndexBitmap targetRows =
+            mapper.mapRows(mapper.getSourceIndex().toRows(event));
+        return targetRows.isEmpty() ? null
+            : new RowIndexKeyEvent(m_eventSource, mapper.getTargetIndex(), targetRows);
+    }
+
+    /** @return true if the key is hilit in at least one target handler */
+    private boolean isHiLitInTargets(final RowKey key) {
+        for (HiLiteHandler hdl : m_targetHandlers) {
+            if (hdl.isHiLit(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Creates a translator with an empty mapping and a default hilite
      * handler.
@@ -0,0 +1,693 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.property.hilite;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative row indices. The index range is split into chunks of 2<sup>16</sup> rows; sparse
+ * chunks store their rows as sorted array, dense chunks as bitmap (the layout known from Roaring bitmaps). Hence
+ * a set of a million rows out of ten million takes roughly one bit per table row instead of one object per row,
+ * and copying, union and difference work on whole words.
+ *
+ * <p>
+ * Bitmaps passed along with {@link RowIndexKeyEvent hilite events} are read-only, all modifying methods throw an
+ * {@link UnsupportedOperationException} then. Instances are not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class RowIndexBitmap {
+
+    /** Chunks with more rows are stored as bitmap, smaller ones as sorted array. */
+    private static final int ARRAY_MAX_SIZE = 4096;
+
+    /** Number of longs of a bitmap chunk. */
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    /** Sorted high 16 bits of the rows of the chunks. */
+    private char[] m_keys;
+
+    private Chunk[] m_chunks;
+
+    private int m_chunkCount;
+
+    private boolean m_readOnly;
+
+    /** Creates an empty bitmap. */
+    public RowIndexBitmap() {
+        m_keys = new char[4];
+        m_chunks = new Chunk[4];
+    }
+
+    /**
+     * @param rows the rows to add
+     * @return a new bitmap containing the argument rows
+     * @throws IllegalArgumentException if one of the rows is negative
+     */
+    public static RowIndexBitmap of(final int... rows) {
+        RowIndexBitmap result = new RowIndexBitmap();
+        for (int row : rows) {
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * @param from the first row (inclusive)
+     * @param to the last row (exclusive)
+     * @return a new bitmap containing the rows of the argument range
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public static RowIndexBitmap range(final int from, final int to) {
+        RowIndexBitmap result = new RowIndexBitmap();
+        result.addRange(from, to);
+        return result;
+    }
+
+    /**
+     * @param row the row to add
+     * @return <code>true</code> if the row was not contained before
+     * @throws IllegalArgumentException if the row is negative
+     */
+    public boolean add(final int row) {
+        checkWritable();
+        checkRow(row);
+        int i = chunkIndex(highBits(row));
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, highBits(row), new ArrayChunk());
+        }
+        boolean changed = m_chunks[i].add(lowBits(row));
+        if (changed) {
+            normalize(i);
+        }
+        return changed;
+    }
+
+    /**
+     * Adds all rows of a range.
+     *
+     * @param from the first row (inclusive)
+     * @param to the last row (exclusive)
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public void addRange(final int from, final int to) {
+        checkWritable();
+        checkRow(from);
+        if (to < from) {
+            throw new IllegalArgumentException("Invalid range [" + from + ", " + to + ")");
+        }
+        int row = from;
+        while (row < to) {
+            char high = highBits(row);
+            // last row of this chunk that is part of the range (inclusive)
+            int chunkEnd = Math.min(to - 1, (high << 16) | 0xFFFF);
+            int i = chunkIndex(high);
+            if (i < 0) {
+                i = -i - 1;
+                insertChunk(i, high, new ArrayChunk());
+            }
+            if (chunkEnd - row >= ARRAY_MAX_SIZE && m_chunks[i] instanceof ArrayChunk) {
+                m_chunks[i] = ((ArrayChunk)m_chunks[i]).toBitmap();
+            }
+            Chunk chunk = m_chunks[i];
+            if (chunk instanceof BitmapChunk) {
+                ((BitmapChunk)chunk).addRange(lowBits(row), lowBits(chunkEnd));
+            } else {
+                for (int r = row; r <= chunkEnd; r++) {
+                    chunk.add(lowBits(r));
+                }
+            }
+            normalize(i);
+            if (chunkEnd == Integer.MAX_VALUE) {
+                break;
+            }
+            row = chunkEnd + 1;
+        }
+    }
+
+    /**
+     * @param row the row to remove
+     * @return <code>true</code> if the row was contained before
+     */
+    public boolean remove(final int row) {
+        checkWritable();
+        if (row < 0) {
+            return false;
+        }
+        int i = chunkIndex(highBits(row));
+        if (i < 0) {
+            return false;
+        }
+        boolean changed = m_chunks[i].remove(lowBits(row));
+        if (changed) {
+            normalize(i);
+        }
+        return changed;
+    }
+
+    /**
+     * @param row the row to test
+     * @return <code>true</code> if the row is contained
+     */
+    public boolean contains(final int row) {
+        if (row < 0) {
+            return false;
+        }
+        int i = chunkIndex(highBits(row));
+        return i >= 0 && m_chunks[i].contains(lowBits(row));
+    }
+
+    /**
+     * Adds all rows of the argument bitmap to this one.
+     *
+     * @param other the rows to add
+     */
+    public void or(final RowIndexBitmap other) {
+        checkWritable();
+        for (int o = 0; o < other.m_chunkCount; o++) {
+            int i = chunkIndex(other.m_keys[o]);
+            if (i < 0) {
+                insertChunk(-i - 1, other.m_keys[o], other.m_chunks[o].copy());
+                continue;
+            }
+            Chunk chunk = m_chunks[i];
+            Chunk otherChunk = other.m_chunks[o];
+            if (chunk instanceof ArrayChunk && otherChunk instanceof BitmapChunk) {
+                chunk = otherChunk.copy();
+                otherChunk = m_chunks[i];
+                m_chunks[i] = chunk;
+            }
+            if (chunk instanceof BitmapChunk && otherChunk instanceof BitmapChunk) {
+                ((BitmapChunk)chunk).or((BitmapChunk)otherChunk);
+            } else {
+                ArrayChunk array = (ArrayChunk)otherChunk;
+                for (int v = 0; v < array.m_size; v++) {
+                    chunk.add(array.m_values[v]);
+                }
+            }
+            normalize(i);
+        }
+    }
+
+    /**
+     * Removes all rows of the argument bitmap from this one.
+     *
+     * @param other the rows to remove
+     */
+    public void andNot(final RowIndexBitmap other) {
+        checkWritable();
+        for (int o = 0; o < other.m_chunkCount; o++) {
+            int i = chunkIndex(other.m_keys[o]);
+            if (i < 0) {
+                continue;
+            }
+            Chunk chunk = m_chunks[i];
+            Chunk otherChunk = other.m_chunks[o];
+            if (chunk instanceof BitmapChunk && otherChunk instanceof BitmapChunk) {
+                ((BitmapChunk)chunk).andNot((BitmapChunk)otherChunk);
+            } else if (otherChunk instanceof ArrayChunk) {
+                ArrayChunk array = (ArrayChunk)otherChunk;
+                for (int v = 0; v < array.m_size; v++) {
+                    chunk.remove(array.m_values[v]);
+                }
+            } else {
+                ArrayChunk array = (ArrayChunk)chunk;
+                int size = 0;
+                for (int v = 0; v < array.m_size; v++) {
+                    if (!otherChunk.contains(array.m_values[v])) {
+                        array.m_values[size++] = array.m_values[v];
+                    }
+                }
+                array.m_size = size;
+            }
+            normalize(i);
+        }
+    }
+
+    /** @return the number of rows contained */
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < m_chunkCount; i++) {
+            cardinality += m_chunks[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /** @return <code>true</code> if no row is contained */
+    public boolean isEmpty() {
+        return m_chunkCount == 0;
+    }
+
+    /**
+     * Passes all rows in ascending order to the argument consumer.
+     *
+     * @param consumer the consumer
+     */
+    public void forEach(final IntConsumer consumer) {
+        for (int i = 0; i < m_chunkCount; i++) {
+            m_chunks[i].forEach(m_keys[i] << 16, consumer);
+        }
+    }
+
+    /** @return an iterator over the rows in ascending order */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int m_chunk = -1;
+
+            private PrimitiveIterator.OfInt m_current;
+
+            @Override
+            public boolean hasNext() {
+                while (m_current == null || !m_current.hasNext()) {
+                    if (++m_chunk >= m_chunkCount) {
+                        return false;
+                    }
+                    m_current = m_chunks[m_chunk].iterator(m_keys[m_chunk] << 16);
+                }
+                return true;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return m_current.nextInt();
+            }
+        };
+    }
+
+    /** @return a modifiable copy of this bitmap */
+    public RowIndexBitmap copy() {
+        RowIndexBitmap copy = new RowIndexBitmap();
+        copy.m_keys = Arrays.copyOf(m_keys, Math.max(4, m_chunkCount));
+        copy.m_chunks = new Chunk[copy.m_keys.length];
+        for (int i = 0; i < m_chunkCount; i++) {
+            copy.m_chunks[i] = m_chunks[i].copy();
+        }
+        copy.m_chunkCount = m_chunkCount;
+        return copy;
+    }
+
+    /**
+     * Makes this bitmap read-only.
+     *
+     * @return this
+     */
+    RowIndexBitmap freeze() {
+        m_readOnly = true;
+        return this;
+    }
+
+    /** @return <code>true</code> if the bitmap cannot be modified */
+    public boolean isReadOnly() {
+        return m_readOnly;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof RowIndexBitmap)) {
+            return false;
+        }
+        RowIndexBitmap other = (RowIndexBitmap)obj;
+        if (m_chunkCount != other.m_chunkCount) {
+            return false;
+        }
+        for (int i = 0; i < m_chunkCount; i++) {
+            if (m_keys[i] != other.m_keys[i] || m_chunks[i].cardinality() != other.m_chunks[i].cardinality()) {
+                return false;
+            }
+        }
+        PrimitiveIterator.OfInt it = iterator();
+        PrimitiveIterator.OfInt otherIt = other.iterator();
+        while (it.hasNext()) {
+            if (it.nextInt() != otherIt.nextInt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int[] hash = new int[]{1};
+        forEach(row -> hash[0] = 31 * hash[0] + row);
+        return hash[0];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        PrimitiveIterator.OfInt it = iterator();
+        for (int i = 0; it.hasNext(); i++) {
+            if (i == 100) {
+                b.append(", ...");
+                break;
+            }
+            b.append(i == 0 ? "" : ", ").append(it.nextInt());
+        }
+        return b.append('}').toString();
+    }
+
+    private void checkWritable() {
+        if (m_readOnly) {
+            throw new UnsupportedOperationException("Bitmap is read-only");
+        }
+    }
+
+    private static void checkRow(final int row) {
+        if (row < 0) {
+            throw new IllegalArgumentException("Row index must not be negative: " + row);
+        }
+    }
+
+    private static char highBits(final int row) {
+        return (char)(row >>> 16);
+    }
+
+    private static char lowBits(final int row) {
+        return (char)row;
+    }
+
+    private int chunkIndex(final char high) {
+        return Arrays.binarySearch(m_keys, 0, m_chunkCount, high);
+    }
+
+    private void insertChunk(final int i, final char high, final Chunk chunk) {
+        if (m_chunkCount == m_keys.length) {
+            m_keys = Arrays.copyOf(m_keys, 2 * m_chunkCount);
+            m_chunks = Arrays.copyOf(m_chunks, 2 * m_chunkCount);
+        }
+        System.arraycopy(m_keys, i, m_keys, i + 1, m_chunkCount - i);
+        System.arraycopy(m_chunks, i, m_chunks, i + 1, m_chunkCount - i);
+        m_keys[i] = high;
+        m_chunks[i] = chunk;
+        m_chunkCount++;
+    }
+
+    /** Switches the representation of chunk i if needed and drops it if it became empty. */
+    private void normalize(final int i) {
+        Chunk chunk = m_chunks[i];
+        int cardinality = chunk.cardinality();
+        if (cardinality == 0) {
+            System.arraycopy(m_keys, i + 1, m_keys, i, m_chunkCount - i - 1);
+            System.arraycopy(m_chunks, i + 1, m_chunks, i, m_chunkCount - i - 1);
+            m_chunks[--m_chunkCount] = null;
+        } else if (chunk instanceof ArrayChunk && cardinality > ARRAY_MAX_SIZE) {
+            m_chunks[i] = ((ArrayChunk)chunk).toBitmap();
+        } else if (chunk instanceof BitmapChunk && cardinality <= ARRAY_MAX_SIZE) {
+            m_chunks[i] = ((BitmapChunk)chunk).toArray();
+        }
+    }
+
+    /** The rows of one chunk, represented by their lower 16 bits. */
+    private abstract static class Chunk {
+        abstract boolean add(char value);
+
+        abstract boolean remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Chunk copy();
+
+        abstract void forEach(int base, IntConsumer consumer);
+
+        abstract PrimitiveIterator.OfInt iterator(int base);
+    }
+
+    private static final class ArrayChunk extends Chunk {
+        private char[] m_values = new char[4];
+
+        private int m_size;
+
+        @Override
+        boolean add(final char value) {
+            int i = Arrays.binarySearch(m_values, 0, m_size, value);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (m_size == m_values.length) {
+                m_values = Arrays.copyOf(m_values, 2 * m_size);
+            }
+            System.arraycopy(m_values, i, m_values, i + 1, m_size - i);
+            m_values[i] = value;
+            m_size++;
+            return true;
+        }
+
+        @Override
+        boolean remove(final char value) {
+            int i = Arrays.binarySearch(m_values, 0, m_size, value);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(m_values, i + 1, m_values, i, m_size - i - 1);
+            m_size--;
+            return true;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return Arrays.binarySearch(m_values, 0, m_size, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return m_size;
+        }
+
+        @Override
+        Chunk copy() {
+            ArrayChunk copy = new ArrayChunk();
+            copy.m_values = Arrays.copyOf(m_values, Math.max(4, m_size));
+            copy.m_size = m_size;
+            return copy;
+        }
+
+        @Override
+        void forEach(final int base, final IntConsumer consumer) {
+            for (int i = 0; i < m_size; i++) {
+                consumer.accept(base | m_values[i]);
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(final int base) {
+            return new PrimitiveIterator.OfInt() {
+                private int m_next;
+
+                @Override
+                public boolean hasNext() {
+                    return m_next < m_size;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (m_next >= m_size) {
+                        throw new NoSuchElementException();
+                    }
+                    return base | m_values[m_next++];
+                }
+            };
+        }
+
+        BitmapChunk toBitmap() {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < m_size; i++) {
+                bitmap.add(m_values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapChunk extends Chunk {
+        private long[] m_words = new long[BITMAP_WORDS];
+
+        private int m_cardinality;
+
+        @Override
+        boolean add(final char value) {
+            long before = m_words[value >>> 6];
+            long after = before | (1L << value);
+            m_words[value >>> 6] = after;
+            if (before != after) {
+                m_cardinality++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean remove(final char value) {
+            long before = m_words[value >>> 6];
+            long after = before & ~(1L << value);
+            m_words[value >>> 6] = after;
+            if (before != after) {
+                m_cardinality--;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return (m_words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return m_cardinality;
+        }
+
+        /** Adds the values from <code>from</code> to <code>to</code>, both inclusive. */
+        void addRange(final char from, final char to) {
+            int firstWord = from >>> 6;
+            int lastWord = to >>> 6;
+            for (int w = firstWord; w <= lastWord; w++) {
+                long mask = -1L;
+                if (w == firstWord) {
+                    mask &= -1L << from;
+                }
+                if (w == lastWord) {
+                    mask &= -1L >>> (63 - (to & 63));
+                }
+                m_words[w] |= mask;
+            }
+            recount();
+        }
+
+        void or(final BitmapChunk other) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                m_words[w] |= other.m_words[w];
+            }
+            recount();
+        }
+
+        void andNot(final BitmapChunk other) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                m_words[w] &= ~other.m_words[w];
+            }
+            recount();
+        }
+
+        private void recount() {
+            int cardinality = 0;
+            for (long word : m_words) {
+                cardinality += Long.bitCount(word);
+            }
+            m_cardinality = cardinality;
+        }
+
+        @Override
+        Chunk copy() {
+            BitmapChunk copy = new BitmapChunk();
+            copy.m_words = m_words.clone();
+            copy.m_cardinality = m_cardinality;
+            return copy;
+        }
+
+        @Override
+        void forEach(final int base, final IntConsumer consumer) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = m_words[w];
+                while (word != 0) {
+                    consumer.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(final int base) {
+            return new PrimitiveIterator.OfInt() {
+                private int m_word = -1;
+
+                private long m_bits;
+
+                @Override
+                public boolean hasNext() {
+                    while (m_bits == 0) {
+                        if (++m_word >= BITMAP_WORDS) {
+                            return false;
+                        }
+                        m_bits = m_words[m_word];
+                    }
+                    return true;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int value = base | (m_word << 6) | Long.numberOfTrailingZeros(m_bits);
+                    m_bits &= m_bits - 1;
+                    return value;
+                }
+            };
+        }
+
+        ArrayChunk toArray() {
+            ArrayChunk array = new ArrayChunk();
+            array.m_values = new char[Math.max(4, m_cardinality)];
+            forEach(0, v -> array.m_values[array.m_size++] = (char)v);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.property.hilite;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.knime.core.data.RowKey;
+
+/**
+ * A hilite mapper between the rows of two tables given by row indices, e.g. from the rows of an aggregated output
+ * table (source) to the rows of the input table (target). A {@link HiLiteTranslator} using this mapper translates
+ * events as {@link RowIndexBitmap bitmaps} without building intermediate row key sets; the key based
+ * {@link HiLiteMapper} methods are provided for other clients.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class RowIndexHiLiteMapper implements HiLiteMapper {
+
+    private final RowKeyIndex m_sourceIndex;
+
+    private final RowKeyIndex m_targetIndex;
+
+    /** Source row r maps to the target rows <code>m_targets[m_offsets[r]]</code> to (excl.) <code>[r + 1]</code>. */
+    private final int[] m_offsets;
+
+    private final int[] m_targets;
+
+    /** The inverse mapping, target row t is mapped from <code>m_sources[m_sourceOffsets[t]]</code> ff. */
+    private final int[] m_sourceOffsets;
+
+    private final int[] m_sources;
+
+    private final Set<RowKey> m_keySet;
+
+    /**
+     * Creates a new mapper.
+     *
+     * @param sourceIndex the index of the source rows
+     * @param targetIndex the index of the target rows
+     * @param mapping for each source row the target rows it maps to, elements may be <code>null</code> for unmapped
+     *            rows
+     * @throws IllegalArgumentException if the mapping doesn't match the indices
+     */
+    public RowIndexHiLiteMapper(final RowKeyIndex sourceIndex, final RowKeyIndex targetIndex,
+        final int[][] mapping) {
+        if (mapping.length != sourceIndex.size()) {
+            throw new IllegalArgumentException("Mapping has " + mapping.length + " entries but the source index "
+                + sourceIndex.size() + " rows");
+        }
+        m_sourceIndex = sourceIndex;
+        m_targetIndex = targetIndex;
+        m_offsets = new int[mapping.length + 1];
+        int[] sourceCounts = new int[targetIndex.size() + 1];
+        RowIndexBitmap mappedRows = new RowIndexBitmap();
+        for (int r = 0; r < mapping.length; r++) {
+            int count = mapping[r] == null ? 0 : mapping[r].length;
+            m_offsets[r + 1] = m_offsets[r] + count;
+            if (count > 0) {
+                mappedRows.add(r);
+            }
+            for (int i = 0; i < count; i++) {
+                int target = mapping[r][i];
+                if (target < 0 || target >= targetIndex.size()) {
+                    throw new IllegalArgumentException("Invalid target row " + target + " for source row " + r);
+                }
+                sourceCounts[target + 1]++;
+            }
+        }
+        m_targets = new int[m_offsets[mapping.length]];
+        m_sourceOffsets = new int[targetIndex.size() + 1];
+        for (int t = 0; t < targetIndex.size(); t++) {
+            m_sourceOffsets[t + 1] = m_sourceOffsets[t] + sourceCounts[t + 1];
+        }
+        m_sources = new int[m_targets.length];
+        int[] fill = new int[targetIndex.size()];
+        for (int r = 0; r < mapping.length; r++) {
+            for (int i = m_offsets[r]; i < m_offsets[r + 1]; i++) {
+                int target = mapping[r][i - m_offsets[r]];
+                m_targets[i] = target;
+                m_sources[m_sourceOffsets[target] + fill[target]++] = r;
+            }
+        }
+        m_keySet = sourceIndex.toKeys(mappedRows.freeze());
+    }
+
+    /** @return the index of the source rows */
+    public RowKeyIndex getSourceIndex() {
+        return m_sourceIndex;
+    }
+
+    /** @return the index of the target rows */
+    public RowKeyIndex getTargetIndex() {
+        return m_targetIndex;
+    }
+
+    /**
+     * @param sourceRows rows of the source index
+     * @return a new bitmap of the target rows the argument rows map to
+     */
+    public RowIndexBitmap mapRows(final RowIndexBitmap sourceRows) {
+        RowIndexBitmap targetRows = new RowIndexBitmap();
+        sourceRows.forEach(r -> {
+            for (int i = m_offsets[r]; i < m_offsets[r + 1]; i++) {
+                targetRows.add(m_targets[i]);
+            }
+        });
+        return targetRows;
+    }
+
+    /**
+     * @param targetRows rows of the target index
+     * @return a new bitmap of the source rows mapping to at least one of the argument rows
+     */
+    public RowIndexBitmap mapRowsBack(final RowIndexBitmap targetRows) {
+        RowIndexBitmap sourceRows = new RowIndexBitmap();
+        targetRows.forEach(t -> {
+            for (int i = m_sourceOffsets[t]; i < m_sourceOffsets[t + 1]; i++) {
+                sourceRows.add(m_sources[i]);
+            }
+        });
+        return sourceRows;
+    }
+
+    /**
+     * @param sourceRow a source row
+     * @param predicate the test for the target rows
+     * @return <code>true</code> if all target rows of the source row pass the test
+     */
+    boolean allTargetsMatch(final int sourceRow, final IntPredicate predicate) {
+        for (int i = m_offsets[sourceRow]; i < m_offsets[sourceRow + 1]; i++) {
+            if (!predicate.test(m_targets[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<RowKey> getKeys(final RowKey key) {
+        int r = m_sourceIndex.indexOf(key);
+        if (r < 0 || m_offsets[r] == m_offsets[r + 1]) {
+            return null;
+        }
+        Set<RowKey> keys = new LinkedHashSet<>();
+        for (int i = m_offsets[r]; i < m_offsets[r + 1]; i++) {
+            keys.add(m_targetIndex.getKey(m_targets[i]));
+        }
+        return keys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<RowKey> keySet() {
+        return m_keySet;
+    }
+}
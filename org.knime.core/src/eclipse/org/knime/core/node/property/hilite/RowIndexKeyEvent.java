@@ -0,0 +1,92 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.property.hilite;
+
+/**
+ * A {@link KeyEvent} whose keys are given as row indices of a {@link RowKeyIndex}. Listeners working on row indices
+ * (see {@link RowIndexHiLiteListener}) access the {@link #rows() bitmap} directly, the {@link #keys() keys} of
+ * the event are a view on that bitmap so that existing {@link HiLiteListener}s work unchanged. Neither of them is
+ * copied when the event is passed to several listeners.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public class RowIndexKeyEvent extends KeyEvent {
+
+    private static final long serialVersionUID = 6415617046203592531L;
+
+    private final transient RowKeyIndex m_index;
+
+    private final transient RowIndexBitmap m_rows;
+
+    /**
+     * Creates a new event. The bitmap becomes read-only and must not be modified afterwards.
+     *
+     * @param src the object on which the event initially occurred
+     * @param index the index the rows refer to
+     * @param rows the rows of the event, all must be valid rows of the index
+     */
+    public RowIndexKeyEvent(final Object src, final RowKeyIndex index, final RowIndexBitmap rows) {
+        super(src, index.toKeys(rows.freeze()));
+        m_index = index;
+        m_rows = rows;
+    }
+
+    /** @return the index the {@link #rows()} refer to */
+    public RowKeyIndex getRowKeyIndex() {
+        return m_index;
+    }
+
+    /** @return the read-only rows of this event */
+    public RowIndexBitmap rows() {
+        return m_rows;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isEmpty() {
+        return m_rows.isEmpty();
+    }
+}
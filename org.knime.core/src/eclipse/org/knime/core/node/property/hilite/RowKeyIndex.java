@@ -0,0 +1,220 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.property.hilite;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * Immutable mapping between the row keys of one table and their row indices, used to represent hilite state as
+ * {@link RowIndexBitmap}. Instances are shared between the hilite handler, its listeners and
+ * {@link RowIndexHiLiteMapper mappers}; events carry the index they refer to, see {@link RowIndexKeyEvent}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class RowKeyIndex {
+
+    private final RowKey[] m_keys;
+
+    private final Map<RowKey, Integer> m_indices;
+
+    /**
+     * Creates an index for the argument keys, the row index of a key is its position in the list.
+     *
+     * @param keys the row keys, must not contain duplicates or <code>null</code>
+     * @throws IllegalArgumentException if the keys contain duplicates or <code>null</code>
+     */
+    public RowKeyIndex(final List<RowKey> keys) {
+        m_keys = keys.toArray(new RowKey[keys.size()]);
+        m_indices = new HashMap<>(Math.max(16, (int)(m_keys.length / 0.75f) + 1));
+        for (int i = 0; i < m_keys.length; i++) {
+            if (m_keys[i] == null) {
+                throw new IllegalArgumentException("Row keys must not be null");
+            }
+            if (m_indices.put(m_keys[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate row key: " + m_keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates an index for the rows of a table.
+     *
+     * @param table the table
+     * @return a new index
+     */
+    public static RowKeyIndex create(final DataTable table) {
+        List<RowKey> keys = new ArrayList<>();
+        for (DataRow row : table) {
+            keys.add(row.getKey());
+        }
+        return new RowKeyIndex(keys);
+    }
+
+    /**
+     * Creates an index for the rows of a table, reading only the row keys.
+     *
+     * @param table the table
+     * @return a new index
+     */
+    public static RowKeyIndex create(final BufferedDataTable table) {
+        List<RowKey> keys = new ArrayList<>((int)Math.min(Integer.MAX_VALUE - 8, table.size()));
+        try (CloseableRowIterator it = table.filter(TableFilter.materializeCols()).iterator()) {
+            while (it.hasNext()) {
+                keys.add(it.next().getKey());
+            }
+        }
+        return new RowKeyIndex(keys);
+    }
+
+    /** @return the number of rows */
+    public int size() {
+        return m_keys.length;
+    }
+
+    /**
+     * @param row the row index
+     * @return the key of the row
+     * @throws IndexOutOfBoundsException if the row index is invalid
+     */
+    public RowKey getKey(final int row) {
+        return m_keys[row];
+    }
+
+    /**
+     * @param key the key
+     * @return the row index of the key or -1 if the key is not part of this index
+     */
+    public int indexOf(final RowKey key) {
+        Integer index = key == null ? null : m_indices.get(key);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param keys the keys
+     * @return a new bitmap containing the rows of the argument keys, keys not part of this index are ignored
+     */
+    public RowIndexBitmap toRows(final Iterable<RowKey> keys) {
+        RowIndexBitmap rows = new RowIndexBitmap();
+        for (RowKey key : keys) {
+            int row = indexOf(key);
+            if (row >= 0) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the rows of the keys of the argument event. No translation takes place if the event already refers to
+     * this index, the event's (read-only) bitmap is returned then.
+     *
+     * @param event the event
+     * @return the rows of the event's keys that are part of this index
+     */
+    public RowIndexBitmap toRows(final KeyEvent event) {
+        if (event instanceof RowIndexKeyEvent && ((RowIndexKeyEvent)event).getRowKeyIndex() == this) {
+            return ((RowIndexKeyEvent)event).rows();
+        }
+        return toRows(event.keys());
+    }
+
+    /**
+     * Returns an unmodifiable view of the keys of the argument rows. The view is backed by the bitmap, no keys are
+     * copied.
+     *
+     * @param rows the rows, must not be modified while the view is in use
+     * @return the keys of the rows
+     */
+    public Set<RowKey> toKeys(final RowIndexBitmap rows) {
+        return Collections.unmodifiableSet(new AbstractSet<RowKey>() {
+            @Override
+            public boolean contains(final Object o) {
+                return o instanceof RowKey && rows.contains(indexOf((RowKey)o));
+            }
+
+            @Override
+            public Iterator<RowKey> iterator() {
+                PrimitiveIterator.OfInt it = rows.iterator();
+                return new Iterator<RowKey>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public RowKey next() {
+                        return m_keys[it.nextInt()];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return rows.getCardinality();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return rows.isEmpty();
+            }
+        });
+    }
+}
@@ -48,6 +48,8 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -55,10 +57,6 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Vector;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.knime.core.internal.KNIMEPath;
@@ -75,6 +73,11 @@
 /**
  * Container for the stack that keeps for an individual node the
  * flow variables and flow loop information.
+ *
+ * <p>The elements are kept in a persistent (immutable) linked list, which is shared among the stacks of the nodes
+ * along the workflow: pushing an element only allocates a new list entry on top of the shared list, merging the
+ * stacks of predecessor nodes reuses their common part where possible and iterating a stack doesn't require a copy.
+ * Flow variables are looked up by name via an index that is built once per stack state.
  * @author Bernd Wiswedel, University of Konstanz
  * @noreference This class is not intended to be referenced by clients.
  */
@@ -86,17 +89,16 @@ public final class FlowObjectStack implements Iterable<FlowObject> {
     /** Root stack with all constants. */
     private static FlowObjectStack rootStack = new FlowObjectStack();
 
-    /** Stack of FlowObjects, which is shared among nodes along the
-     * workflow. */
-    private final Vector<FlowObject> m_stack;
-    /** Owner of FlowObject object, which are put onto m_stack via this
+    /** Top of the stack of FlowObjects; the entries are shared among nodes along the workflow, modifications
+     * replace the reference (guarded by this). <code>null</code> if the stack is empty. */
+    private volatile StackEntry m_top;
+    /** Owner of FlowObject object, which are put onto the stack via this
      * StackWrapper. */
     private final NodeID m_nodeID;
 
     /** Root stack. */
     private FlowObjectStack() {
         m_nodeID = WorkflowManager.ROOT.getID();
-        m_stack = new Vector<FlowObject>();
         File wsDirPath = KNIMEPath.getWorkspaceDirPath();
         if (wsDirPath != null) {
             push(new FlowVariable("knime.workspace",
@@ -169,24 +171,21 @@ private FlowObjectStack() {
      * @throws NullPointerException If <code>id</code> is <code>null</code>.
      * @throws IllegalFlowObjectStackException If the stacks can't be merged.
      */
-    @SuppressWarnings("unchecked")
     private FlowObjectStack(final NodeID id, final FlowObjectStack[] predStacks, final boolean ignoredFlag) {
         if (id == null) {
             throw new NullPointerException("NodeID argument must not be null.");
         }
-        List<Vector<FlowObject>> predecessors =
-            new ArrayList<Vector<FlowObject>>();
+        List<StackEntry> predecessors = new ArrayList<StackEntry>();
         for (int i = 0; i < predStacks.length; i++) {
             if (predStacks[i] != null) {
-                predecessors.add(predStacks[i].m_stack);
+                predecessors.add(predStacks[i].m_top);
             }
         }
         if (predecessors.isEmpty()) {
-            predecessors.add(rootStack.m_stack);
+            predecessors.add(rootStack.m_top);
         }
-        Vector<FlowObject>[] sos = predecessors.toArray(
-                new Vector[predecessors.size()]);
-        m_stack = merge(resortInputStacks(sos));
+        StackEntry[] sos = predecessors.toArray(new StackEntry[predecessors.size()]);
+        m_top = merge(resortInputStacks(sos));
         m_nodeID = id;
     }
 
@@ -201,28 +200,51 @@ private FlowObjectStack(final NodeID id, final FlowObjectStack[] predStacks, fin
      *         a copy, whereby the copy will be shifted by one and the last
      *         element is the first element of sos.
      */
-    private static Vector<FlowObject>[] resortInputStacks(
-            final Vector<FlowObject>[] sos) {
+    private static StackEntry[] resortInputStacks(final StackEntry[] sos) {
         if (sos.length <= 1) {
             return sos;
         }
-        @SuppressWarnings("unchecked")
-        Vector<FlowObject>[] result = new Vector[sos.length];
+        StackEntry[] result = new StackEntry[sos.length];
         System.arraycopy(sos, 1, result, 0, sos.length - 1);
         result[sos.length - 1] = sos[0];
         return result;
     }
 
-    private static Vector<FlowObject> merge(final Vector<FlowObject>[] sos) {
-        Vector<FlowObject> result = new Vector<FlowObject>();
+    /** Merges the input stacks: local variables are removed and the stacks are combined level by level, whereby
+     * the levels are separated by the {@link FlowScopeContext} objects, which need to be the same on all stacks.
+     * Within a level, later stacks overrule earlier ones and duplicate variables are only kept once.
+     *
+     * <p>All input stacks share the entries below the top-most scope context of their common bottom part, i.e. those
+     * levels are identical on all inputs; they are reused if they are already merged (which is the case if they are
+     * the result of a previous merge) and only the levels above are combined. A single merged input, possibly with
+     * new elements pushed onto it, is returned as is.
+     */
+    private static StackEntry merge(final StackEntry[] sos) {
+        StackEntry[] inputs = new StackEntry[sos.length];
+        boolean isAllSame = true;
+        for (int i = 0; i < sos.length; i++) {
+            inputs[i] = removeLocalVariables(sos[i]);
+            isAllSame = isAllSame && inputs[i] == inputs[0];
+        }
+        if (isAllSame && StackEntry.isMerged(inputs[0])) {
+            return inputs[0];
+        }
+        StackEntry base = StackEntry.getCommonBase(inputs);
+        while (base != null && !(base.m_object instanceof FlowScopeContext)) {
+            base = base.m_next;
+        }
+        if (!StackEntry.isMerged(base)) {
+            base = null;
+        }
         @SuppressWarnings("unchecked") // no generics in array definition
-        Iterator<FlowObject>[] its = new Iterator[sos.length];
-        FlowObject[] nexts = new FlowObject[sos.length];
+        Iterator<FlowObject>[] its = new Iterator[inputs.length];
+        FlowObject[] nexts = new FlowObject[inputs.length];
         boolean hasMoreElements = false;
-        for (int i = 0; i < sos.length; i++) {
-            its[i] = new FilteredScopeIterator(sos[i].iterator(), Scope.Local);
+        for (int i = 0; i < inputs.length; i++) {
+            its[i] = StackEntry.elementsAbove(inputs[i], base).iterator();
             hasMoreElements = hasMoreElements ||  its[i].hasNext();
         }
+        StackEntry result = base;
         while (hasMoreElements) {
             hasMoreElements = false;
             // hash of variables to fix bug 1959 (constants are duplicated
@@ -236,7 +258,7 @@ private static Vector<FlowObject> merge(final Vector<FlowObject>[] sos) {
              * present). Repeat that until the top of the stack is reached. For
              * each of the buckets, put the variables into a hash and add the
              * hash set content to the result list. */
-            for (int i = 0; i < sos.length; i++) {
+            for (int i = 0; i < inputs.length; i++) {
                 while (nexts[i] != null || its[i].hasNext()) {
                     FlowObject o = nexts[i] != null ? nexts[i] : its[i].next();
                     nexts[i] = null;
@@ -261,9 +283,11 @@ private static Vector<FlowObject> merge(final Vector<FlowObject>[] sos) {
                     variableSet.add(o);
                 }
             }
-            result.addAll(variableSet);
+            for (FlowObject o : variableSet) {
+                result = new StackEntry(o, result, true);
+            }
             if (commonFlowO != null) {
-                result.add(commonFlowO);
+                result = new StackEntry(commonFlowO, result, true);
                 for (int i = 0; i < nexts.length; i++) {
                     nexts[i] = null;
                 }
@@ -272,6 +296,28 @@ private static Vector<FlowObject> merge(final Vector<FlowObject>[] sos) {
         return result;
     }
 
+    /** @return the argument stack without local variables, sharing the entries below the top-most local variable */
+    private static StackEntry removeLocalVariables(final StackEntry top) {
+        if (top == null || !top.m_hasLocalVariables) {
+            return top;
+        }
+        StackEntry base = top;
+        while (base != null && base.m_hasLocalVariables) {
+            base = base.m_next;
+        }
+        StackEntry result = base;
+        for (FlowObject o : StackEntry.elementsAbove(top, base)) {
+            if (!isLocalVariable(o)) {
+                result = new StackEntry(o, result, false);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isLocalVariable(final FlowObject o) {
+        return o instanceof FlowVariable && ((FlowVariable)o).getScope() == Scope.Local;
+    }
+
     /**
      * @return The top-most element on the stack that complies with the given
      * class argument or <code>null</code> if no such element is found.
@@ -292,15 +338,12 @@ public <T extends FlowObject> T peek(final Class<T> type) {
      * @since 3.4
      */
     public <T extends FlowObject> Optional<T> peekOptional(final Class<T> type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (type.isInstance(e)) {
-                    return Optional.of(type.cast(e));
-                }
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            if (type.isInstance(e.m_object)) {
+                return Optional.of(type.cast(e.m_object));
             }
-            return Optional.empty();
         }
+        return Optional.empty();
     }
 
     /**
@@ -314,15 +357,12 @@ public <T extends FlowObject> Optional<T> peekOptional(final Class<T> type) {
      * @since 2.8
      */
     public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, final boolean isInactiveScope) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
-                    return type.cast(e);
-                }
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            if (type.isInstance(e.m_object) && (type.cast(e.m_object).isInactiveScope() == isInactiveScope)) {
+                return type.cast(e.m_object);
             }
-            return null;
         }
+        return null;
     }
 
     /**
@@ -336,16 +376,15 @@ public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, fina
      * <code>type</code> or <code>null</code> if no such element is available.
      * @see java.util.Stack#pop()
      */
-    public <T extends FlowObject> T pop(final Class<T> type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.remove(i);
-                if (type.isInstance(e)) {
-                    return type.cast(e);
-                }
+    public synchronized <T extends FlowObject> T pop(final Class<T> type) {
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            if (type.isInstance(e.m_object)) {
+                m_top = e.m_next;
+                return type.cast(e.m_object);
             }
-            return null;
         }
+        m_top = null;
+        return null;
     }
 
     /**
@@ -362,16 +401,16 @@ public <T extends FlowObject> T pop(final Class<T> type) {
      * @see java.util.Stack#pop()
      * @since 2.8
      */
-    public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final boolean isInactiveScope) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.remove(i);
-                if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
-                    return type.cast(e);
-                }
+    public synchronized <T extends FlowScopeContext> T popScopeContext(final Class<T> type,
+        final boolean isInactiveScope) {
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            if (type.isInstance(e.m_object) && (type.cast(e.m_object).isInactiveScope() == isInactiveScope)) {
+                m_top = e.m_next;
+                return type.cast(e.m_object);
             }
-            return null;
         }
+        m_top = null;
+        return null;
     }
 
     /** Get the variable with the given name. Throws and exception if
@@ -384,13 +423,15 @@ public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final
      */
     @Deprecated
     public FlowVariable peekFlowVariable(final String name, final Type type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (!(e instanceof FlowVariable)) {
-                    continue;
-                }
-                FlowVariable v = (FlowVariable)e;
+        final StackEntry top = m_top;
+        final FlowVariable topMost = top == null ? null : top.getVariableIndex().get(name);
+        if (topMost != null && topMost.getType().equals(type)) {
+            return topMost;
+        }
+        // no such name at all or shadowed by a variable of a different type
+        for (StackEntry e = topMost == null ? null : top; e != null; e = e.m_next) {
+            if (e.m_object instanceof FlowVariable) {
+                FlowVariable v = (FlowVariable)e.m_object;
                 if (v.getName().equals(name) && v.getType().equals(type)) {
                     return v;
                 }
@@ -413,14 +454,21 @@ public FlowVariable peekFlowVariable(final String name, final Type type) {
     public Optional<FlowVariable> peekFlowVariable(final String name, final VariableType<?> type) {
         CheckUtils.checkArgumentNotNull(name, "Variable name must not be null.");
         CheckUtils.checkArgumentNotNull(type, "Variable type must not be null.");
-        synchronized (m_stack) {
-            final int size = m_stack.size();
-            return IntStream.rangeClosed(1, size).mapToObj(i -> m_stack.get(size - i))//
-                .filter(o -> o instanceof FlowVariable)//
-                .map(o -> (FlowVariable)o)//
-                .filter(v -> v.getName().equals(name) && v.getVariableType().equals(type))//
-                .findFirst();
+        final StackEntry top = m_top;
+        final FlowVariable topMost = top == null ? null : top.getVariableIndex().get(name);
+        if (topMost == null || topMost.getVariableType().equals(type)) {
+            return Optional.ofNullable(topMost);
+        }
+        // shadowed by a variable of a different type
+        for (StackEntry e = top; e != null; e = e.m_next) {
+            if (e.m_object instanceof FlowVariable) {
+                final FlowVariable v = (FlowVariable)e.m_object;
+                if (v.getName().equals(name) && v.getVariableType().equals(type)) {
+                    return Optional.of(v);
+                }
+            }
         }
+        return Optional.empty();
     }
 
     /**
@@ -456,19 +504,16 @@ public Map<String, FlowVariable> getAvailableFlowVariables() {
     public Map<String, FlowVariable> getAvailableFlowVariables(final FlowVariable.Type... types) {
         LinkedHashMap<String, FlowVariable> hash = new LinkedHashMap<String, FlowVariable>();
         List<Type> typesAsList = Arrays.asList(types);
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (!(e instanceof FlowVariable)) {
-                    continue;
-                }
-                FlowVariable v = (FlowVariable)e;
-                if (!typesAsList.contains(v.getType())) {
-                    continue;
-                }
-                if (!hash.containsKey(v.getName())) {
-                    hash.put(v.getName(), v);
-                }
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            if (!(e.m_object instanceof FlowVariable)) {
+                continue;
+            }
+            FlowVariable v = (FlowVariable)e.m_object;
+            if (!typesAsList.contains(v.getType())) {
+                continue;
+            }
+            if (!hash.containsKey(v.getName())) {
+                hash.put(v.getName(), v);
             }
         }
         return Collections.unmodifiableMap(hash);
@@ -483,17 +528,17 @@ public Map<String, FlowVariable> getAvailableFlowVariables(final FlowVariable.Ty
      * @since 4.1
      */
     public Map<String, FlowVariable> getAvailableFlowVariables(final VariableType<?>[] types) {
-        synchronized (m_stack) {
-            final int size = m_stack.size();
-            final List<VariableType<?>> typesAsList = Arrays.asList(types);
-            return Collections.unmodifiableMap(//
-                IntStream.rangeClosed(1, size).mapToObj(i -> m_stack.get(size - i))//
-                    .filter(o -> o instanceof FlowVariable)//
-                    .map(o -> (FlowVariable)o)//
-                    .filter(v -> typesAsList.contains(v.getVariableType()))//
-                    .collect(Collectors.toMap(FlowVariable::getName, Function.identity(), (v1, v2) -> v1,
-                        LinkedHashMap::new)));
+        final List<VariableType<?>> typesAsList = Arrays.asList(types);
+        final LinkedHashMap<String, FlowVariable> hash = new LinkedHashMap<String, FlowVariable>();
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            if (e.m_object instanceof FlowVariable) {
+                final FlowVariable v = (FlowVariable)e.m_object;
+                if (typesAsList.contains(v.getVariableType())) {
+                    hash.putIfAbsent(v.getName(), v);
+                }
+            }
         }
+        return Collections.unmodifiableMap(hash);
     }
 
     /**
@@ -520,13 +565,13 @@ public Map<String, FlowVariable> getAvailableFlowVariables(final VariableType<?>
     List<FlowObject> getFlowObjectsOwnedBy(final NodeID id,
             final Scope... ignoredScopes) {
         List<FlowObject> result = new ArrayList<FlowObject>();
-        synchronized (m_stack) {
-            FilteredScopeIterator it = new FilteredScopeIterator(m_stack.iterator(), ignoredScopes);
-            while (it.hasNext()) {
-                FlowObject v = it.next();
-                if (v.getOwner().equals(id)) {
-                    result.add(v);
-                }
+        // bottom up
+        FilteredScopeIterator it = new FilteredScopeIterator(StackEntry.elementsAbove(m_top, null).iterator(),
+            ignoredScopes);
+        while (it.hasNext()) {
+            FlowObject v = it.next();
+            if (v.getOwner().equals(id)) {
+                result.add(v);
             }
         }
         return result;
@@ -550,31 +595,49 @@ public void push(final FlowObject item) {
      */
     void pushWithOwner(final FlowObject item) {
         CheckUtils.checkArgument(item.getOwner() != null, "Item should have owner set at this point: %s", item);
-        m_stack.add(item);
+        synchronized (this) {
+            m_top = new StackEntry(item, m_top, false);
+        }
     }
 
     /**
      * @return true if stack is empty
      */
     boolean isEmpty() {
-        return m_stack.isEmpty();
+        return m_top == null;
     }
 
     /** Get number of elements in the stack.
      * @return size of stack. */
     int size() {
-        return m_stack.size();
+        final StackEntry top = m_top;
+        return top == null ? 0 : top.m_size;
     }
 
     /** Get iterator on elements, top of stack first. The iterator is
      * read only and not affected by potential modifications of the stack
-     * after this method returns (iterator on copy).
+     * after this method returns (iterator on the immutable stack entries).
      * {@inheritDoc} */
     @Override
     public Iterator<FlowObject> iterator() {
-        Vector<FlowObject> copy = new Vector<FlowObject>(m_stack);
-        Collections.reverse(copy);
-        return Collections.unmodifiableList(copy).iterator();
+        return new Iterator<FlowObject>() {
+            private StackEntry m_next = m_top;
+
+            @Override
+            public boolean hasNext() {
+                return m_next != null;
+            }
+
+            @Override
+            public FlowObject next() {
+                if (m_next == null) {
+                    throw new NoSuchElementException("Iterator at end");
+                }
+                FlowObject result = m_next.m_object;
+                m_next = m_next.m_next;
+                return result;
+            }
+        };
     }
 
     /**
@@ -590,10 +653,8 @@ public String toString() {
     public int hashCode() {
         // stacks are not really used in hashs ... but since we implement equals
         int hash = m_nodeID.hashCode();
-        synchronized (m_stack) {
-            for (FlowObject o : m_stack) {
-                hash += o.hashCode();
-            }
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            hash += e.m_object.hashCode();
         }
         return hash;
     }
@@ -608,10 +669,8 @@ public boolean equals(final Object obj) {
             return false;
         }
         FlowObjectStack o = (FlowObjectStack)obj;
-        synchronized (m_stack) {
-            return o.m_nodeID.equals(m_nodeID)
-                && o.m_stack.equals(m_stack); // deep equals!
-        }
+        return o.m_nodeID.equals(m_nodeID)
+            && StackEntry.deepEquals(o.m_top, m_top); // deep equals!
     }
 
     /**
@@ -623,12 +682,9 @@ public String toDeepString() {
         b.append(m_nodeID);
         b.append("---");
         b.append('\n');
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; --i) {
-                FlowObject o = m_stack.get(i);
-                b.append(o);
-                b.append('\n');
-            }
+        for (StackEntry e = m_top; e != null; e = e.m_next) {
+            b.append(e.m_object);
+            b.append('\n');
         }
         b.append("--------");
         return b.toString();
@@ -689,6 +745,191 @@ private static final Pair<String, Type> getVariableDefinition(
         return new Pair<String, Type>(varName, varType);
     }
 
+    /**
+     * Immutable index of the top-most variable per name, shared by the stack entries it was derived from. It is
+     * composed of the maps of the variables added since the respective base index, whereby the map sizes (counted
+     * in added variables) decrease by at least half towards the top, like the digits of a binary counter. A lookup
+     * hence queries a logarithmic number of maps and an index shares all but the small maps with its base.
+     */
+    private static final class VariableIndex {
+
+        static final VariableIndex EMPTY =
+            new VariableIndex(Collections.<String, FlowVariable> emptyMap(), 0, null);
+
+        /** Top-most variable per name among the variables added since the base index. */
+        private final Map<String, FlowVariable> m_variables;
+
+        /** Number of variables added since the base index, including shadowed ones. */
+        private final int m_count;
+
+        private final VariableIndex m_base;
+
+        private VariableIndex(final Map<String, FlowVariable> variables, final int count, final VariableIndex base) {
+            m_variables = variables;
+            m_count = count;
+            m_base = base;
+        }
+
+        /** @return a new index with the argument variable on top of this one */
+        VariableIndex with(final FlowVariable v) {
+            Map<String, FlowVariable> variables = Collections.singletonMap(v.getName(), v);
+            int count = 1;
+            VariableIndex base = this;
+            while (base.m_base != null && base.m_count <= count) {
+                Map<String, FlowVariable> merged = new HashMap<String, FlowVariable>(base.m_variables);
+                merged.putAll(variables);
+                variables = merged;
+                count += base.m_count;
+                base = base.m_base;
+            }
+            return new VariableIndex(variables, count, base);
+        }
+
+        /** @return the top-most variable with the argument name or null if there is none */
+        FlowVariable get(final String name) {
+            for (VariableIndex i = this; i != null; i = i.m_base) {
+                FlowVariable v = i.m_variables.get(name);
+                if (v != null) {
+                    return v;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Entry of the persistent stack, i.e. an element and the (immutable) stack below it. */
+    private static final class StackEntry {
+
+        private final FlowObject m_object;
+
+        private final StackEntry m_next;
+
+        /** Number of elements including this one. */
+        private final int m_size;
+
+        /** Whether this or any element below is a local variable. */
+        private final boolean m_hasLocalVariables;
+
+        /** Whether this stack is unchanged when merged, i.e. without local variables and duplicates within each
+         * level; <code>null</code> if not determined yet. */
+        private volatile Boolean m_isMerged;
+
+        /** Top-most variable per name, built on demand. */
+        private volatile VariableIndex m_variableIndex;
+
+        StackEntry(final FlowObject object, final StackEntry next, final boolean isMerged) {
+            m_object = object;
+            m_next = next;
+            m_size = next == null ? 1 : next.m_size + 1;
+            m_hasLocalVariables = isLocalVariable(object) || (next != null && next.m_hasLocalVariables);
+            m_isMerged = isMerged ? Boolean.TRUE : null;
+        }
+
+        /** @return the top-most variable per name on the stack starting at this entry */
+        VariableIndex getVariableIndex() {
+            VariableIndex index = m_variableIndex;
+            if (index != null) {
+                return index;
+            }
+            // build the missing indices bottom up, starting at the top-most entry below that has one
+            List<StackEntry> undetermined = new ArrayList<StackEntry>();
+            StackEntry known = this;
+            while (known != null && known.m_variableIndex == null) {
+                undetermined.add(known);
+                known = known.m_next;
+            }
+            index = known == null ? VariableIndex.EMPTY : known.m_variableIndex;
+            for (int i = undetermined.size() - 1; i >= 0; i--) {
+                StackEntry e = undetermined.get(i);
+                if (e.m_object instanceof FlowVariable) {
+                    index = index.with((FlowVariable)e.m_object);
+                }
+                e.m_variableIndex = index;
+            }
+            return index;
+        }
+
+        /** @return whether the argument stack (may be null) is unchanged by {@link FlowObjectStack#merge} */
+        static boolean isMerged(final StackEntry top) {
+            List<StackEntry> undetermined = new ArrayList<StackEntry>();
+            StackEntry known = top;
+            while (known != null && known.m_isMerged == null) {
+                undetermined.add(known);
+                known = known.m_next;
+            }
+            boolean isMerged = known == null || known.m_isMerged;
+            if (undetermined.isEmpty()) {
+                return isMerged;
+            }
+            // the elements of the top-most level below the undetermined entries
+            HashSet<FlowObject> level = new HashSet<FlowObject>();
+            for (StackEntry e = known; isMerged && e != null && !(e.m_object instanceof FlowScopeContext);
+                    e = e.m_next) {
+                level.add(e.m_object);
+            }
+            for (int i = undetermined.size() - 1; i >= 0; i--) {
+                StackEntry e = undetermined.get(i);
+                if (e.m_object instanceof FlowScopeContext) {
+                    level.clear();
+                } else {
+                    isMerged = isMerged && !isLocalVariable(e.m_object) && level.add(e.m_object);
+                }
+                e.m_isMerged = isMerged;
+            }
+            return isMerged;
+        }
+
+        /** @return the bottom-most entry shared by all argument stacks, null if they don't share any */
+        static StackEntry getCommonBase(final StackEntry[] tops) {
+            int minSize = Integer.MAX_VALUE;
+            for (StackEntry top : tops) {
+                minSize = Math.min(minSize, top == null ? 0 : top.m_size);
+            }
+            StackEntry[] entries = new StackEntry[tops.length];
+            for (int i = 0; i < tops.length; i++) {
+                entries[i] = tops[i];
+                while (entries[i] != null && entries[i].m_size > minSize) {
+                    entries[i] = entries[i].m_next;
+                }
+            }
+            while (true) {
+                boolean isSame = true;
+                for (int i = 1; isSame && i < entries.length; i++) {
+                    isSame = entries[i] == entries[0];
+                }
+                if (isSame) {
+                    return entries[0];
+                }
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = entries[i].m_next;
+                }
+            }
+        }
+
+        /** @return the elements from the top of the stack down to (excluding) the base entry, bottom first */
+        static List<FlowObject> elementsAbove(final StackEntry top, final StackEntry base) {
+            List<FlowObject> result = new ArrayList<FlowObject>();
+            for (StackEntry e = top; e != base; e = e.m_next) {
+                result.add(e.m_object);
+            }
+            Collections.reverse(result);
+            return result;
+        }
+
+        static boolean deepEquals(final StackEntry top1, final StackEntry top2) {
+            StackEntry e1 = top1;
+            StackEntry e2 = top2;
+            while (e1 != e2) {
+                if (e1 == null || e2 == null || e1.m_size != e2.m_size || !e1.m_object.equals(e2.m_object)) {
+                    return false;
+                }
+                e1 = e1.m_next;
+                e2 = e2.m_next;
+            }
+            return true;
+        }
+    }
+
     /** Iterator that removes flow variables with given scopes from an
      * underlying iterator. Used, for instance to remove "local" variables when
      * merging stacks of predecessor nodes.
@@ -825,6 +825,9 @@ public final void setNodeMessage(final NodeMessage newMessage) {
        NodeMessage oldMessage = m_nodeMessage;
        m_nodeMessage = newMessage == null ? NodeMessage.NONE : newMessage;
        if (!m_nodeMessage.equals(oldMessage)) {
+           if (m_parent != null) {
+               m_parent.childNodeMessageChanged(this);
+           }
            notifyMessageListeners(new NodeMessageEvent(getID(), m_nodeMessage));
        }
    }
@@ -930,6 +933,16 @@ InternalNodeContainerState getInternalState() {
         return m_state;
     }
 
+    /**
+     * The state as last set via {@link #setInternalState(InternalNodeContainerState, boolean)}. Unlike
+     * {@link #getInternalState()} this never (re-)computes the state of a workflow and hence never acquires its lock.
+     *
+     * @return the most recently assigned state
+     */
+    final InternalNodeContainerState getAssignedInternalState() {
+        return m_state;
+    }
+
     /**
      * @return the status of this node
      */
@@ -965,6 +978,10 @@ boolean setInternalState(final InternalNodeContainerState state, final boolean s
         // the calling method is sync'ed...
         // I ran into a deadlock (see Email to Michael on 11.4.08)
         if (changesMade) {
+            if (m_parent != null) {
+                // update the parent's counters before listeners trigger its state check
+                m_parent.childStateChanged(this);
+            }
             if (setDirty) {
                 setDirty();
             }
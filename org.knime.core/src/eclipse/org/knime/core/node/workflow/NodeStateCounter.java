@@ -0,0 +1,215 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the number of nodes in each {@link InternalNodeContainerState} and of the nodes showing an error
+ * message in a {@link Workflow}. The numbers are updated whenever a node is added or removed and whenever a contained
+ * node changes its state or message, so that {@link WorkflowManager#computeNewState()} doesn't need to visit all nodes
+ * on each state change.
+ *
+ * <p>
+ * Changes are reported by the node after the new state or message has been assigned. The counter then reads the
+ * current value from the node, hence notifications arriving out of order still leave it consistent. The counter uses
+ * its own monitor and never calls into other (locking) methods while holding it.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NodeStateCounter {
+
+    private static final InternalNodeContainerState[] STATES = InternalNodeContainerState.values();
+
+    /** The state of each node as last seen, used to decrement the right counter on a state change. */
+    private final Map<NodeID, InternalNodeContainerState> m_states = new HashMap<>();
+
+    private final int[] m_nrNodesInState = new int[STATES.length];
+
+    private final Set<NodeID> m_nodesWithError = new HashSet<>();
+
+    /** Contained metanodes and projects, whose state is computed lazily (see {@link WorkflowManager#getInternalState()}). */
+    private final Map<NodeID, WorkflowManager> m_workflowNodes = new HashMap<>();
+
+    /**
+     * Adds a node that was just put into the workflow.
+     *
+     * @param nc the new node
+     */
+    synchronized void add(final NodeContainer nc) {
+        final NodeID id = nc.getID();
+        remove(id);
+        final InternalNodeContainerState state = nc.getAssignedInternalState();
+        m_states.put(id, state);
+        m_nrNodesInState[state.ordinal()]++;
+        if (hasError(nc)) {
+            m_nodesWithError.add(id);
+        }
+        if (nc instanceof WorkflowManager) {
+            m_workflowNodes.put(id, (WorkflowManager)nc);
+        }
+    }
+
+    /**
+     * Removes a node that was just removed from the workflow. Does nothing if the node is not known.
+     *
+     * @param id the id of the removed node
+     */
+    synchronized void remove(final NodeID id) {
+        final InternalNodeContainerState state = m_states.remove(id);
+        if (state != null) {
+            m_nrNodesInState[state.ordinal()]--;
+            m_nodesWithError.remove(id);
+            m_workflowNodes.remove(id);
+        }
+    }
+
+    /**
+     * Called after the state of a node has changed. Does nothing if the node is not (yet) part of the workflow.
+     *
+     * @param nc the node whose state changed
+     */
+    synchronized void stateChanged(final NodeContainer nc) {
+        final NodeID id = nc.getID();
+        final InternalNodeContainerState oldState = m_states.get(id);
+        final InternalNodeContainerState newState = nc.getAssignedInternalState();
+        if (oldState != null && oldState != newState) {
+            m_states.put(id, newState);
+            m_nrNodesInState[oldState.ordinal()]--;
+            m_nrNodesInState[newState.ordinal()]++;
+        }
+    }
+
+    /**
+     * Called after the message of a node has changed. Does nothing if the node is not (yet) part of the workflow.
+     *
+     * @param nc the node whose message changed
+     */
+    synchronized void messageChanged(final NodeContainer nc) {
+        final NodeID id = nc.getID();
+        if (m_states.containsKey(id)) {
+            if (hasError(nc)) {
+                m_nodesWithError.add(id);
+            } else {
+                m_nodesWithError.remove(id);
+            }
+        }
+    }
+
+    /** @return a consistent copy of the current numbers, not null. */
+    synchronized Snapshot snapshot() {
+        final List<WorkflowManager> workflowNodes = new ArrayList<>(m_workflowNodes.values());
+        final List<InternalNodeContainerState> workflowNodeStates = new ArrayList<>(workflowNodes.size());
+        for (WorkflowManager wfm : workflowNodes) {
+            workflowNodeStates.add(m_states.get(wfm.getID()));
+        }
+        return new Snapshot(m_nrNodesInState.clone(), m_states.size(), !m_nodesWithError.isEmpty(), workflowNodes,
+            workflowNodeStates);
+    }
+
+    private static boolean hasError(final NodeContainer nc) {
+        final NodeMessage message = nc.getNodeMessage();
+        return message != null && message.getMessageType() == NodeMessage.Type.ERROR;
+    }
+
+    /** Copy of the numbers at a given time, see {@link NodeStateCounter#snapshot()}. */
+    static final class Snapshot {
+
+        private final int[] m_nrNodesInState;
+
+        private final int m_nrNodes;
+
+        private final boolean m_hasNodeWithError;
+
+        private final List<WorkflowManager> m_workflowNodes;
+
+        private final List<InternalNodeContainerState> m_workflowNodeStates;
+
+        private Snapshot(final int[] nrNodesInState, final int nrNodes, final boolean hasNodeWithError,
+            final List<WorkflowManager> workflowNodes, final List<InternalNodeContainerState> workflowNodeStates) {
+            m_nrNodesInState = nrNodesInState;
+            m_nrNodes = nrNodes;
+            m_hasNodeWithError = hasNodeWithError;
+            m_workflowNodes = workflowNodes;
+            m_workflowNodeStates = workflowNodeStates;
+        }
+
+        /** @return number of nodes in the workflow */
+        int getNrNodes() {
+            return m_nrNodes;
+        }
+
+        /** @return whether any of the nodes has an error message */
+        boolean hasNodeWithError() {
+            return m_hasNodeWithError;
+        }
+
+        /**
+         * Returns the number of nodes per state, indexed by {@link InternalNodeContainerState#ordinal()}. Contained
+         * workflows are counted with their up-to-date state as they compute it only when asked (the stored state is
+         * outdated while the current thread holds their lock with a pending state check).
+         *
+         * @return a new array with the number of nodes per state
+         */
+        int[] getNrNodesInState() {
+            final int[] result = m_nrNodesInState.clone();
+            for (int i = 0; i < m_workflowNodes.size(); i++) {
+                final InternalNodeContainerState current = m_workflowNodes.get(i).getInternalState();
+                final InternalNodeContainerState counted = m_workflowNodeStates.get(i);
+                if (current != counted) {
+                    result[counted.ordinal()]--;
+                    result[current.ordinal()]++;
+                }
+            }
+            return result;
+        }
+    }
+
+}
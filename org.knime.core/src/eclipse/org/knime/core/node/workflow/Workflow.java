@@ -84,6 +84,9 @@ class Workflow {
     /** mapping from NodeID to Nodes. */
     private final TreeMap<NodeID, NodeContainer> m_nodes = new TreeMap<NodeID, NodeContainer>();
 
+    /** number of nodes per state and nodes with errors, updated by the nodes themselves. */
+    private final NodeStateCounter m_nodeStateCounter = new NodeStateCounter();
+
     // Connections (by node, source and destination). Note that meta
     // connections (in- and outgoing of this workflow) are also part
     // of these maps. They will have our own ID as source/dest ID.
@@ -160,6 +163,7 @@ void putNode(final NodeID id, final NodeContainer nc) {
         m_connectionsByDest.put(id, new LinkedHashSet<ConnectionContainer>());
         // and then add node (avoid inconsistent node - connection setup)
         m_nodes.put(id, nc);
+        m_nodeStateCounter.add(nc);
         clearGraphAnnotationCache();
     }
 
@@ -171,6 +175,7 @@ void putNode(final NodeID id, final NodeContainer nc) {
     NodeContainer removeNode(final NodeID id) {
         // remove node
         NodeContainer node = m_nodes.remove(id);
+        m_nodeStateCounter.remove(id);
         // and then clean up the connection lists  (avoid inconsistent node - connection setup)
         m_connectionsBySource.remove(id);
         m_connectionsByDest.remove(id);
@@ -202,6 +207,13 @@ int getNrNodes() {
         return m_nodes.size();
     }
 
+    /**
+     * @return the counter keeping track of the states and error messages of the contained nodes
+     */
+    NodeStateCounter getNodeStateCounter() {
+        return m_nodeStateCounter;
+    }
+
     /**
      * @param id of node.
      * @return true of a node with this key already exists.
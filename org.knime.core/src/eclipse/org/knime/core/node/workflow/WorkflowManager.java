@@ -5870,7 +5870,26 @@ public WorkflowDataRepository getWorkflowDataRepository() {
     }
 
     /**
-     * Derives state of this WFM by inspecting all nodes and computing the corresponding state.
+     * Called by a contained node after its state has changed (and before its state listeners are notified).
+     *
+     * @param nc the node whose state changed
+     */
+    void childStateChanged(final NodeContainer nc) {
+        m_workflow.getNodeStateCounter().stateChanged(nc);
+    }
+
+    /**
+     * Called by a contained node after its message has changed (and before its message listeners are notified).
+     *
+     * @param nc the node whose message changed
+     */
+    void childNodeMessageChanged(final NodeContainer nc) {
+        m_workflow.getNodeStateCounter().messageChanged(nc);
+    }
+
+    /**
+     * Derives state of this WFM from the states of its contained nodes, which are counted incrementally by the
+     * {@link NodeStateCounter} of the workflow.
      *
      * @return the state of the wfm derived from the state of its contained nodes.
      */
@@ -5883,16 +5902,12 @@ InternalNodeContainerState computeNewState() {
             .allMatch(nc -> nc instanceof NodeContainerParent && ((NodeContainerParent)nc).isProject())) {
             return IDLE;
         }
-        int[] nrNodesInState = new int[InternalNodeContainerState.values().length];
-        int nrNodes = 0;
-        boolean internalNodeHasError = false;
-        for (NodeContainer ncIt : nodeValues) {
-            nrNodesInState[ncIt.getInternalState().ordinal()]++;
-            nrNodes++;
-            if ((ncIt.getNodeMessage() != null)
-                && (ncIt.getNodeMessage().getMessageType().equals(NodeMessage.Type.ERROR))) {
-                internalNodeHasError = true;
-            }
+        final NodeStateCounter.Snapshot counts = m_workflow.getNodeStateCounter().snapshot();
+        final int[] nrNodesInState = counts.getNrNodesInState();
+        final int nrNodes = counts.getNrNodes();
+        final boolean internalNodeHasError = counts.hasNodeWithError();
+        if (KNIMEConstants.ASSERTIONS_ENABLED) {
+            checkNodeStateCounts(nrNodesInState, internalNodeHasError);
         }
         // set summarization message if any of the internal nodes has an error
         if (internalNodeHasError) {
@@ -5977,6 +5992,29 @@ InternalNodeContainerState computeNewState() {
         return newState;
     }
 
+    /**
+     * Recounts the states and errors of all nodes and compares them with the incrementally maintained numbers used by
+     * {@link #computeNewState()}, reporting a coding problem if they differ. Only called if assertions are enabled.
+     * Nodes that change their state outside this workflow's lock (such as projects) may cause a spurious mismatch,
+     * hence it is only logged.
+     */
+    private void checkNodeStateCounts(final int[] nrNodesInState, final boolean internalNodeHasError) {
+        int[] expectedNrNodesInState = new int[InternalNodeContainerState.values().length];
+        boolean expectedHasError = false;
+        for (NodeContainer ncIt : m_workflow.getNodeValues()) {
+            expectedNrNodesInState[ncIt.getInternalState().ordinal()]++;
+            if ((ncIt.getNodeMessage() != null)
+                && (ncIt.getNodeMessage().getMessageType().equals(NodeMessage.Type.ERROR))) {
+                expectedHasError = true;
+            }
+        }
+        if (!Arrays.equals(expectedNrNodesInState, nrNodesInState) || expectedHasError != internalNodeHasError) {
+            LOGGER.codingWithFormat("Inconsistent node state counts in \"%s\": %s (error: %b), expected %s (error: %b)",
+                getNameWithID(), Arrays.toString(nrNodesInState), internalNodeHasError,
+                Arrays.toString(expectedNrNodesInState), expectedHasError);
+        }
+    }
+
     /**
      * Called by the workflow lock upon releasing the lock by a thread to finally update the internal state.
      *
@@ -0,0 +1,777 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.core.util.tokenizer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fast alternative to the {@link Tokenizer} for the common settings of delimited files: single character delimiters
+ * and quotes, no comments, no line continuation and no combining of consecutive delimiters (see
+ * {@link #supports(TokenizerSettings)}). For these settings it returns the same tokens as the {@link Tokenizer} (with
+ * the exception that a '\r' is always ignored if immediately followed by a '\n', which the {@link Tokenizer} fails to do
+ * for the second of two consecutive '\r').
+ *
+ * <p>
+ * Instead of reading character by character the tokenizer reads large chunks from the source into a
+ * <code>char[]</code> and scans runs of ordinary characters in a tight loop. Tokens are returned as
+ * {@link CharSequence} views into the read buffer (or into a scratch buffer if the token had to be assembled, e.g.
+ * because it contains escaped characters), so that no object is created per token. <b>The view returned by
+ * {@link #nextToken()} is only valid until the next call to {@link #nextToken()}</b> -- call
+ * {@link CharSequence#toString()} to keep it.
+ *
+ * <p>
+ * Files with one record per line can be split into byte ranges that are tokenized independently, see
+ * {@link #computeRanges(Path, int)} and {@link #openRange(Path, long, long, Charset)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.4
+ */
+public final class FastTokenizer {
+
+    /** Default size of the read buffer (in chars). */
+    private static final int DEF_BUFFER_SIZE = 1 << 16;
+
+    /* character classes, chars above Tokenizer.MAX_CHAR are always ordinary */
+    private static final byte DELIM = 1;
+
+    private static final byte QUOTE = 2;
+
+    private static final byte WSCHAR = 4;
+
+    private static final byte CR_OR_LF = 8;
+
+    private static final char CR = '\r';
+
+    private static final char LF = '\n';
+
+    private final Reader m_source;
+
+    private final byte[] m_charClass = new byte[Tokenizer.MAX_CHAR + 1];
+
+    private final Delimiter[] m_delimiters = new Delimiter[Tokenizer.MAX_CHAR + 1];
+
+    private final Quote[] m_quotes = new Quote[Tokenizer.MAX_CHAR + 1];
+
+    private final boolean m_allowLFinQuotes;
+
+    private final long m_linesToSkip;
+
+    private char[] m_buf;
+
+    /* next char to read from m_buf */
+    private int m_pos;
+
+    /* end of valid chars in m_buf */
+    private int m_limit;
+
+    private boolean m_eof;
+
+    /* the current token is either the slice [m_sliceStart, m_sliceEnd) of m_buf ... */
+    private int m_sliceStart;
+
+    private int m_sliceEnd;
+
+    /* ... or, if it was assembled, the first m_scratchLength chars of m_scratch */
+    private boolean m_inScratch;
+
+    private char[] m_scratch = new char[64];
+
+    private int m_scratchLength;
+
+    private final TokenView m_token = new TokenView();
+
+    /* the delimiter that is returned as next token, if any */
+    private String m_pendingDelimiter;
+
+    private boolean m_pushedBack;
+
+    private boolean m_lastTokenWasNull;
+
+    private Quote m_lastQuotes;
+
+    private boolean m_tokenWasDelimiter;
+
+    private boolean m_lastTokenWasDelimited;
+
+    private boolean m_linesSkipped;
+
+    private int m_lineNo = 1;
+
+    private long m_readChars;
+
+    /**
+     * Creates a new tokenizer.
+     *
+     * @param source the reader the tokens are read from
+     * @param settings the settings, must be supported (see {@link #supports(TokenizerSettings)})
+     * @throws IllegalArgumentException if the settings are not supported by this tokenizer
+     */
+    public FastTokenizer(final Reader source, final TokenizerSettings settings) {
+        this(source, settings, DEF_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new tokenizer with a custom initial buffer size (which is increased if a token is longer).
+     *
+     * @param source the reader the tokens are read from
+     * @param settings the settings, must be supported (see {@link #supports(TokenizerSettings)})
+     * @param bufferSize the initial size of the read buffer, at least 2
+     */
+    FastTokenizer(final Reader source, final TokenizerSettings settings, final int bufferSize) {
+        if (!supports(settings)) {
+            throw new IllegalArgumentException("Settings not supported by fast tokenizer, use the Tokenizer instead");
+        }
+        m_source = source;
+        m_buf = new char[Math.max(2, bufferSize)];
+        for (Delimiter delim : settings.getAllDelimiters()) {
+            final char c = delim.getFirstChar();
+            m_charClass[c] |= DELIM;
+            m_delimiters[c] = delim;
+        }
+        for (Quote quote : settings.getAllQuotes()) {
+            final char c = quote.getFirstCharOfLeft();
+            m_charClass[c] |= QUOTE;
+            m_quotes[c] = quote;
+        }
+        for (String ws : settings.getAllWhiteSpaces()) {
+            m_charClass[ws.charAt(0)] |= WSCHAR;
+        }
+        m_charClass[CR] |= CR_OR_LF;
+        m_charClass[LF] |= CR_OR_LF;
+        m_allowLFinQuotes = settings.allowLFinQuotes();
+        m_linesToSkip = settings.getSkipFirstLines();
+    }
+
+    /**
+     * Checks whether the given settings can be handled by this tokenizer. This is the case if
+     * <ul>
+     * <li>all delimiters are single characters that are neither combined nor included in the token,</li>
+     * <li>all quotes have single character begin and end patterns and are removed from the token,</li>
+     * <li>no comments and no line continuation character are set, and</li>
+     * <li>multiple delimiters are not combined.</li>
+     * </ul>
+     *
+     * @param settings the settings to check
+     * @return <code>true</code> if a {@link FastTokenizer} can be created with these settings
+     */
+    public static boolean supports(final TokenizerSettings settings) {
+        if (!settings.getAllComments().isEmpty() || settings.getLineContinuationCharacter() != null
+            || settings.getCombineMultipleDelimiters()) {
+            return false;
+        }
+        for (Delimiter delim : settings.getAllDelimiters()) {
+            if (delim.getDelimiter().length() != 1 || delim.getFirstChar() > Tokenizer.MAX_CHAR
+                || delim.combineConsecutiveDelims() || delim.includeInToken()) {
+                return false;
+            }
+        }
+        for (Quote quote : settings.getAllQuotes()) {
+            if (quote.getLeft().length() != 1 || quote.getRight().length() != 1
+                || quote.getFirstCharOfLeft() > Tokenizer.MAX_CHAR || quote.getDontRemoveFlag()) {
+                return false;
+            }
+        }
+        for (String ws : settings.getAllWhiteSpaces()) {
+            if (ws.length() != 1 || ws.charAt(0) > Tokenizer.MAX_CHAR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next token. The returned sequence is only valid until the next call of this method.
+     *
+     * @return a view on the next token or <code>null</code> if no more token can be read
+     * @throws TokenizerException if a quoted string contains a new line character, which is not allowed by the settings
+     */
+    public CharSequence nextToken() throws TokenizerException {
+        if (m_pushedBack) {
+            m_pushedBack = false;
+            return m_lastTokenWasNull ? null : m_token;
+        }
+        resetToken();
+        m_lastQuotes = null;
+        m_lastTokenWasDelimited = false;
+        if (m_pendingDelimiter != null) {
+            final String delim = m_pendingDelimiter;
+            m_pendingDelimiter = null;
+            appendChar(delim.charAt(0));
+            m_tokenWasDelimiter = true;
+            m_lastTokenWasNull = false;
+            return m_token;
+        }
+        m_tokenWasDelimiter = false;
+        if (!m_linesSkipped) {
+            skipLines();
+        }
+
+        final byte[] charClass = m_charClass;
+        int protectedLength = 0; // chars up to the last closing quote are never trimmed
+        while (true) {
+            if (m_pos >= m_limit && !fill()) {
+                // EOF
+                closeSourceStream();
+                trimWhiteSpaces(protectedLength);
+                m_lastTokenWasNull = tokenLength() == 0;
+                return m_lastTokenWasNull ? null : m_token;
+            }
+            final char c = m_buf[m_pos];
+            int cls = c <= Tokenizer.MAX_CHAR ? charClass[c] : 0;
+            if (cls == 0) {
+                // the hot loop: scan a run of ordinary characters
+                final char[] buf = m_buf;
+                final int limit = m_limit;
+                int end = m_pos + 1;
+                while (end < limit) {
+                    final char d = buf[end];
+                    if (d <= Tokenizer.MAX_CHAR && charClass[d] != 0) {
+                        break;
+                    }
+                    end++;
+                }
+                append(m_pos, end);
+                m_pos = end;
+                continue;
+            }
+            if ((cls & CR_OR_LF) != 0) {
+                if (c == CR) {
+                    if (isCRLF()) {
+                        // CR is swallowed if immediately followed by LF
+                        m_pos++;
+                        continue;
+                    }
+                } else {
+                    m_lineNo++;
+                }
+                cls &= ~CR_OR_LF;
+            }
+            if ((cls & DELIM) != 0) {
+                m_pos++;
+                trimWhiteSpaces(protectedLength);
+                final Delimiter delim = m_delimiters[c];
+                if (delim.returnAsToken()) {
+                    m_pendingDelimiter = delim.getDelimiter();
+                } else {
+                    m_lastTokenWasDelimited = true;
+                }
+                m_lastTokenWasNull = false;
+                return m_token;
+            }
+            if ((cls & QUOTE) != 0) {
+                final Quote quote = m_quotes[c];
+                m_pos++;
+                readQuotedString(quote);
+                protectedLength = tokenLength();
+                m_lastQuotes = quote;
+                continue;
+            }
+            if ((cls & WSCHAR) != 0 && tokenLength() == 0) {
+                // leading white spaces are ignored
+                m_pos++;
+                continue;
+            }
+            append(m_pos, m_pos + 1);
+            m_pos++;
+        }
+    }
+
+    /* burns the first lines in disregard of any delimiter, quote, etc. */
+    private void skipLines() {
+        long skipped = 0;
+        while (skipped < m_linesToSkip && (m_pos < m_limit || fill())) {
+            final char[] buf = m_buf;
+            final int limit = m_limit;
+            int i = m_pos;
+            while (i < limit && buf[i] != LF) {
+                i++;
+            }
+            if (i < limit) {
+                skipped++;
+                m_lineNo++;
+                i++;
+            }
+            m_pos = i;
+        }
+        m_linesSkipped = true;
+    }
+
+    /* reads the quoted string, the begin quote is already consumed */
+    private void readQuotedString(final Quote quote) throws TokenizerException {
+        final char right = quote.getRight().charAt(0);
+        final boolean hasEscape = quote.hasEscapeChar();
+        final char esc = hasEscape ? quote.getEscape() : right;
+        while (m_pos < m_limit || fill()) {
+            final char[] buf = m_buf;
+            final int limit = m_limit;
+            final int start = m_pos;
+            int end = start;
+            char c = 0;
+            while (end < limit) {
+                c = buf[end];
+                if (c == right || c == esc || c == LF || c == CR) {
+                    break;
+                }
+                end++;
+            }
+            if (end > start) {
+                append(start, end);
+            }
+            m_pos = end;
+            if (end == limit) {
+                continue;
+            }
+            if (c == CR && isCRLF()) {
+                m_pos++;
+                continue;
+            }
+            if (c == LF) {
+                m_lineNo++;
+                if (!m_allowLFinQuotes) {
+                    throw new TokenizerException("New line in quoted string"
+                        + " (or closing quote missing). In line " + (m_lineNo - 1) + ".");
+                }
+            }
+            m_pos++;
+            if (hasEscape && c == esc) {
+                appendChar(translateEscChar(esc));
+            } else if (c == right) {
+                return;
+            } else {
+                append(m_pos - 1, m_pos);
+            }
+        }
+        // EOF ends the quoted string
+    }
+
+    /*
+     * Reads the char following the escape character and translates it like the Tokenizer does: n -> '\n', t -> '\t',
+     * any other char to itself and EOF to the escape char.
+     */
+    private char translateEscChar(final char esc) {
+        if (m_pos >= m_limit && !fill()) {
+            return esc;
+        }
+        char c = m_buf[m_pos];
+        if (c == CR && isCRLF()) {
+            m_pos++;
+            c = LF;
+        }
+        m_pos++;
+        if (c == LF) {
+            m_lineNo++;
+        } else if (c == 't') {
+            return '\t';
+        } else if (c == 'n') {
+            return '\n';
+        }
+        return c;
+    }
+
+    /* m_buf[m_pos] is a CR, checks whether it is followed by a LF */
+    private boolean isCRLF() {
+        if (m_pos + 1 >= m_limit) {
+            fill();
+        }
+        return m_pos + 1 < m_limit && m_buf[m_pos + 1] == LF;
+    }
+
+    /*
+     * Reads more chars from the source. Keeps the unread chars and the current token slice, compacting or growing
+     * the buffer as needed. Returns false if no more chars could be read.
+     */
+    private boolean fill() {
+        if (m_eof) {
+            return false;
+        }
+        final boolean keepSlice = !m_inScratch && m_sliceEnd > m_sliceStart;
+        final int keepFrom = keepSlice ? Math.min(m_sliceStart, m_pos) : m_pos;
+        final int keepLength = m_limit - keepFrom;
+        char[] target = m_buf;
+        if (keepLength > m_buf.length / 2) {
+            target = new char[m_buf.length * 2];
+        }
+        if (keepFrom > 0 || target != m_buf) {
+            System.arraycopy(m_buf, keepFrom, target, 0, keepLength);
+            m_buf = target;
+            m_pos -= keepFrom;
+            m_limit = keepLength;
+            if (keepSlice) {
+                m_sliceStart -= keepFrom;
+                m_sliceEnd -= keepFrom;
+            } else {
+                m_sliceStart = m_sliceEnd = 0;
+            }
+        }
+        try {
+            int read;
+            do {
+                read = m_source.read(m_buf, m_limit, m_buf.length - m_limit);
+            } while (read == 0);
+            if (read < 0) {
+                m_eof = true;
+                return false;
+            }
+            m_limit += read;
+            m_readChars += read;
+            return true;
+        } catch (IOException ioe) {
+            // same as the Tokenizer: an I/O problem ends the stream
+            m_eof = true;
+            return false;
+        }
+    }
+
+    private void resetToken() {
+        m_inScratch = false;
+        m_sliceStart = m_sliceEnd = 0;
+        m_scratchLength = 0;
+    }
+
+    private int tokenLength() {
+        return m_inScratch ? m_scratchLength : m_sliceEnd - m_sliceStart;
+    }
+
+    /* appends the chars [from, to) of the read buffer to the token */
+    private void append(final int from, final int to) {
+        if (!m_inScratch) {
+            if (m_sliceEnd == m_sliceStart) {
+                m_sliceStart = from;
+                m_sliceEnd = to;
+                return;
+            } else if (m_sliceEnd == from) {
+                m_sliceEnd = to;
+                return;
+            }
+            switchToScratch();
+        }
+        final int length = to - from;
+        ensureScratchCapacity(m_scratchLength + length);
+        System.arraycopy(m_buf, from, m_scratch, m_scratchLength, length);
+        m_scratchLength += length;
+    }
+
+    private void appendChar(final char c) {
+        if (!m_inScratch) {
+            switchToScratch();
+        }
+        ensureScratchCapacity(m_scratchLength + 1);
+        m_scratch[m_scratchLength++] = c;
+    }
+
+    private void switchToScratch() {
+        final int length = m_sliceEnd - m_sliceStart;
+        ensureScratchCapacity(length);
+        System.arraycopy(m_buf, m_sliceStart, m_scratch, 0, length);
+        m_scratchLength = length;
+        m_inScratch = true;
+    }
+
+    private void ensureScratchCapacity(final int capacity) {
+        if (capacity > m_scratch.length) {
+            final char[] newScratch = new char[Math.max(capacity, m_scratch.length * 2)];
+            System.arraycopy(m_scratch, 0, newScratch, 0, m_scratchLength);
+            m_scratch = newScratch;
+        }
+    }
+
+    /* strips white spaces from the end of the token, leaving the first protectedLength chars untouched */
+    private void trimWhiteSpaces(final int protectedLength) {
+        final char[] array = m_inScratch ? m_scratch : m_buf;
+        final int offset = m_inScratch ? 0 : m_sliceStart;
+        int length = tokenLength();
+        while (length > protectedLength) {
+            final char c = array[offset + length - 1];
+            if (c > Tokenizer.MAX_CHAR || (m_charClass[c] & WSCHAR) == 0) {
+                break;
+            }
+            length--;
+        }
+        if (m_inScratch) {
+            m_scratchLength = length;
+        } else {
+            m_sliceEnd = m_sliceStart + length;
+        }
+    }
+
+    /**
+     * The token returned by the last call of {@link #nextToken()} is returned once again with the next call.
+     */
+    public void pushBack() {
+        m_pushedBack = true;
+    }
+
+    /**
+     * @return <code>true</code> if the last token is a delimiter that is returned as token
+     * @see Tokenizer#lastTokenWasDelimiter()
+     */
+    public boolean lastTokenWasDelimiter() {
+        return m_tokenWasDelimiter;
+    }
+
+    /**
+     * @return <code>true</code> if the last token was terminated by a delimiter that is not returned as token
+     * @see Tokenizer#lastTokenWasDelimited()
+     */
+    public boolean lastTokenWasDelimited() {
+        return m_lastTokenWasDelimited;
+    }
+
+    /**
+     * @return <code>true</code> if the last token contained quotes
+     * @see Tokenizer#lastTokenWasQuoted()
+     */
+    public boolean lastTokenWasQuoted() {
+        return m_lastQuotes != null;
+    }
+
+    /**
+     * @return the current line number (not accurate if a token got pushed back)
+     */
+    public int getLineNumber() {
+        return m_lineNo;
+    }
+
+    /**
+     * @return the number of characters read from the source so far (which is ahead of the tokens returned)
+     */
+    public long getReadChars() {
+        return m_readChars;
+    }
+
+    /**
+     * Closes the source, any further call to {@link #nextToken()} returns the tokens still in the buffer.
+     */
+    public void closeSourceStream() {
+        m_eof = true;
+        try {
+            m_source.close();
+        } catch (IOException ioe) {
+            // okay, then don't close it.
+        }
+    }
+
+    /**
+     * Splits a file into ranges of roughly equal size that start at the beginning of a line and can be tokenized
+     * independently (see {@link #openRange(Path, long, long, Charset)}). This is only correct if records end with
+     * a new line character that can't occur within a token (i.e. {@link TokenizerSettings#allowLFinQuotes()} is
+     * <code>false</code>) and the file's charset is ASCII compatible (e.g. UTF-8 or ISO-8859-1), so that the byte
+     * <code>0x0A</code> always encodes a new line character.
+     *
+     * @param file the file to split
+     * @param numRanges the maximum number of ranges
+     * @return the boundaries of the ranges: range <i>i</i> spans the bytes from <code>result[i]</code> (inclusive)
+     *         to <code>result[i + 1]</code> (exclusive); the first element is 0, the last one the file size. The
+     *         array may describe fewer ranges than requested if the file has only few lines.
+     * @throws IOException if the file can't be read
+     */
+    public static long[] computeRanges(final Path file, final int numRanges) throws IOException {
+        if (numRanges < 1) {
+            throw new IllegalArgumentException("Number of ranges must be positive: " + numRanges);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long[] boundaries = new long[numRanges + 1];
+            final ByteBuffer buffer = ByteBuffer.allocate(8192);
+            int count = 1;
+            long previous = 0;
+            for (int i = 1; i < numRanges; i++) {
+                final long approx = Math.max(previous, size * i / numRanges);
+                if (approx == 0) {
+                    continue;
+                }
+                // the range starts after the first LF at or after approx - 1
+                final long boundary = findLineStart(channel, approx - 1, buffer);
+                if (boundary >= size) {
+                    break;
+                }
+                if (boundary > previous) {
+                    boundaries[count++] = boundary;
+                    previous = boundary;
+                }
+            }
+            boundaries[count++] = size;
+            if (count == boundaries.length) {
+                return boundaries;
+            }
+            final long[] result = new long[count];
+            System.arraycopy(boundaries, 0, result, 0, count);
+            return result;
+        }
+    }
+
+    /* returns the position after the first LF at or after the given position (or the channel's size) */
+    private static long findLineStart(final FileChannel channel, final long from, final ByteBuffer buffer)
+        throws IOException {
+        long pos = from;
+        while (true) {
+            buffer.clear();
+            final int read = channel.read(buffer, pos);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == LF) {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    /**
+     * Opens a reader on a byte range of a file, for instance one of the ranges computed by
+     * {@link #computeRanges(Path, int)}.
+     *
+     * @param file the file to read
+     * @param start the first byte to read
+     * @param end the end of the range (exclusive)
+     * @param charset the charset of the file
+     * @return a reader on the given range, to be closed by the caller
+     * @throws IOException if the file can't be opened
+     */
+    public static Reader openRange(final Path file, final long start, final long end, final Charset charset)
+        throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(start);
+            return new InputStreamReader(new RangeInputStream(Channels.newInputStream(channel), end - start),
+                charset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Input stream that returns at most a given number of bytes of the underlying stream. */
+    private static final class RangeInputStream extends FilterInputStream {
+
+        private long m_remaining;
+
+        RangeInputStream(final InputStream in, final long length) {
+            super(in);
+            m_remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (m_remaining <= 0) {
+                return -1;
+            }
+            final int b = super.read();
+            if (b >= 0) {
+                m_remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (m_remaining <= 0) {
+                return -1;
+            }
+            final int read = super.read(b, off, (int)Math.min(len, m_remaining));
+            if (read > 0) {
+                m_remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(Math.min(n, m_remaining));
+            m_remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(super.available(), m_remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /** The view on the current token. */
+    private final class TokenView implements CharSequence {
+
+        @Override
+        public int length() {
+            return tokenLength();
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= tokenLength()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + tokenLength());
+            }
+            return m_inScratch ? m_scratch[index] : m_buf[m_sliceStart + index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return m_inScratch ? new String(m_scratch, 0, m_scratchLength)
+                : new String(m_buf, m_sliceStart, m_sliceEnd - m_sliceStart);
+        }
+    }
+}